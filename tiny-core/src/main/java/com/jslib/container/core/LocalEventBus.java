@@ -0,0 +1,81 @@
+package com.jslib.container.core;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+import com.jslib.container.spi.IEventBus;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * In-JVM event bus, mainly for tests. Every instance is a node; a message published on a node is delivered synchronously, on
+ * publisher thread, to channel listeners of all other live instances from the same JVM. Useful to test cross-node event
+ * delivery with several containers in a single process.
+ *
+ * @author Iulian Rotaru
+ */
+@ApplicationScoped
+public class LocalEventBus implements IEventBus {
+	private static final Log log = LogFactory.getLog(LocalEventBus.class);
+
+	/** Live event bus instances, that is, nodes, from current JVM. */
+	private static final Set<LocalEventBus> NODES = new CopyOnWriteArraySet<>();
+
+	private final Map<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+
+	@Inject
+	public LocalEventBus() {
+		log.trace("LocalEventBus()");
+		NODES.add(this);
+	}
+
+	@PreDestroy
+	public void preDestroy() {
+		log.trace("preDestroy()");
+		NODES.remove(this);
+	}
+
+	@Override
+	public void publish(String channel, byte[] message) {
+		for (LocalEventBus node : NODES) {
+			if (node != this) {
+				node.deliver(channel, message);
+			}
+		}
+	}
+
+	@Override
+	public void subscribe(String channel, Listener listener) {
+		listeners.computeIfAbsent(channel, key -> new CopyOnWriteArrayList<>()).add(listener);
+	}
+
+	@Override
+	public void unsubscribe(String channel, Listener listener) {
+		List<Listener> channelListeners = listeners.get(channel);
+		if (channelListeners != null) {
+			channelListeners.remove(listener);
+		}
+	}
+
+	private void deliver(String channel, byte[] message) {
+		List<Listener> channelListeners = listeners.get(channel);
+		if (channelListeners == null) {
+			return;
+		}
+		for (Listener listener : channelListeners) {
+			try {
+				listener.onMessage(message);
+			} catch (Throwable t) {
+				log.dump(String.format("Fail to deliver event bus message on channel |%s|:", channel), t);
+			}
+		}
+	}
+}
@@ -0,0 +1,407 @@
+package com.jslib.container.core;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+import com.jslib.container.spi.IContainer;
+import com.jslib.container.spi.IEventBus;
+import com.jslib.container.spi.ServiceConfigurationException;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Event bus over UDP multicast. By default multicast group is joined on loopback interface with zero time to live, that is,
+ * nodes are application instances running on the same host; for nodes on a LAN configure network interface and time to live.
+ * <p>
+ * Published messages are batched: a datagram is sent when it reaches {@link #PARAM_DATAGRAM_SIZE} or when the first message
+ * from batch waited for {@link #PARAM_LINGER} milliseconds. Every datagram carries the sender node ID and a per node sequence
+ * number. Receivers discard own, duplicated and reordered datagrams and detect gaps, that is, lost datagrams; losses are
+ * logged and counted but not recovered, delivery is best effort.
+ * <p>
+ * Datagrams are neither authenticated nor encrypted: any process able to send to multicast group, on current host or on a LAN
+ * if time to live allows it, can publish messages to all nodes. Listeners should validate received messages and multicast
+ * group should be reachable only from trusted hosts.
+ * <p>
+ * Datagram wire format, all integers big endian:
+ *
+ * <pre>
+ * datagram = magic node-id sequence count *message
+ * magic    = int 0x45425553
+ * node-id  = long long ; sender node UUID
+ * sequence = long      ; sender datagram sequence, starting with 1
+ * count    = short     ; number of messages
+ * message  = short channel-bytes int message-bytes
+ * </pre>
+ *
+ * Event bus is configurable from context parameters. All parameters are optional.
+ *
+ * @author Iulian Rotaru
+ */
+@ApplicationScoped
+public class MulticastEventBus implements IEventBus {
+	private static final Log log = LogFactory.getLog(MulticastEventBus.class);
+
+	/** Context parameter for multicast group address. */
+	public static final String PARAM_GROUP = "com.jslib.container.bus.group";
+	/** Context parameter for multicast port. */
+	public static final String PARAM_PORT = "com.jslib.container.bus.port";
+	/** Context parameter for network interface name, default to loopback. */
+	public static final String PARAM_INTERFACE = "com.jslib.container.bus.interface";
+	/** Context parameter for multicast time to live, default to zero, that is, current host only. */
+	public static final String PARAM_TTL = "com.jslib.container.bus.ttl";
+	/** Context parameter for maximum batch datagram size, in bytes. */
+	public static final String PARAM_DATAGRAM_SIZE = "com.jslib.container.bus.datagram.size";
+	/** Context parameter for maximum time, in milliseconds, a published message waits for batching. */
+	public static final String PARAM_LINGER = "com.jslib.container.bus.linger";
+
+	private static final String DEFAULT_GROUP = "239.255.27.1";
+	private static final int DEFAULT_PORT = 4446;
+	private static final int DEFAULT_DATAGRAM_SIZE = 1400;
+	private static final long DEFAULT_LINGER = 2;
+
+	private static final int MAGIC = 0x45425553;
+	private static final int HEADER_SIZE = 4 + 16 + 8 + 2;
+	/** Maximum UDP payload; a message that does not fit alone in a datagram is rejected. */
+	private static final int MAX_DATAGRAM_SIZE = 65507;
+
+	private final UUID nodeId;
+
+	private final Map<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+
+	private final Sender sender;
+
+	private final int datagramSize;
+
+	private final long linger;
+
+	private final MulticastSocket socket;
+
+	private final InetSocketAddress group;
+
+	private final NetworkInterface networkInterface;
+
+	private final ScheduledExecutorService scheduler;
+
+	/** Current batch, with room for header at start. Guarded by this event bus instance. */
+	private final ByteBuffer batch;
+
+	/** Number of messages on current batch. Guarded by this event bus instance. */
+	private int batchCount;
+
+	/** Scheduled flush for current batch, null if batch is empty. Guarded by this event bus instance. */
+	private ScheduledFuture<?> lingerFlush;
+
+	/** Last sent datagram sequence. Guarded by this event bus instance. */
+	private long sequence;
+
+	/** Last received datagram sequence for every sender node, accessed only by receiver thread. */
+	private final Map<UUID, Long> lastSequences = new HashMap<>();
+
+	private final AtomicLong sentDatagrams = new AtomicLong();
+	private final AtomicLong receivedDatagrams = new AtomicLong();
+	private final AtomicLong lostDatagrams = new AtomicLong();
+
+	@Inject
+	public MulticastEventBus(IContainer container) {
+		log.trace("MulticastEventBus(IContainer)");
+		this.nodeId = UUID.randomUUID();
+
+		String group = container.getInitParameter(PARAM_GROUP, String.class);
+		Integer port = container.getInitParameter(PARAM_PORT, Integer.class);
+		String networkInterface = container.getInitParameter(PARAM_INTERFACE, String.class);
+		Integer ttl = container.getInitParameter(PARAM_TTL, Integer.class);
+		Integer datagramSize = container.getInitParameter(PARAM_DATAGRAM_SIZE, Integer.class);
+		Long linger = container.getInitParameter(PARAM_LINGER, Long.class);
+
+		this.datagramSize = Math.min(Math.max(datagramSize != null ? datagramSize : DEFAULT_DATAGRAM_SIZE, HEADER_SIZE + 1), MAX_DATAGRAM_SIZE);
+		this.linger = linger != null ? linger : DEFAULT_LINGER;
+		this.batch = ByteBuffer.allocate(MAX_DATAGRAM_SIZE);
+		this.batch.position(HEADER_SIZE);
+
+		try {
+			this.group = new InetSocketAddress(InetAddress.getByName(group != null ? group : DEFAULT_GROUP), port != null ? port : DEFAULT_PORT);
+			this.networkInterface = networkInterface != null ? NetworkInterface.getByName(networkInterface) : NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+			if (this.networkInterface == null) {
+				throw new ServiceConfigurationException("Missing network interface |%s| for event bus.", networkInterface);
+			}
+
+			this.socket = new MulticastSocket(this.group.getPort());
+			this.socket.setNetworkInterface(this.networkInterface);
+			this.socket.setTimeToLive(ttl != null ? ttl : 0);
+			// false means loopback enabled; other nodes from the same host receive datagrams via loopback
+			this.socket.setLoopbackMode(false);
+			this.socket.joinGroup(this.group, this.networkInterface);
+		} catch (IOException e) {
+			throw new ServiceConfigurationException("Fail to open event bus multicast socket.", e);
+		}
+
+		this.sender = (datagram, length) -> socket.send(new DatagramPacket(datagram, length, this.group));
+		this.scheduler = scheduler();
+
+		Thread receiver = new Thread(this::receive, "Event Bus Receiver");
+		receiver.setDaemon(true);
+		receiver.start();
+		log.debug("Event bus node |{node}| joined multicast group |{group}| on |{interface}|.", nodeId, this.group, this.networkInterface.getName());
+	}
+
+	/**
+	 * Test constructor, without network.
+	 *
+	 * @param nodeId node ID,
+	 * @param datagramSize maximum batch datagram size,
+	 * @param linger batch linger time, in milliseconds,
+	 * @param sender datagrams sender.
+	 */
+	MulticastEventBus(UUID nodeId, int datagramSize, long linger, Sender sender) {
+		this.nodeId = nodeId;
+		this.datagramSize = datagramSize;
+		this.linger = linger;
+		this.sender = sender;
+		this.batch = ByteBuffer.allocate(MAX_DATAGRAM_SIZE);
+		this.batch.position(HEADER_SIZE);
+		this.socket = null;
+		this.group = null;
+		this.networkInterface = null;
+		this.scheduler = scheduler();
+	}
+
+	private static ScheduledExecutorService scheduler() {
+		return Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "Event Bus Sender");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/** Send pending batch, stop sender thread and leave multicast group; receiver thread exits on socket close. */
+	@PreDestroy
+	public void preDestroy() {
+		log.trace("preDestroy()");
+		synchronized (this) {
+			flush();
+		}
+		scheduler.shutdownNow();
+		if (socket != null) {
+			try {
+				socket.leaveGroup(group, networkInterface);
+			} catch (IOException e) {
+				log.debug("Fail to leave event bus multicast group: {exception}", e);
+			}
+			socket.close();
+		}
+	}
+
+	/**
+	 * Append message to current batch. Batch is sent immediately if full, otherwise after linger time. This method does not wait
+	 * for network; datagram send only hands it to operating system.
+	 */
+	@Override
+	public void publish(String channel, byte[] message) {
+		byte[] channelBytes = channel.getBytes(StandardCharsets.UTF_8);
+		int size = 2 + channelBytes.length + 4 + message.length;
+		if (HEADER_SIZE + size > MAX_DATAGRAM_SIZE) {
+			log.warn("Event bus message on channel |{channel}| is too large: |{size}| bytes. Discard it.", channel, size);
+			return;
+		}
+
+		synchronized (this) {
+			if (batchCount > 0 && batch.position() + size > datagramSize) {
+				flush();
+			}
+			batch.putShort((short) channelBytes.length);
+			batch.put(channelBytes);
+			batch.putInt(message.length);
+			batch.put(message);
+			++batchCount;
+
+			if (batch.position() >= datagramSize || linger <= 0) {
+				flush();
+			} else if (lingerFlush == null) {
+				lingerFlush = scheduler.schedule(this::lingerExpired, linger, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	private synchronized void lingerExpired() {
+		lingerFlush = null;
+		flush();
+	}
+
+	/** Send current batch, if not empty. Guarded by this event bus instance. */
+	private void flush() {
+		if (lingerFlush != null) {
+			lingerFlush.cancel(false);
+			lingerFlush = null;
+		}
+		if (batchCount == 0) {
+			return;
+		}
+
+		int length = batch.position();
+		batch.putInt(0, MAGIC);
+		batch.putLong(4, nodeId.getMostSignificantBits());
+		batch.putLong(12, nodeId.getLeastSignificantBits());
+		batch.putLong(20, ++sequence);
+		batch.putShort(28, (short) batchCount);
+
+		try {
+			sender.send(batch.array(), length);
+			sentDatagrams.incrementAndGet();
+		} catch (IOException e) {
+			log.error("Fail to send event bus datagram |{sequence}|: {exception}", sequence, e);
+		}
+
+		batch.position(HEADER_SIZE);
+		batchCount = 0;
+	}
+
+	@Override
+	public void subscribe(String channel, Listener listener) {
+		listeners.computeIfAbsent(channel, key -> new CopyOnWriteArrayList<>()).add(listener);
+	}
+
+	@Override
+	public void unsubscribe(String channel, Listener listener) {
+		List<Listener> channelListeners = listeners.get(channel);
+		if (channelListeners != null) {
+			channelListeners.remove(listener);
+		}
+	}
+
+	/** Receiver thread loop. */
+	private void receive() {
+		byte[] buffer = new byte[MAX_DATAGRAM_SIZE];
+		DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+		for (;;) {
+			try {
+				packet.setLength(buffer.length);
+				socket.receive(packet);
+			} catch (SocketException e) {
+				// socket closed by pre-destroy
+				break;
+			} catch (IOException e) {
+				log.error("Fail to receive event bus datagram: {exception}", e);
+				continue;
+			}
+			receive(buffer, packet.getLength());
+		}
+		log.debug("Event bus node |{node}| receiver stopped.", nodeId);
+	}
+
+	/**
+	 * Parse datagram and deliver its messages to channels listeners. Own datagrams, looped back by multicast, and datagrams
+	 * with sequence not greater than last received from the same node are discarded; a sequence jump is a gap, that is, lost
+	 * datagrams. Executed by receiver thread.
+	 *
+	 * @param datagram datagram buffer,
+	 * @param length datagram length.
+	 */
+	void receive(byte[] datagram, int length) {
+		ByteBuffer buffer = ByteBuffer.wrap(datagram, 0, length);
+		try {
+			if (buffer.getInt() != MAGIC) {
+				log.debug("Not an event bus datagram. Ignore it.");
+				return;
+			}
+			UUID senderId = new UUID(buffer.getLong(), buffer.getLong());
+			if (senderId.equals(nodeId)) {
+				return;
+			}
+
+			long datagramSequence = buffer.getLong();
+			Long lastSequence = lastSequences.get(senderId);
+			if (lastSequence != null) {
+				if (datagramSequence <= lastSequence) {
+					log.debug("Duplicated or reordered datagram |{sequence}| from event bus node |{node}|. Discard it.", datagramSequence, senderId);
+					return;
+				}
+				if (datagramSequence > lastSequence + 1) {
+					long lost = datagramSequence - lastSequence - 1;
+					lostDatagrams.addAndGet(lost);
+					log.warn("Event bus gap: lost |{count}| datagrams from node |{node}| before |{sequence}|.", lost, senderId, datagramSequence);
+				}
+			}
+			lastSequences.put(senderId, datagramSequence);
+			receivedDatagrams.incrementAndGet();
+
+			int count = buffer.getShort() & 0xFFFF;
+			for (int i = 0; i < count; ++i) {
+				byte[] channel = new byte[buffer.getShort() & 0xFFFF];
+				buffer.get(channel);
+				byte[] message = new byte[buffer.getInt()];
+				buffer.get(message);
+				deliver(new String(channel, StandardCharsets.UTF_8), message);
+			}
+		} catch (BufferUnderflowException | NegativeArraySizeException e) {
+			log.warn("Malformed event bus datagram. Ignore it.");
+		}
+	}
+
+	private void deliver(String channel, byte[] message) {
+		List<Listener> channelListeners = listeners.get(channel);
+		if (channelListeners == null) {
+			return;
+		}
+		for (Listener listener : channelListeners) {
+			try {
+				listener.onMessage(message);
+			} catch (Throwable t) {
+				log.dump(String.format("Fail to deliver event bus message on channel |%s|:", channel), t);
+			}
+		}
+	}
+
+	public UUID getNodeId() {
+		return nodeId;
+	}
+
+	public long getSentDatagrams() {
+		return sentDatagrams.get();
+	}
+
+	public long getReceivedDatagrams() {
+		return receivedDatagrams.get();
+	}
+
+	/**
+	 * Get the number of datagrams detected as lost from sequence gaps.
+	 *
+	 * @return lost datagrams count.
+	 */
+	public long getLostDatagrams() {
+		return lostDatagrams.get();
+	}
+
+	/**
+	 * Datagrams sender. Production sender writes to multicast socket.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	@FunctionalInterface
+	interface Sender {
+		void send(byte[] datagram, int length) throws IOException;
+	}
+}
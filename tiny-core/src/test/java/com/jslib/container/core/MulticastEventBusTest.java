@@ -0,0 +1,153 @@
+package com.jslib.container.core;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MulticastEventBusTest {
+	private List<byte[]> datagrams;
+	private List<String> messages;
+	private MulticastEventBus sender;
+	private MulticastEventBus receiver;
+
+	@Before
+	public void beforeTest() {
+		datagrams = new ArrayList<>();
+		messages = new ArrayList<>();
+		receiver = bus(1400, 0);
+		receiver.subscribe("channel", message -> messages.add(new String(message, StandardCharsets.UTF_8)));
+	}
+
+	@After
+	public void afterTest() {
+		if (sender != null) {
+			sender.preDestroy();
+		}
+		receiver.preDestroy();
+	}
+
+	@Test
+	public void GivenPublishedMessage_WhenReceive_ThenListenerInvoked() {
+		// given
+		sender = bus(1400, 0);
+		sender.publish("channel", bytes("message"));
+		sender.publish("other", bytes("other message"));
+
+		// when
+		receiveAll();
+
+		// then
+		assertThat(messages, contains("message"));
+		assertThat(receiver.getReceivedDatagrams(), equalTo(2L));
+	}
+
+	@Test
+	public void GivenMessagesWithinLinger_WhenFlush_ThenSingleDatagram() {
+		// given
+		sender = bus(1400, 60000);
+		sender.publish("channel", bytes("message #1"));
+		sender.publish("channel", bytes("message #2"));
+		sender.publish("channel", bytes("message #3"));
+		assertThat(datagrams, empty());
+
+		// when
+		sender.preDestroy();
+		receiveAll();
+
+		// then
+		assertThat(datagrams.size(), equalTo(1));
+		assertThat(messages, contains("message #1", "message #2", "message #3"));
+	}
+
+	@Test
+	public void GivenFullBatch_WhenPublish_ThenDatagramSent() {
+		// given
+		sender = bus(64, 60000);
+		sender.publish("channel", bytes("01234567890123456789"));
+
+		// when
+		sender.publish("channel", bytes("98765432109876543210"));
+
+		// then
+		assertThat(datagrams.size(), equalTo(1));
+		receiveAll();
+		assertThat(messages, contains("01234567890123456789"));
+	}
+
+	@Test
+	public void GivenLostDatagram_WhenReceive_ThenGapDetected() {
+		// given
+		sender = bus(1400, 0);
+		sender.publish("channel", bytes("message #1"));
+		sender.publish("channel", bytes("message #2"));
+		sender.publish("channel", bytes("message #3"));
+
+		// when
+		receive(datagrams.get(0));
+		receive(datagrams.get(2));
+
+		// then
+		assertThat(messages, contains("message #1", "message #3"));
+		assertThat(receiver.getLostDatagrams(), equalTo(1L));
+	}
+
+	@Test
+	public void GivenDuplicatedDatagram_WhenReceive_ThenDiscarded() {
+		// given
+		sender = bus(1400, 0);
+		sender.publish("channel", bytes("message"));
+
+		// when
+		receive(datagrams.get(0));
+		receive(datagrams.get(0));
+
+		// then
+		assertThat(messages, contains("message"));
+		assertThat(receiver.getLostDatagrams(), equalTo(0L));
+	}
+
+	@Test
+	public void GivenOwnDatagram_WhenReceive_ThenIgnored() {
+		// given
+		sender = new MulticastEventBus(receiver.getNodeId(), 1400, 0, this::send);
+		sender.publish("channel", bytes("message"));
+
+		// when
+		receiveAll();
+
+		// then
+		assertThat(messages, empty());
+	}
+
+	private MulticastEventBus bus(int datagramSize, long linger) {
+		return new MulticastEventBus(UUID.randomUUID(), datagramSize, linger, this::send);
+	}
+
+	private void send(byte[] datagram, int length) {
+		// sender reuses its batch buffer
+		datagrams.add(Arrays.copyOf(datagram, length));
+	}
+
+	private void receiveAll() {
+		datagrams.forEach(this::receive);
+	}
+
+	private void receive(byte[] datagram) {
+		receiver.receive(datagram, datagram.length);
+	}
+
+	private static byte[] bytes(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+}
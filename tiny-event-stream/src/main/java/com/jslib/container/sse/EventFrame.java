@@ -0,0 +1,89 @@
+package com.jslib.container.sse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import com.jslib.api.json.Json;
+import com.jslib.lang.BugError;
+import com.jslib.lang.Event;
+
+/**
+ * Event queued on an event stream, together with its enqueue timestamp and, optionally, its wire bytes. Event stream manager
+ * broadcasts the same frame to all event streams, see {@link #encode(Json, Event)}, so that an event is serialized once per
+ * push, not once per connected client. A frame created by {@link #EventFrame(Event)} has no bytes and is serialized by event
+ * stream itself, see {@link EventStream#sendEvent(Event)}.
+ * <p>
+ * Frame bytes are immutable and safe to share between writer threads.
+ *
+ * @author Iulian Rotaru
+ */
+final class EventFrame implements Event {
+	/**
+	 * Serialize event to W3C Server-Sent Events wire format, the same as produced by {@link EventStream#sendEvent(Event)}.
+	 *
+	 * @param json JSON service implementation,
+	 * @param event event instance.
+	 * @return encoded event frame.
+	 */
+	public static EventFrame encode(Json json, Event event) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(bytes, StandardCharsets.UTF_8));
+
+		writer.write("event:");
+		writer.write(event.getClass().getSimpleName());
+		writer.write("\r\n");
+
+		writer.write("data:");
+		try {
+			json.stringify(writer, event);
+		} catch (IOException e) {
+			// print writer never throws IO exceptions
+			throw new BugError(e);
+		}
+		writer.write("\r\n");
+
+		// single end of line is the mark for event end
+		writer.write("\r\n");
+		writer.flush();
+
+		return new EventFrame(event, bytes.toByteArray());
+	}
+
+	private final Event event;
+
+	/** Encoded event or null if event is to be serialized by event stream. */
+	private final byte[] bytes;
+
+	/** Timestamp when event was pushed, used for event stream lag. */
+	private final long timestamp;
+
+	public EventFrame(Event event) {
+		this(event, null);
+	}
+
+	private EventFrame(Event event, byte[] bytes) {
+		this.event = event;
+		this.bytes = bytes;
+		this.timestamp = System.currentTimeMillis();
+	}
+
+	public Event getEvent() {
+		return event;
+	}
+
+	public byte[] getBytes() {
+		return bytes;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	@Override
+	public String toString() {
+		return event.toString();
+	}
+}
@@ -1,12 +1,22 @@
 package com.jslib.container.sse;
 
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 import com.jslib.api.log.Log;
 import com.jslib.api.log.LogFactory;
@@ -18,14 +28,36 @@ import com.jslib.lang.KeepAliveEvent;
 import com.jslib.util.Classes;
 import com.jslib.util.Strings;
 
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
 /**
- * Push W3C Server-Sent Events to a writer that is connecting an event stream client. {@link EventStreamServlet} delegates
- * events stream manager to create an instance of this class for every event stream request and block on it while
- * {@link #loop()} returns true.
+ * Push W3C Server-Sent Events to an event stream client connected via a servlet asynchronous context.
+ * {@link EventStreamServlet} delegates events stream manager to create an instance of this class for every event stream
+ * request, then opens it on request asynchronous context, see {@link #open(AsyncContext, ServletOutputStream)}, and returns.
+ * <p>
+ * Event stream is a queue backed state machine; it does not own, nor block, any thread. Pushed events are stored on events
+ * queue and event stream is scheduled on the writers pool shared by all event streams, see {@link EventStreamDispatcher}.
+ * Writer thread drains events queue while response output stream is ready; output stream is in non-blocking mode and if
+ * client does not keep up, writing is resumed by servlet container when client socket becomes writable. So, ten thousand
+ * connected clients do not need ten thousand threads.
+ * <p>
+ * Event stream states are: {@link State#CREATED} after creation, when pushed events are queued but not written,
+ * {@link State#OPEN} after asynchronous context is attached, {@link State#CLOSING} after {@link #close()} while pending events
+ * are still written and {@link State#CLOSED} after asynchronous context is completed, due to close or to client disconnect.
+ * <p>
+ * Events queue is bounded. If a client does not keep up and queue is full, event stream overflow policy decides whether the
+ * oldest or the newest event is dropped or the client is disconnected; dropped events are counted. Queue depth, lag and
+ * dropped events count are exposed for monitoring, see {@link #getQueueDepth()}, {@link #getLag()} and
+ * {@link #getDroppedCount()}.
  * <p>
  * Instances of this class are created by {@link EventStreamManagerImpl} via {@link EventStreamManager} interface. Usually
  * this class if not used by user space code but there is no formal restriction in extending it with custom functionality. If
- * this is the case, do not forget to declare injector bindings.
+ * this is the case, do not forget to declare injector bindings. Events pushed by manager are serialized once for all event
+ * streams but a subclass that overrides {@link #sendEvent(Event)} serializes every event itself.
  * 
  * <pre>
  *  &lt;app&gt;
@@ -60,48 +92,140 @@ import com.jslib.util.Strings;
  * dead connection detection packets there is usual practice for routers to disconnect idle connections in order to free
  * resources.
  * <p>
- * This event stream takes care to send a keep alive event immediately a client is connected, see {@link #onOpen()}. This way
- * client side has the chance to quickly know that event stream is properly initialized.
+ * Keep alive checks are run by the scheduler shared by all event streams and keep alive is sent only if nothing was written
+ * for keep alive period. This event stream takes care to send a keep alive event immediately a client is connected, see
+ * {@link #onOpen()}. This way client side has the chance to quickly know that event stream is properly initialized.
  * 
  * @author Iulian Rotaru
  */
-public class EventStream implements Closeable {
+public class EventStream implements Closeable, AsyncListener {
 	private static final Log log = LogFactory.getLog(EventStream.class);
 
-	/** Events queue timeout used to guard queue offer operation, in milliseconds. */
-	private static final int EVENTS_QUEUE_PUSH_TIMEOUT = 4000;
-
 	/**
 	 * Default keep alive timeout loaded from application descriptor. See {@link #keepAlivePeriod} for a discussion about this
 	 * timeout value and configuration.
 	 */
 	private static int KEEP_ALIVE_TIMEOUT = 40000;
 
+	/** Default events queue capacity. */
+	static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	/** Batch buffer size, in bytes, above which batch is written to output stream without waiting for more events. */
+	private static final int BATCH_SIZE = 8192;
+
+	/** Internal marker queued by keep alive check; when drained, {@link #sendKeepAlive()} is invoked. */
+	private static final Event KEEP_ALIVE = new KeepAliveMarker();
+
+	/** Flag per event stream class, true if class overrides {@link #sendEvent(Event)}, in which case shared frames are ignored. */
+	private static final ClassValue<Boolean> SEND_EVENT_OVERRIDDEN = new ClassValue<>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			for (Class<?> superclass = type; superclass != EventStream.class; superclass = superclass.getSuperclass()) {
+				try {
+					superclass.getDeclaredMethod("sendEvent", Event.class);
+					return true;
+				} catch (NoSuchMethodException e) {
+					// continue with superclass
+				}
+			}
+			return false;
+		}
+	};
+
 	/**
 	 * Every event stream has its own unique ID used merely for debugging. Stream ID is unique only on current application run;
 	 * it is not preserved after application restart.
 	 */
 	private static int STREAM_ID;
 
+	/** Event stream life cycle states. */
+	public enum State {
+		/** Created but not yet attached to a client connection; pushed events are queued. */
+		CREATED,
+		/** Attached to client connection; pushed events are written. */
+		OPEN,
+		/** Close requested; events already pushed are still written but pushing new events is rejected. */
+		CLOSING,
+		/** Asynchronous context completed; event stream is not usable anymore. */
+		CLOSED
+	}
+
 	private final JsonSerializer json;
 
-	/** Flag indicating this event stream instance is active. */
-	private final AtomicBoolean active;
+	private final AtomicReference<State> state;
 
 	/**
-	 * Blocking events queue. This queue is used from two threads: events stream servlet thread is waiting for the queue to
-	 * acquire an event, see {@link #loop()} and second, the event service thread uses {@link #push(Event)} to actually enqueue
-	 * the event.
+	 * Events queue. This queue is used from two threads: event service thread uses {@link #push(Event)} to actually enqueue the
+	 * event and writer thread drains it, see {@link #drain()}.
 	 */
-	private final BlockingQueue<Event> eventsQueue;
+	private final Queue<Event> eventsQueue;
+
+	/** Number of events waiting on events queue, internal markers excluded. */
+	private final AtomicInteger queueDepth;
+
+	/** Number of events discarded because events queue was full. */
+	private final AtomicLong droppedCount;
+
+	/** Flag true while this event stream is scheduled on a writer thread, see {@link EventStreamDispatcher}. */
+	private final AtomicBoolean scheduled;
+
+	/** Serialization buffer for current event, written to {@link #outputStream} when event is completely serialized. */
+	private final ByteArrayOutputStream frame;
 
 	/**
-	 * Underlying characters stream used to actually carry serialized event to the client. Please remember that Java print
-	 * writer does not throw IO exceptions and provide {@link PrintWriter#checkError()} for that. Event stream uses error
-	 * checking mechanism to break {@link #loop()} on errors. This helps closing event stream and parent servlet instance when
-	 * remote client closes its connection.
+	 * Characters stream used by {@link #sendEvent(Event)} and {@link #sendKeepAlive()} to serialize events into {@link #frame}
+	 * buffer. Writer never blocks and never fails since it does not write to network.
 	 */
-	private PrintWriter writer;
+	private final PrintWriter writer;
+
+	/** Threads pool and scheduler shared by all event streams, injected by event stream manager. */
+	private EventStreamDispatcher dispatcher;
+
+	/** Listener invoked after this event stream is closed, used by event stream manager to release it. */
+	private Consumer<EventStream> closeListener;
+
+	/** Maximum number of events waiting on events queue. */
+	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+	/** Policy applied when events queue is full. */
+	private EventStreamOverflowPolicy overflowPolicy = EventStreamOverflowPolicy.DROP_OLDEST;
+
+	private AsyncContext asyncContext;
+
+	/** Response output stream, in non-blocking mode. */
+	private ServletOutputStream outputStream;
+
+	/** Events coalesced into one output stream write, see {@link #drain()}. Guarded by this event stream instance. */
+	private final ByteArrayOutputStream batch;
+
+	/** Events from current batch, for {@link #onSent(Event)} hook invoked after batch write. */
+	private final List<Event> batchEvents;
+
+	/** Compressed bytes produced by {@link #gzip} stream, written to output stream then reset. */
+	private final ByteArrayOutputStream compressed;
+
+	/** Flag true if client accepts GZIP content coding and event stream should compress events. */
+	private boolean gzipEnabled;
+
+	/** GZIP stream compressing batches into {@link #compressed} buffer, null if compression is not enabled. */
+	private GZIPOutputStream gzip;
+
+	/** Flag true if events were written after last flush. Guarded by this event stream instance. */
+	private boolean flushPending;
+
+	/** Timestamp of the first write after last flush. Guarded by this event stream instance. */
+	private long flushPendingMillis;
+
+	/** Maximum time, in milliseconds, a written event waits for flush, in order to coalesce more events in a network packet. */
+	private long flushDelay;
+
+	/** Flag true while a delayed flush is scheduled. Guarded by this event stream instance. */
+	private boolean flushScheduled;
+
+	/** Timestamp of the last event written, used by keep alive check. */
+	private volatile long lastWriteMillis;
+
+	private ScheduledFuture<?> keepAliveCheck;
 
 	/**
 	 * Send keep alive if there are no events sent for this amount of time, in milliseconds. Keep alive events have double role:
@@ -131,11 +255,8 @@ public class EventStream implements Closeable {
 	private String string;
 
 	public EventStream() {
+		this(Classes.loadService(Json.class), new ConcurrentLinkedQueue<>(), true);
 		log.trace("EventStream()");
-		this.json = new JsonSerializer(Classes.loadService(Json.class));
-		this.eventsQueue = new LinkedBlockingQueue<>();
-		this.active = new AtomicBoolean(true);
-		this.string = Strings.concat('#', STREAM_ID++);
 	}
 
 	/**
@@ -145,11 +266,20 @@ public class EventStream implements Closeable {
 	 * @param eventsQueue mock events queue,
 	 * @param active flag for initialization of internal active state.
 	 */
-	public EventStream(Json json, BlockingQueue<Event> eventsQueue, boolean active) {
-		log.trace("EventStream(Json, BlockingQueue<Event>, boolean)");
+	public EventStream(Json json, Queue<Event> eventsQueue, boolean active) {
+		log.trace("EventStream(Json, Queue<Event>, boolean)");
 		this.json = new JsonSerializer(json);
 		this.eventsQueue = eventsQueue;
-		this.active = new AtomicBoolean(active);
+		this.state = new AtomicReference<>(active ? State.CREATED : State.CLOSED);
+		this.queueDepth = new AtomicInteger();
+		this.droppedCount = new AtomicLong();
+		this.scheduled = new AtomicBoolean(false);
+		this.frame = new ByteArrayOutputStream();
+		this.batch = new ByteArrayOutputStream();
+		this.batchEvents = new ArrayList<>();
+		this.compressed = new ByteArrayOutputStream();
+		this.writer = new PrintWriter(new OutputStreamWriter(frame, StandardCharsets.UTF_8));
+		this.lastWriteMillis = System.currentTimeMillis();
 		this.string = Strings.concat('#', STREAM_ID++);
 	}
 
@@ -165,93 +295,428 @@ public class EventStream implements Closeable {
 	}
 
 	/**
-	 * Push event to this events stream client. This method just stores the event on {@link #eventsQueue events queue} being
-	 * executed into invoker thread. This events stream thread is blocked on the events queue; after this method execution it
-	 * will unblock and process the event, see {@link #loop()} method.
-	 * <p>
-	 * Queue offer operation is guarded by {@link #EVENTS_QUEUE_PUSH_TIMEOUT}. This timeout can occur only in a very improbable
-	 * condition of events flood combined with system resources starvation. For this reason there is no attempt to recover;
-	 * event is simple lost with warning on application logger.
+	 * Bind this event stream to shared dispatcher, configure events queue and register listener for close. Invoked by event
+	 * stream manager on event stream creation.
+	 * 
+	 * @param dispatcher shared writers pool and keep alive scheduler,
+	 * @param queueCapacity events queue capacity,
+	 * @param overflowPolicy policy applied when events queue is full,
+	 * @param flushDelay maximum flush delay, in milliseconds, zero to flush as soon as events queue is empty,
+	 * @param closeListener listener invoked after event stream close.
+	 */
+	void bind(EventStreamDispatcher dispatcher, int queueCapacity, EventStreamOverflowPolicy overflowPolicy, long flushDelay, Consumer<EventStream> closeListener) {
+		this.dispatcher = dispatcher;
+		this.queueCapacity = Math.max(queueCapacity, 1);
+		this.overflowPolicy = overflowPolicy;
+		this.flushDelay = Math.max(flushDelay, 0);
+		this.closeListener = closeListener;
+	}
+
+	/**
+	 * Enable GZIP compression for events written on this event stream. Event stream servlet enables compression if client
+	 * accepts GZIP content coding; it should be invoked before {@link #open(AsyncContext, ServletOutputStream)}.
+	 * 
+	 * @param gzipEnabled flag true to enable compression.
+	 */
+	void setGzipEnabled(boolean gzipEnabled) {
+		this.gzipEnabled = gzipEnabled;
+	}
+
+	/**
+	 * Attach this event stream to client connection. Switch response output stream to non-blocking mode, invoke
+	 * {@link #onOpen()} hook and start keep alive checks. Asynchronous context should be already started.
+	 * 
+	 * @param asyncContext servlet asynchronous context,
+	 * @param outputStream response output stream.
+	 * @throws BugError if event stream is not in {@link State#CREATED} state.
+	 */
+	public void open(AsyncContext asyncContext, ServletOutputStream outputStream) {
+		if (!state.compareAndSet(State.CREATED, State.OPEN)) {
+			throw new BugError("Attempt to open event stream |%s| in state |%s|.", this, state.get());
+		}
+		if (gzipEnabled) {
+			try {
+				// GZIP header is stored on compressed buffer and written together with first batch
+				gzip = new GZIPOutputStream(compressed, true);
+			} catch (IOException e) {
+				// byte array output stream never throws IO exceptions
+				throw new BugError(e);
+			}
+		}
+		this.asyncContext = asyncContext;
+		asyncContext.addListener(this);
+		onOpen();
+		scheduleKeepAlive(keepAlivePeriod);
+
+		outputStream.setWriteListener(new WriteListener() {
+			@Override
+			public void onWritePossible() {
+				drain();
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+				log.debug("Write error on event stream |{event_stream}|; most probably client close: {exception}", EventStream.this, throwable);
+				terminate(true);
+			}
+		});
+		// output stream is published only after switching to non-blocking mode; drain events queued till now
+		synchronized (this) {
+			this.outputStream = outputStream;
+		}
+		drain();
+	}
+
+	public State getState() {
+		return state.get();
+	}
+
+	/**
+	 * Get the number of events waiting to be written to client.
+	 * 
+	 * @return events queue depth.
+	 */
+	public int getQueueDepth() {
+		return queueDepth.get();
+	}
+
+	/**
+	 * Get the age of the oldest event waiting to be written to client, that is, how much this event stream client is behind
+	 * events push. Returns zero if there are no pending events.
+	 * 
+	 * @return event stream lag, in milliseconds.
+	 */
+	public long getLag() {
+		for (Event event : eventsQueue) {
+			if (event instanceof EventFrame) {
+				return Math.max(System.currentTimeMillis() - ((EventFrame) event).getTimestamp(), 0);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Get the number of events discarded because this event stream client did not keep up with events push.
+	 * 
+	 * @return dropped events count.
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	/**
+	 * Push event to this events stream client. This method just stores the event on {@link #eventsQueue events queue} and
+	 * schedules this event stream on a writer thread; it is executed into invoker thread and never blocks. If events queue is
+	 * full, event stream overflow policy is applied.
 	 * 
 	 * @param event event instance to push on event stream.
 	 * @throws BugError if trying to use this method after stream close.
 	 */
 	public void push(Event event) {
-		if (!active.get()) {
+		State current = state.get();
+		if (current == State.CLOSING || current == State.CLOSED) {
 			throw new BugError("Event stream |%s| is closed.", this);
 		}
-		// BlockingQueue is thread safe so we do not need to synchronize this method
-		try {
-			if (!eventsQueue.offer(event, EVENTS_QUEUE_PUSH_TIMEOUT, TimeUnit.MILLISECONDS)) {
-				log.warn("Timeout trying to push event on events queue. Event |{event}| not processed.", event);
+		offer(new EventFrame(event));
+	}
+
+	/**
+	 * Store event frame on events queue, applying overflow policy if queue is full, and schedule this event stream on a writer
+	 * thread. Used by event stream manager to push frames shared by all event streams. Unlike {@link #push(Event)} this method
+	 * does not throw if event stream is closed.
+	 * 
+	 * @param frame event frame.
+	 * @return true if frame was queued, false if event stream is closed or frame dropped.
+	 */
+	boolean offer(EventFrame frame) {
+		State current = state.get();
+		if (current == State.CLOSING || current == State.CLOSED) {
+			return false;
+		}
+
+		if (queueDepth.incrementAndGet() > queueCapacity) {
+			droppedCount.incrementAndGet();
+			switch (overflowPolicy) {
+			case DROP_NEWEST:
+				queueDepth.decrementAndGet();
+				return false;
+
+			case DISCONNECT:
+				queueDepth.decrementAndGet();
+				log.warn("Slow client on event stream |{event_stream}|. Disconnect it.", this);
+				terminate(true);
+				return false;
+
+			case DROP_OLDEST:
+				if (!dropOldest()) {
+					// writer thread took the oldest events meanwhile; there is room again
+					droppedCount.decrementAndGet();
+				}
+				break;
+			}
+		}
+
+		enqueue(frame);
+		return true;
+	}
+
+	/**
+	 * Remove the oldest event frame from events queue; internal markers are not removed.
+	 * 
+	 * @return true if an event frame was removed.
+	 */
+	private boolean dropOldest() {
+		for (Event event : eventsQueue) {
+			// remove fails if writer thread polled the frame meanwhile; try next one
+			if (event instanceof EventFrame && eventsQueue.remove(event)) {
+				queueDepth.decrementAndGet();
+				return true;
 			}
-		} catch (InterruptedException unused) {
-			log.warn("Thread interruption on event stream |{event_stream}| while trying to push event to queue. Event |{event}| not processed.", this, event);
-			Thread.currentThread().interrupt();
+		}
+		return false;
+	}
+
+	private void enqueue(Event event) {
+		eventsQueue.offer(event);
+		if (dispatcher != null) {
+			dispatcher.schedule(this);
 		}
 	}
 
 	/**
-	 * Event stream main loop repeated for every event. Waits for an event and push it to the client via {@link #writer}, writer
-	 * initialized by {@link EventStreamServlet} on this event stream creation. Note that this logic is executed into HTTP
-	 * request thread; it blocks the thread till an event become available. This method always returns true allowing event
-	 * stream to continue. It returns false only when got {@link ShutdownEvent}, pushed on queue by {@link #close()} method or
-	 * there is an error on print writer. Checking for print writer errors is especially useful to detect that remote client
-	 * closes its socket and to gracefully close this stream and release parent servlet instance.
+	 * Mark this event stream as scheduled on a writer thread.
+	 * 
+	 * @return true if event stream was not already scheduled.
+	 */
+	boolean schedule() {
+		return scheduled.compareAndSet(false, true);
+	}
+
+	/**
+	 * Write queued events to client while output stream is ready, then flush. This method never blocks on socket write: if
+	 * output stream is not ready it returns and container resumes draining via {@link WriteListener#onWritePossible()}.
+	 * <p>
+	 * Queued events are coalesced into a batch buffer, up to {@link #BATCH_SIZE} bytes, and batch is written to output stream
+	 * with a single write; output stream is flushed only after events queue is empty, so that a burst of events goes in a few
+	 * network packets. If {@link #flushDelay} is not zero, flush is further delayed for that latency budget, waiting for more
+	 * events. If compression is enabled, every batch is compressed with GZIP sync flush, so that client can decode it without
+	 * waiting for the end of the stream.
 	 * <p>
-	 * Also this method takes care to periodically send keep alive events, see {@link #keepAlivePeriod}. Keep alive is used to
-	 * ensure server side and client logic that peer is still running and to avoid connection drop due to routers idle
-	 * connection timeout.
+	 * Executed by writer thread and by container write listener, serialized on this event stream instance. Schedule flag is
+	 * cleared before draining so that events pushed while draining schedule this event stream again. If writing fails, most
+	 * probably because client closed the connection, event stream is closed. Event stream is closed also when drain reaches
+	 * {@link ShutdownEvent} queued by {@link #close()}.
+	 */
+	void drain() {
+		scheduled.set(false);
+		boolean shutdown = false;
+		boolean failed = false;
+
+		synchronized (this) {
+			if (outputStream == null || state.get() == State.CLOSED) {
+				return;
+			}
+			try {
+				// batch is empty on every loop start unless output stream was not written, that is, is still ready
+				while (outputStream.isReady()) {
+					Event event = eventsQueue.poll();
+					if (event == null) {
+						if (batch.size() > 0) {
+							writeBatch(false);
+							continue;
+						}
+						// flush only after last queued event so that bursts are coalesced in fewer network packets
+						if (flushPending) {
+							flush();
+						}
+						break;
+					}
+					if (event instanceof EventFrame) {
+						queueDepth.decrementAndGet();
+					}
+					if (event instanceof ShutdownEvent) {
+						log.debug("Got shutdown event. Close event stream |{event_stream}|.", this);
+						shutdown = true;
+						writeBatch(true);
+						break;
+					}
+
+					if (event == KEEP_ALIVE) {
+						frame.reset();
+						sendKeepAlive();
+						frame.writeTo(batch);
+					} else {
+						EventFrame eventFrame = (EventFrame) event;
+						// subclass serialization hook has precedence over frame encoded by manager
+						if (eventFrame.getBytes() != null && !SEND_EVENT_OVERRIDDEN.get(getClass())) {
+							batch.write(eventFrame.getBytes());
+						} else {
+							frame.reset();
+							sendEvent(eventFrame.getEvent());
+							frame.writeTo(batch);
+						}
+						batchEvents.add(eventFrame.getEvent());
+					}
+					if (batch.size() >= BATCH_SIZE) {
+						writeBatch(false);
+					}
+				}
+			} catch (IOException e) {
+				log.debug("Send fail on event stream |{event_stream}|; most probably client close.", this);
+				failed = true;
+			}
+		}
+
+		if (shutdown || failed) {
+			terminate(true);
+		}
+	}
+
+	/**
+	 * Write batch buffer to output stream with a single write, compressing it if compression is enabled, and invoke
+	 * {@link #onSent(Event)} hook for batch events. Output stream is not flushed. Guarded by this event stream instance.
 	 * 
-	 * @return true if event stream should continue running.
+	 * @param last flag true if this is the last write on this event stream, in which case compressed stream is finished.
+	 * @throws IOException if output stream write fails.
 	 */
-	public boolean loop() {
-		Event event = null;
-		try {
-			event = eventsQueue.poll(keepAlivePeriod, TimeUnit.MILLISECONDS);
-		} catch (InterruptedException unused) {
-			if (!active.get()) {
-				log.debug("Events stream |{event_stream}| thread is interrupted. Break events stream loop.", this);
-				return false;
+	private void writeBatch(boolean last) throws IOException {
+		if (batch.size() == 0 && (gzip == null || !last)) {
+			return;
+		}
+
+		byte[] bytes;
+		if (gzip != null) {
+			batch.writeTo(gzip);
+			if (last) {
+				gzip.finish();
+			} else {
+				// sync flush: compressed bytes of all events are available, ending on a byte boundary
+				gzip.flush();
 			}
-			// in a perfect world, now would be the right moment to stop the events stream, returning false...
-			// but i'm not sure interruption occurs only when current thread is interrupted
-			// for now i play safe, allowing events stream to continue and use shutdown event to break it
-			log.warn("Events stream |{event_stream}| thread is interrupted. Continue events stream loop.", this);
-			return true;
+			bytes = compressed.toByteArray();
+			compressed.reset();
+		} else {
+			bytes = batch.toByteArray();
 		}
+		batch.reset();
 
-		if (event == null) {
-			// we are here due to keep-alive period expiration
-			// returns true to signal event stream should continue
-			sendKeepAlive();
-			log.debug("Keep-alive was sent to event stream |{event_stream}|.", this);
-			return !writer.checkError();
+		outputStream.write(bytes);
+		lastWriteMillis = System.currentTimeMillis();
+		if (!flushPending) {
+			flushPending = true;
+			flushPendingMillis = lastWriteMillis;
 		}
 
-		// close method puts this event into queue; returns false to break this events stream loop
-		if (event instanceof ShutdownEvent) {
-			log.debug("Got shutdown event. Break event stream loop.");
-			return false;
+		for (Event event : batchEvents) {
+			onSent(event);
+			log.trace("Event |{event}| was sent to event stream |{event_stream}|.", event, this);
 		}
+		batchEvents.clear();
+	}
+
+	/**
+	 * Flush output stream if flush delay is elapsed since first not flushed write, otherwise schedule this event stream drain
+	 * for the moment flush delay expires. Guarded by this event stream instance.
+	 * 
+	 * @throws IOException if output stream flush fails.
+	 */
+	private void flush() throws IOException {
+		long delay = flushDelay - (System.currentTimeMillis() - flushPendingMillis);
+		if (delay > 0 && dispatcher != null) {
+			if (!flushScheduled) {
+				flushScheduled = true;
+				dispatcher.schedule(this::flushExpired, delay);
+			}
+			return;
+		}
+		flushPending = false;
+		outputStream.flush();
+	}
+
+	/** Flush delay expired; schedule drain that will flush output stream. Executed by shared scheduler. */
+	private void flushExpired() {
+		synchronized (this) {
+			flushScheduled = false;
+		}
+		dispatcher.schedule(this);
+	}
+
+	private void scheduleKeepAlive(long delay) {
+		if (dispatcher != null) {
+			keepAliveCheck = dispatcher.schedule(this::checkKeepAlive, delay);
+		}
+	}
 
-		sendEvent(event);
-		onSent(event);
-		log.trace("Event |{event}| was sent to event stream |{event_stream}|.", event, this);
-		return !writer.checkError();
+	/** Keep alive check executed by shared scheduler. Queue keep alive only if nothing was written for keep alive period. */
+	private void checkKeepAlive() {
+		if (state.get() != State.OPEN) {
+			return;
+		}
+		long idle = System.currentTimeMillis() - lastWriteMillis;
+		if (idle >= keepAlivePeriod) {
+			enqueue(KEEP_ALIVE);
+			idle = 0;
+		}
+		scheduleKeepAlive(keepAlivePeriod - idle);
 	}
 
-	/** Close this event stream loop and waits for associated {@link EventStreamServlet} exit. */
+	/**
+	 * Close this event stream. Events already pushed are still written, then asynchronous context is completed and
+	 * {@link #onClose()} hook invoked. If event stream is not yet open it is closed immediately.
+	 */
 	@Override
 	public void close() {
-		if (!active.get()) {
+		if (state.compareAndSet(State.OPEN, State.CLOSING)) {
+			log.debug("Closing event stream |{event_stream}| ...", this);
+			enqueue(new ShutdownEvent());
 			return;
 		}
-		log.debug("Closing event stream |{event_stream}| ...", this);
+		if (state.get() == State.CREATED) {
+			terminate(false);
+		}
+	}
+
+	/**
+	 * Release this event stream: cancel keep alive check, discard pending events, complete asynchronous context if required,
+	 * invoke {@link #onClose()} hook and close listener. Guarded by state; executed only once.
+	 * 
+	 * @param completeAsyncContext flag true if asynchronous context should be completed.
+	 */
+	private void terminate(boolean completeAsyncContext) {
+		if (state.getAndSet(State.CLOSED) == State.CLOSED) {
+			return;
+		}
+		if (keepAliveCheck != null) {
+			keepAliveCheck.cancel(false);
+		}
+		eventsQueue.clear();
+		queueDepth.set(0);
+
+		synchronized (this) {
+			if (gzip != null) {
+				// release deflater native memory
+				try {
+					gzip.close();
+				} catch (IOException e) {
+					// byte array output stream never throws IO exceptions
+				}
+				gzip = null;
+			}
+		}
+
+		if (completeAsyncContext && asyncContext != null) {
+			try {
+				asyncContext.complete();
+			} catch (IllegalStateException e) {
+				log.debug("Asynchronous context for event stream |{event_stream}| already completed.", this);
+			}
+		}
 
-		push(new ShutdownEvent());
-		active.set(false);
 		log.debug("Event stream |{event_stream}| was closed.", this);
+		onClose();
+		if (closeListener != null) {
+			closeListener.accept(this);
+		}
 	}
 
 	@Override
@@ -270,27 +735,18 @@ public class EventStream implements Closeable {
 	}
 
 	/**
-	 * Set the output characters stream used to convey the events.
-	 * 
-	 * @param writer output characters stream.
-	 */
-	public void setWriter(PrintWriter writer) {
-		this.writer = writer;
-	}
-
-	/**
-	 * Hook method invoked at event stream instance creation. This method is intended to be overridden by subclasses. Anyway, it
-	 * takes care to send a keep alive event so that client can quickly know event stream is properly working. If subclass needs
-	 * this feature it should explicitly call super from its overriding method.
+	 * Hook method invoked when event stream is attached to client connection. This method is intended to be overridden by
+	 * subclasses. Anyway, it takes care to send a keep alive event so that client can quickly know event stream is properly
+	 * working. If subclass needs this feature it should explicitly call super from its overriding method.
 	 */
 	public void onOpen() {
-		sendKeepAlive();
+		enqueue(KEEP_ALIVE);
 	}
 
 	/**
-	 * Hook method invoked on this event stream closing. This method is called by {@link EventStreamServlet} just before HTTP
-	 * request processing end. After this method execution event stream instance becomes invalid and attempting to use any of
-	 * its methods is considered a bug.
+	 * Hook method invoked on this event stream closing, no matter if closed by application or by client disconnect. After
+	 * this method execution event stream instance becomes invalid and attempting to use any of its methods is considered a
+	 * bug.
 	 * <p>
 	 * If subclass override this method it is its responsibility to call super.
 	 */
@@ -298,8 +754,8 @@ public class EventStream implements Closeable {
 	}
 
 	/**
-	 * Hook method invoked just after event sent. This method is called by {@link #loop()} immediately after event was sent to
-	 * output stream and stream flushed.
+	 * Hook method invoked just after event sent. This method is called by writer thread immediately after event was handed to
+	 * response output stream.
 	 * 
 	 * @param event event that was sent.
 	 */
@@ -308,8 +764,10 @@ public class EventStream implements Closeable {
 
 	/**
 	 * Send event instance to this event stream consumer. Compile a W3C Server-Sent event from <code>event</code> instance
-	 * argument and write it to this {@link #writer}. This event stream implementation does not use all W3C server-sent event
-	 * fields: only <code>event</code> and <code>data</code>, as folows:
+	 * argument and write it to this {@link #writer}, that is, to current frame buffer written by {@link #drain()}. Events pushed
+	 * via event stream manager are already encoded in the same format, see {@link EventFrame#encode(Json, Event)}. This event
+	 * stream implementation does not use all W3C server-sent event fields: only <code>event</code> and <code>data</code>, as
+	 * folows:
 	 * <ul>
 	 * <li>event field stores event argument simple class name,
 	 * <li>data field value is event argument instance serialized JSON, including class canonical name.
@@ -372,6 +830,31 @@ public class EventStream implements Closeable {
 		writer.flush();
 	}
 
+	// --------------------------------------------------------------------------------------------
+	// asynchronous context life cycle listeners
+
+	@Override
+	public void onStartAsync(AsyncEvent event) throws IOException {
+	}
+
+	@Override
+	public void onComplete(AsyncEvent event) throws IOException {
+		// asynchronous context is already completed, most probably by container on client disconnect
+		terminate(false);
+	}
+
+	@Override
+	public void onTimeout(AsyncEvent event) throws IOException {
+		log.debug("Timeout on event stream |{event_stream}|.", this);
+		terminate(true);
+	}
+
+	@Override
+	public void onError(AsyncEvent event) throws IOException {
+		log.debug("Error on event stream |{event_stream}|; most probably client close: {exception}", this, event.getThrowable());
+		terminate(true);
+	}
+
 	// --------------------------------------------------------------------------------------------
 
 	/**
@@ -412,10 +895,18 @@ public class EventStream implements Closeable {
 
 	/**
 	 * Internal event used to shutdown events stream. It is pushed on events queue by {@link EventStream#close()}; as a result
-	 * events stream {@link EventStream#loop() loop} is stopped and {@link EventStreamServlet} is released.
+	 * events stream {@link EventStream#drain() drain} completes asynchronous context after all pending events are written.
 	 * 
 	 * @author Iulian Rotaru
 	 */
 	public static final class ShutdownEvent implements Event {
 	}
+
+	/**
+	 * Internal marker for keep alive, see {@link EventStream#KEEP_ALIVE}.
+	 * 
+	 * @author Iulian Rotaru
+	 */
+	private static final class KeepAliveMarker implements Event {
+	}
 }
@@ -1,8 +1,10 @@
 package com.jslib.container.sse;
 
+import java.util.List;
+
 /**
  * Event stream configuration object used to send client configuration to server. It provides clients means to configure event
- * stream; current implementation has only keep alive period.
+ * stream; current implementation has keep alive period and topics to subscribe to on connect.
  * <p>
  * Instance of this class is deserialized by {@link EventStreamServlet} from HTTP request body and delivered to
  * {@link EventStream#config(EventStreamConfig)}.
@@ -13,6 +15,9 @@ public class EventStreamConfig {
 	/** Event stream keep alive period, in milliseconds or zero if to use server default value. */
 	private int keepAlivePeriod;
 
+	/** Topics event stream subscribes to on connect, null if not subscribed to any topic. */
+	private List<String> topics;
+
 	/**
 	 * Set keep alive period.
 	 * 
@@ -43,4 +48,34 @@ public class EventStreamConfig {
 	public int getKeepAlivePeriod() {
 		return keepAlivePeriod;
 	}
+
+	/**
+	 * Set topics to subscribe to on connect.
+	 * 
+	 * @param topics topics list.
+	 * @see #topics
+	 */
+	public void setTopics(List<String> topics) {
+		this.topics = topics;
+	}
+
+	/**
+	 * Test if this configuration object has topics to subscribe to.
+	 * 
+	 * @return true if this configuration object has topics.
+	 * @see #topics
+	 */
+	public boolean hasTopics() {
+		return topics != null && !topics.isEmpty();
+	}
+
+	/**
+	 * Get topics to subscribe to on connect or null if not initialized.
+	 * 
+	 * @return topics list, possible null.
+	 * @see #topics
+	 */
+	public List<String> getTopics() {
+		return topics;
+	}
 }
@@ -0,0 +1,86 @@
+package com.jslib.container.sse;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+
+/**
+ * Threads shared by all event streams created by an event stream manager: a small, fixed size writers pool that drains event
+ * streams queues and a single thread scheduler for keep alive checks. Event streams do not own threads and do not block any
+ * thread while waiting for events or for a slow client; thread count does not depend on the number of connected clients.
+ * <p>
+ * An event stream is scheduled on writers pool at most once at a time, so that its events are written in order, by a single
+ * thread.
+ *
+ * @author Iulian Rotaru
+ */
+final class EventStreamDispatcher {
+	private static final Log log = LogFactory.getLog(EventStreamDispatcher.class);
+
+	private final ExecutorService writers;
+
+	private final ScheduledExecutorService scheduler;
+
+	public EventStreamDispatcher(int threads) {
+		AtomicInteger index = new AtomicInteger();
+		this.writers = Executors.newFixedThreadPool(Math.max(threads, 1), task -> {
+			Thread thread = new Thread(task, "Event Stream Writer #" + index.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "Event Stream Keep Alive");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Schedule event stream drain on writers pool. Does nothing if event stream is already scheduled and not yet drained.
+	 *
+	 * @param eventStream event stream with pending events.
+	 */
+	public void schedule(EventStream eventStream) {
+		if (eventStream.schedule()) {
+			try {
+				writers.execute(() -> {
+					try {
+						eventStream.drain();
+					} catch (Throwable t) {
+						log.dump(String.format("Fail to drain event stream |%s|:", eventStream), t);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				log.debug("Event stream dispatcher shutdown. Event stream |{event_stream}| not drained.", eventStream);
+			}
+		}
+	}
+
+	/**
+	 * Schedule keep alive check.
+	 *
+	 * @param task keep alive check,
+	 * @param delay delay, in milliseconds.
+	 * @return scheduled task, or null if dispatcher is shutdown.
+	 */
+	public ScheduledFuture<?> schedule(Runnable task, long delay) {
+		try {
+			return scheduler.schedule(task, delay, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			return null;
+		}
+	}
+
+	/** Stop threads after already scheduled drains complete. Keep alive checks are discarded. */
+	public void shutdown() {
+		scheduler.shutdownNow();
+		writers.shutdown();
+	}
+}
@@ -52,6 +52,17 @@ import com.jslib.lang.Event;
  * <p>
  * Even if in an authenticated context one still can use {@link #push(Event)} to broadcast the event to all connected clients,
  * including guests, if any.
+ * <p>
+ * A principal can have many event streams open at a time, e.g. from different browser tabs or devices; events pushed to
+ * principal are sent to all of them. Event streams can also subscribe to topics, either on connect, see
+ * {@link EventStreamConfig#setTopics(java.util.List)}, or later via {@link #subscribe(Principal, String)}. An event pushed
+ * with {@link #push(String, Event)} is sent only to event streams subscribed to given topic.
+ * 
+ * <pre>
+ * public void method() {
+ * 	eventStream.push("quotes/EUR", new QuoteEvent("EUR", 4.97));
+ * }
+ * </pre>
  * 
  * @author Iulian Rotaru
  */
@@ -90,11 +101,36 @@ public interface EventStreamManager {
 	void push(Event event);
 
 	/**
-	 * Push event to user event stream.
+	 * Push event to all user event streams.
 	 * 
 	 * @param principal user principal,
 	 * @param event event to push.
 	 */
 	void push(Principal principal, Event event);
 
+	/**
+	 * Push event to event streams subscribed to given topic. Does nothing if there are no subscribers.
+	 * 
+	 * @param topic topic name,
+	 * @param event event to push.
+	 */
+	void push(String topic, Event event);
+
+	/**
+	 * Subscribe all event streams currently open by given user to topic. Event streams opened later should subscribe on
+	 * connect, see {@link EventStreamConfig#setTopics(java.util.List)}.
+	 * 
+	 * @param principal user principal,
+	 * @param topic topic name.
+	 */
+	void subscribe(Principal principal, String topic);
+
+	/**
+	 * Unsubscribe all event streams open by given user from topic. Does nothing if not subscribed.
+	 * 
+	 * @param principal user principal,
+	 * @param topic topic name.
+	 */
+	void unsubscribe(Principal principal, String topic);
+
 }
\ No newline at end of file
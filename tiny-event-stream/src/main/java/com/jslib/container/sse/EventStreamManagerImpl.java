@@ -1,12 +1,28 @@
 package com.jslib.container.sse;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.jslib.api.json.Json;
+import com.jslib.api.json.JsonException;
 import com.jslib.api.log.Log;
 import com.jslib.api.log.LogFactory;
 import com.jslib.container.spi.IContainer;
+import com.jslib.container.spi.IEventBus;
+import com.jslib.util.Classes;
+import com.jslib.util.Params;
 
 import jakarta.annotation.PreDestroy;
 import jakarta.inject.Inject;
@@ -22,9 +38,26 @@ import com.jslib.lang.Event;
  * null if not authenticated context, and optional event stream configuration object from HTTP request body then delegates
  * {@link #createEventStream(Principal, EventStreamConfig)} to create event stream.
  * <p>
- * Then servlet blocks on {@link EventStream#loop()} till client disconnects. Application code uses {@link #push(Event)} that
- * delegates {@link EventStream#push(Event)} to push events that client reads in a loop. When client disconnects, servlet uses
+ * Then servlet opens event stream on request asynchronous context and returns; no thread is blocked while client is connected.
+ * Application code uses {@link #push(Event)} that delegates {@link EventStream#push(Event)} to push events that are written by
+ * the writers pool shared by all event streams, see {@link EventStreamDispatcher}. When client disconnects, event stream invokes
  * {@link #destroyEventStream(EventStream)} to release resources.
+ * <p>
+ * Event streams registry is a concurrent map and event push does not lock it; a slow client does not stall producers, nor
+ * event streams creation and destroy. An event pushed to all event streams is serialized once and the same frame is queued on
+ * every event stream; every event stream has a bounded queue with configurable overflow policy.
+ * <p>
+ * A principal can have many event streams. Beside principal index, manager keeps an inverted index from topic to subscribed
+ * event streams so that an event pushed on a topic costs only for its subscribers, not for a scan of all event streams.
+ * <p>
+ * If container has a binding for {@link IEventBus}, that is, application runs on many nodes, pushed events are also published
+ * on event bus {@link #CHANNEL} and pushed by other nodes managers to their local event streams; node local event streams are
+ * served directly. Events pushed to a principal are routed on remote nodes by principal name; events pushed to guests are not
+ * published since guest principals are node local.
+ * <p>
+ * Event bus messages are not authenticated; any process able to publish on event bus can push events to all connected clients.
+ * Event bus should run on a trusted network. Manager accepts from event bus only {@link Event} implementations and, if
+ * {@link #PARAM_EVENT_CLASSES} is configured, only listed event classes; event class is checked before event parsing.
  * 
  * <pre>
  * // on client, event stream manager is declared as remote managed class
@@ -55,17 +88,77 @@ import com.jslib.lang.Event;
 class EventStreamManagerImpl implements EventStreamManager {
 	private static final Log log = LogFactory.getLog(EventStreamManagerImpl.class);
 
+	/** Context parameter for the number of event stream writer threads; default to available processors. */
+	public static final String PARAM_WRITER_THREADS = "com.jslib.container.sse.writer.threads";
+
+	/** Context parameter for event stream queue capacity; default to {@link EventStream#DEFAULT_QUEUE_CAPACITY}. */
+	public static final String PARAM_QUEUE_CAPACITY = "com.jslib.container.sse.queue.capacity";
+
+	/** Context parameter for policy applied when event stream queue is full: drop_oldest (default), drop_newest or disconnect. */
+	public static final String PARAM_OVERFLOW_POLICY = "com.jslib.container.sse.overflow.policy";
+
+	/**
+	 * Context parameter for maximum time, in milliseconds, written events wait for flush in order to coalesce more events in a
+	 * network packet; default to zero, that is, flush as soon as event stream queue is empty.
+	 */
+	public static final String PARAM_FLUSH_DELAY = "com.jslib.container.sse.flush.delay";
+
+	/**
+	 * Context parameter for event classes accepted from event bus, comma separated class names; default to any {@link Event}
+	 * implementation.
+	 */
+	public static final String PARAM_EVENT_CLASSES = "com.jslib.container.sse.event.classes";
+
+	/** Event bus channel for events pushed by event stream managers from all nodes. */
+	public static final String CHANNEL = "com.jslib.container.sse";
+
+	/** Event bus message target: all event streams. */
+	private static final byte TARGET_ALL = 0;
+	/** Event bus message target: event streams of principal with given name. */
+	private static final byte TARGET_PRINCIPAL = 1;
+	/** Event bus message target: event streams subscribed to given topic. */
+	private static final byte TARGET_TOPIC = 2;
+
 	/** Parent container back reference. */
 	private final IContainer container;
 
+	/** Writers pool and keep alive scheduler shared by all event streams created by this manager. */
+	private final EventStreamDispatcher dispatcher;
+
+	/** JSON service used to serialize events pushed to all event streams. */
+	private final Json json;
+
+	private final int queueCapacity;
+
+	private final EventStreamOverflowPolicy overflowPolicy;
+
+	private final long flushDelay;
+
+	/** Event bus for events pushed on other nodes, null if application runs on a single node. */
+	private final IEventBus eventBus;
+
+	private final IEventBus.Listener eventBusListener = this::onEventBusMessage;
+
+	/** Names of event classes accepted from event bus, null if any event class is accepted. */
+	private final Set<String> eventClasses;
+
+	/** Class loader for event classes received from event bus, captured at manager creation. */
+	private final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
 	/**
-	 * Storage for running event stream references. It is updated by {@link #createEventStream(String)} and
-	 * {@link #destroyEventStream(EventStream)} and used by {@link #preDestroy()} to release event streams still opened at event
-	 * stream manager destroy.
+	 * Storage for running event stream references and their subscriptions. It is updated by
+	 * {@link #createEventStream(Principal, EventStreamConfig)} and {@link #destroyEventStream(EventStream)} and used by
+	 * {@link #preDestroy()} to release event streams still opened at event stream manager destroy.
 	 * <p>
-	 * This list is used from different threads and is synchronized.
+	 * This map and the indexes below are used from different threads and are concurrent; iteration does not lock them.
 	 */
-	private final Map<Principal, EventStream> eventStreams;
+	private final Map<EventStream, Subscription> eventStreams;
+
+	/** Event streams index by principal; a principal can have many event streams, e.g. from different devices. */
+	private final Map<Principal, Set<EventStream>> principals;
+
+	/** Inverted index from topic to subscribed event streams, used by {@link #push(String, Event)}. */
+	private final Map<String, Set<EventStream>> topics;
 
 	/**
 	 * Construct event stream manager instance and inject application factory.
@@ -75,44 +168,81 @@ class EventStreamManagerImpl implements EventStreamManager {
 	@Inject
 	public EventStreamManagerImpl(IContainer container) {
 		this.container = container;
-		this.eventStreams = new HashMap<>();
+		this.eventStreams = new ConcurrentHashMap<>();
+		this.principals = new ConcurrentHashMap<>();
+		this.topics = new ConcurrentHashMap<>();
+		this.json = Classes.loadService(Json.class);
+
+		Integer writerThreads = container.getInitParameter(PARAM_WRITER_THREADS, Integer.class);
+		this.dispatcher = new EventStreamDispatcher(writerThreads != null ? writerThreads : Runtime.getRuntime().availableProcessors());
+
+		Integer queueCapacity = container.getInitParameter(PARAM_QUEUE_CAPACITY, Integer.class);
+		this.queueCapacity = queueCapacity != null ? queueCapacity : EventStream.DEFAULT_QUEUE_CAPACITY;
+
+		String overflowPolicy = container.getInitParameter(PARAM_OVERFLOW_POLICY, String.class);
+		this.overflowPolicy = overflowPolicy != null ? EventStreamOverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase()) : EventStreamOverflowPolicy.DROP_OLDEST;
+
+		Long flushDelay = container.getInitParameter(PARAM_FLUSH_DELAY, Long.class);
+		this.flushDelay = flushDelay != null ? flushDelay : 0;
+
+		log.debug("Event stream queue capacity |{capacity}|, overflow policy |{policy}|, flush delay |{delay}|.", this.queueCapacity, this.overflowPolicy, this.flushDelay);
+
+		String eventClasses = container.getInitParameter(PARAM_EVENT_CLASSES, String.class);
+		if (eventClasses != null) {
+			this.eventClasses = new HashSet<>();
+			for (String eventClass : eventClasses.split(",")) {
+				this.eventClasses.add(eventClass.trim());
+			}
+		} else {
+			this.eventClasses = null;
+		}
+
+		this.eventBus = container.getOptionalInstance(IEventBus.class);
+		if (this.eventBus != null) {
+			this.eventBus.subscribe(CHANNEL, eventBusListener);
+		}
 	}
 
 	/**
 	 * Test constructor.
 	 * 
 	 * @param container container mock,
-	 * @param eventStreams mock for events streams storage.
+	 * @param json mock for JSON implementation,
+	 * @param eventBus mock for event bus, null for single node.
 	 */
-	public EventStreamManagerImpl(IContainer container, Map<Principal, EventStream> eventStreams) {
+	public EventStreamManagerImpl(IContainer container, Json json, IEventBus eventBus) {
 		this.container = container;
-		this.eventStreams = eventStreams;
+		this.eventStreams = new ConcurrentHashMap<>();
+		this.principals = new ConcurrentHashMap<>();
+		this.topics = new ConcurrentHashMap<>();
+		this.json = json;
+		this.dispatcher = new EventStreamDispatcher(1);
+		this.queueCapacity = EventStream.DEFAULT_QUEUE_CAPACITY;
+		this.overflowPolicy = EventStreamOverflowPolicy.DROP_OLDEST;
+		this.flushDelay = 0;
+		this.eventClasses = null;
+		this.eventBus = eventBus;
+		if (eventBus != null) {
+			eventBus.subscribe(CHANNEL, eventBusListener);
+		}
 	}
 
-	/** Closes all event streams still opened when event stream manager is destroyed. */
+	/**
+	 * Closes all event streams still opened when event stream manager is destroyed, then stops shared threads after pending
+	 * events are written.
+	 */
 	@PreDestroy
 	public void preDestroy() {
-		synchronized (eventStreams) {
-			if (eventStreams.isEmpty()) {
-				return;
-			}
-
-			// EventStream#close signals stream loop that breaks
-			// as a consequence, EventStreamServlet ends current request processing and call this#closeEventStream
-			// this#closeEventStream removes event stream from this#eventStreams list resulting in concurrent change
-			// to cope with this concurrent change uses a temporary array
-
-			EventStream[] eventStreamsArray = new EventStream[eventStreams.size()];
-			int index = 0;
-			for (EventStream eventStream : eventStreams.values()) {
-				eventStreamsArray[index++] = eventStream;
-			}
-
-			for (EventStream eventStream : eventStreamsArray) {
-				log.debug("Force close stale event stream |{event_stream}|.", eventStream);
-				eventStream.close();
-			}
+		if (eventBus != null) {
+			eventBus.unsubscribe(CHANNEL, eventBusListener);
 		}
+		// EventStream#close may invoke this#destroyEventStream that removes event stream from this#eventStreams, possible from
+		// current thread; concurrent map iteration copes with this concurrent change
+		for (EventStream eventStream : eventStreams.keySet()) {
+			log.debug("Force close stale event stream |{event_stream}|.", eventStream);
+			eventStream.close();
+		}
+		dispatcher.shutdown();
 	}
 
 	@Override
@@ -124,35 +254,235 @@ class EventStreamManagerImpl implements EventStreamManager {
 		if (config != null) {
 			eventStream.config(config);
 		}
-		synchronized (eventStreams) {
-			eventStreams.put(principal, eventStream);
+		eventStream.bind(dispatcher, queueCapacity, overflowPolicy, flushDelay, this::destroyEventStream);
+
+		eventStreams.put(eventStream, new Subscription(principal));
+		attach(principals, principal, eventStream);
+		if (config != null && config.hasTopics()) {
+			for (String topic : config.getTopics()) {
+				subscribe(eventStream, topic);
+			}
 		}
 		return eventStream;
 	}
 
 	@Override
 	public void destroyEventStream(EventStream eventStream) {
-		synchronized (eventStreams) {
-			eventStreams.values().remove(eventStream);
+		Subscription subscription = eventStreams.remove(eventStream);
+		if (subscription == null) {
+			return;
+		}
+		detach(principals, subscription.principal, eventStream);
+		for (String topic : subscription.topics) {
+			detach(topics, topic, eventStream);
 		}
 	}
 
+	/**
+	 * Serialize event once and queue the same frame on all event streams. Event streams closed while iterating are silently
+	 * skipped.
+	 */
 	@Override
 	public void push(Event event) {
-		synchronized (eventStreams) {
-			for (EventStream eventStream : eventStreams.values()) {
-				eventStream.push(event);
+		push(eventStreams.keySet(), event);
+		publish(TARGET_ALL, "", event);
+	}
+
+	@Override
+	public void push(Principal principal, Event event) {
+		push(principals.get(principal), event);
+		if (!(principal instanceof EventGuest)) {
+			publish(TARGET_PRINCIPAL, principal.getName(), event);
+		}
+	}
+
+	@Override
+	public void push(String topic, Event event) {
+		push(topics.get(topic), event);
+		publish(TARGET_TOPIC, topic, event);
+	}
+
+	@Override
+	public void subscribe(Principal principal, String topic) {
+		Params.notNull(topic, "Topic");
+		Set<EventStream> principalEventStreams = principals.get(principal);
+		if (principalEventStreams != null) {
+			for (EventStream eventStream : principalEventStreams) {
+				subscribe(eventStream, topic);
 			}
 		}
 	}
 
 	@Override
-	public void push(Principal principal, Event event) {
-		synchronized (eventStreams) {
-			EventStream eventStream = eventStreams.get(principal);
-			if (eventStream != null) {
-				eventStream.push(event);
+	public void unsubscribe(Principal principal, String topic) {
+		Set<EventStream> principalEventStreams = principals.get(principal);
+		if (principalEventStreams != null) {
+			for (EventStream eventStream : principalEventStreams) {
+				Subscription subscription = eventStreams.get(eventStream);
+				if (subscription != null && subscription.topics.remove(topic)) {
+					detach(topics, topic, eventStream);
+				}
 			}
 		}
 	}
+
+	private void subscribe(EventStream eventStream, String topic) {
+		Subscription subscription = eventStreams.get(eventStream);
+		if (subscription != null && subscription.topics.add(topic)) {
+			attach(topics, topic, eventStream);
+			// event stream destroyed meanwhile; takes care to not leave it on topic index
+			if (!eventStreams.containsKey(eventStream)) {
+				detach(topics, topic, eventStream);
+			}
+			log.debug("Event stream |{event_stream}| subscribed to topic |{topic}|.", eventStream, topic);
+		}
+	}
+
+	/**
+	 * Serialize event once and queue the same frame on given event streams. Does nothing, not even serialization, if there are
+	 * no event streams.
+	 * 
+	 * @param targetEventStreams target event streams, possible null or empty,
+	 * @param event event to push.
+	 */
+	private void push(Set<EventStream> targetEventStreams, Event event) {
+		if (targetEventStreams == null || targetEventStreams.isEmpty()) {
+			return;
+		}
+		EventFrame frame = EventFrame.encode(json, event);
+		for (EventStream eventStream : targetEventStreams) {
+			eventStream.offer(frame);
+		}
+	}
+
+	/**
+	 * Publish event on event bus, for event streams connected to other nodes. Does nothing if there is no event bus. Message
+	 * contains target type and key, event class name and event serialized to JSON.
+	 * 
+	 * @param target message target type,
+	 * @param key principal name or topic, empty for all event streams,
+	 * @param event event to publish.
+	 */
+	private void publish(byte target, String key, Event event) {
+		if (eventBus == null) {
+			return;
+		}
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream message = new DataOutputStream(bytes);
+			message.writeByte(target);
+			message.writeUTF(key);
+			message.writeUTF(event.getClass().getName());
+			// print writer does not fail on flush if JSON serializer closes it
+			PrintWriter writer = new PrintWriter(new OutputStreamWriter(message, StandardCharsets.UTF_8));
+			json.stringify(writer, event);
+			writer.flush();
+			eventBus.publish(CHANNEL, bytes.toByteArray());
+		} catch (IOException e) {
+			log.error("Fail to publish event |{event}| on event bus: {exception}", event, e);
+		}
+	}
+
+	/**
+	 * Push event published by other node manager to local target event streams. Executed by event bus thread.
+	 * 
+	 * @param message event bus message, see {@link #publish(byte, String, Event)}.
+	 */
+	private void onEventBusMessage(byte[] message) {
+		try {
+			DataInputStream input = new DataInputStream(new ByteArrayInputStream(message));
+			byte target = input.readByte();
+			String key = input.readUTF();
+			Class<? extends Event> eventClass = eventClass(input.readUTF());
+			if (eventClass == null) {
+				return;
+			}
+			Event event = json.parse(new InputStreamReader(input, StandardCharsets.UTF_8), eventClass);
+
+			switch (target) {
+			case TARGET_ALL:
+				push(eventStreams.keySet(), event);
+				break;
+
+			case TARGET_PRINCIPAL:
+				// principal index is by principal instance; remote principals are matched by name
+				for (Map.Entry<Principal, Set<EventStream>> entry : principals.entrySet()) {
+					if (key.equals(entry.getKey().getName())) {
+						push(entry.getValue(), event);
+					}
+				}
+				break;
+
+			case TARGET_TOPIC:
+				push(topics.get(key), event);
+				break;
+
+			default:
+				log.warn("Invalid event bus message target |{target}|.", target);
+			}
+		} catch (JsonException | ClassCastException | IOException e) {
+			log.error("Fail to process event bus message: {exception}", e);
+		}
+	}
+
+	/**
+	 * Load event class received from event bus. Event bus messages are not authenticated and class name is checked before
+	 * event parsing: class should be accepted, see {@link #PARAM_EVENT_CLASSES}, and should implement {@link Event}. Class is
+	 * loaded without initialization so that a rejected class static initializer is not executed.
+	 * 
+	 * @param className event class name.
+	 * @return event class or null if class name is rejected.
+	 */
+	private Class<? extends Event> eventClass(String className) {
+		if (eventClasses != null && !eventClasses.contains(className)) {
+			log.warn("Reject not accepted event class |{class}| from event bus.", className);
+			return null;
+		}
+		Class<?> eventClass;
+		try {
+			eventClass = Class.forName(className, false, classLoader);
+		} catch (ClassNotFoundException e) {
+			log.warn("Reject missing event class |{class}| from event bus.", className);
+			return null;
+		}
+		if (!Event.class.isAssignableFrom(eventClass)) {
+			log.warn("Reject not event class |{class}| from event bus.", className);
+			return null;
+		}
+		return eventClass.asSubclass(Event.class);
+	}
+
+	/** Add event stream to index entry, creating entry if missing. */
+	private static <K> void attach(Map<K, Set<EventStream>> index, K key, EventStream eventStream) {
+		index.compute(key, (k, indexEventStreams) -> {
+			if (indexEventStreams == null) {
+				indexEventStreams = ConcurrentHashMap.newKeySet();
+			}
+			indexEventStreams.add(eventStream);
+			return indexEventStreams;
+		});
+	}
+
+	/** Remove event stream from index entry and remove entry if it becomes empty. */
+	private static <K> void detach(Map<K, Set<EventStream>> index, K key, EventStream eventStream) {
+		index.computeIfPresent(key, (k, indexEventStreams) -> {
+			indexEventStreams.remove(eventStream);
+			return indexEventStreams.isEmpty() ? null : indexEventStreams;
+		});
+	}
+
+	/**
+	 * Event stream owner and the topics event stream is subscribed to.
+	 * 
+	 * @author Iulian Rotaru
+	 */
+	private static final class Subscription {
+		final Principal principal;
+		final Set<String> topics;
+
+		Subscription(Principal principal) {
+			this.principal = principal;
+			this.topics = ConcurrentHashMap.newKeySet();
+		}
+	}
 }
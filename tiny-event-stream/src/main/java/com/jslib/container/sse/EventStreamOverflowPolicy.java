@@ -0,0 +1,16 @@
+package com.jslib.container.sse;
+
+/**
+ * Slow client policy applied when an event stream queue is full, that is, client does not read events as fast as they are
+ * pushed.
+ *
+ * @author Iulian Rotaru
+ */
+enum EventStreamOverflowPolicy {
+	/** Discard the oldest queued event to make room for the new one. Client gets the most recent events. */
+	DROP_OLDEST,
+	/** Discard the new event. Client gets events in order but misses the ones pushed while queue was full. */
+	DROP_NEWEST,
+	/** Close event stream; client is expected to reconnect. */
+	DISCONNECT
+}
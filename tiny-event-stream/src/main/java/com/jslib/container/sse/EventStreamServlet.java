@@ -7,9 +7,11 @@ import com.jslib.api.log.Log;
 import com.jslib.api.log.LogFactory;
 import com.jslib.container.http.ContentType;
 import com.jslib.container.http.HttpHeader;
+import com.jslib.container.http.encoder.ResponseCompression;
 import com.jslib.container.servlet.AppServlet;
 import com.jslib.container.servlet.RequestContext;
 
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.UnavailableException;
@@ -21,11 +23,11 @@ import com.jslib.util.Classes;
 
 /**
  * Servlet that handle HTTP requests for W3C Server-Sent Events. It is designed to work closely with {@link EventStream} and
- * basically creates associated event stream instance and run its {@link EventStream#loop()}.
+ * basically creates associated event stream instance and opens it on request asynchronous context.
  * <p>
- * Servlet instance is running in a separated request thread and execute events stream loop as far client remains connected,
- * that is, there is an thread running this Servlet instance for every opened events stream. Of course there is a limit on the
- * number of concurrent events streams due to limited execution threads and sockets usable by a process.
+ * Request processing returns as soon as event stream is opened; events are written by the writers pool shared by all event
+ * streams, with non-blocking output. Request thread is not kept for event stream life span, so the number of concurrent event
+ * streams is not limited by container request threads. Servlet should be declared with asynchronous support.
  * 
  * @author Iulian Rotaru
  */
@@ -34,16 +36,22 @@ public class EventStreamServlet extends AppServlet {
 
 	private static final Log log = LogFactory.getLog(EventStreamServlet.class);
 
+	/** Context parameter for event stream GZIP compression enabled flag, default to true. */
+	public static final String PARAM_GZIP = "com.jslib.container.sse.gzip";
+
 	/** Event stream manager reference. It is a managed instance with application scope. */
 	private EventStreamManager eventStreamManager;
 
+	/** Flag true if event streams are compressed for clients accepting GZIP content coding. */
+	private boolean gzipEnabled;
+
 	public EventStreamServlet() {
 		log.trace("EventStreamServlet()");
 	}
 
 	/**
 	 * Beside initialization inherited from {@link AppServlet#init(ServletConfig)} this method takes care to initialize event
-	 * stream manager reference.
+	 * stream manager reference and compression flag.
 	 * 
 	 * @param config servlet configuration object.
 	 * @throws UnavailableException if servlet initialization fails.
@@ -54,28 +62,32 @@ public class EventStreamServlet extends AppServlet {
 		super.init(config);
 		log.trace("init(ServletConfig)");
 		eventStreamManager = getContainer().getInstance(EventStreamManager.class);
+		Boolean gzip = getContainer().getInitParameter(PARAM_GZIP, Boolean.class);
+		gzipEnabled = gzip != null ? gzip : true;
 	}
 
 	/**
-	 * Create {@link EventStream} for session ID from request URI and run {@link EventStream#loop()} as far it returns true.
-	 * This method takes also care to handle connections errors due to network or client failure. At event stream loop exit,
-	 * graceful or due to error, destroy the event stream from manager.
-	 * <p>
-	 * If event stream cannot be created due to bad session ID responds with bad request, error code 400.
+	 * Create {@link EventStream} for current user principal, start request asynchronous context and open event stream on it.
+	 * This method returns immediately; event stream is closed and destroyed from manager when client disconnects or when
+	 * application closes it.
 	 * <p>
-	 * Note that this method does not return as long client requesting for event stream is connected, keeping HTTP request
-	 * thread and servlet allocated, even there is no event to send for this particular client.
+	 * If event stream configuration object from request body is not valid responds with bad request, error code 400.
 	 * 
 	 * @param context HTTP request context.
 	 * @throws IOException for HTTP response output stream fail.
+	 * @throws IllegalStateException if servlet is not declared with asynchronous support.
 	 */
 	@Override
 	protected void handleRequest(RequestContext context) throws IOException {
 		log.trace("handleRequest(RequestContext)");
 		log.debug("Event stream request from |{remote_host}|.", context.getRemoteHost());
+		final HttpServletRequest httpRequest = context.getRequest();
 		final HttpServletResponse httpResponse = context.getResponse();
+		if (!httpRequest.isAsyncSupported()) {
+			throw new IllegalStateException("Event stream requires asynchronous mode. Missing <async-supported>true</async-supported> ?");
+		}
 
-		final EventStreamConfig config = getEventStreamConfig(context.getRequest());
+		final EventStreamConfig config = getEventStreamConfig(httpRequest);
 		final Principal principal = getContainer().getUserPrincipal();
 		EventStream eventStream = eventStreamManager.createEventStream(principal, config);
 
@@ -90,18 +102,28 @@ public class EventStreamServlet extends AppServlet {
 
 		httpResponse.setHeader(HttpHeader.CONNECTION, HttpHeader.KEEP_ALIVE);
 
+		if (gzipEnabled) {
+			httpResponse.addHeader(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING);
+			if (ResponseCompression.GZIP.equals(ResponseCompression.negotiate(httpRequest.getHeader(HttpHeader.ACCEPT_ENCODING)))) {
+				// event stream compresses every events batch with sync flush, so client does not wait for stream end
+				httpResponse.setHeader(HttpHeader.CONTENT_ENCODING, ResponseCompression.GZIP);
+				eventStream.setGzipEnabled(true);
+			}
+		}
+
+		AsyncContext asyncContext = httpRequest.startAsync(httpRequest, httpResponse);
+		// event stream life span is controlled by client connection and by application
+		asyncContext.setTimeout(0);
+
 		eventStream.setRemoteHost(context.getRemoteHost());
-		eventStream.setWriter(httpResponse.getWriter());
 		try {
-			eventStream.onOpen();
-			log.debug("Event stream |{event_stream}| opened.", eventStream);
-			while (eventStream.loop()) {
-			}
-		} finally {
-			log.debug("Close servlet for event stream |{event_stream}|.", eventStream);
-			eventStream.onClose();
-			eventStreamManager.destroyEventStream(eventStream);
+			eventStream.open(asyncContext, httpResponse.getOutputStream());
+		} catch (IOException | RuntimeException e) {
+			eventStream.close();
+			asyncContext.complete();
+			throw e;
 		}
+		log.debug("Event stream |{event_stream}| opened.", eventStream);
 	}
 
 	private static EventStreamConfig getEventStreamConfig(HttpServletRequest request) throws JsonException, ClassCastException, IOException {
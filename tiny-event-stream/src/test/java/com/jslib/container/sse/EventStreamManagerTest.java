@@ -1,18 +1,24 @@
 package com.jslib.container.sse;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
-import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.Reader;
+import java.io.Writer;
 import java.security.Principal;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -21,31 +27,36 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import com.jslib.api.json.Json;
 import com.jslib.container.spi.IContainer;
+import com.jslib.container.spi.IEventBus;
 import com.jslib.lang.Event;
+import com.jslib.util.Classes;
 
 @RunWith(MockitoJUnitRunner.class)
 public class EventStreamManagerTest {
 	@Mock
 	private IContainer container;
 	@Mock
-	private Map<Principal, EventStream> eventStreams;
+	private Json json;
 	@Mock
 	private EventStream eventStream;
 	@Mock
+	private EventStream otherEventStream;
+	@Mock
 	EventStreamConfig config;
 	@Mock
 	private Principal user;
 	@Mock
 	private Event event;
 	@Mock
-	private List<EventStream> eventsList;
+	private IEventBus eventBus;
 
 	private EventStreamManager manager;
 
 	@Before
 	public void beforeTest() {
-		manager = new EventStreamManagerImpl(container, eventStreams);
+		manager = new EventStreamManagerImpl(container, json, null);
 	}
 
 	@Test
@@ -56,75 +67,164 @@ public class EventStreamManagerTest {
 		// configuration object is not provided
 		verify(eventStream, times(0)).config(any(EventStreamConfig.class));
 
-		ArgumentCaptor<Principal> principalCaptor = ArgumentCaptor.forClass(Principal.class);
-		verify(eventStreams, times(1)).put(principalCaptor.capture(), eq(eventStream));
-
-		assertThat(principalCaptor.getValue(), notNullValue());
-		assertThat(principalCaptor.getValue(), instanceOf(EventGuest.class));
+		Map<Principal, Set<EventStream>> principals = Classes.getFieldValue(manager, "principals");
+		assertThat(principals.size(), equalTo(1));
+		assertThat(principals.keySet().iterator().next(), instanceOf(EventGuest.class));
+		assertThat(principals.values().iterator().next(), contains(eventStream));
 	}
 
+	/** A principal can have many event streams and event pushed to principal is sent to all of them. */
 	@Test
 	public void createEventStream_Principal() {
-		class User implements Principal {
-			@Override
-			public String getName() {
-				return null;
-			}
-		}
-
-		when(container.getInstance(EventStream.class)).thenReturn(eventStream);
-		manager.createEventStream(new User(), null);
-
-		verify(eventStream, times(0)).config(any(EventStreamConfig.class));
+		when(container.getInstance(EventStream.class)).thenReturn(eventStream, otherEventStream);
+		manager.createEventStream(user, null);
+		manager.createEventStream(user, null);
 
-		ArgumentCaptor<Principal> principalCaptor = ArgumentCaptor.forClass(Principal.class);
-		verify(eventStreams, times(1)).put(principalCaptor.capture(), eq(eventStream));
+		manager.push(user, event);
 
-		assertThat(principalCaptor.getValue(), notNullValue());
-		assertThat(principalCaptor.getValue(), instanceOf(User.class));
+		verify(eventStream, times(1)).offer(any(EventFrame.class));
+		verify(otherEventStream, times(1)).offer(any(EventFrame.class));
 	}
 
 	@Test
 	public void createEventStream_Config() {
 		when(container.getInstance(EventStream.class)).thenReturn(eventStream);
+		when(config.hasTopics()).thenReturn(true);
+		when(config.getTopics()).thenReturn(Arrays.asList("news"));
 		manager.createEventStream(null, config);
 
-		// configuration object is passed to created event stream
+		// configuration object is passed to created event stream and topics are subscribed on connect
 		verify(eventStream, times(1)).config(any(EventStreamConfig.class));
-
-		ArgumentCaptor<Principal> principalCaptor = ArgumentCaptor.forClass(Principal.class);
-		verify(eventStreams, times(1)).put(principalCaptor.capture(), eq(eventStream));
-
-		assertThat(principalCaptor.getValue(), notNullValue());
-		assertThat(principalCaptor.getValue(), instanceOf(EventGuest.class));
+		manager.push("news", event);
+		verify(eventStream, times(1)).offer(any(EventFrame.class));
 	}
 
 	@Test
 	public void destroyEventStream() {
-		when(eventStreams.values()).thenReturn(eventsList);
+		when(container.getInstance(EventStream.class)).thenReturn(eventStream);
+		when(config.hasTopics()).thenReturn(true);
+		when(config.getTopics()).thenReturn(Arrays.asList("news"));
+		manager.createEventStream(user, config);
+
 		manager.destroyEventStream(eventStream);
-		verify(eventsList, times(1)).remove(eventStream);
+
+		// indexes entries are removed together with last event stream
+		Map<Principal, Set<EventStream>> principals = Classes.getFieldValue(manager, "principals");
+		Map<String, Set<EventStream>> topics = Classes.getFieldValue(manager, "topics");
+		assertThat(principals.isEmpty(), equalTo(true));
+		assertThat(topics.isEmpty(), equalTo(true));
 	}
 
 	@Test
 	public void preDestroy() {
-		when(eventStreams.size()).thenReturn(1);
-		when(eventStreams.values()).thenReturn(Arrays.asList(eventStream));
+		when(container.getInstance(EventStream.class)).thenReturn(eventStream);
+		manager.createEventStream(null, null);
 		((EventStreamManagerImpl) manager).preDestroy();
 		verify(eventStream, times(1)).close();
 	}
 
 	@Test
-	public void push() {
-		when(eventStreams.values()).thenReturn(Arrays.asList(eventStream));
+	public void push() throws Exception {
+		when(container.getInstance(EventStream.class)).thenReturn(eventStream, otherEventStream);
+		manager.createEventStream(null, null);
+		manager.createEventStream(null, null);
+
 		manager.push(event);
-		verify(eventStream, times(1)).push(event);
+
+		// event is serialized once and the same frame is offered to all event streams
+		ArgumentCaptor<EventFrame> frameCaptor = ArgumentCaptor.forClass(EventFrame.class);
+		ArgumentCaptor<EventFrame> otherFrameCaptor = ArgumentCaptor.forClass(EventFrame.class);
+		verify(eventStream, times(1)).offer(frameCaptor.capture());
+		verify(otherEventStream, times(1)).offer(otherFrameCaptor.capture());
+		assertThat(frameCaptor.getValue(), sameInstance(otherFrameCaptor.getValue()));
+		assertThat(frameCaptor.getValue().getEvent(), equalTo(event));
+		verify(json, times(1)).stringify(any(Writer.class), eq(event));
 	}
 
 	@Test
-	public void push_Principal() {
-		when(eventStreams.get(user)).thenReturn(eventStream);
+	public void push_NoEventStreams() throws Exception {
+		manager.push(event);
 		manager.push(user, event);
-		verify(eventStream, times(1)).push(event);
+		manager.push("news", event);
+		verify(json, times(0)).stringify(any(Writer.class), any());
+	}
+
+	/** Event pushed on topic is sent only to subscribed event streams. */
+	@Test
+	public void push_Topic() {
+		when(container.getInstance(EventStream.class)).thenReturn(eventStream, otherEventStream);
+		manager.createEventStream(user, null);
+		manager.createEventStream(null, null);
+		manager.subscribe(user, "news");
+
+		manager.push("news", event);
+
+		verify(eventStream, times(1)).offer(any(EventFrame.class));
+		verify(otherEventStream, times(0)).offer(any(EventFrame.class));
+	}
+
+	@Test
+	public void unsubscribe() {
+		when(container.getInstance(EventStream.class)).thenReturn(eventStream);
+		manager.createEventStream(user, null);
+		manager.subscribe(user, "news");
+
+		manager.unsubscribe(user, "news");
+		manager.push("news", event);
+
+		verify(eventStream, times(0)).offer(any(EventFrame.class));
+	}
+
+	/** Event pushed to principal is published on event bus and pushed by other nodes to event streams of the same user. */
+	@Test
+	public void eventBus() throws Exception {
+		ArgumentCaptor<IEventBus.Listener> listenerCaptor = ArgumentCaptor.forClass(IEventBus.Listener.class);
+		manager = new EventStreamManagerImpl(container, json, eventBus);
+		verify(eventBus, times(1)).subscribe(eq(EventStreamManagerImpl.CHANNEL), listenerCaptor.capture());
+
+		when(container.getInstance(EventStream.class)).thenReturn(eventStream);
+		when(user.getName()).thenReturn("john");
+		manager.createEventStream(user, null);
+
+		TestEvent testEvent = new TestEvent();
+		manager.push(user, testEvent);
+		ArgumentCaptor<byte[]> messageCaptor = ArgumentCaptor.forClass(byte[].class);
+		verify(eventBus, times(1)).publish(eq(EventStreamManagerImpl.CHANNEL), messageCaptor.capture());
+
+		// simulate message from other node
+		when(json.parse(any(Reader.class), eq(TestEvent.class))).thenReturn(testEvent);
+		listenerCaptor.getValue().onMessage(messageCaptor.getValue());
+
+		// once for local push and once for event bus message
+		verify(eventStream, times(2)).offer(any(EventFrame.class));
+	}
+
+	/** Events pushed to guests are not published on event bus since guests are node local. */
+	@Test
+	public void eventBus_Guest() {
+		manager = new EventStreamManagerImpl(container, json, eventBus);
+		manager.push(new EventGuest(), event);
+		verify(eventBus, times(0)).publish(any(String.class), any(byte[].class));
+	}
+
+	/** Event bus messages are not authenticated; class not implementing event is rejected before parsing. */
+	@Test
+	public void eventBus_NotEventClass() throws Exception {
+		ArgumentCaptor<IEventBus.Listener> listenerCaptor = ArgumentCaptor.forClass(IEventBus.Listener.class);
+		manager = new EventStreamManagerImpl(container, json, eventBus);
+		verify(eventBus, times(1)).subscribe(eq(EventStreamManagerImpl.CHANNEL), listenerCaptor.capture());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream message = new DataOutputStream(bytes);
+		message.writeByte(0);
+		message.writeUTF("");
+		message.writeUTF(String.class.getName());
+		message.writeBytes("\"text\"");
+		listenerCaptor.getValue().onMessage(bytes.toByteArray());
+
+		verify(json, times(0)).parse(any(Reader.class), any());
+	}
+
+	private static class TestEvent implements Event {
 	}
 }
@@ -5,14 +5,15 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.BufferedReader;
-import java.io.PrintWriter;
 import java.io.StringReader;
 import java.security.Principal;
 
@@ -29,9 +30,11 @@ import com.jslib.container.servlet.TinyContainer;
 import com.jslib.container.spi.ITinyContainer;
 import com.jslib.util.Classes;
 
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.UnavailableException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -55,7 +58,9 @@ public class EventStreamServletTest {
 	@Mock
 	private EventStream eventStream;
 	@Mock
-	private PrintWriter writer;
+	private AsyncContext asyncContext;
+	@Mock
+	private ServletOutputStream outputStream;
 	@Mock
 	private Principal principal;
 
@@ -72,6 +77,8 @@ public class EventStreamServletTest {
 
 		when(requestContext.getRequest()).thenReturn(request);
 		when(requestContext.getResponse()).thenReturn(response);
+		when(request.isAsyncSupported()).thenReturn(true);
+		when(request.startAsync(request, response)).thenReturn(asyncContext);
 
 		when(container.getInstance(EventStreamManager.class)).thenReturn(streamManager);
 
@@ -86,14 +93,14 @@ public class EventStreamServletTest {
 	}
 
 	/**
-	 * Conformity test with null principal and no configuration object. Event stream is created, opened, its loop invoked once,
-	 * closed and destroyed.
+	 * Conformity test with null principal and no configuration object. Event stream is created and opened on request
+	 * asynchronous context; servlet returns without waiting for event stream close.
 	 */
 	@Test
 	public void handleRequest() throws Exception {
 		when(requestContext.getRemoteHost()).thenReturn("192.168.1.10");
 		when(streamManager.createEventStream(null, null)).thenReturn(eventStream);
-		when(response.getWriter()).thenReturn(writer);
+		when(response.getOutputStream()).thenReturn(outputStream);
 
 		handleRequest(requestContext);
 
@@ -103,23 +110,35 @@ public class EventStreamServletTest {
 		verify(response, times(1)).setHeader("Pragma", "no-cache");
 		verify(response, times(1)).setDateHeader("Expires", 0);
 		verify(response, times(1)).setHeader("Connection", "keep-alive");
+		verify(eventStream, times(0)).setGzipEnabled(true);
 
+		verify(asyncContext, times(1)).setTimeout(0);
 		verify(eventStream, times(1)).setRemoteHost("192.168.1.10");
-		verify(eventStream, times(1)).setWriter(writer);
-		verify(eventStream, times(1)).onOpen();
-		verify(eventStream, times(1)).loop();
-		verify(eventStream, times(1)).onClose();
+		verify(eventStream, times(1)).open(asyncContext, outputStream);
+		verify(eventStream, times(0)).close();
 
 		ArgumentCaptor<Principal> principalCaptor = ArgumentCaptor.forClass(Principal.class);
 		ArgumentCaptor<EventStreamConfig> configCaptor = ArgumentCaptor.forClass(EventStreamConfig.class);
-		ArgumentCaptor<EventStream> eventStreamCaptor = ArgumentCaptor.forClass(EventStream.class);
 
 		verify(streamManager, times(1)).createEventStream(principalCaptor.capture(), configCaptor.capture());
-		verify(streamManager, times(1)).destroyEventStream(eventStreamCaptor.capture());
+		verify(streamManager, times(0)).destroyEventStream(any(EventStream.class));
 
 		assertThat(principalCaptor.getValue(), nullValue());
 		assertThat(configCaptor.getValue(), nullValue());
-		assertThat(eventStreamCaptor.getValue(), equalTo(eventStream));
+	}
+
+	/** Client accepting GZIP gets compressed event stream. */
+	@Test
+	public void handleRequest_Gzip() throws Exception {
+		when(streamManager.createEventStream(null, null)).thenReturn(eventStream);
+		when(response.getOutputStream()).thenReturn(outputStream);
+		when(request.getHeader("Accept-Encoding")).thenReturn("gzip, deflate, br");
+
+		handleRequest(requestContext);
+
+		verify(response, times(1)).addHeader("Vary", "Accept-Encoding");
+		verify(response, times(1)).setHeader("Content-Encoding", "gzip");
+		verify(eventStream, times(1)).setGzipEnabled(true);
 	}
 
 	/** Test that if container has user principal it is passed to event stream factory method. */
@@ -159,11 +178,27 @@ public class EventStreamServletTest {
 		assertThat(configCaptor.getValue().getKeepAlivePeriod(), equalTo(20000));
 	}
 
-	/** Runtime time exception thrown by event stream loop is bubbled up by event stream servlet. */
-	@Test(expected = RuntimeException.class)
+	/** Runtime time exception thrown by event stream open closes event stream and is bubbled up by event stream servlet. */
+	@Test
 	public void handleRequest_RuntimeException() throws Exception {
 		when(streamManager.createEventStream(null, null)).thenReturn(eventStream);
-		when(eventStream.loop()).thenThrow(new RuntimeException());
+		when(response.getOutputStream()).thenReturn(outputStream);
+		doThrow(new RuntimeException()).when(eventStream).open(asyncContext, outputStream);
+
+		try {
+			handleRequest(requestContext);
+			fail("Open failure should be bubbled up.");
+		} catch (RuntimeException expected) {
+		}
+
+		verify(eventStream, times(1)).close();
+		verify(asyncContext, times(1)).complete();
+	}
+
+	/** Event stream servlet requires asynchronous support. */
+	@Test(expected = IllegalStateException.class)
+	public void handleRequest_NotAsync() throws Exception {
+		when(request.isAsyncSupported()).thenReturn(false);
 		handleRequest(requestContext);
 	}
 
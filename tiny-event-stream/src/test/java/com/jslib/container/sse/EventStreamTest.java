@@ -2,29 +2,27 @@ package com.jslib.container.sse;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
-import static org.hamcrest.Matchers.instanceOf;
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.Writer;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
-
-import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -36,24 +34,28 @@ import com.jslib.lang.BugError;
 import com.jslib.lang.Event;
 import com.jslib.util.Classes;
 
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
 @RunWith(MockitoJUnitRunner.class)
 public class EventStreamTest {
 	@Mock
 	private Json json;
 	@Mock
-	private BlockingQueue<Event> eventsQueue;
+	private Queue<Event> eventsQueue;
 	@Mock
-	private PrintWriter writer;
+	private AsyncContext asyncContext;
 	@Mock
 	EventStreamConfig config;
-	@Mock
-	SecretKey key;
 
+	private TestOutputStream outputStream;
 	private EventStream eventStream;
 
 	@Before
 	public void beforeTest() {
-		eventStream = new EventStream(json, eventsQueue, true);
+		outputStream = new TestOutputStream();
+		eventStream = new EventStream(json, new ConcurrentLinkedQueue<>(), true);
 	}
 
 	@Test
@@ -64,131 +66,226 @@ public class EventStreamTest {
 		assertThat(keepAlivePeriod(), equalTo(30000));
 	}
 
-	/** Conformity test for event push. */
+	/** Conformity test for event push. Push just enqueues the event, without blocking. */
 	@Test
-	public void push() throws InterruptedException {
+	public void push() {
+		eventStream = new EventStream(json, eventsQueue, true);
 		Event event = new TestEvent("Send event.");
-		when(eventsQueue.offer(event, 4000, TimeUnit.MILLISECONDS)).thenReturn(true);
 
 		eventStream.push(event);
 
-		ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
-		ArgumentCaptor<Long> timeoutCaptor = ArgumentCaptor.forClass(Long.class);
-		ArgumentCaptor<TimeUnit> unitCaptor = ArgumentCaptor.forClass(TimeUnit.class);
-		verify(eventsQueue).offer(eventCaptor.capture(), timeoutCaptor.capture(), unitCaptor.capture());
+		verify(eventsQueue).offer(any(EventFrame.class));
+		assertThat(eventStream.getQueueDepth(), equalTo(1));
+	}
+
+	/** When queue is full with drop newest policy, pushed event is discarded and counted. */
+	@Test
+	public void offer_DropNewest() {
+		eventStream.bind(null, 1, EventStreamOverflowPolicy.DROP_NEWEST, 0, null);
+		EventFrame frame1 = new EventFrame(new TestEvent("1"));
+		EventFrame frame2 = new EventFrame(new TestEvent("2"));
 
-		assertThat(eventCaptor.getValue(), equalTo(event));
-		assertThat(timeoutCaptor.getValue(), equalTo(4000L));
-		assertThat(unitCaptor.getValue(), equalTo(TimeUnit.MILLISECONDS));
+		assertThat(eventStream.offer(frame1), equalTo(true));
+		assertThat(eventStream.offer(frame2), equalTo(false));
+
+		assertThat(eventStream.getQueueDepth(), equalTo(1));
+		assertThat(eventStream.getDroppedCount(), equalTo(1L));
+		assertThat(eventsQueue().peek(), equalTo(frame1));
 	}
 
-	/** On events queue timeout there is no error but event is lost with record on application logger. */
+	/** When queue is full with drop oldest policy, oldest pending event is discarded to make room for the new one. */
 	@Test
-	public void push_Timeout() throws InterruptedException {
-		// events queue mock returns false by default on 'offer' method signaling timeout
-		eventStream.push(null);
+	public void offer_DropOldest() {
+		eventStream.bind(null, 1, EventStreamOverflowPolicy.DROP_OLDEST, 0, null);
+		EventFrame frame1 = new EventFrame(new TestEvent("1"));
+		EventFrame frame2 = new EventFrame(new TestEvent("2"));
+
+		assertThat(eventStream.offer(frame1), equalTo(true));
+		assertThat(eventStream.offer(frame2), equalTo(true));
+
+		assertThat(eventStream.getQueueDepth(), equalTo(1));
+		assertThat(eventStream.getDroppedCount(), equalTo(1L));
+		assertThat(eventsQueue().peek(), equalTo(frame2));
 	}
 
-	/** Events queue interruption exception is recorded to application logger and current thread interrupted. */
+	/** When queue is full with disconnect policy, slow client is disconnected. */
 	@Test
-	public void push_Interrupted() throws InterruptedException {
-		when(eventsQueue.offer((Event) isNull(), anyLong(), any(TimeUnit.class))).thenThrow(new InterruptedException());
-		eventStream.push(null);
-		assertTrue(Thread.currentThread().isInterrupted());
+	public void offer_Disconnect() {
+		eventStream.bind(null, 1, EventStreamOverflowPolicy.DISCONNECT, 0, null);
+		outputStream.ready = false;
+		eventStream.open(asyncContext, outputStream);
+
+		assertThat(eventStream.offer(new EventFrame(new TestEvent("1"))), equalTo(true));
+		assertThat(eventStream.offer(new EventFrame(new TestEvent("2"))), equalTo(false));
+
+		assertThat(eventStream.getState(), equalTo(EventStream.State.CLOSED));
+		assertThat(eventStream.getQueueDepth(), equalTo(0));
+		verify(asyncContext).complete();
+	}
+
+	/** Event frame encoded by event stream manager is written as it is, without serializing event again. */
+	@Test
+	public void offer_Encoded() throws Throwable {
+		Event event = new TestEvent("Send event.");
+		doWrite("{\"text\":\"Send event.\"}").when(json).stringify(any(Writer.class), eq(event));
+		eventStream.offer(EventFrame.encode(json, event));
+
+		eventStream.open(asyncContext, outputStream);
+
+		verify(json, times(1)).stringify(any(Writer.class), eq(event));
+		assertThat(outputStream.toString(), equalTo("event:KeepAliveEvent\r\ndata:\r\n\r\nevent:TestEvent\r\ndata:{\"text\":\"Send event.\"}\r\n\r\n"));
+		assertThat(eventStream.getQueueDepth(), equalTo(0));
+	}
+
+	/** Event stream subclass overriding event serialization ignores event frame encoded by event stream manager. */
+	@Test
+	public void offer_EncodedOverridden() throws Throwable {
+		List<Event> events = new ArrayList<>();
+		eventStream = new EventStream(json, new ConcurrentLinkedQueue<>(), true) {
+			@Override
+			protected void sendEvent(Event event) {
+				events.add(event);
+				super.sendEvent(event);
+			}
+		};
+		Event event = new TestEvent("Send event.");
+		eventStream.offer(EventFrame.encode(json, event));
+
+		eventStream.open(asyncContext, outputStream);
+
+		assertThat(events, equalTo(List.of(event)));
+		assertThat(eventStream.getQueueDepth(), equalTo(0));
+	}
+
+	/** Lag is the age of the oldest pending event. */
+	@Test
+	public void getLag() throws Exception {
+		assertThat(eventStream.getLag(), equalTo(0L));
+		EventFrame frame = new EventFrame(new TestEvent("1"));
+		Classes.setFieldValue(frame, "timestamp", System.currentTimeMillis() - 5000);
+		eventStream.offer(frame);
+
+		assertThat(eventStream.getLag() >= 5000, equalTo(true));
 	}
 
 	/** It is considered a bug attempting to push on a closed event stream. */
 	@Test(expected = BugError.class)
-	public void push_NotActive() throws InterruptedException {
+	public void push_NotActive() {
 		eventStream = new EventStream(json, eventsQueue, false);
 		eventStream.push(null);
 	}
 
-	/** Loop conformity test. It gets an event for events queue and end it to writer. */
+	/** Events pushed before open are written on open, after initial keep alive. */
 	@Test
-	public void loop_sendEvent() throws Throwable {
+	public void open() throws Throwable {
 		Event event = new TestEvent("Send event.");
 		doWrite("{\"text\":\"Send event.\"}").when(json).stringify(any(Writer.class), eq(event));
-		// 40000 is the default keep alive period
-		// uses fixed values in order to check that #keepAlivePeriod is indeed used
-		when(eventsQueue.poll(40000, TimeUnit.MILLISECONDS)).thenReturn(event);
-
-		StringWriter buffer = new StringWriter();
-		eventStream.setWriter(new PrintWriter(buffer));
 		eventStream.push(event);
 
-		assertTrue(eventStream.loop());
-		assertThat(buffer.toString(), equalTo("event:TestEvent\r\ndata:{\"text\":\"Send event.\"}\r\n\r\n"));
+		eventStream.open(asyncContext, outputStream);
+
+		verify(asyncContext).addListener(eventStream);
+		assertThat(eventStream.getState(), equalTo(EventStream.State.OPEN));
+		assertThat(outputStream.toString(), equalTo("event:KeepAliveEvent\r\ndata:\r\n\r\nevent:TestEvent\r\ndata:{\"text\":\"Send event.\"}\r\n\r\n"));
+		assertThat(outputStream.flushes, equalTo(1));
 	}
 
-	/** If poll timeout expires, events queue returns null in which case loop sends keep alive event. */
+	/** Events queued meanwhile are coalesced in a single output stream write and a single flush. */
 	@Test
-	public void loop_sendKeepAlive() throws Throwable {
-		StringWriter buffer = new StringWriter();
-		eventStream.setWriter(new PrintWriter(buffer));
-		eventStream.push(null);
+	public void drain_Batch() throws Throwable {
+		outputStream.ready = false;
+		eventStream.open(asyncContext, outputStream);
+		eventStream.push(new TestEvent("1"));
+		eventStream.push(new TestEvent("2"));
+
+		outputStream.ready = true;
+		outputStream.listener.onWritePossible();
+
+		assertThat(outputStream.writes, equalTo(1));
+		assertThat(outputStream.flushes, equalTo(1));
+		assertThat(outputStream.toString(), equalTo("event:KeepAliveEvent\r\ndata:\r\n\r\nevent:TestEvent\r\ndata:\r\n\r\nevent:TestEvent\r\ndata:\r\n\r\n"));
+	}
 
-		assertTrue(eventStream.loop());
-		assertThat(buffer.toString(), equalTo("event:KeepAliveEvent\r\ndata:\r\n\r\n"));
+	/** Compressed event stream is a valid GZIP stream, finished on event stream close. */
+	@Test
+	public void drain_Gzip() throws Throwable {
+		eventStream.setGzipEnabled(true);
+		eventStream.open(asyncContext, outputStream);
+		eventStream.close();
+		outputStream.listener.onWritePossible();
+
+		GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(outputStream.bytes.toByteArray()));
+		assertThat(new String(gzip.readAllBytes(), StandardCharsets.UTF_8), equalTo("event:KeepAliveEvent\r\ndata:\r\n\r\n"));
+		assertThat(eventStream.getState(), equalTo(EventStream.State.CLOSED));
 	}
 
-	/** On events queue poll interruption continue loop, if event stream is still active. */
+	/** Events are not written while output stream is not ready; container resumes writing via write listener. */
 	@Test
-	public void loop_Interrupted_Active() throws InterruptedException {
-		when(eventsQueue.poll(anyLong(), any(TimeUnit.class))).thenThrow(InterruptedException.class);
-		assertTrue(eventStream.loop());
+	public void drain_NotReady() throws Throwable {
+		outputStream.ready = false;
+		eventStream.open(asyncContext, outputStream);
+		assertThat(outputStream.toString(), equalTo(""));
+
+		outputStream.ready = true;
+		outputStream.listener.onWritePossible();
+		assertThat(outputStream.toString(), equalTo("event:KeepAliveEvent\r\ndata:\r\n\r\n"));
 	}
 
-	/** On events queue poll interruption breaks the loop, if event stream is not active anymore. */
+	/** Write error, most probably due to client disconnect, closes event stream. */
 	@Test
-	public void loop_Interrupted_NotActive() throws InterruptedException {
-		eventStream = new EventStream(json, eventsQueue, false);
-		when(eventsQueue.poll(anyLong(), any(TimeUnit.class))).thenThrow(new InterruptedException());
-		assertFalse(eventStream.loop());
+	public void drain_WriteError() {
+		outputStream.failing = true;
+		eventStream.open(asyncContext, outputStream);
+
+		assertThat(eventStream.getState(), equalTo(EventStream.State.CLOSED));
+		verify(asyncContext).complete();
 	}
 
-	/** Breaks the loop when print writer check error returns true. */
+	/** Close writes pending events then completes asynchronous context. */
 	@Test
-	public void loop_WriteError() {
-		when(writer.checkError()).thenReturn(true);
-		eventStream.setWriter(writer);
-		assertFalse(eventStream.loop());
+	public void close() {
+		outputStream.ready = false;
+		eventStream.open(asyncContext, outputStream);
+
+		eventStream.close();
+		assertThat(eventStream.getState(), equalTo(EventStream.State.CLOSING));
+
+		outputStream.ready = true;
+		outputStream.listener.onWritePossible();
+		assertThat(outputStream.toString(), equalTo("event:KeepAliveEvent\r\ndata:\r\n\r\n"));
+		assertThat(eventStream.getState(), equalTo(EventStream.State.CLOSED));
+		verify(asyncContext).complete();
 	}
 
-	/** Breaks the loop when events queue returns shutdown event. */
+	/** Event stream not yet opened is closed immediately. */
 	@Test
-	public void loop_ShutdownEvent() throws InterruptedException {
-		Event event = Classes.newInstance("com.jslib.container.sse.EventStream$ShutdownEvent");
-		when(eventsQueue.poll(anyLong(), any(TimeUnit.class))).thenReturn(event);
-		assertFalse(eventStream.loop());
+	public void close_NotOpen() {
+		eventStream.close();
+		assertThat(eventStream.getState(), equalTo(EventStream.State.CLOSED));
+	}
+
+	/** Asynchronous context completed by container closes event stream without completing it again. */
+	@Test
+	public void onComplete() throws IOException {
+		eventStream.open(asyncContext, outputStream);
+		eventStream.onComplete(null);
+
+		assertThat(eventStream.getState(), equalTo(EventStream.State.CLOSED));
+		verify(asyncContext, times(0)).complete();
 	}
 
 	@Test
 	public void sendKeepAlive() throws Exception {
-		StringWriter buffer = new StringWriter();
-		eventStream.setWriter(new PrintWriter(buffer));
 		Classes.invoke(eventStream, "sendKeepAlive");
-		assertThat(buffer.toString(), equalTo("event:KeepAliveEvent\r\ndata:\r\n\r\n"));
+		assertThat(frame(), equalTo("event:KeepAliveEvent\r\ndata:\r\n\r\n"));
 	}
 
 	@Test
 	public void sendEvent() throws Exception {
 		Event event = new TestEvent("Send event.");
 		doWrite("{\"text\":\"Send event.\"}").when(json).stringify(any(Writer.class), eq(event));
-		StringWriter buffer = new StringWriter();
-		eventStream.setWriter(new PrintWriter(buffer));
 		Classes.invoke(eventStream, "sendEvent", event);
-		assertThat(buffer.toString(), equalTo("event:TestEvent\r\ndata:{\"text\":\"Send event.\"}\r\n\r\n"));
-	}
-
-	@Test
-	public void close() throws InterruptedException {
-		eventStream.close();
-		ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
-		verify(eventsQueue).offer(eventCaptor.capture(), anyLong(), any(TimeUnit.class));
-
-		Class<? extends Event> eventClass = Classes.forName("com.jslib.container.sse.EventStream$ShutdownEvent");
-		assertThat(eventCaptor.getValue(), instanceOf(eventClass));
+		assertThat(frame(), equalTo("event:TestEvent\r\ndata:{\"text\":\"Send event.\"}\r\n\r\n"));
 	}
 
 	// --------------------------------------------------------------------------------------------
@@ -197,6 +294,15 @@ public class EventStreamTest {
 		return Classes.getFieldValue(eventStream, EventStream.class, "keepAlivePeriod");
 	}
 
+	private Queue<Event> eventsQueue() {
+		return Classes.getFieldValue(eventStream, EventStream.class, "eventsQueue");
+	}
+
+	private String frame() {
+		ByteArrayOutputStream frame = Classes.getFieldValue(eventStream, EventStream.class, "frame");
+		return new String(frame.toByteArray(), StandardCharsets.UTF_8);
+	}
+
 	private static Stubber doWrite(final String json) {
 		return doAnswer(new Answer<Void>() {
 			@Override
@@ -216,4 +322,50 @@ public class EventStreamTest {
 			this.text = text;
 		}
 	}
+
+	private static class TestOutputStream extends ServletOutputStream {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		WriteListener listener;
+		boolean ready = true;
+		boolean failing;
+		int writes;
+		int flushes;
+
+		@Override
+		public boolean isReady() {
+			return ready;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (failing) {
+				throw new IOException("Broken pipe");
+			}
+			bytes.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (failing) {
+				throw new IOException("Broken pipe");
+			}
+			++writes;
+			bytes.write(b, off, len);
+		}
+
+		@Override
+		public void flush() {
+			++flushes;
+		}
+
+		@Override
+		public String toString() {
+			return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
 }
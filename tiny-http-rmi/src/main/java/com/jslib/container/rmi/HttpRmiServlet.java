@@ -2,13 +2,22 @@ package com.jslib.container.rmi;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import com.jslib.api.log.Log;
 import com.jslib.api.log.LogFactory;
 import com.jslib.container.http.ContentType;
+import com.jslib.container.http.HttpHeader;
 import com.jslib.container.http.Resource;
+import com.jslib.container.http.cache.CacheEntry;
+import com.jslib.container.http.cache.CachedResponse;
+import com.jslib.container.http.cache.ReplayedRequest;
+import com.jslib.container.http.cache.ResponseCache;
+import com.jslib.container.http.cache.ResponseCapture;
 import com.jslib.container.http.encoder.ArgumentsReader;
 import com.jslib.container.http.encoder.ArgumentsReaderFactory;
 import com.jslib.container.http.encoder.ServerEncoders;
@@ -109,6 +118,12 @@ public final class HttpRmiServlet extends AppServlet {
 	/** Factory for return value writers. Create instances to serialize method return value to HTTP response. */
 	private final ValueWriterFactory valueWriterFactory;
 
+	/** Server side cache for serialized responses of remote methods annotated with {@link CachedResponse}. */
+	private final ResponseCache responseCache = ResponseCache.getInstance();
+
+	/** Server side caching annotations for remote methods, lazily resolved. */
+	private final Map<IManagedMethod, Optional<CachedResponse>> cachedResponses = new ConcurrentHashMap<>();
+
 	/** Initialize invocation arguments reader and return value writer factories. */
 	public HttpRmiServlet() {
 		// both factories are implemented by the same server encoders
@@ -155,11 +170,30 @@ public final class HttpRmiServlet extends AppServlet {
 		IManagedMethod managedMethod = null;
 		ArgumentsReader argumentsReader = null;
 		Object value = null;
+		CachedResponse cachedResponse = null;
+		String cacheKey = null;
 
 		try {
 			IManagedClass<?> managedClass = managedClass(getContainer(), interfaceName, httpRequest.getRequestURI());
 			managedMethod = managedMethod(managedClass, methodName, httpRequest.getRequestURI());
 
+			cachedResponse = getCachedResponse(managedMethod);
+			if (cachedResponse != null) {
+				// invocation arguments are carried by request body that should be part of the cache key
+				ReplayedRequest replayedRequest = responseCache.replay(httpRequest);
+				if (replayedRequest != null) {
+					httpRequest = replayedRequest;
+					cacheKey = responseCache.key(httpRequest, cachedResponse, getContainer().getUserPrincipal(), replayedRequest.getBody());
+					// cached response is served without managed method invocation, that is where authorization is performed
+					authorize(managedMethod);
+					CacheEntry cacheEntry = responseCache.get(cacheKey);
+					if (cacheEntry != null) {
+						cacheEntry.serve(httpResponse, true);
+						return;
+					}
+				}
+			}
+
 			final Type[] formalParameters = managedMethod.getParameterTypes();
 			argumentsReader = argumentsReaderFactory.getArgumentsReader(httpRequest, formalParameters);
 			Object[] arguments = argumentsReader.read(httpRequest, formalParameters);
@@ -172,6 +206,16 @@ public final class HttpRmiServlet extends AppServlet {
 			}
 		}
 
+		ResponseCapture responseCapture = null;
+		if (cacheKey != null) {
+			// response is captured while sent to client and stored on server cache
+			responseCapture = responseCache.capture(httpResponse);
+			for (String header : cachedResponse.vary()) {
+				responseCapture.addHeader(HttpHeader.VARY, header);
+			}
+			httpResponse = responseCapture;
+		}
+
 		httpResponse.setCharacterEncoding("UTF-8");
 		if (Types.isVoid(managedMethod.getReturnType())) {
 			httpResponse.setStatus(HttpServletResponse.SC_NO_CONTENT);
@@ -183,7 +227,24 @@ public final class HttpRmiServlet extends AppServlet {
 		httpResponse.setContentType(contentType.getValue());
 
 		ValueWriter valueWriter = valueWriterFactory.getValueWriter(contentType);
-		valueWriter.write(httpResponse, value);
+		valueWriter.write(httpRequest, httpResponse, value);
+
+		if (responseCapture != null) {
+			responseCache.put(cacheKey, responseCapture, cachedResponse.ttl());
+		}
+	}
+
+	/**
+	 * Get server side caching annotation for remote method, or null if method is not annotated or response cache is disabled.
+	 * 
+	 * @param managedMethod remote method.
+	 * @return server side caching annotation, possible null.
+	 */
+	private CachedResponse getCachedResponse(IManagedMethod managedMethod) {
+		if (!responseCache.isEnabled()) {
+			return null;
+		}
+		return cachedResponses.computeIfAbsent(managedMethod, method -> Optional.ofNullable(method.scanAnnotation(CachedResponse.class, IManagedMethod.Flags.INCLUDE_TYPES))).orElse(null);
 	}
 
 	// --------------------------------------------------------------------------------------------
@@ -0,0 +1,323 @@
+package com.jslib.container.rest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+import com.jslib.container.http.HttpHeader;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.CompletionCallback;
+import jakarta.ws.rs.container.ConnectionCallback;
+import jakarta.ws.rs.container.TimeoutHandler;
+
+/**
+ * Asynchronous response bound to servlet {@link AsyncContext}. It is injected on resource method parameters annotated with
+ * <code>&#64;Suspended</code> and is also used internally by REST servlet for resource methods returning a
+ * {@link java.util.concurrent.CompletionStage}.
+ * <p>
+ * Response is completed exactly once, from the thread that resumes or cancels it, or from servlet container thread on timeout.
+ * Resume delegates {@link Completion} supplied by REST servlet, that serializes value or error to HTTP response; cancel and
+ * timeout, if timeout handler does not resume response, send <code>503 Service Unavailable</code>. In all cases servlet
+ * asynchronous context is completed afterwards.
+ * <p>
+ * Timeout is not delegated to servlet asynchronous context since its timeout cannot be changed after the dispatch that
+ * started asynchronous mode returns. It is armed on a scheduler supplied by REST servlet instead, so that a timeout handler
+ * is able to extend the timeout via {@link #setTimeout(long, TimeUnit)}.
+ * <p>
+ * Supported callbacks are {@link CompletionCallback}, invoked after asynchronous context completion, and
+ * {@link ConnectionCallback}, invoked if connection fails while response is still suspended.
+ *
+ * @author Iulian Rotaru
+ */
+class AsyncResponseImpl implements AsyncResponse, AsyncListener {
+	private static final Log log = LogFactory.getLog(AsyncResponseImpl.class);
+
+	private static final int SUSPENDED = 0;
+	private static final int RESUMED = 1;
+	private static final int CANCELLED = 2;
+
+	private final AtomicInteger state = new AtomicInteger(SUSPENDED);
+
+	private final List<CompletionCallback> completionCallbacks = new CopyOnWriteArrayList<>();
+	private final List<ConnectionCallback> connectionCallbacks = new CopyOnWriteArrayList<>();
+
+	/** Servlet asynchronous context, initialized just before resource method invocation. */
+	private volatile AsyncContext asyncContext;
+	private volatile Completion completion;
+	private volatile TimeoutHandler timeoutHandler;
+
+	/** Scheduler for response timeout, supplied by REST servlet. */
+	private volatile ScheduledExecutorService scheduler;
+	/** Pending timeout task, null if response has no timeout. Replaced every time timeout is updated. */
+	private volatile ScheduledFuture<?> timeoutTask;
+
+	/** Error response was resumed with, if any, passed to completion callbacks. */
+	private volatile Throwable error;
+
+	/**
+	 * Bind this asynchronous response to servlet asynchronous context. Should be called on request thread, after asynchronous
+	 * mode was started and before resource method invocation.
+	 *
+	 * @param asyncContext servlet asynchronous context,
+	 * @param scheduler scheduler for response timeout,
+	 * @param timeout initial timeout, in milliseconds, zero or negative for no timeout,
+	 * @param completion response completion.
+	 */
+	public void start(AsyncContext asyncContext, ScheduledExecutorService scheduler, long timeout, Completion completion) {
+		this.asyncContext = asyncContext;
+		this.scheduler = scheduler;
+		this.completion = completion;
+		// servlet container timeout is disabled; response timeout is armed on scheduler
+		asyncContext.setTimeout(0);
+		asyncContext.addListener(this);
+		scheduleTimeout(timeout);
+	}
+
+	@Override
+	public boolean resume(Object response) {
+		if (!state.compareAndSet(SUSPENDED, RESUMED)) {
+			return false;
+		}
+		complete(response, null);
+		return true;
+	}
+
+	@Override
+	public boolean resume(Throwable response) {
+		if (!state.compareAndSet(SUSPENDED, RESUMED)) {
+			return false;
+		}
+		error = response;
+		complete(null, response);
+		return true;
+	}
+
+	@Override
+	public boolean cancel() {
+		return cancel(httpResponse -> {
+		});
+	}
+
+	@Override
+	public boolean cancel(int retryAfter) {
+		return cancel(httpResponse -> httpResponse.setIntHeader(HttpHeader.RETRY_AFTER, retryAfter));
+	}
+
+	@Override
+	public boolean cancel(Date retryAfter) {
+		return cancel(httpResponse -> httpResponse.setDateHeader(HttpHeader.RETRY_AFTER, retryAfter.getTime()));
+	}
+
+	@Override
+	public boolean isSuspended() {
+		return state.get() == SUSPENDED;
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return state.get() == CANCELLED;
+	}
+
+	@Override
+	public boolean isDone() {
+		return state.get() != SUSPENDED;
+	}
+
+	@Override
+	public boolean setTimeout(long time, TimeUnit unit) {
+		if (!isSuspended()) {
+			return false;
+		}
+		scheduleTimeout(unit.toMillis(time));
+		return true;
+	}
+
+	@Override
+	public void setTimeoutHandler(TimeoutHandler handler) {
+		this.timeoutHandler = handler;
+	}
+
+	@Override
+	public Collection<Class<?>> register(Class<?> callback) {
+		try {
+			return register(callback.getDeclaredConstructor().newInstance());
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalArgumentException("Fail to create asynchronous response callback " + callback);
+		}
+	}
+
+	@Override
+	public Map<Class<?>, Collection<Class<?>>> register(Class<?> callback, Class<?>... callbacks) {
+		Map<Class<?>, Collection<Class<?>>> registered = new HashMap<>();
+		registered.put(callback, register(callback));
+		for (Class<?> other : callbacks) {
+			registered.put(other, register(other));
+		}
+		return registered;
+	}
+
+	@Override
+	public Collection<Class<?>> register(Object callback) {
+		List<Class<?>> registered = new ArrayList<>();
+		if (callback instanceof CompletionCallback) {
+			completionCallbacks.add((CompletionCallback) callback);
+			registered.add(CompletionCallback.class);
+		}
+		if (callback instanceof ConnectionCallback) {
+			connectionCallbacks.add((ConnectionCallback) callback);
+			registered.add(ConnectionCallback.class);
+		}
+		return registered;
+	}
+
+	@Override
+	public Map<Class<?>, Collection<Class<?>>> register(Object callback, Object... callbacks) {
+		Map<Class<?>, Collection<Class<?>>> registered = new HashMap<>();
+		registered.put(callback.getClass(), register(callback));
+		for (Object other : callbacks) {
+			registered.put(other.getClass(), register(other));
+		}
+		return registered;
+	}
+
+	// --------------------------------------------------------------------------------------------
+	// servlet asynchronous context listener
+
+	@Override
+	public void onComplete(AsyncEvent event) {
+		ScheduledFuture<?> task = timeoutTask;
+		if (task != null) {
+			task.cancel(false);
+		}
+		for (CompletionCallback callback : completionCallbacks) {
+			try {
+				callback.onComplete(error);
+			} catch (Throwable t) {
+				log.error("Fail on asynchronous response completion callback: {exception}", t);
+			}
+		}
+	}
+
+	/**
+	 * Servlet container timeout is disabled, see {@link #start(AsyncContext, ScheduledExecutorService, long, Completion)}, but
+	 * if container still fires it, handle it as response timeout.
+	 */
+	@Override
+	public void onTimeout(AsyncEvent event) {
+		timeout();
+	}
+
+	@Override
+	public void onError(AsyncEvent event) {
+		if (!state.compareAndSet(SUSPENDED, CANCELLED)) {
+			return;
+		}
+		error = event.getThrowable();
+		log.error("Asynchronous response connection error: {exception}", error);
+		for (ConnectionCallback callback : connectionCallbacks) {
+			try {
+				callback.onDisconnect(this);
+			} catch (Throwable t) {
+				log.error("Fail on asynchronous response connection callback: {exception}", t);
+			}
+		}
+		asyncContext.complete();
+	}
+
+	@Override
+	public void onStartAsync(AsyncEvent event) {
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Replace pending timeout task, if any, with a new one. Does not arm timeout task if timeout is zero or negative.
+	 *
+	 * @param timeout timeout, in milliseconds, zero or negative for no timeout.
+	 */
+	private synchronized void scheduleTimeout(long timeout) {
+		if (timeoutTask != null) {
+			timeoutTask.cancel(false);
+		}
+		timeoutTask = timeout > 0 ? scheduler.schedule(this::timeout, timeout, TimeUnit.MILLISECONDS) : null;
+	}
+
+	/**
+	 * On timeout delegates timeout handler, if any. If timeout handler neither resumed nor extended the timeout - or there is
+	 * no handler, cancel response, that is, send <code>503 Service Unavailable</code>.
+	 */
+	private void timeout() {
+		if (!isSuspended()) {
+			return;
+		}
+		ScheduledFuture<?> task = timeoutTask;
+		TimeoutHandler handler = timeoutHandler;
+		if (handler != null) {
+			handler.handleTimeout(this);
+		}
+		if (isSuspended() && timeoutTask == task) {
+			log.warn("Asynchronous response timeout.");
+			cancel();
+		}
+	}
+
+	private void complete(Object value, Throwable error) {
+		try {
+			completion.complete(value, error);
+		} catch (Throwable t) {
+			log.dump("Fail to complete asynchronous response.", t);
+			if (this.error == null) {
+				this.error = t;
+			}
+		} finally {
+			asyncContext.complete();
+		}
+	}
+
+	private boolean cancel(Consumer<HttpServletResponse> headers) {
+		if (!state.compareAndSet(SUSPENDED, CANCELLED)) {
+			return isCancelled();
+		}
+		HttpServletResponse httpResponse = (HttpServletResponse) asyncContext.getResponse();
+		try {
+			if (!httpResponse.isCommitted()) {
+				headers.accept(httpResponse);
+				httpResponse.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			}
+		} catch (IOException e) {
+			log.error("Fail to send asynchronous response cancellation: {exception}", e);
+		} finally {
+			asyncContext.complete();
+		}
+		return true;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Asynchronous response completion, that is, send resumed value or error to HTTP response. It is invoked at most once, from
+	 * the thread resuming response.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	interface Completion {
+		void complete(Object value, Throwable error) throws Exception;
+	}
+}
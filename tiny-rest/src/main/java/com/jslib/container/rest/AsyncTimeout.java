@@ -0,0 +1,37 @@
+package com.jslib.container.rest;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Timeout for asynchronous resource methods, that is, methods with <code>&#64;Suspended AsyncResponse</code> parameter or
+ * returning {@link java.util.concurrent.CompletionStage}. If response is not resumed in time REST servlet sends
+ * <code>503 Service Unavailable</code>, unless a timeout handler registered on asynchronous response resumes it. Annotation can
+ * be applied on resource class, in which case it is inherited by all resource methods, or on method, overriding class level
+ * timeout.
+ * <p>
+ * If annotation is missing, timeout is configured by {@link RestServlet#PARAM_ASYNC_TIMEOUT} context parameter.
+ *
+ * <pre>
+ * &#64;GET
+ * &#64;Path("reports/{id}")
+ * &#64;AsyncTimeout(60000)
+ * public CompletionStage&lt;Report&gt; getReport(&#64;PathParam("id") int id) {
+ * 	...
+ * }
+ * </pre>
+ *
+ * @author Iulian Rotaru
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AsyncTimeout {
+	/**
+	 * Asynchronous response timeout, in milliseconds. Zero disables timeout.
+	 *
+	 * @return response timeout, in milliseconds.
+	 */
+	long value();
+}
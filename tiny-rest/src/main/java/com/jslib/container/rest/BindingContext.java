@@ -0,0 +1,48 @@
+package com.jslib.container.rest;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Per request state used by parameter binders. Query, matrix and cookie parameters are parsed lazily, only if resource
+ * method has parameters that need them, and only once per request, see {@link RequestParameters}.
+ *
+ * @author Iulian Rotaru
+ */
+class BindingContext {
+	private final HttpServletRequest httpRequest;
+	private final PathRouter.Match<?> requestPath;
+
+	/** Asynchronous response for suspended resource methods, null for synchronous methods. */
+	private final AsyncResponseImpl asyncResponse;
+
+	private RequestParameters parameters;
+
+	public BindingContext(HttpServletRequest httpRequest, PathRouter.Match<?> requestPath) {
+		this(httpRequest, requestPath, null);
+	}
+
+	public BindingContext(HttpServletRequest httpRequest, PathRouter.Match<?> requestPath, AsyncResponseImpl asyncResponse) {
+		this.httpRequest = httpRequest;
+		this.requestPath = requestPath;
+		this.asyncResponse = asyncResponse;
+	}
+
+	public HttpServletRequest getRequest() {
+		return httpRequest;
+	}
+
+	public PathRouter.Match<?> getRequestPath() {
+		return requestPath;
+	}
+
+	public AsyncResponseImpl getAsyncResponse() {
+		return asyncResponse;
+	}
+
+	public RequestParameters getParameters() {
+		if (parameters == null) {
+			parameters = new RequestParameters(httpRequest);
+		}
+		return parameters;
+	}
+}
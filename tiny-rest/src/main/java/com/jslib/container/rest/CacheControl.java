@@ -0,0 +1,84 @@
+package com.jslib.container.rest;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caching policy for REST resource method responses. REST servlet converts annotation attributes into
+ * <code>Cache-Control</code> response header and, for <code>GET</code> and <code>HEAD</code> requests, enables conditional
+ * requests handling. Annotation can be applied on resource class, in which case it is inherited by all resource methods, or
+ * on method, overriding class level policy.
+ * <p>
+ * If {@link #etag()} is enabled, and it is by default, REST servlet computes a strong entity tag from a hash of the serialized
+ * response body and sends back <code>304 Not Modified</code>, with no body, if client <code>If-None-Match</code> header matches.
+ * Computing the hash requires method execution and body serialization; to avoid them altogether configure a
+ * {@link #version()} provider, invoked before resource method execution.
+ *
+ * <pre>
+ * &#64;GET
+ * &#64;Path("products/{id}")
+ * &#64;CacheControl(maxAge = 60, isPrivate = true)
+ * public Product getProduct(&#64;PathParam("id") int id) {
+ * 	...
+ * }
+ * </pre>
+ *
+ * @author Iulian Rotaru
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheControl {
+	/**
+	 * Maximum time, in seconds, response is considered fresh. Negative value, that is the default, omits
+	 * <code>max-age</code> directive.
+	 *
+	 * @return response freshness lifetime, in seconds.
+	 */
+	int maxAge() default -1;
+
+	/**
+	 * Response is intended for a single user and must not be stored by shared caches.
+	 *
+	 * @return <code>private</code> directive flag, default to false.
+	 */
+	boolean isPrivate() default false;
+
+	/**
+	 * Response body will not change over time and clients should not revalidate it while fresh.
+	 *
+	 * @return <code>immutable</code> directive flag, default to false.
+	 */
+	boolean immutable() default false;
+
+	/**
+	 * Response must be revalidated with origin server before every reuse.
+	 *
+	 * @return <code>no-cache</code> directive flag, default to false.
+	 */
+	boolean noCache() default false;
+
+	/**
+	 * Response must not be stored by any cache. If this flag is set all other directives are ignored and conditional requests
+	 * are not processed.
+	 *
+	 * @return <code>no-store</code> directive flag, default to false.
+	 */
+	boolean noStore() default false;
+
+	/**
+	 * Enable entity tag generation from serialized response body hash.
+	 *
+	 * @return entity tag generation flag, default to true.
+	 */
+	boolean etag() default true;
+
+	/**
+	 * Optional resource version provider. Provider class should have a default constructor. If configured, entity tag and last
+	 * modification time are taken from provider and conditional request is evaluated before executing resource method.
+	 *
+	 * @return resource version provider class.
+	 */
+	Class<? extends VersionProvider> version() default VersionProvider.class;
+}
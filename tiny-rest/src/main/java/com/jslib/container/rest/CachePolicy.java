@@ -0,0 +1,84 @@
+package com.jslib.container.rest;
+
+import com.jslib.container.spi.IManagedMethod;
+import com.jslib.container.spi.IManagedMethod.Flags;
+import com.jslib.util.Classes;
+
+/**
+ * Caching policy resolved from {@link CacheControl} annotation of a resource method or its declaring class. This class is
+ * immutable and is created once per resource method; <code>Cache-Control</code> header value is prepared at creation.
+ *
+ * @author Iulian Rotaru
+ */
+final class CachePolicy {
+	/**
+	 * Create caching policy for given resource method. Returns null if neither method nor its declaring class is annotated with
+	 * {@link CacheControl}.
+	 *
+	 * @param managedMethod resource method.
+	 * @return caching policy or null.
+	 */
+	public static CachePolicy create(IManagedMethod managedMethod) {
+		CacheControl cacheControl = managedMethod.scanAnnotation(CacheControl.class, Flags.INCLUDE_TYPES);
+		return cacheControl != null ? new CachePolicy(cacheControl) : null;
+	}
+
+	/** Value for <code>Cache-Control</code> response header, null if annotation has no directive. */
+	private final String headerValue;
+
+	private final boolean etag;
+
+	/** Optional resource version provider, null if not configured. */
+	private final VersionProvider versionProvider;
+
+	private CachePolicy(CacheControl cacheControl) {
+		// conditional requests are disabled for no-store responses: there is neither entity tag nor version provider
+		boolean noStore = cacheControl.noStore();
+		this.etag = !noStore && cacheControl.etag();
+		this.versionProvider = !noStore && cacheControl.version() != VersionProvider.class ? Classes.newInstance(cacheControl.version()) : null;
+
+		if (noStore) {
+			this.headerValue = "no-store";
+			return;
+		}
+
+		StringBuilder builder = new StringBuilder();
+		if (cacheControl.isPrivate()) {
+			append(builder, "private");
+		}
+		if (cacheControl.noCache()) {
+			append(builder, "no-cache");
+		}
+		if (cacheControl.maxAge() >= 0) {
+			append(builder, "max-age=" + cacheControl.maxAge());
+		}
+		if (cacheControl.immutable()) {
+			append(builder, "immutable");
+		}
+		this.headerValue = builder.length() > 0 ? builder.toString() : null;
+	}
+
+	private static void append(StringBuilder builder, String directive) {
+		if (builder.length() > 0) {
+			builder.append(", ");
+		}
+		builder.append(directive);
+	}
+
+	public String getHeaderValue() {
+		return headerValue;
+	}
+
+	/**
+	 * Test if entity tag should be computed from serialized response body.
+	 *
+	 * @return true if entity tag is computed from response body.
+	 */
+	public boolean isEtag() {
+		return etag;
+	}
+
+	public VersionProvider getVersionProvider() {
+		return versionProvider;
+	}
+}
@@ -0,0 +1,220 @@
+package com.jslib.container.rest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import com.jslib.container.http.HttpHeader;
+import com.jslib.lang.BugError;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * HTTP response wrapper that computes strong entity tag from response body. Body bytes are kept in memory while a hash is
+ * updated on every write; when value writer is done, {@link #finish(HttpServletRequest)} sets <code>ETag</code> header and
+ * either sends the body or <code>304 Not Modified</code> if client cached representation matches.
+ * <p>
+ * <code>Content-Length</code> and <code>Content-Encoding</code> headers set by value writer are held back and applied only if
+ * body is actually sent. If body exceeds {@link #MAX_BODY_SIZE} entity tag is abandoned and body is streamed to HTTP response.
+ * <p>
+ * Since body bytes are hashed after value writer processing, entity tag reflects negotiated content encoding, if any, as
+ * required for a strong validator.
+ *
+ * @author Iulian Rotaru
+ */
+final class ConditionalResponse extends HttpServletResponseWrapper {
+	/** Maximum body size for which entity tag is computed. */
+	private static final int MAX_BODY_SIZE = 1024 * 1024;
+
+	/** Message digests pool. Digest is used synchronously on request thread and reset before every use. */
+	private static final ThreadLocal<MessageDigest> DIGESTS_POOL = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new BugError("Missing MD5 message digest.");
+		}
+	});
+
+	private final MessageDigest digest;
+
+	private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+	private final BodyStream stream = new BodyStream();
+
+	private PrintWriter writer;
+
+	/** Content encoding set by value writer, held back until body is sent. */
+	private String contentEncoding;
+
+	/** Flag true if body size exceeded limit and body is streamed to HTTP response. */
+	private boolean streaming;
+
+	public ConditionalResponse(HttpServletResponse httpResponse) {
+		super(httpResponse);
+		this.digest = DIGESTS_POOL.get();
+		this.digest.reset();
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		return stream;
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if (writer == null) {
+			writer = new PrintWriter(new OutputStreamWriter(stream, getCharacterEncoding()));
+		}
+		return writer;
+	}
+
+	@Override
+	public void setContentLength(int length) {
+		if (streaming) {
+			super.setContentLength(length);
+		}
+	}
+
+	@Override
+	public void setContentLengthLong(long length) {
+		if (streaming) {
+			super.setContentLengthLong(length);
+		}
+	}
+
+	@Override
+	public void setHeader(String name, String value) {
+		if (!streaming && HttpHeader.CONTENT_ENCODING.equalsIgnoreCase(name)) {
+			contentEncoding = value;
+			return;
+		}
+		if (!streaming && HttpHeader.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+			return;
+		}
+		super.setHeader(name, value);
+	}
+
+	@Override
+	public void addHeader(String name, String value) {
+		if (!streaming && HttpHeader.CONTENT_ENCODING.equalsIgnoreCase(name)) {
+			contentEncoding = value;
+			return;
+		}
+		if (!streaming && HttpHeader.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+			return;
+		}
+		super.addHeader(name, value);
+	}
+
+	@Override
+	public void flushBuffer() throws IOException {
+		if (streaming) {
+			super.flushBuffer();
+		}
+	}
+
+	/**
+	 * Complete response processing. Set entity tag header and send either buffered body or <code>304 Not Modified</code> if
+	 * request <code>If-None-Match</code> header matches entity tag. If body was too large and already streamed, just flush
+	 * HTTP response output stream.
+	 *
+	 * @param httpRequest HTTP request.
+	 * @throws IOException if writing to HTTP response fails.
+	 */
+	public void finish(HttpServletRequest httpRequest) throws IOException {
+		if (writer != null) {
+			writer.flush();
+		}
+		if (streaming) {
+			getResponse().getOutputStream().flush();
+			return;
+		}
+
+		String etag = '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()) + '"';
+		super.setHeader(HttpHeader.ETAG, etag);
+		if (Preconditions.isNotModified(httpRequest, etag, -1)) {
+			super.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+
+		if (contentEncoding != null) {
+			super.setHeader(HttpHeader.CONTENT_ENCODING, contentEncoding);
+		}
+		super.setContentLength(body.size());
+		ServletOutputStream outputStream = getResponse().getOutputStream();
+		body.writeTo(outputStream);
+		outputStream.flush();
+	}
+
+	/**
+	 * Abandon entity tag, send buffered bytes and switch to streaming mode. Held back content encoding is applied.
+	 *
+	 * @throws IOException if writing to HTTP response fails.
+	 */
+	private void startStreaming() throws IOException {
+		streaming = true;
+		if (contentEncoding != null) {
+			super.setHeader(HttpHeader.CONTENT_ENCODING, contentEncoding);
+		}
+		body.writeTo(getResponse().getOutputStream());
+		body.reset();
+	}
+
+	/**
+	 * Output stream that hashes and keeps body bytes in memory, or delegates HTTP response output stream on streaming mode.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	private class BodyStream extends ServletOutputStream {
+		@Override
+		public void write(int b) throws IOException {
+			if (!streaming && body.size() + 1 > MAX_BODY_SIZE) {
+				startStreaming();
+			}
+			if (streaming) {
+				getResponse().getOutputStream().write(b);
+				return;
+			}
+			digest.update((byte) b);
+			body.write(b);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			if (!streaming && body.size() + length > MAX_BODY_SIZE) {
+				startStreaming();
+			}
+			if (streaming) {
+				getResponse().getOutputStream().write(bytes, offset, length);
+				return;
+			}
+			digest.update(bytes, offset, length);
+			body.write(bytes, offset, length);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (streaming) {
+				getResponse().getOutputStream().flush();
+			}
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			throw new IllegalStateException("Non-blocking write not supported on conditional response.");
+		}
+	}
+}
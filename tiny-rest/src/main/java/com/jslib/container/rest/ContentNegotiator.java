@@ -0,0 +1,296 @@
+package com.jslib.container.rest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+import com.jslib.container.http.ContentType;
+import com.jslib.container.http.encoder.ValueWriter;
+import com.jslib.container.http.encoder.ValueWriterFactory;
+import com.jslib.container.spi.IManagedMethod;
+import com.jslib.lang.BugError;
+
+import jakarta.ws.rs.Produces;
+
+/**
+ * Response content type negotiation driven by request <code>Accept</code> header. Candidate content types are those declared
+ * by resource method {@link Produces} annotation - possible multiple values and comma separated lists, in server preference
+ * order, restricted to types with registered value writer.
+ * <p>
+ * Candidate is selected by quality factor of the most specific accepted media range that matches it; on equal quality more
+ * specific match wins, then server preference. A quality factor of zero excludes the candidate. If no candidate is acceptable
+ * negotiation returns null and caller should respond with <code>406 Not Acceptable</code>. Missing or empty
+ * <code>Accept</code> header selects the first candidate.
+ * <p>
+ * Negotiation result is cached per resource method and <code>Accept</code> header value, so that on hot path negotiation is
+ * reduced to a hash map lookup. Decisions cache per resource method is bounded since <code>Accept</code> header is client
+ * controlled; when limit is reached negotiation is still performed but not cached.
+ * <p>
+ * For backward compatibility, resource methods without {@link Produces} annotation are not negotiated: content type is
+ * selected from returned value, whatever <code>Accept</code> header, see {@link #resolve(Decision, Object)}; this is JSON for
+ * most values.
+ * <p>
+ * Resource methods returning a {@link java.util.concurrent.Flow.Publisher} are negotiated only against server sent events and
+ * newline delimited JSON, the latter being the default; their decisions have no value writer since response is streamed by
+ * {@link PublisherResponse}.
+ *
+ * @author Iulian Rotaru
+ */
+class ContentNegotiator {
+	private static final Log log = LogFactory.getLog(ContentNegotiator.class);
+
+	/** Maximum number of cached decisions per resource method. */
+	private static final int MAX_DECISIONS = 64;
+
+	private final ValueWriterFactory valueWriterFactory;
+
+	private final Map<IManagedMethod, Candidates> methods = new ConcurrentHashMap<>();
+
+	/** Decisions for content types selected from returned value, for resource methods without {@link Produces}. */
+	private final Map<ContentType, Decision> valueDecisions = new ConcurrentHashMap<>();
+
+	public ContentNegotiator(ValueWriterFactory valueWriterFactory) {
+		this.valueWriterFactory = valueWriterFactory;
+	}
+
+	/**
+	 * Negotiate response content type for resource method.
+	 *
+	 * @param managedMethod resource method,
+	 * @param accept request <code>Accept</code> header, possible null.
+	 * @return negotiation decision or null if none of resource method content types is acceptable.
+	 * @throws BugError if there is no value writer for any of resource method content types.
+	 */
+	public Decision negotiate(IManagedMethod managedMethod, String accept) {
+		Candidates candidates = methods.computeIfAbsent(managedMethod, this::candidates);
+		if (candidates.decisions == null) {
+			return candidates.list[0];
+		}
+
+		String key = accept != null ? accept : "";
+		Optional<Decision> decision = candidates.decisions.get(key);
+		if (decision == null) {
+			decision = Optional.ofNullable(select(candidates.list, key));
+			if (candidates.decisions.size() < MAX_DECISIONS) {
+				candidates.decisions.put(key, decision);
+			}
+		}
+		return decision.orElse(null);
+	}
+
+	/**
+	 * Resolve decision that depends on resource method returned value, that is, decision for resource method without
+	 * {@link Produces} annotation. Content type is selected by {@link ValueWriterFactory#getContentTypeForValue(Object)}, e.g.
+	 * XML for documents. Other decisions are returned as they are.
+	 *
+	 * @param decision negotiated decision, possible null,
+	 * @param value value returned by resource method, possible null.
+	 * @return resolved decision, null only if given decision is null.
+	 */
+	public Decision resolve(Decision decision, Object value) {
+		if (decision == null || !decision.byValue) {
+			return decision;
+		}
+		ContentType contentType = valueWriterFactory.getContentTypeForValue(value);
+		return valueDecisions.computeIfAbsent(contentType, type -> new Decision(type, valueWriterFactory.getValueWriter(type), false));
+	}
+
+	private Candidates candidates(IManagedMethod managedMethod) {
+		// publisher responses are streamed by REST servlet itself, without value writer
+		boolean publisher = PublisherResponse.isPublisher(managedMethod.getReturnType());
+
+		Produces producesMeta = managedMethod.scanAnnotation(Produces.class, IManagedMethod.Flags.INCLUDE_TYPES);
+		if (producesMeta == null || producesMeta.value().length == 0) {
+			if (publisher) {
+				return new Candidates(new Decision[] { new Decision(ContentType.APPLICATION_NDJSON, null, false) }, false);
+			}
+			// JSON is a placeholder until resource method value is known, see resolve(Decision, Object)
+			ContentType contentType = ContentType.APPLICATION_JSON;
+			return new Candidates(new Decision[] { new Decision(contentType, valueWriterFactory.getValueWriter(contentType), false, true) }, false);
+		}
+
+		List<ContentType> contentTypes = new ArrayList<>();
+		for (String produces : producesMeta.value()) {
+			for (String value : produces.split(",")) {
+				if (!value.trim().isEmpty()) {
+					contentTypes.add(new ContentType(value.trim()));
+				}
+			}
+		}
+
+		boolean variant = contentTypes.size() > 1;
+		List<Decision> decisions = new ArrayList<>();
+		BugError error = null;
+		for (ContentType contentType : contentTypes) {
+			if (publisher) {
+				if (PublisherResponse.isStreamingType(contentType)) {
+					decisions.add(new Decision(contentType, null, variant));
+				} else {
+					log.warn("Content type {content_type} not supported by publisher resource method {managed_method}.", contentType, managedMethod);
+					error = new BugError("Publisher resource method %s should produce server sent events or newline delimited JSON.", managedMethod);
+				}
+				continue;
+			}
+			try {
+				decisions.add(new Decision(contentType, valueWriterFactory.getValueWriter(contentType), variant));
+			} catch (BugError e) {
+				log.warn("No value writer for content type {content_type} declared by resource method {managed_method}.", contentType, managedMethod);
+				error = e;
+			}
+		}
+		if (decisions.isEmpty()) {
+			throw error;
+		}
+		return new Candidates(decisions.toArray(new Decision[0]), true);
+	}
+
+	static Decision select(Decision[] candidates, String accept) {
+		if (accept.isEmpty()) {
+			return candidates[0];
+		}
+
+		List<MediaRange> ranges = new ArrayList<>();
+		for (String value : accept.split(",")) {
+			MediaRange range = MediaRange.parse(value);
+			if (range != null) {
+				ranges.add(range);
+			}
+		}
+		if (ranges.isEmpty()) {
+			return candidates[0];
+		}
+
+		Decision selected = null;
+		float selectedQuality = 0;
+		int selectedSpecificity = -1;
+		for (Decision candidate : candidates) {
+			MediaRange range = null;
+			for (MediaRange acceptRange : ranges) {
+				if (acceptRange.matches(candidate.contentType) && (range == null || acceptRange.specificity > range.specificity)) {
+					range = acceptRange;
+				}
+			}
+			if (range == null || range.quality <= 0) {
+				continue;
+			}
+			if (range.quality > selectedQuality || (range.quality == selectedQuality && range.specificity > selectedSpecificity)) {
+				selected = candidate;
+				selectedQuality = range.quality;
+				selectedSpecificity = range.specificity;
+			}
+		}
+		return selected;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Negotiated response content type with resolved value writer and precomputed <code>Content-Type</code> header value.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	static class Decision {
+		private final ContentType contentType;
+		private final String headerValue;
+		private final ValueWriter valueWriter;
+		/** True if resource method can produce multiple content types and response should vary on Accept header. */
+		private final boolean variant;
+		/** True if content type is selected from resource method value, see {@link ContentNegotiator#resolve(Decision, Object)}. */
+		private final boolean byValue;
+
+		public Decision(ContentType contentType, ValueWriter valueWriter, boolean variant) {
+			this(contentType, valueWriter, variant, false);
+		}
+
+		private Decision(ContentType contentType, ValueWriter valueWriter, boolean variant, boolean byValue) {
+			this.contentType = contentType;
+			this.headerValue = contentType.getValue();
+			this.valueWriter = valueWriter;
+			this.variant = variant;
+			this.byValue = byValue;
+		}
+
+		public ContentType getContentType() {
+			return contentType;
+		}
+
+		public String getHeaderValue() {
+			return headerValue;
+		}
+
+		public ValueWriter getValueWriter() {
+			return valueWriter;
+		}
+
+		public boolean isVariant() {
+			return variant;
+		}
+	}
+
+	private static class Candidates {
+		final Decision[] list;
+		/** Cached decisions per Accept header value, null if resource method is not negotiated. */
+		final Map<String, Optional<Decision>> decisions;
+
+		public Candidates(Decision[] list, boolean negotiated) {
+			this.list = list;
+			this.decisions = negotiated ? new ConcurrentHashMap<>() : null;
+		}
+	}
+
+	/**
+	 * Media range from <code>Accept</code> header, with quality factor. Specificity is 0 for <code>*&#47;*</code>, 1 for
+	 * <code>type/*</code> and 2 for full media type.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	private static class MediaRange {
+		final String type;
+		final String subtype;
+		final int specificity;
+		final float quality;
+
+		private MediaRange(String type, String subtype, float quality) {
+			this.type = type;
+			this.subtype = subtype;
+			this.specificity = "*".equals(type) ? 0 : "*".equals(subtype) ? 1 : 2;
+			this.quality = quality;
+		}
+
+		public boolean matches(ContentType contentType) {
+			if (specificity == 0) {
+				return true;
+			}
+			if (!type.equalsIgnoreCase(contentType.getType())) {
+				return false;
+			}
+			return specificity == 1 || subtype.equalsIgnoreCase(contentType.getSubtype());
+		}
+
+		public static MediaRange parse(String value) {
+			String[] parts = value.split(";");
+			String mime = parts[0].trim();
+			int separatorIndex = mime.indexOf('/');
+			if (separatorIndex <= 0 || separatorIndex == mime.length() - 1) {
+				return null;
+			}
+
+			float quality = 1;
+			for (int i = 1; i < parts.length; ++i) {
+				String parameter = parts[i].trim();
+				if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+					try {
+						quality = Float.parseFloat(parameter.substring(2).trim());
+					} catch (NumberFormatException e) {
+						quality = 0;
+					}
+				}
+			}
+			return new MediaRange(mime.substring(0, separatorIndex).trim(), mime.substring(separatorIndex + 1).trim(), quality);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.jslib.container.rest;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Cross-origin resource sharing policy for resource methods. Annotation can be applied on resource class, in which case it is
+ * inherited by all resource methods, or on method, overriding class level policy. Resource methods without annotation use the
+ * global policy configured by REST servlet context parameters, see {@link RestServlet#PARAM_CORS_ORIGINS}.
+ * <p>
+ * Preflight requests are answered by REST servlet from request router, without invoking any resource method.
+ *
+ * <pre>
+ * &#64;Path("orders")
+ * &#64;Cors(origins = "https://app.example.com", credentials = true, maxAge = 3600)
+ * public class OrdersResource {
+ * 	...
+ * }
+ * </pre>
+ *
+ * @author Iulian Rotaru
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cors {
+	/**
+	 * Allowed origins, <code>*</code> for any origin.
+	 *
+	 * @return allowed origins.
+	 */
+	String[] origins() default "*";
+
+	/**
+	 * HTTP methods allowed on preflight. Empty list allows all HTTP methods supported by requested path.
+	 *
+	 * @return allowed HTTP methods, possible empty.
+	 */
+	String[] methods() default {};
+
+	/**
+	 * Request headers allowed on preflight. Empty list allows any request headers.
+	 *
+	 * @return allowed request headers, possible empty.
+	 */
+	String[] headers() default {};
+
+	/**
+	 * Response headers exposed to client script, other than safe listed ones.
+	 *
+	 * @return exposed response headers, possible empty.
+	 */
+	String[] exposedHeaders() default {};
+
+	/**
+	 * Allow requests with credentials, that is, cookies and HTTP authentication. Credentials require explicit allowed
+	 * origins; a policy allowing credentials from any origin is rejected on REST servlet initialization.
+	 *
+	 * @return true if credentials are allowed.
+	 */
+	boolean credentials() default false;
+
+	/**
+	 * How long, in seconds, client can cache preflight response. Negative value uses global configuration.
+	 *
+	 * @return preflight cache duration, in seconds.
+	 */
+	long maxAge() default -1;
+}
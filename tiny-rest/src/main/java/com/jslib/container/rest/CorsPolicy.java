@@ -0,0 +1,166 @@
+package com.jslib.container.rest;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+import com.jslib.container.http.HttpHeader;
+import com.jslib.container.spi.ServiceConfigurationException;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Cross-origin resource sharing policy with response header values computed once, on policy creation. Policy is resolved per
+ * resource method, from {@link Cors} annotation or global configuration, and cached by REST servlet, so that on request only
+ * origin and, for preflight, requested method and headers are checked.
+ * <p>
+ * If policy allows any origin and does not allow credentials, <code>Access-Control-Allow-Origin</code> is <code>*</code>;
+ * otherwise request origin is echoed and response varies on <code>Origin</code> header. A policy allowing credentials from any
+ * origin is rejected on creation.
+ *
+ * @author Iulian Rotaru
+ */
+class CorsPolicy {
+	private static final Log log = LogFactory.getLog(CorsPolicy.class);
+
+	/** Default preflight cache duration, in seconds. */
+	static final long DEFAULT_MAX_AGE = 600;
+
+	/**
+	 * Create policy from resource method annotation.
+	 *
+	 * @param cors CORS annotation,
+	 * @param defaultMaxAge preflight cache duration used when annotation does not set it.
+	 * @return CORS policy.
+	 */
+	public static CorsPolicy create(Cors cors, long defaultMaxAge) {
+		return new CorsPolicy(cors.origins(), cors.methods(), cors.headers(), cors.exposedHeaders(), cors.credentials(), cors.maxAge() >= 0 ? cors.maxAge() : defaultMaxAge);
+	}
+
+	/** Allowed origins, null if any origin is allowed. */
+	private final Set<String> origins;
+	/** Allowed methods, upper case, null if all methods supported by requested path are allowed. */
+	private final Set<String> methods;
+	/** Allowed request headers, lower case, null if any request header is allowed. */
+	private final Set<String> headers;
+	private final boolean credentials;
+
+	/** Precomputed <code>Access-Control-Allow-Methods</code> value, null to use path supported methods. */
+	private final String allowMethods;
+	/** Precomputed <code>Access-Control-Allow-Headers</code> value, null to echo requested headers. */
+	private final String allowHeaders;
+	/** Precomputed <code>Access-Control-Expose-Headers</code> value, null if there are no exposed headers. */
+	private final String exposeHeaders;
+	private final String maxAge;
+
+	/**
+	 * Create CORS policy.
+	 *
+	 * @param origins allowed origins, <code>*</code> for any origin,
+	 * @param methods allowed methods, empty for methods supported by requested path,
+	 * @param headers allowed request headers, empty for any request header,
+	 * @param exposedHeaders exposed response headers, possible empty,
+	 * @param credentials flag true if requests with credentials are allowed,
+	 * @param maxAge preflight cache duration, in seconds.
+	 * @throws ServiceConfigurationException if policy allows credentials from any origin.
+	 */
+	public CorsPolicy(String[] origins, String[] methods, String[] headers, String[] exposedHeaders, boolean credentials, long maxAge) {
+		if (Arrays.asList(origins).contains("*") && credentials) {
+			// echoing any origin with credentials allowed grants credentialed cross-origin reads to every site
+			throw new ServiceConfigurationException("CORS policy should not allow credentials from any origin. Configure allowed origins explicitly.");
+		}
+		this.origins = Arrays.asList(origins).contains("*") ? null : set(origins, false);
+		this.methods = methods.length > 0 ? set(methods, true) : null;
+		this.headers = headers.length > 0 ? set(headers, false) : null;
+		this.credentials = credentials;
+
+		this.allowMethods = this.methods != null ? String.join(", ", this.methods) : null;
+		this.allowHeaders = headers.length > 0 ? String.join(", ", headers) : null;
+		this.exposeHeaders = exposedHeaders.length > 0 ? String.join(", ", exposedHeaders) : null;
+		this.maxAge = Long.toString(maxAge);
+	}
+
+	/**
+	 * Add CORS headers to actual cross-origin request response. Does nothing if request has no origin or origin is not
+	 * allowed, in which case client refuses to expose the response.
+	 *
+	 * @param origin request origin, possible null,
+	 * @param httpResponse HTTP response.
+	 */
+	public void apply(String origin, HttpServletResponse httpResponse) {
+		if (origin == null || !isAllowedOrigin(origin)) {
+			return;
+		}
+		setAllowOrigin(origin, httpResponse);
+		if (exposeHeaders != null) {
+			httpResponse.setHeader(HttpHeader.ACCESS_CONTROL_EXPOSE_HEADERS, exposeHeaders);
+		}
+	}
+
+	/**
+	 * Check preflight request against this policy and, if allowed, add preflight response headers.
+	 *
+	 * @param origin request origin,
+	 * @param requestMethod value of <code>Access-Control-Request-Method</code> header,
+	 * @param requestHeaders value of <code>Access-Control-Request-Headers</code> header, possible null,
+	 * @param allow HTTP methods supported by requested path, as comma separated list,
+	 * @param httpResponse HTTP response.
+	 * @return true if preflight is allowed.
+	 */
+	public boolean preflight(String origin, String requestMethod, String requestHeaders, String allow, HttpServletResponse httpResponse) {
+		if (!isAllowedOrigin(origin)) {
+			log.debug("CORS preflight rejected for origin {http_origin}.", origin);
+			return false;
+		}
+		if (methods != null ? !methods.contains(requestMethod) : !Arrays.asList(allow.split(", ")).contains(requestMethod)) {
+			log.debug("CORS preflight rejected for method {http_method}.", requestMethod);
+			return false;
+		}
+		if (headers != null && requestHeaders != null) {
+			for (String header : requestHeaders.split(",")) {
+				header = header.trim().toLowerCase(Locale.ROOT);
+				if (!header.isEmpty() && !headers.contains(header)) {
+					log.debug("CORS preflight rejected for header {http_header}.", header);
+					return false;
+				}
+			}
+		}
+
+		setAllowOrigin(origin, httpResponse);
+		httpResponse.setHeader(HttpHeader.ACCESS_CONTROL_ALLOW_METHODS, allowMethods != null ? allowMethods : allow);
+		String allowHeaders = this.allowHeaders != null ? this.allowHeaders : requestHeaders;
+		if (allowHeaders != null) {
+			httpResponse.setHeader(HttpHeader.ACCESS_CONTROL_ALLOW_HEADERS, allowHeaders);
+		}
+		httpResponse.setHeader(HttpHeader.ACCESS_CONTROL_MAX_AGE, maxAge);
+		return true;
+	}
+
+	public boolean isAllowedOrigin(String origin) {
+		return origins == null || origins.contains(origin.toLowerCase(Locale.ROOT));
+	}
+
+	private void setAllowOrigin(String origin, HttpServletResponse httpResponse) {
+		if (origins == null && !credentials) {
+			httpResponse.setHeader(HttpHeader.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+		} else {
+			httpResponse.setHeader(HttpHeader.ACCESS_CONTROL_ALLOW_ORIGIN, origin);
+			httpResponse.addHeader(HttpHeader.VARY, HttpHeader.ORIGIN);
+		}
+		if (credentials) {
+			httpResponse.setHeader(HttpHeader.ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
+		}
+	}
+
+	private static Set<String> set(String[] values, boolean upperCase) {
+		Set<String> set = new HashSet<>();
+		for (String value : values) {
+			value = value.trim();
+			set.add(upperCase ? value.toUpperCase(Locale.ROOT) : value.toLowerCase(Locale.ROOT));
+		}
+		return set;
+	}
+}
@@ -0,0 +1,327 @@
+package com.jslib.container.rest;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import com.jslib.lang.BugError;
+import com.jslib.lang.IllegalArgumentException;
+
+/**
+ * Response value projection on a requested set of fields. Projected object is replaced by an ordered map with only selected
+ * fields, so that JSON serializer does not walk, nor serialize, unused properties. Collections, arrays, streams and iterators
+ * are projected item by item; maps are projected on keys. Iterators and iterables other than collections are projected
+ * lazily, while serialized, and their source is closed on projected iterator close, if closeable. A field selected without nested fields is serialized whole.
+ * <p>
+ * Fields list syntax is comma separated field names with dot notation for nested fields, e.g.
+ * <code>id,name,address.city</code>. Parsed field sets and per class projection plans - resolved field accessors, are cached;
+ * since fields list is client controlled both caches are bounded and, when limit is reached, projection still works but
+ * without caching.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Iulian Rotaru
+ */
+class FieldProjector {
+	/** Maximum number of cached field sets. */
+	private static final int MAX_FIELD_SETS = 256;
+
+	/** Maximum number of cached projection plans. */
+	private static final int MAX_PLANS = 1024;
+
+	private final Map<String, FieldSet> fieldSets = new ConcurrentHashMap<>();
+
+	private final Map<PlanKey, Plan> plans = new ConcurrentHashMap<>();
+
+	/**
+	 * Project value on requested fields.
+	 *
+	 * @param value value to project, possible null,
+	 * @param fields comma separated list of fields.
+	 * @return projected value.
+	 * @throws IllegalArgumentException if fields list is not valid or a requested field is not declared by value type.
+	 */
+	public Object project(Object value, String fields) {
+		FieldSet fieldSet = fieldSets.get(fields);
+		if (fieldSet == null) {
+			fieldSet = FieldSet.parse(fields);
+			if (fieldSets.size() < MAX_FIELD_SETS) {
+				fieldSets.put(fields, fieldSet);
+			}
+		}
+		return project(value, fieldSet);
+	}
+
+	private Object project(Object value, FieldSet fieldSet) {
+		if (value == null || fieldSet.isLeaf()) {
+			return value;
+		}
+		if (value instanceof Stream) {
+			return ((Stream<?>) value).map(item -> project(item, fieldSet));
+		}
+		if (value instanceof Iterator) {
+			return new ProjectedIterator((Iterator<?>) value, value, fieldSet);
+		}
+		if (value instanceof Collection) {
+			List<Object> items = new ArrayList<>(((Collection<?>) value).size());
+			for (Object item : (Collection<?>) value) {
+				items.add(project(item, fieldSet));
+			}
+			return items;
+		}
+		if (value instanceof Iterable) {
+			return new ProjectedIterator(((Iterable<?>) value).iterator(), value, fieldSet);
+		}
+		if (value.getClass().isArray()) {
+			if (value.getClass().getComponentType().isPrimitive()) {
+				return value;
+			}
+			int length = Array.getLength(value);
+			List<Object> items = new ArrayList<>(length);
+			for (int i = 0; i < length; ++i) {
+				items.add(project(Array.get(value, i), fieldSet));
+			}
+			return items;
+		}
+		if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			Map<String, Object> projection = new LinkedHashMap<>();
+			for (Map.Entry<String, FieldSet> entry : fieldSet.children.entrySet()) {
+				if (map.containsKey(entry.getKey())) {
+					projection.put(entry.getKey(), project(map.get(entry.getKey()), entry.getValue()));
+				}
+			}
+			return projection;
+		}
+
+		Plan plan = plan(value.getClass(), fieldSet);
+		Map<String, Object> projection = new LinkedHashMap<>();
+		for (Property property : plan.properties) {
+			Object propertyValue;
+			try {
+				propertyValue = property.field.get(value);
+			} catch (IllegalAccessException e) {
+				throw new BugError(e);
+			}
+			projection.put(property.name, project(propertyValue, property.fieldSet));
+		}
+		return projection;
+	}
+
+	private Plan plan(Class<?> type, FieldSet fieldSet) {
+		PlanKey key = new PlanKey(type, fieldSet.key);
+		Plan plan = plans.get(key);
+		if (plan == null) {
+			plan = new Plan(type, fieldSet);
+			if (plans.size() < MAX_PLANS) {
+				plans.put(key, plan);
+			}
+		}
+		return plan;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Parsed fields list, as a tree of field names. A leaf field set selects the whole value.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	static class FieldSet {
+		private static final FieldSet LEAF = new FieldSet();
+
+		/**
+		 * Parse comma separated list of fields with dot notation for nested fields.
+		 *
+		 * @param fields fields list.
+		 * @return field set.
+		 * @throws IllegalArgumentException if fields list contains empty field names.
+		 */
+		public static FieldSet parse(String fields) {
+			FieldSet root = new FieldSet();
+			for (String path : fields.split(",")) {
+				path = path.trim();
+				if (path.isEmpty()) {
+					continue;
+				}
+				FieldSet node = root;
+				String[] names = path.split("\\.", -1);
+				for (int i = 0; i < names.length; ++i) {
+					String name = names[i].trim();
+					if (name.isEmpty()) {
+						throw new IllegalArgumentException("Invalid projection field |%s|.", path);
+					}
+					boolean last = i == names.length - 1;
+					FieldSet child = node.children.get(name);
+					if (last) {
+						// field selected whole overrides nested fields
+						node.children.put(name, LEAF);
+						break;
+					}
+					if (child == LEAF) {
+						break;
+					}
+					if (child == null) {
+						child = new FieldSet();
+						node.children.put(name, child);
+					}
+					node = child;
+				}
+			}
+			root.seal();
+			return root;
+		}
+
+		/** Selected fields in request order, empty for leaf. */
+		final Map<String, FieldSet> children = new LinkedHashMap<>();
+
+		/** Canonical representation used as projection plan cache key. */
+		String key = "";
+
+		private FieldSet() {
+		}
+
+		public boolean isLeaf() {
+			return children.isEmpty();
+		}
+
+		private void seal() {
+			if (isLeaf()) {
+				return;
+			}
+			StringBuilder builder = new StringBuilder();
+			for (Map.Entry<String, FieldSet> entry : children.entrySet()) {
+				if (builder.length() > 0) {
+					builder.append(',');
+				}
+				builder.append(entry.getKey());
+				FieldSet child = entry.getValue();
+				if (!child.isLeaf()) {
+					child.seal();
+					builder.append('(');
+					builder.append(child.key);
+					builder.append(')');
+				}
+			}
+			key = builder.toString();
+		}
+	}
+
+	/**
+	 * Iterator that projects source items while iterated. Closing this iterator closes source, if auto closeable, so that value
+	 * writer releases source resources even if value is projected.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	private class ProjectedIterator implements Iterator<Object>, AutoCloseable {
+		private final Iterator<?> iterator;
+		/** Iterator source, iterator itself or the iterable that created it. */
+		private final Object source;
+		private final FieldSet fieldSet;
+
+		public ProjectedIterator(Iterator<?> iterator, Object source, FieldSet fieldSet) {
+			this.iterator = iterator;
+			this.source = source;
+			this.fieldSet = fieldSet;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return iterator.hasNext();
+		}
+
+		@Override
+		public Object next() {
+			return project(iterator.next(), fieldSet);
+		}
+
+		@Override
+		public void close() throws Exception {
+			if (source instanceof AutoCloseable) {
+				((AutoCloseable) source).close();
+			}
+		}
+	}
+
+	/**
+	 * Projection plan for a class and field set: accessible fields resolved once, in field set order.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	private static class Plan {
+		final Property[] properties;
+
+		public Plan(Class<?> type, FieldSet fieldSet) {
+			List<Property> properties = new ArrayList<>();
+			for (Map.Entry<String, FieldSet> entry : fieldSet.children.entrySet()) {
+				Field field = field(type, entry.getKey());
+				if (field == null) {
+					throw new IllegalArgumentException("Projection field |%s| not found on |%s|.", entry.getKey(), type.getSimpleName());
+				}
+				field.setAccessible(true);
+				properties.add(new Property(entry.getKey(), field, entry.getValue()));
+			}
+			this.properties = properties.toArray(new Property[0]);
+		}
+
+		private static Field field(Class<?> type, String name) {
+			for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+				try {
+					Field field = clazz.getDeclaredField(name);
+					int modifiers = field.getModifiers();
+					return Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) ? null : field;
+				} catch (NoSuchFieldException e) {
+					// continue with superclass
+				}
+			}
+			return null;
+		}
+	}
+
+	private static class Property {
+		final String name;
+		final Field field;
+		final FieldSet fieldSet;
+
+		public Property(String name, Field field, FieldSet fieldSet) {
+			this.name = name;
+			this.field = field;
+			this.fieldSet = fieldSet;
+		}
+	}
+
+	private static class PlanKey {
+		final Class<?> type;
+		final String fields;
+
+		public PlanKey(Class<?> type, String fields) {
+			this.type = type;
+			this.fields = fields;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * type.hashCode() + fields.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof PlanKey)) {
+				return false;
+			}
+			PlanKey other = (PlanKey) obj;
+			return type == other.type && fields.equals(other.fields);
+		}
+	}
+}
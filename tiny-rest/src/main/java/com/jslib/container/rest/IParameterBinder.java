@@ -0,0 +1,230 @@
+package com.jslib.container.rest;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+import com.jslib.container.http.encoder.ArgumentsReader;
+import com.jslib.container.http.encoder.ArgumentsReaderFactory;
+import com.jslib.container.spi.IContainer;
+import com.jslib.container.spi.ServiceConfigurationException;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+
+/**
+ * Binder for a resource method parameter. Binders are created once per resource method, with parameter binding strategy,
+ * value converter and default value resolved, and used on every request to get invocation argument.
+ *
+ * @author Iulian Rotaru
+ */
+interface IParameterBinder {
+
+	Object bind(BindingContext context) throws IOException, ParameterNotFoundException, ParameterConversionException;
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Base for binders of parameters with string value converted to parameter type. If parameter value is missing uses default
+	 * value, if any, otherwise throws parameter not found exception.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	abstract class ValueBinder implements IParameterBinder {
+		private static final Log log = LogFactory.getLog(ValueBinder.class);
+
+		protected final String name;
+		private final AnnotationType annotationType;
+		private final Class<?> type;
+		private final ParameterConverter converter;
+
+		/** Default value, as string; null if parameter has no default value. */
+		private final String defaultString;
+		/** Default value converted to parameter type, if converted value is immutable, or null. */
+		private final Object defaultValue;
+
+		protected ValueBinder(AnnotationType annotationType, String name, Class<?> type, String defaultString) {
+			this.name = name;
+			this.annotationType = annotationType;
+			this.type = type;
+			this.converter = new ParameterConverter(type);
+			this.defaultString = defaultString;
+
+			Object defaultValue = null;
+			if (defaultString != null && converter.isImmutable()) {
+				try {
+					defaultValue = converter.convert(defaultString);
+				} catch (Throwable e) {
+					throw new ServiceConfigurationException("Invalid default value |%s| for parameter |%s| of type |%s|.", defaultString, name, type);
+				}
+			}
+			this.defaultValue = defaultValue;
+		}
+
+		protected abstract String value(BindingContext context);
+
+		@Override
+		public Object bind(BindingContext context) throws ParameterNotFoundException, ParameterConversionException {
+			String value = value(context);
+			if (value == null) {
+				if (defaultValue != null) {
+					return defaultValue;
+				}
+				if (defaultString == null) {
+					throw new ParameterNotFoundException("Missing parameter %s", name);
+				}
+				value = defaultString;
+			}
+			try {
+				return converter.convert(value);
+			} catch (Throwable e) {
+				log.warn("Fail to convert value {} to parameter {} of type {}.", value, name, type);
+				throw new ParameterConversionException(annotationType, "Fail to convert parameter %s", name);
+			}
+		}
+	}
+
+	class PathBinder extends ValueBinder {
+		/** Index of path variable on resource method path template. */
+		private final int index;
+
+		public PathBinder(String name, int index, Class<?> type, String defaultString) {
+			super(AnnotationType.URL, name, type, defaultString);
+			this.index = index;
+		}
+
+		@Override
+		protected String value(BindingContext context) {
+			PathRouter.Match<?> requestPath = context.getRequestPath();
+			return index < requestPath.getVariablesCount() ? requestPath.getVariableValue(index) : null;
+		}
+	}
+
+	class QueryBinder extends ValueBinder {
+		public QueryBinder(String name, Class<?> type, String defaultString) {
+			super(AnnotationType.URL, name, type, defaultString);
+		}
+
+		@Override
+		protected String value(BindingContext context) {
+			return context.getParameters().getQueryParameter(name);
+		}
+	}
+
+	class MatrixBinder extends ValueBinder {
+		public MatrixBinder(String name, Class<?> type, String defaultString) {
+			super(AnnotationType.URL, name, type, defaultString);
+		}
+
+		@Override
+		protected String value(BindingContext context) {
+			return context.getParameters().getMatrixParameter(name);
+		}
+	}
+
+	class HeaderBinder extends ValueBinder {
+		public HeaderBinder(String name, Class<?> type, String defaultString) {
+			super(AnnotationType.REQUEST, name, type, defaultString);
+		}
+
+		@Override
+		protected String value(BindingContext context) {
+			return context.getRequest().getHeader(name);
+		}
+	}
+
+	class CookieBinder extends ValueBinder {
+		public CookieBinder(String name, Class<?> type, String defaultString) {
+			super(AnnotationType.REQUEST, name, type, defaultString);
+		}
+
+		@Override
+		protected String value(BindingContext context) {
+			return context.getParameters().getCookie(name);
+		}
+	}
+
+	class ContextBinder implements IParameterBinder {
+		private final IContainer container;
+		private final Class<?> type;
+
+		public ContextBinder(IContainer container, Class<?> type) {
+			this.container = container;
+			this.type = type;
+		}
+
+		@Override
+		public Object bind(BindingContext context) {
+			return container.getInstance(type);
+		}
+	}
+
+	/**
+	 * Binder for <code>&#64;Suspended AsyncResponse</code> parameter. Asynchronous response is created by REST servlet, per
+	 * request, before arguments binding.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	class SuspendedBinder implements IParameterBinder {
+		@Override
+		public Object bind(BindingContext context) {
+			return context.getAsyncResponse();
+		}
+	}
+
+	/**
+	 * Binder for entity parameter, that is, parameter without annotations, read from request body. Arguments reader is
+	 * selected on every request since it depends on request content type.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	class EntityBinder implements IParameterBinder {
+		private final ArgumentsReaderFactory argumentsReaderFactory;
+		private final Type[] formalParameters;
+
+		public EntityBinder(ArgumentsReaderFactory argumentsReaderFactory, Type type) {
+			this.argumentsReaderFactory = argumentsReaderFactory;
+			this.formalParameters = new Type[] { type };
+		}
+
+		@Override
+		public Object bind(BindingContext context) throws IOException {
+			HttpServletRequest httpRequest = context.getRequest();
+			ArgumentsReader argumentsReader = argumentsReaderFactory.getArgumentsReader(httpRequest, formalParameters);
+			Object[] entityArgument = argumentsReader.read(httpRequest, formalParameters);
+			return entityArgument.length == 1 ? entityArgument[0] : null;
+		}
+	}
+
+	/**
+	 * Binder for URL encoded form loaded into a multi-valued map.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	class FormBinder extends EntityBinder {
+		public FormBinder(ArgumentsReaderFactory argumentsReaderFactory) {
+			super(argumentsReaderFactory, Map.class);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Object bind(BindingContext context) throws IOException {
+			Map<String, String> form = (Map<String, String>) super.bind(context);
+			return new MultivaluedHashMap<>(form);
+		}
+	}
+
+	/**
+	 * Binder for parameter with annotations but none recognized as binding annotation; always binds null.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	class NullBinder implements IParameterBinder {
+		@Override
+		public Object bind(BindingContext context) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package com.jslib.container.rest;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.List;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+import com.jslib.container.http.encoder.ArgumentsReaderFactory;
+import com.jslib.container.spi.IContainer;
+import com.jslib.container.spi.IManagedMethod;
+import com.jslib.container.spi.IManagedMethod.Flags;
+import com.jslib.container.spi.IManagedParameter;
+import com.jslib.util.Types;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.CookieParam;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.MatrixParam;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+
+/**
+ * Invocation arguments binder for a resource method. Parameters binding strategy is resolved once, when method binder is
+ * created, into an array of parameter binders; on request, arguments are bound by a plain loop over binders, with no
+ * reflection or annotations scanning.
+ * <p>
+ * If resource method parameters cannot be bound by standard JAX-RS rules - for example multiple entity parameters, method
+ * binder has no parameter binders and {@link #bind(HttpServletRequest, PathRouter.Match)} returns null. In this case caller
+ * should read arguments from request body, compatible with HTTP-RMI.
+ * <p>
+ * A resource method with <code>&#64;Suspended AsyncResponse</code> parameter is suspended, see {@link #isSuspended()}; caller
+ * should supply asynchronous response on binding context, see {@link #bind(BindingContext)}.
+ *
+ * @author Iulian Rotaru
+ */
+class MethodBinder {
+	private static final Log log = LogFactory.getLog(MethodBinder.class);
+
+	private static final Object[] EMPTY_ARGUMENTS = new Object[0];
+
+	/** Parameter binders in formal parameters order or null if resource method parameters cannot be bound. */
+	private final IParameterBinder[] binders;
+
+	/** Flag true if resource method has a suspended asynchronous response parameter. */
+	private final boolean suspended;
+
+	MethodBinder(IParameterBinder[] binders) {
+		this.binders = binders;
+		boolean suspended = false;
+		if (binders != null) {
+			for (IParameterBinder binder : binders) {
+				if (binder instanceof IParameterBinder.SuspendedBinder) {
+					suspended = true;
+				}
+			}
+		}
+		this.suspended = suspended;
+	}
+
+	public boolean isSuspended() {
+		return suspended;
+	}
+
+	/**
+	 * Bind invocation arguments from HTTP request and request path variables. Returns null if resource method parameters
+	 * cannot be bound by standard rules.
+	 *
+	 * @param httpRequest HTTP request,
+	 * @param requestPath request path match.
+	 * @return invocation arguments or null.
+	 * @throws IOException if reading from request body fails.
+	 * @throws ParameterNotFoundException if a required parameter is missing.
+	 * @throws ParameterConversionException if parameter value cannot be converted to parameter type.
+	 */
+	public Object[] bind(HttpServletRequest httpRequest, PathRouter.Match<?> requestPath) throws IOException, ParameterNotFoundException, ParameterConversionException {
+		return bind(new BindingContext(httpRequest, requestPath));
+	}
+
+	/**
+	 * Bind invocation arguments from binding context. Returns null if resource method parameters cannot be bound by standard
+	 * rules.
+	 *
+	 * @param context binding context.
+	 * @return invocation arguments or null.
+	 * @throws IOException if reading from request body fails.
+	 * @throws ParameterNotFoundException if a required parameter is missing.
+	 * @throws ParameterConversionException if parameter value cannot be converted to parameter type.
+	 */
+	public Object[] bind(BindingContext context) throws IOException, ParameterNotFoundException, ParameterConversionException {
+		if (binders == null) {
+			return null;
+		}
+		if (binders.length == 0) {
+			return EMPTY_ARGUMENTS;
+		}
+
+		Object[] arguments = new Object[binders.length];
+		for (int i = 0; i < binders.length; ++i) {
+			arguments[i] = binders[i].bind(context);
+		}
+		return arguments;
+	}
+
+	/**
+	 * Create binder for resource method.
+	 *
+	 * @param managedMethod resource method,
+	 * @param container container used to resolve context parameters,
+	 * @param argumentsReaderFactory factory for entity parameter readers.
+	 * @return resource method binder.
+	 */
+	public static MethodBinder create(IManagedMethod managedMethod, IContainer container, ArgumentsReaderFactory argumentsReaderFactory) {
+		List<IManagedParameter> managedParameters = managedMethod.getManagedParameters();
+		if (managedParameters.isEmpty()) {
+			return new MethodBinder(new IParameterBinder[0]);
+		}
+
+		Consumes consumesAnnotation = managedMethod.scanAnnotation(Consumes.class, Flags.INCLUDE_TYPES);
+		if (consumesAnnotation != null) {
+			String[] consumes = consumesAnnotation.value();
+			if (consumes.length == 1 && MediaType.APPLICATION_FORM_URLENCODED.equals(consumes[0])) {
+				if (managedParameters.size() != 1) {
+					log.error("Current implementation for resource with URL encoded form supports only one parameter. See {managed_method}.", managedMethod);
+					return new MethodBinder(null);
+				}
+				if (!Types.isKindOf(managedParameters.get(0).getType(), MultivaluedMap.class)) {
+					log.error("Current implementation for resource with URL encoded form supports only multi-valued map. See {managed_method}.", managedMethod);
+					return new MethodBinder(null);
+				}
+				return new MethodBinder(new IParameterBinder[] { new IParameterBinder.FormBinder(argumentsReaderFactory) });
+			}
+		}
+
+		List<String> pathVariables = PathRouter.variables(PathMethodsCache.path(managedMethod));
+		int entityParametersCount = 0;
+		IParameterBinder[] binders = new IParameterBinder[managedParameters.size()];
+		for (int i = 0, pathVariableIndex = 0; i < binders.length; ++i) {
+			IManagedParameter managedParameter = managedParameters.get(i);
+			Annotation[] annotations = managedParameter.getAnnotations();
+			if (annotations.length == 0) {
+				if (entityParametersCount++ > 0) {
+					log.error("Invalid resource method arguments: multiple entity parameters. See {managed_method}.", managedMethod);
+					return new MethodBinder(null);
+				}
+				binders[i] = new IParameterBinder.EntityBinder(argumentsReaderFactory, managedParameter.getType());
+				continue;
+			}
+
+			Class<?> type = (Class<?>) managedParameter.getType();
+			DefaultValue defaultValueAnnotation = managedParameter.scanAnnotation(DefaultValue.class);
+			String defaultValue = defaultValueAnnotation != null ? defaultValueAnnotation.value() : null;
+
+			IParameterBinder binder = null;
+			for (Annotation annotation : annotations) {
+				if (annotation instanceof Context) {
+					binder = new IParameterBinder.ContextBinder(container, type);
+				} else if (annotation instanceof Suspended) {
+					binder = new IParameterBinder.SuspendedBinder();
+				} else if (annotation instanceof PathParam) {
+					String name = ((PathParam) annotation).value();
+					// path variable is located by name on path template; if not found fallback to formal parameters order
+					int index = pathVariables.indexOf(name);
+					if (index == -1) {
+						index = pathVariableIndex;
+					}
+					++pathVariableIndex;
+					binder = new IParameterBinder.PathBinder(name, index, type, defaultValue);
+				} else if (annotation instanceof QueryParam) {
+					binder = new IParameterBinder.QueryBinder(((QueryParam) annotation).value(), type, defaultValue);
+				} else if (annotation instanceof MatrixParam) {
+					binder = new IParameterBinder.MatrixBinder(((MatrixParam) annotation).value(), type, defaultValue);
+				} else if (annotation instanceof HeaderParam) {
+					binder = new IParameterBinder.HeaderBinder(((HeaderParam) annotation).value(), type, defaultValue);
+				} else if (annotation instanceof CookieParam) {
+					binder = new IParameterBinder.CookieBinder(((CookieParam) annotation).value(), type, defaultValue);
+				}
+				if (binder != null) {
+					break;
+				}
+			}
+			binders[i] = binder != null ? binder : new IParameterBinder.NullBinder();
+		}
+		return new MethodBinder(binders);
+	}
+}
@@ -0,0 +1,56 @@
+package com.jslib.container.rest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.jslib.converter.Converter;
+import com.jslib.converter.ConverterRegistry;
+
+/**
+ * String to parameter value converter resolved once, when parameter binder is created. For strings and numeric types
+ * conversion function is resolved to a direct parser; for other types it delegates to converter registry.
+ *
+ * @author Iulian Rotaru
+ */
+class ParameterConverter {
+	private static final Map<Class<?>, Function<String, Object>> PARSERS = new HashMap<>();
+	static {
+		PARSERS.put(String.class, value -> value);
+		PARSERS.put(int.class, Integer::parseInt);
+		PARSERS.put(Integer.class, Integer::valueOf);
+		PARSERS.put(long.class, Long::parseLong);
+		PARSERS.put(Long.class, Long::valueOf);
+		PARSERS.put(short.class, Short::parseShort);
+		PARSERS.put(Short.class, Short::valueOf);
+		PARSERS.put(byte.class, Byte::parseByte);
+		PARSERS.put(Byte.class, Byte::valueOf);
+		PARSERS.put(double.class, Double::parseDouble);
+		PARSERS.put(Double.class, Double::valueOf);
+		PARSERS.put(float.class, Float::parseFloat);
+		PARSERS.put(Float.class, Float::valueOf);
+	}
+
+	private final Function<String, Object> parser;
+
+	/** Flag true if converted values are immutable and can be shared, e.g. default value converted only once. */
+	private final boolean immutable;
+
+	public ParameterConverter(Class<?> type) {
+		Function<String, Object> parser = PARSERS.get(type);
+		this.immutable = parser != null;
+		if (parser == null) {
+			Converter converter = ConverterRegistry.getConverter();
+			parser = value -> converter.asObject(value, type);
+		}
+		this.parser = parser;
+	}
+
+	public boolean isImmutable() {
+		return immutable;
+	}
+
+	public Object convert(String value) {
+		return parser.apply(value);
+	}
+}
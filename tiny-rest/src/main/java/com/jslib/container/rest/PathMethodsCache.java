@@ -1,49 +1,73 @@
 package com.jslib.container.rest;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import jakarta.ws.rs.HttpMethod;
 import jakarta.ws.rs.Path;
 
-import com.jslib.container.servlet.RequestContext;
-import com.jslib.container.servlet.RequestPreprocessor;
-import com.jslib.container.spi.IManagedClass;
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
 import com.jslib.container.spi.IManagedMethod;
-import com.jslib.util.Strings;
 
 class PathMethodsCache {
-	private final PathTree<IManagedMethod> cache = new PathTree<>();
+	private static final Log log = LogFactory.getLog(PathMethodsCache.class);
 
-	public List<String> add(IManagedMethod managedMethod) {
-		List<String> key = key(managedMethod);
-		cache.put(key, managedMethod);
-		return key;
+	private final PathRouter<IManagedMethod> router = new PathRouter<>();
+
+	/** Registered REST methods, in registration order. */
+	private final List<IManagedMethod> methods = new ArrayList<>();
+
+	public String add(IManagedMethod managedMethod) {
+		String httpMethod = httpMethod(managedMethod);
+		String path = path(managedMethod);
+		IManagedMethod previousMethod = router.put(httpMethod, path, managedMethod);
+		methods.add(managedMethod);
+		if (previousMethod != null) {
+			methods.remove(previousMethod);
+			log.warn("Override REST method {managed_method} with {managed_method} on path {rest_path}.", previousMethod, managedMethod, path);
+		}
+		return httpMethod + ' ' + path;
 	}
 
-	public PathTree.Item<IManagedMethod> get(String method, String requestPath) {
-		return cache.get(paths(method, requestPath));
+	public List<IManagedMethod> getMethods() {
+		return Collections.unmodifiableList(methods);
 	}
 
 	/**
-	 * Generate storage key for REST methods cache. This key is create from declaring class and managed method request paths and
-	 * is used on cache initialization. It is paired with {@link #key(String)} created from request path on actual method
-	 * invocation.
+	 * Locate REST method for HTTP method and request path. Returns null if request path does not match any REST method path.
+	 * If request path matches but there is no REST method for requested HTTP method, returned match has null value and
+	 * {@link PathRouter.Match#getAllow()} provides HTTP methods supported by request path.
 	 * <p>
-	 * Here is storage key syntax that should be identical with retrieval key. Key has optional resource path and sub-resource
-	 * path. Resource path is the declaring class request path, {@link IManagedClass#getRequestPath()} and sub-resource path is
-	 * managed method request path, {@link IManagedMethod#getRequestPath()}.
+	 * Request path extension, if any, is ignored on first attempt; if there is no match with extension removed, request path
+	 * is matched again with extension included, for path templates that use dot in segment, e.g. <code>{name}.{ext}</code>.
 	 * 
-	 * <pre>
-	 * key = ["/" resource ] "/" sub-resource
-	 * resource = declaring class request path
-	 * sub-resource = managed method request path
-	 * </pre>
+	 * @param httpMethod HTTP method,
+	 * @param requestPath request path, relative to servlet.
+	 * @return REST method match, possible null.
+	 */
+	public PathRouter.Match<IManagedMethod> get(String httpMethod, String requestPath) {
+		int queryIndex = queryIndex(requestPath);
+		int extensionIndex = extensionIndex(requestPath, queryIndex);
+		PathRouter.Match<IManagedMethod> match = router.get(httpMethod, requestPath, 0, extensionIndex);
+		if (extensionIndex < queryIndex && (match == null || match.getValue() == null)) {
+			PathRouter.Match<IManagedMethod> extensionMatch = router.get(httpMethod, requestPath, 0, queryIndex);
+			if (extensionMatch != null && (match == null || extensionMatch.getValue() != null)) {
+				match = extensionMatch;
+			}
+		}
+		return match;
+	}
+
+	/**
+	 * Get HTTP method for REST method. HTTP method is the value of first annotation with meta-annotation {@link HttpMethod}
+	 * and defaults to <code>GET</code>.
 	 * 
 	 * @param managedMethod REST method.
-	 * @return REST method key.
+	 * @return HTTP method, upper case.
 	 */
-	static List<String> key(IManagedMethod managedMethod) {
+	static String httpMethod(IManagedMethod managedMethod) {
 		// scan all method annotations for first with meta-annotation @HttpMethod and gets its value
 		String httpMethod = managedMethod.scanAnnotations(annotation -> {
 			HttpMethod httpMethodMeta = annotation.annotationType().getAnnotation(HttpMethod.class);
@@ -52,25 +76,39 @@ class PathMethodsCache {
 		if (httpMethod == null) {
 			httpMethod = "GET";
 		}
-		httpMethod = httpMethod.toUpperCase();
+		return httpMethod.toUpperCase();
+	}
 
-		// build path from class and / or method @Path annotation
+	/**
+	 * Get path template for REST method. Path template is created from declaring class and managed method {@link Path}
+	 * annotations and is compiled into router on cache initialization. Path template can contain variables, with optional
+	 * regular expressions, see {@link PathRouter}.
+	 * 
+	 * <pre>
+	 * path = ["/" resource ] "/" sub-resource
+	 * resource = declaring class path
+	 * sub-resource = managed method path
+	 * </pre>
+	 * 
+	 * @param managedMethod REST method.
+	 * @return REST method path template.
+	 */
+	static String path(IManagedMethod managedMethod) {
 		StringBuilder path = new StringBuilder();
-		String classPath = path(managedMethod.getDeclaringClass().scanAnnotation(Path.class));
+		String classPath = value(managedMethod.getDeclaringClass().scanAnnotation(Path.class));
 		if (classPath != null && !classPath.equals("/")) {
 			path.append('/');
 			path.append(classPath);
 		}
-		String methodPath = path(managedMethod.scanAnnotation(Path.class));
+		String methodPath = value(managedMethod.scanAnnotation(Path.class));
 		if (methodPath != null) {
 			path.append('/');
 			path.append(methodPath);
 		}
-
-		return paths(httpMethod, path.toString());
+		return path.length() > 0 ? path.toString() : "/";
 	}
 
-	private static String path(Path path) {
+	private static String value(Path path) {
 		String value = path != null ? path.value() : null;
 		if (value != null) {
 			value = value.trim();
@@ -79,39 +117,33 @@ class PathMethodsCache {
 	}
 
 	/**
-	 * Generate retrieval key for REST methods cache. This key is used by request routing logic to locate REST method about to
-	 * invoke. It is based on request path extracted from request URI, see {@link RequestPreprocessor} and
-	 * {@link RequestContext#getRequestPath()} - and should be identical with storage key.
-	 * <p>
-	 * Retrieval key syntax is identical with storage key but is based on request path, that on its turn is extracted from
-	 * request URI. In fact this method just trim query parameters and extension, if any.
-	 * 
-	 * <pre>
-	 * request-path = ["/" resource] "/" sub-resource ["?" query-string]
-	 * key = ["/" resource ] "/" sub-resource
-	 * resource = managed class request-path
-	 * sub-resource = managed method request-path
-	 * </pre>
+	 * Get index of query string separator or request path length if there is no query string.
 	 * 
-	 * @param requestPath request path identify REST resource to retrieve.
-	 * @return REST method key.
+	 * @param requestPath request path.
+	 * @return query string index.
 	 */
-	static List<String> key(String httpMethod, String requestPath) {
-		int queryParametersIndex = requestPath.lastIndexOf('?');
-		if (queryParametersIndex == -1) {
-			queryParametersIndex = requestPath.length();
-		}
-		int extensionIndex = requestPath.lastIndexOf('.', queryParametersIndex);
-		if (extensionIndex == -1) {
-			extensionIndex = queryParametersIndex;
-		}
-		return paths(httpMethod, requestPath.substring(0, extensionIndex));
+	static int queryIndex(String requestPath) {
+		int queryIndex = requestPath.indexOf('?');
+		return queryIndex != -1 ? queryIndex : requestPath.length();
 	}
 
-	private static List<String> paths(String httpMethod, String path) {
-		List<String> paths = new ArrayList<>();
-		paths.add(httpMethod);
-		paths.addAll(Strings.split(path, '/'));
-		return paths;
+	/**
+	 * Get index of extension separator from request path last segment, or query index if there is no extension.
+	 * 
+	 * @param requestPath request path,
+	 * @param queryIndex query string index, see {@link #queryIndex(String)}.
+	 * @return extension index.
+	 */
+	static int extensionIndex(String requestPath, int queryIndex) {
+		for (int i = queryIndex - 1; i >= 0; --i) {
+			char c = requestPath.charAt(i);
+			if (c == '.') {
+				return i;
+			}
+			if (c == '/') {
+				break;
+			}
+		}
+		return queryIndex;
 	}
 }
@@ -0,0 +1,648 @@
+package com.jslib.container.rest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.jslib.util.Params;
+
+/**
+ * Request router compiled from resource path templates into a radix tree. Literal template characters are stored on tree
+ * edges, shared prefixes being merged, while template segments - segments with variables like <code>{id}</code>,
+ * <code>{id: \d+}</code> or <code>{name}.{ext}</code> - are stored as separated child nodes. Leaf nodes keep resource values
+ * per HTTP method.
+ * <p>
+ * Matching works directly on request path characters, using offsets; there is no path splitting and no substring created
+ * while routing. Captured variables are kept as offsets into request path and converted to strings only when requested, see
+ * {@link Match#getVariableValue(int)}.
+ * <p>
+ * Children are tried in JAX-RS precedence order: literal characters first, then template segments sorted by number of literal
+ * characters, number of variables and number of variables with regular expression, all descending. Since precedence is applied
+ * per segment, from left to right, it is a close approximation of JAX-RS templates sorting. If a branch fails to match the
+ * rest of request path, router backtracks and tries next candidate, so that <code>/users/me/x</code> and
+ * <code>/users/{id}/y</code> can coexist.
+ * <p>
+ * A default variable matches a single path segment. A variable with explicit regular expression is allowed to match multiple
+ * segments if expression permits, e.g. <code>{path: .+}</code>; shortest match is tried first.
+ * <p>
+ * Router is populated on container start and is not thread safe for updates; concurrent matching is safe.
+ *
+ * @author Iulian Rotaru
+ */
+class PathRouter<T> {
+	private static final String GET = "GET";
+	private static final String HEAD = "HEAD";
+
+	private final Node root = new Node("");
+
+	/** Maximum number of variables on registered templates, used to size captures storage. */
+	private int maxVariables;
+
+	/**
+	 * Register value for HTTP method and path template. If there is already a value for the same HTTP method and equivalent
+	 * template it is replaced; two templates are equivalent if they differ only by variable names.
+	 * <p>
+	 * An empty template, or one with only slashes, is valid and registers value for root path, e.g. resource class annotated
+	 * with <code>@Path("/")</code> and resource method without path.
+	 *
+	 * @param httpMethod HTTP method, upper case,
+	 * @param template path template, leading and trailing slash optional, possible empty for root path,
+	 * @param value value to register.
+	 * @return previous value or null.
+	 * @throws IllegalArgumentException if HTTP method is null or empty, template is null or not well formed.
+	 */
+	public T put(String httpMethod, String template, T value) {
+		Params.notNullOrEmpty(httpMethod, "HTTP method");
+		Params.notNull(template, "Path template");
+
+		Node node = root;
+		List<String> variables = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		for (String segment : segments(template)) {
+			if (segment.indexOf('{') == -1) {
+				if (literal.length() > 0 || node != root) {
+					literal.append('/');
+				}
+				literal.append(segment);
+				continue;
+			}
+
+			if (literal.length() > 0 || node != root) {
+				literal.append('/');
+			}
+			node = insertLiteral(node, literal.toString());
+			literal.setLength(0);
+
+			Segment templateSegment = new Segment(segment);
+			variables.addAll(templateSegment.names);
+			node = insertSegment(node, templateSegment);
+		}
+		if (literal.length() > 0) {
+			node = insertLiteral(node, literal.toString());
+		}
+
+		maxVariables = Math.max(maxVariables, variables.size());
+		return node.putValue(httpMethod, variables.toArray(new String[0]), value);
+	}
+
+	/**
+	 * Match request path against registered templates. Returns null if request path does not match any template. If path
+	 * matches but there is no value for requested HTTP method returned match has null value and {@link Match#getAllow()}
+	 * provides the list of HTTP methods supported by matched path. A <code>HEAD</code> request is served by <code>GET</code>
+	 * value if there is no explicit <code>HEAD</code> value.
+	 *
+	 * @param httpMethod HTTP method,
+	 * @param path request path,
+	 * @param start path start offset, inclusive,
+	 * @param end path end offset, exclusive.
+	 * @return match or null.
+	 */
+	public Match<T> get(String httpMethod, CharSequence path, int start, int end) {
+		while (start < end && path.charAt(start) == '/') {
+			++start;
+		}
+		while (end > start && path.charAt(end - 1) == '/') {
+			--end;
+		}
+
+		Match<T> match = new Match<>(httpMethod, path, start, end, maxVariables);
+		if (match(root, start, 0, match) || match.allow != null) {
+			return match;
+		}
+		return null;
+	}
+
+	public Match<T> get(String httpMethod, CharSequence path) {
+		return get(httpMethod, path, 0, path.length());
+	}
+
+	// --------------------------------------------------------------------------------------------
+	// match
+
+	/**
+	 * Depth first search with backtracking. Returns true if a value for requested HTTP method was found. If reached a leaf
+	 * node without value for requested HTTP method, records its allowed methods and continue searching.
+	 */
+	private static boolean match(Node node, int offset, int count, Match<?> match) {
+		CharSequence path = match.path;
+		int end = match.end;
+
+		if (offset == end) {
+			if (node.methods == null) {
+				return false;
+			}
+			int index = node.indexOf(match.httpMethod);
+			if (index == -1) {
+				match.allow(node.allow);
+				return false;
+			}
+			match.value = node.values[index];
+			match.names = node.names[index];
+			match.count = count;
+			return true;
+		}
+
+		Node literal = node.getLiteral(path.charAt(offset));
+		if (literal != null && regionMatches(path, offset, end, literal.label)) {
+			if (match(literal, offset + literal.label.length(), count, match)) {
+				return true;
+			}
+		}
+
+		if (node.segments.length > 0 && (offset == match.start || path.charAt(offset - 1) == '/')) {
+			for (Node child : node.segments) {
+				Segment segment = child.segment;
+				int segmentEnd = indexOf(path, '/', offset, end);
+				if (!segment.multiSegment) {
+					if (segment.match(path, offset, segmentEnd, match.offsets, count) && match(child, segmentEnd, count + segment.names.size(), match)) {
+						return true;
+					}
+					continue;
+				}
+
+				// variable regular expression may include slash; try shortest match first so that templates with more literal
+				// characters after variable take precedence, e.g. {path: .+}/edit before {path: .+}
+				for (int candidateEnd = segmentEnd; candidateEnd <= end; candidateEnd = indexOf(path, '/', candidateEnd + 1, end)) {
+					if (segment.match(path, offset, candidateEnd, match.offsets, count) && match(child, candidateEnd, count + segment.names.size(), match)) {
+						return true;
+					}
+					if (candidateEnd == end) {
+						break;
+					}
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean regionMatches(CharSequence path, int offset, int end, String label) {
+		int length = label.length();
+		if (end - offset < length) {
+			return false;
+		}
+		for (int i = 0; i < length; ++i) {
+			if (path.charAt(offset + i) != label.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int indexOf(CharSequence path, char c, int offset, int end) {
+		for (int i = offset; i < end; ++i) {
+			if (path.charAt(i) == c) {
+				return i;
+			}
+		}
+		return end;
+	}
+
+	// --------------------------------------------------------------------------------------------
+	// compile
+
+	/**
+	 * Split path template into segments, ignoring empty ones. Slash inside variable declaration, that is, inside curly
+	 * braces, is not considered separator.
+	 */
+	static List<String> segments(String template) {
+		List<String> segments = new ArrayList<>();
+		int depth = 0;
+		int start = 0;
+		for (int i = 0; i < template.length(); ++i) {
+			char c = template.charAt(i);
+			if (c == '{') {
+				++depth;
+			} else if (c == '}') {
+				if (--depth < 0) {
+					throw new IllegalArgumentException("Unbalanced curly braces on path template: " + template);
+				}
+			} else if (c == '/' && depth == 0) {
+				if (i > start) {
+					segments.add(template.substring(start, i).trim());
+				}
+				start = i + 1;
+			}
+		}
+		if (depth != 0) {
+			throw new IllegalArgumentException("Unbalanced curly braces on path template: " + template);
+		}
+		if (start < template.length()) {
+			segments.add(template.substring(start).trim());
+		}
+		return segments;
+	}
+
+	/**
+	 * Get names of variables declared by path template, in declaration order. Returned list index is the index of variable
+	 * value on {@link Match#getVariableValue(int)}.
+	 *
+	 * @param template path template.
+	 * @return template variables names, possible empty.
+	 */
+	static List<String> variables(String template) {
+		List<String> variables = new ArrayList<>();
+		for (String segment : segments(template)) {
+			if (segment.indexOf('{') != -1) {
+				variables.addAll(new Segment(segment).names);
+			}
+		}
+		return variables;
+	}
+
+	private static Node insertLiteral(Node node, String text) {
+		int index = 0;
+		while (index < text.length()) {
+			Node child = node.getLiteral(text.charAt(index));
+			if (child == null) {
+				child = new Node(text.substring(index));
+				node.addLiteral(child);
+				return child;
+			}
+
+			int common = 0;
+			int length = Math.min(child.label.length(), text.length() - index);
+			while (common < length && child.label.charAt(common) == text.charAt(index + common)) {
+				++common;
+			}
+			if (common < child.label.length()) {
+				child = node.split(child, common);
+			}
+			index += common;
+			node = child;
+		}
+		return node;
+	}
+
+	private static Node insertSegment(Node node, Segment segment) {
+		for (Node child : node.segments) {
+			if (child.segment.key.equals(segment.key)) {
+				return child;
+			}
+		}
+
+		Node child = new Node(segment);
+		int index = 0;
+		while (index < node.segments.length && node.segments[index].segment.compareTo(segment) <= 0) {
+			++index;
+		}
+		Node[] segments = new Node[node.segments.length + 1];
+		System.arraycopy(node.segments, 0, segments, 0, index);
+		segments[index] = child;
+		System.arraycopy(node.segments, index, segments, index + 1, node.segments.length - index);
+		node.segments = segments;
+		return child;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Result of request path matching. Variables are captured as offsets into request path and converted to strings on
+	 * demand. If path matches a template but there is no value for requested HTTP method, value is null and
+	 * {@link #getAllow()} returns HTTP methods supported by matched path.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	static class Match<T> {
+		private final String httpMethod;
+		private final CharSequence path;
+		private final int start;
+		private final int end;
+
+		/** Captured variables offsets, as start and end pairs. */
+		private final int[] offsets;
+
+		private Object value;
+		private String[] names;
+		private int count;
+		private String allow;
+
+		Match(String httpMethod, CharSequence path, int start, int end, int maxVariables) {
+			this.httpMethod = httpMethod;
+			this.path = path;
+			this.start = start;
+			this.end = end;
+			this.offsets = new int[2 * maxVariables];
+		}
+
+		/** Add allowed HTTP methods of a leaf node matching request path, but not requested HTTP method. */
+		void allow(String allow) {
+			if (this.allow == null) {
+				this.allow = allow;
+				return;
+			}
+			StringBuilder builder = new StringBuilder(this.allow);
+			for (String method : allow.split(", ")) {
+				if (!Arrays.asList(this.allow.split(", ")).contains(method)) {
+					builder.append(", ").append(method);
+				}
+			}
+			this.allow = builder.toString();
+		}
+
+		@SuppressWarnings("unchecked")
+		public T getValue() {
+			return (T) value;
+		}
+
+		/**
+		 * Get comma separated list of HTTP methods supported by matched path, suitable for <code>Allow</code> header. Returns
+		 * null if there is a value for requested HTTP method.
+		 *
+		 * @return allowed HTTP methods, possible null.
+		 */
+		public String getAllow() {
+			return value == null ? allow : null;
+		}
+
+		public int getVariablesCount() {
+			return count;
+		}
+
+		public String getVariableName(int index) {
+			return names[index];
+		}
+
+		public String getVariableValue(int index) {
+			if (index >= count) {
+				throw new IndexOutOfBoundsException("Variable index: " + index);
+			}
+			return path.subSequence(offsets[2 * index], offsets[2 * index + 1]).toString();
+		}
+
+		/**
+		 * Get variable value by name. If template has multiple variables with the same name returns the first one.
+		 *
+		 * @param name variable name.
+		 * @return variable value or null if there is no variable with requested name.
+		 */
+		public String getVariableValue(String name) {
+			for (int i = 0; i < count; ++i) {
+				if (names[i].equals(name)) {
+					return getVariableValue(i);
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Radix tree node. A node is either a literal node with its edge label or a template segment node. Leaf nodes have values
+	 * per HTTP method; intermediate nodes can also have values, for templates that are prefix of other templates.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	private static class Node {
+		private static final Node[] EMPTY = new Node[0];
+
+		private String label;
+		private final Segment segment;
+
+		/** Literal children, each with distinct first label character. */
+		private Node[] literals = EMPTY;
+		/** Template segment children in precedence order. */
+		private Node[] segments = EMPTY;
+
+		private String[] methods;
+		private String[][] names;
+		private Object[] values;
+		/** Precomputed <code>Allow</code> header value. */
+		private String allow;
+
+		public Node(String label) {
+			this.label = label;
+			this.segment = null;
+		}
+
+		public Node(Segment segment) {
+			this.label = "";
+			this.segment = segment;
+		}
+
+		public Node getLiteral(char c) {
+			for (Node literal : literals) {
+				if (literal.label.charAt(0) == c) {
+					return literal;
+				}
+			}
+			return null;
+		}
+
+		public void addLiteral(Node literal) {
+			literals = Arrays.copyOf(literals, literals.length + 1);
+			literals[literals.length - 1] = literal;
+		}
+
+		/** Split literal child at given label index and return created intermediate node. */
+		public Node split(Node child, int index) {
+			Node node = new Node(child.label.substring(0, index));
+			child.label = child.label.substring(index);
+			node.literals = new Node[] { child };
+			for (int i = 0; i < literals.length; ++i) {
+				if (literals[i] == child) {
+					literals[i] = node;
+					break;
+				}
+			}
+			return node;
+		}
+
+		public int indexOf(String httpMethod) {
+			for (int i = 0; i < methods.length; ++i) {
+				if (methods[i].equals(httpMethod)) {
+					return i;
+				}
+			}
+			return HEAD.equals(httpMethod) ? indexOf(GET) : -1;
+		}
+
+		@SuppressWarnings("unchecked")
+		public <T> T putValue(String httpMethod, String[] variables, T value) {
+			if (methods == null) {
+				methods = new String[0];
+				names = new String[0][];
+				values = new Object[0];
+			}
+			for (int i = 0; i < methods.length; ++i) {
+				if (methods[i].equals(httpMethod)) {
+					T previousValue = (T) values[i];
+					names[i] = variables;
+					values[i] = value;
+					return previousValue;
+				}
+			}
+
+			methods = Arrays.copyOf(methods, methods.length + 1);
+			names = Arrays.copyOf(names, names.length + 1);
+			values = Arrays.copyOf(values, values.length + 1);
+			methods[methods.length - 1] = httpMethod;
+			names[names.length - 1] = variables;
+			values[values.length - 1] = value;
+
+			List<String> allowed = new ArrayList<>(Arrays.asList(methods));
+			if (allowed.contains(GET) && !allowed.contains(HEAD)) {
+				allowed.add(HEAD);
+			}
+			allow = String.join(", ", allowed);
+			return null;
+		}
+	}
+
+	/**
+	 * Template segment: a path segment with one or more variables and optional literal characters. A segment with a single
+	 * variable without regular expression is matched directly; otherwise segment is compiled to a regular expression and
+	 * matched with a per thread reusable matcher.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	private static class Segment implements Comparable<Segment> {
+		/** Default variable expression, as recommended by JAX-RS specification. */
+		private static final String DEFAULT_EXPRESSION = "[^/]+?";
+
+		/** Segment with variable names removed, used to detect equivalent segments. */
+		private final String key;
+		private final List<String> names = new ArrayList<>();
+
+		private final int literalsCount;
+		private final int regexCount;
+		/** True if segment has a single variable without regular expression. */
+		private final boolean simple;
+		/** True if segment has variables with explicit regular expression; they may span multiple path segments. */
+		private final boolean multiSegment;
+
+		private final Pattern pattern;
+		private final int[] groups;
+		private final ThreadLocal<Matcher> matchers;
+
+		public Segment(String segment) {
+			StringBuilder key = new StringBuilder();
+			StringBuilder regex = new StringBuilder();
+			List<Integer> groups = new ArrayList<>();
+			int literalsCount = 0;
+			int regexCount = 0;
+			int groupIndex = 1;
+
+			int index = 0;
+			while (index < segment.length()) {
+				int openIndex = segment.indexOf('{', index);
+				if (openIndex == -1) {
+					openIndex = segment.length();
+				}
+				if (openIndex > index) {
+					String literal = segment.substring(index, openIndex);
+					literalsCount += literal.length();
+					key.append(literal);
+					regex.append(Pattern.quote(literal));
+				}
+				if (openIndex == segment.length()) {
+					break;
+				}
+
+				int closeIndex = closeIndex(segment, openIndex);
+				String variable = segment.substring(openIndex + 1, closeIndex);
+				int separatorIndex = variable.indexOf(':');
+				String name = (separatorIndex == -1 ? variable : variable.substring(0, separatorIndex)).trim();
+				String expression = separatorIndex == -1 ? null : variable.substring(separatorIndex + 1).trim();
+				if (name.isEmpty()) {
+					throw new IllegalArgumentException("Missing variable name on path segment: " + segment);
+				}
+				names.add(name);
+
+				if (expression != null) {
+					++regexCount;
+				} else {
+					expression = DEFAULT_EXPRESSION;
+				}
+				key.append('{').append(expression).append('}');
+				groups.add(groupIndex);
+				regex.append('(').append(expression).append(')');
+				try {
+					groupIndex += 1 + Pattern.compile(expression).matcher("").groupCount();
+				} catch (PatternSyntaxException e) {
+					throw new IllegalArgumentException("Invalid variable expression on path segment: " + segment);
+				}
+				index = closeIndex + 1;
+			}
+
+			this.key = key.toString();
+			this.literalsCount = literalsCount;
+			this.regexCount = regexCount;
+			this.simple = names.size() == 1 && literalsCount == 0 && regexCount == 0;
+			this.multiSegment = regexCount > 0;
+
+			if (simple) {
+				this.pattern = null;
+				this.groups = null;
+				this.matchers = null;
+			} else {
+				Pattern pattern = Pattern.compile(regex.toString());
+				this.pattern = pattern;
+				this.groups = groups.stream().mapToInt(Integer::intValue).toArray();
+				this.matchers = ThreadLocal.withInitial(() -> pattern.matcher(""));
+			}
+		}
+
+		private static int closeIndex(String segment, int openIndex) {
+			int depth = 0;
+			for (int i = openIndex; i < segment.length(); ++i) {
+				char c = segment.charAt(i);
+				if (c == '{') {
+					++depth;
+				} else if (c == '}' && --depth == 0) {
+					return i;
+				}
+			}
+			throw new IllegalArgumentException("Unbalanced curly braces on path segment: " + segment);
+		}
+
+		/**
+		 * Match request path region against this segment and store variables offsets.
+		 *
+		 * @param path request path,
+		 * @param start region start, inclusive,
+		 * @param end region end, exclusive,
+		 * @param offsets captured variables offsets, as start and end pairs,
+		 * @param index index of first variable of this segment.
+		 * @return true if request path region matches this segment.
+		 */
+		public boolean match(CharSequence path, int start, int end, int[] offsets, int index) {
+			if (start == end) {
+				return false;
+			}
+			if (simple) {
+				offsets[2 * index] = start;
+				offsets[2 * index + 1] = end;
+				return true;
+			}
+
+			Matcher matcher = matchers.get();
+			matcher.reset(path);
+			matcher.region(start, end);
+			boolean matches = matcher.matches();
+			if (matches) {
+				for (int i = 0; i < groups.length; ++i) {
+					offsets[2 * (index + i)] = matcher.start(groups[i]);
+					offsets[2 * (index + i) + 1] = matcher.end(groups[i]);
+				}
+			}
+			// release reference to request path
+			matcher.reset("");
+			return matches;
+		}
+
+		/** JAX-RS precedence: more literal characters first, then more variables, then more variables with expression. */
+		@Override
+		public int compareTo(Segment other) {
+			if (literalsCount != other.literalsCount) {
+				return other.literalsCount - literalsCount;
+			}
+			if (names.size() != other.names.size()) {
+				return other.names.size() - names.size();
+			}
+			return other.regexCount - regexCount;
+		}
+	}
+}
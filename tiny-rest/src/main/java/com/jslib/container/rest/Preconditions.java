@@ -0,0 +1,79 @@
+package com.jslib.container.rest;
+
+import com.jslib.container.http.HttpHeader;
+import com.jslib.util.Strings;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Evaluation of conditional request headers, as described by RFC 7232. Only <code>If-None-Match</code> and
+ * <code>If-Modified-Since</code> are evaluated, as needed for <code>GET</code> and <code>HEAD</code> requests revalidation.
+ *
+ * @author Iulian Rotaru
+ */
+final class Preconditions {
+	/** Prevent default constructor synthesis. */
+	private Preconditions() {
+	}
+
+	/**
+	 * Convert opaque resource version into strong entity tag. If version is already a quoted entity tag, weak or strong, it is
+	 * returned as it is.
+	 *
+	 * @param version resource version.
+	 * @return entity tag.
+	 */
+	public static String entityTag(String version) {
+		if (version.startsWith("\"") || version.startsWith("W/\"")) {
+			return version;
+		}
+		return '"' + version + '"';
+	}
+
+	/**
+	 * Test if client cached representation is still valid. If request has <code>If-None-Match</code> header it takes precedence
+	 * and <code>If-Modified-Since</code> is ignored. Entity tags are compared using weak comparison.
+	 *
+	 * @param httpRequest HTTP request,
+	 * @param etag current representation entity tag, possible null,
+	 * @param lastModified resource last modification time, in milliseconds, or -1 if unknown.
+	 * @return true if <code>304 Not Modified</code> should be sent.
+	 */
+	public static boolean isNotModified(HttpServletRequest httpRequest, String etag, long lastModified) {
+		String ifNoneMatch = httpRequest.getHeader(HttpHeader.IF_NONE_MATCH);
+		if (ifNoneMatch != null) {
+			return etag != null && matches(ifNoneMatch, etag);
+		}
+		if (lastModified < 0) {
+			return false;
+		}
+
+		long ifModifiedSince;
+		try {
+			ifModifiedSince = httpRequest.getDateHeader(HttpHeader.IF_MODIFIED_SINCE);
+		} catch (IllegalArgumentException e) {
+			// invalid date header should be ignored, see RFC 7232, section 3.3
+			return false;
+		}
+		if (ifModifiedSince == -1) {
+			return false;
+		}
+		// HTTP dates have seconds resolution
+		return lastModified / 1000 <= ifModifiedSince / 1000;
+	}
+
+	static boolean matches(String ifNoneMatch, String etag) {
+		String opaqueTag = opaqueTag(etag);
+		for (String item : Strings.split(ifNoneMatch, ',')) {
+			item = item.trim();
+			if ("*".equals(item) || opaqueTag(item).equals(opaqueTag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String opaqueTag(String etag) {
+		return etag.startsWith("W/") ? etag.substring(2) : etag;
+	}
+}
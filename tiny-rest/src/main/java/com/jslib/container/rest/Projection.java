@@ -0,0 +1,47 @@
+package com.jslib.container.rest;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Enable field projection on resource method response. Client selects the properties to be serialized with a query parameter,
+ * by default <code>fields</code>, as comma separated list of field names; nested fields use dot notation. If query parameter
+ * is missing, the default view declared by {@link #value()} is used; if default view is empty too, response is not projected.
+ * Annotation can be applied on resource class, in which case it is inherited by all resource methods.
+ * <p>
+ * Projection is applied only to JSON and newline delimited JSON responses. Requested fields not declared by response type are
+ * rejected with <code>400 Bad Request</code>.
+ *
+ * <pre>
+ * &#64;GET
+ * &#64;Path("users/{id}")
+ * &#64;Projection("id,name")
+ * public User getUser(&#64;PathParam("id") int id) {
+ * 	...
+ * }
+ *
+ * GET /rest/users/1?fields=id,name,address.city
+ * </pre>
+ *
+ * @author Iulian Rotaru
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Projection {
+	/**
+	 * Default view, as comma separated list of field names, used when request has no projection query parameter. Empty
+	 * default view serializes the whole response.
+	 *
+	 * @return default view fields, possible empty.
+	 */
+	String value() default "";
+
+	/**
+	 * Name of the query parameter carrying requested fields.
+	 *
+	 * @return projection query parameter name.
+	 */
+	String parameter() default "fields";
+}
@@ -0,0 +1,345 @@
+package com.jslib.container.rest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.jslib.api.json.Json;
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+import com.jslib.container.http.ContentType;
+import com.jslib.util.Types;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+
+/**
+ * Streamed response for resource methods returning {@link Flow.Publisher}. Published items are sent as server sent events,
+ * every item on its own <code>data</code> field, or as newline delimited JSON. Items of type {@link OutboundSseEvent} keep
+ * their event name, identifier, reconnect delay and comment on server sent events.
+ * <p>
+ * Servlet output stream is switched to non-blocking mode and publisher demand is driven by output stream readiness: initially
+ * <code>prefetch</code> items are requested and demand is replenished only after items are actually written to output stream.
+ * A slow client stops write readiness that on its turn stops demand, so that publisher is throttled to client consumption rate
+ * and at most <code>prefetch</code> serialized items are kept in memory per connection.
+ * <p>
+ * Items are serialized on publisher thread. Writes to output stream are serialized by a work in progress counter so that
+ * publisher signals and servlet container write readiness never write concurrently. Output stream is flushed when there are no
+ * more items ready to send. Response ends after publisher completion and all pending items written. Publisher error before
+ * response commit is delegated to error handler; after commit response is just closed. Client disconnect or write failure
+ * cancels the subscription.
+ *
+ * @author Iulian Rotaru
+ */
+final class PublisherResponse implements Flow.Subscriber<Object>, AsyncListener {
+	private static final Log log = LogFactory.getLog(PublisherResponse.class);
+
+	/**
+	 * Test if resource method return type is a reactive publisher.
+	 *
+	 * @param returnType resource method return type, possible null.
+	 * @return true if return type is a {@link Flow.Publisher}.
+	 */
+	public static boolean isPublisher(Type returnType) {
+		return returnType != null && Types.isKindOf(returnType, Flow.Publisher.class);
+	}
+
+	/**
+	 * Test if content type can be produced by publisher response.
+	 *
+	 * @param contentType content type.
+	 * @return true for server sent events and newline delimited JSON.
+	 */
+	public static boolean isStreamingType(ContentType contentType) {
+		return ContentType.TEXT_EVENT_STREAM.equals(contentType) || ContentType.APPLICATION_NDJSON.equals(contentType);
+	}
+
+	private final AsyncContext asyncContext;
+	private final Json json;
+	/** Flag true for server sent events, false for newline delimited JSON. */
+	private final boolean sse;
+	/** Number of items requested on subscription, that is, the upper limit of items kept in memory. */
+	private final int prefetch;
+	/** Number of written items after which demand is replenished. */
+	private final int replenish;
+	/** Handler for publisher error occurred before response commit. */
+	private final Consumer<Throwable> errorHandler;
+
+	/** Serialized items waiting for output stream readiness. */
+	private final Queue<byte[]> chunks = new ConcurrentLinkedQueue<>();
+	/** Work in progress counter guarding output stream writes. */
+	private final AtomicInteger wip = new AtomicInteger();
+	/** Set once response is finished or connection is lost; further signals are ignored. */
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+	private ServletOutputStream outputStream;
+	private volatile Flow.Subscription subscription;
+	/** Set by publisher terminal signal. */
+	private volatile boolean done;
+	private volatile Throwable error;
+
+	// fields accessed only by the thread owning work in progress counter
+
+	/** Items written since last demand replenish. */
+	private int written;
+	/** Flag true if output stream has written but not flushed bytes. */
+	private boolean flush;
+
+	public PublisherResponse(AsyncContext asyncContext, Json json, boolean sse, int prefetch, Consumer<Throwable> errorHandler) {
+		this.asyncContext = asyncContext;
+		this.json = json;
+		this.sse = sse;
+		this.prefetch = Math.max(prefetch, 1);
+		this.replenish = Math.max(this.prefetch / 2, 1);
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * Switch response to non-blocking mode and subscribe to publisher. Should be called on request thread, after asynchronous
+	 * mode was started and response headers set. Streamed response has no timeout; it ends when publisher completes or client
+	 * disconnects.
+	 *
+	 * @param publisher resource method publisher.
+	 * @throws IOException if servlet output stream cannot be acquired.
+	 */
+	@SuppressWarnings("unchecked")
+	public void start(Flow.Publisher<?> publisher) throws IOException {
+		asyncContext.setTimeout(0);
+		asyncContext.addListener(this);
+		outputStream = asyncContext.getResponse().getOutputStream();
+		outputStream.setWriteListener(new WriteListener() {
+			@Override
+			public void onWritePossible() {
+				drain();
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+				log.debug("Publisher response write error: {exception}", throwable);
+				cancel();
+			}
+		});
+		((Flow.Publisher<Object>) publisher).subscribe(this);
+	}
+
+	// --------------------------------------------------------------------------------------------
+	// publisher subscriber
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		if (this.subscription != null || closed.get()) {
+			subscription.cancel();
+			return;
+		}
+		this.subscription = subscription;
+		subscription.request(prefetch);
+	}
+
+	@Override
+	public void onNext(Object item) {
+		if (closed.get()) {
+			return;
+		}
+		try {
+			chunks.offer(serialize(item));
+		} catch (Throwable t) {
+			subscription.cancel();
+			onError(t);
+			return;
+		}
+		drain();
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		error = throwable;
+		done = true;
+		drain();
+	}
+
+	@Override
+	public void onComplete() {
+		done = true;
+		drain();
+	}
+
+	// --------------------------------------------------------------------------------------------
+	// servlet asynchronous context listener
+
+	@Override
+	public void onComplete(AsyncEvent event) {
+		cancel();
+	}
+
+	@Override
+	public void onError(AsyncEvent event) {
+		log.debug("Publisher response connection error: {exception}", event.getThrowable());
+		cancel();
+	}
+
+	@Override
+	public void onTimeout(AsyncEvent event) {
+	}
+
+	@Override
+	public void onStartAsync(AsyncEvent event) {
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Write pending items while output stream is ready. Only one thread at a time executes the write loop; signals arrived
+	 * while loop is running are handled by the same thread before leaving.
+	 */
+	private void drain() {
+		if (wip.getAndIncrement() != 0) {
+			return;
+		}
+		int missed = 1;
+		do {
+			try {
+				write();
+			} catch (IOException e) {
+				log.debug("Fail to write publisher response; most probably client close: {exception}", e);
+				cancel();
+				asyncContext.complete();
+			}
+			missed = wip.addAndGet(-missed);
+		} while (missed != 0);
+	}
+
+	private void write() throws IOException {
+		if (closed.get()) {
+			chunks.clear();
+			return;
+		}
+		while (outputStream.isReady()) {
+			// read terminal flag before polling so that items offered before terminal signal are not lost
+			boolean done = this.done;
+			byte[] chunk = chunks.poll();
+			if (chunk == null) {
+				if (flush) {
+					flush = false;
+					outputStream.flush();
+					continue;
+				}
+				if (done) {
+					finish();
+				}
+				return;
+			}
+			outputStream.write(chunk);
+			flush = true;
+			if (++written == replenish) {
+				written = 0;
+				subscription.request(replenish);
+			}
+		}
+		// output stream not ready; servlet container calls write listener when it can accept more bytes
+	}
+
+	private void finish() {
+		if (!closed.compareAndSet(false, true)) {
+			return;
+		}
+		Throwable error = this.error;
+		if (error != null) {
+			if (!asyncContext.getResponse().isCommitted()) {
+				try {
+					errorHandler.accept(error);
+				} catch (Throwable t) {
+					log.dump("Fail to send publisher error response.", t);
+				}
+			} else {
+				log.error("Publisher failed after response commit: {exception}", error);
+			}
+		}
+		asyncContext.complete();
+	}
+
+	private void cancel() {
+		if (!closed.compareAndSet(false, true)) {
+			return;
+		}
+		Flow.Subscription subscription = this.subscription;
+		if (subscription != null) {
+			subscription.cancel();
+		}
+		chunks.clear();
+	}
+
+	private byte[] serialize(Object item) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+		if (!sse) {
+			json.stringify(new ItemWriter(writer), item);
+			writer.write('\n');
+		} else if (item instanceof OutboundSseEvent) {
+			writeEvent(writer, (OutboundSseEvent) item);
+		} else {
+			writer.write("data:");
+			json.stringify(new ItemWriter(writer), item);
+			writer.write("\r\n\r\n");
+		}
+		writer.flush();
+		return bytes.toByteArray();
+	}
+
+	private void writeEvent(Writer writer, OutboundSseEvent event) throws IOException {
+		if (event.getName() != null) {
+			writer.write("event:");
+			writer.write(event.getName());
+			writer.write("\r\n");
+		}
+		if (event.getId() != null) {
+			writer.write("id:");
+			writer.write(event.getId());
+			writer.write("\r\n");
+		}
+		if (event.getData() != null) {
+			writer.write("data:");
+			json.stringify(new ItemWriter(writer), event.getData());
+			writer.write("\r\n");
+		}
+		if (event.isReconnectDelaySet()) {
+			writer.write("retry:");
+			writer.write(Long.toString(event.getReconnectDelay()));
+			writer.write("\r\n");
+		}
+		if (event.getComment() != null) {
+			writer.write(":");
+			writer.write(event.getComment());
+			writer.write("\r\n");
+		}
+		writer.write("\r\n");
+	}
+
+	/**
+	 * Writer for items that ignores close requests from JSON serializer.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	private static class ItemWriter extends FilterWriter {
+		public ItemWriter(Writer writer) {
+			super(writer);
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
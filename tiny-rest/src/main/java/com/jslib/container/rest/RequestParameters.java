@@ -0,0 +1,301 @@
+package com.jslib.container.rest;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Enumeration;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+import com.jslib.container.http.HttpHeader;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Lazy view on request query, matrix and cookie parameters. Each parameters source is parsed only on first access: query
+ * string, request URI matrix parameters and <code>Cookie</code> headers, respectively. Parsing only records names and values
+ * offsets into source string; a value is extracted - and URL decoded if the case, only when requested.
+ * <p>
+ * Query and matrix parameter names are case sensitive whereas cookie names are not. If a name occurs multiple times first
+ * value is used.
+ *
+ * @author Iulian Rotaru
+ */
+class RequestParameters {
+	private static final Log log = LogFactory.getLog(RequestParameters.class);
+
+	private final HttpServletRequest httpRequest;
+
+	private Index query;
+	private Index matrix;
+	private Index cookies;
+
+	public RequestParameters(HttpServletRequest httpRequest) {
+		this.httpRequest = httpRequest;
+	}
+
+	public String getQueryParameter(String name) {
+		if (query == null) {
+			query = new Index(httpRequest.getQueryString(), false, true);
+			query.parse(0, '&', '=');
+		}
+		return query.get(name);
+	}
+
+	/**
+	 * Get matrix parameter from any request URI path segment, e.g. <code>/rest/hello/matrix;name=Iulian%20Rotaru;age=58</code>.
+	 *
+	 * @param name matrix parameter name.
+	 * @return matrix parameter value or null.
+	 */
+	public String getMatrixParameter(String name) {
+		if (matrix == null) {
+			matrix = new Index(httpRequest.getRequestURI(), false, true);
+			matrix.parseMatrix();
+		}
+		return matrix.get(name);
+	}
+
+	public String getCookie(String name) {
+		if (cookies == null) {
+			Enumeration<String> headers = httpRequest.getHeaders(HttpHeader.COOKIE);
+			String source = null;
+			if (headers != null) {
+				while (headers.hasMoreElements()) {
+					String header = headers.nextElement();
+					source = source == null ? header : source + "; " + header;
+				}
+			}
+			cookies = new Index(source, true, false);
+			cookies.parse(0, ';', '=');
+		}
+		return cookies.get(name);
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Parameters index over a source string. Stores name and value offsets, four integers per parameter, and an open
+	 * addressed hash table of parameter indices.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	private static class Index {
+		private static final int[] EMPTY = new int[0];
+
+		private final String source;
+		private final boolean ignoreCase;
+		/** Flag true if names and values are URL encoded. */
+		private final boolean encoded;
+
+		/** Name start, name end, value start and value end for every parameter. */
+		private int[] offsets = new int[16];
+		/** Decoded names, not null only for names with escaped characters. */
+		private String[] names;
+		private int count;
+
+		/** Open addressed table with parameter index plus one; zero for empty slot. */
+		private int[] table = EMPTY;
+
+		public Index(String source, boolean ignoreCase, boolean encoded) {
+			this.source = source != null ? source : "";
+			this.ignoreCase = ignoreCase;
+			this.encoded = encoded;
+		}
+
+		/**
+		 * Parse parameters separated by given separator, starting from given offset to source end.
+		 *
+		 * @param offset start offset,
+		 * @param separator parameters separator,
+		 * @param assignment name and value separator.
+		 */
+		public void parse(int offset, char separator, char assignment) {
+			int end = source.length();
+			while (offset < end) {
+				int separatorIndex = source.indexOf(separator, offset);
+				if (separatorIndex == -1) {
+					separatorIndex = end;
+				}
+				add(offset, separatorIndex, assignment);
+				offset = separatorIndex + 1;
+			}
+			buildTable();
+		}
+
+		/**
+		 * Parse matrix parameters from all path segments. Matrix parameters start with semicolon and end at next semicolon or
+		 * path separator.
+		 */
+		public void parseMatrix() {
+			int offset = source.indexOf(';');
+			while (offset != -1) {
+				int end = ++offset;
+				while (end < source.length() && source.charAt(end) != ';' && source.charAt(end) != '/') {
+					++end;
+				}
+				add(offset, end, '=');
+				offset = source.indexOf(';', end);
+			}
+			buildTable();
+		}
+
+		private void add(int start, int end, char assignment) {
+			// trim white spaces, significant mainly for cookies
+			while (start < end && source.charAt(start) == ' ') {
+				++start;
+			}
+			while (end > start && source.charAt(end - 1) == ' ') {
+				--end;
+			}
+			if (start == end) {
+				return;
+			}
+
+			int assignmentIndex = start;
+			while (assignmentIndex < end && source.charAt(assignmentIndex) != assignment) {
+				++assignmentIndex;
+			}
+			int nameEnd = assignmentIndex;
+			while (nameEnd > start && source.charAt(nameEnd - 1) == ' ') {
+				--nameEnd;
+			}
+			int valueStart = Math.min(assignmentIndex + 1, end);
+			while (valueStart < end && source.charAt(valueStart) == ' ') {
+				++valueStart;
+			}
+			if (!encoded && end - valueStart >= 2 && source.charAt(valueStart) == '"' && source.charAt(end - 1) == '"') {
+				// quoted cookie value
+				++valueStart;
+				--end;
+			}
+
+			if (4 * (count + 1) > offsets.length) {
+				offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+			}
+			int index = 4 * count;
+			offsets[index] = start;
+			offsets[index + 1] = nameEnd;
+			offsets[index + 2] = valueStart;
+			offsets[index + 3] = end;
+
+			if (encoded && isEscaped(start, nameEnd)) {
+				if (names == null) {
+					names = new String[offsets.length / 4];
+				} else if (names.length < offsets.length / 4) {
+					names = Arrays.copyOf(names, offsets.length / 4);
+				}
+				names[count] = decode(start, nameEnd);
+			}
+			++count;
+		}
+
+		private void buildTable() {
+			if (count == 0) {
+				return;
+			}
+			int capacity = Integer.highestOneBit(2 * count - 1) << 1;
+			if (capacity < 4) {
+				capacity = 4;
+			}
+			table = new int[capacity];
+			int mask = capacity - 1;
+			for (int i = 0; i < count; ++i) {
+				int slot = hash(i) & mask;
+				boolean duplicate = false;
+				while (table[slot] != 0) {
+					if (sameName(table[slot] - 1, i)) {
+						duplicate = true;
+						break;
+					}
+					slot = (slot + 1) & mask;
+				}
+				if (!duplicate) {
+					table[slot] = i + 1;
+				}
+			}
+		}
+
+		public String get(String name) {
+			if (count == 0) {
+				return null;
+			}
+			int mask = table.length - 1;
+			int slot = hash(name) & mask;
+			while (table[slot] != 0) {
+				int index = table[slot] - 1;
+				if (nameEquals(index, name)) {
+					return value(index);
+				}
+				slot = (slot + 1) & mask;
+			}
+			return null;
+		}
+
+		private String value(int index) {
+			int start = offsets[4 * index + 2];
+			int end = offsets[4 * index + 3];
+			return encoded && isEscaped(start, end) ? decode(start, end) : source.substring(start, end);
+		}
+
+		private boolean nameEquals(int index, String name) {
+			if (names != null && index < names.length && names[index] != null) {
+				return ignoreCase ? names[index].equalsIgnoreCase(name) : names[index].equals(name);
+			}
+			int start = offsets[4 * index];
+			int length = offsets[4 * index + 1] - start;
+			return length == name.length() && source.regionMatches(ignoreCase, start, name, 0, length);
+		}
+
+		private boolean sameName(int index, int otherIndex) {
+			return nameEquals(index, name(otherIndex));
+		}
+
+		private String name(int index) {
+			if (names != null && index < names.length && names[index] != null) {
+				return names[index];
+			}
+			return source.substring(offsets[4 * index], offsets[4 * index + 1]);
+		}
+
+		private int hash(int index) {
+			if (names != null && index < names.length && names[index] != null) {
+				return hash(names[index]);
+			}
+			return hash(source, offsets[4 * index], offsets[4 * index + 1]);
+		}
+
+		private int hash(String name) {
+			return hash(name, 0, name.length());
+		}
+
+		private int hash(String string, int start, int end) {
+			int hash = 0;
+			for (int i = start; i < end; ++i) {
+				char c = string.charAt(i);
+				hash = 31 * hash + (ignoreCase ? Character.toLowerCase(c) : c);
+			}
+			return hash ^ (hash >>> 16);
+		}
+
+		private boolean isEscaped(int start, int end) {
+			for (int i = start; i < end; ++i) {
+				char c = source.charAt(i);
+				if (c == '%' || c == '+') {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private String decode(int start, int end) {
+			String value = source.substring(start, end);
+			try {
+				return URLDecoder.decode(value, StandardCharsets.UTF_8);
+			} catch (IllegalArgumentException e) {
+				log.error("Invalid URL encoded parameter |{http_parameter}|: {exception_message}", value, e.getMessage());
+				return value;
+			}
+		}
+	}
+}
@@ -1,7 +1,6 @@
 package com.jslib.container.rest;
 
 import java.lang.reflect.Field;
-import java.util.List;
 
 import com.jslib.api.log.Log;
 import com.jslib.api.log.LogFactory;
@@ -22,7 +21,6 @@ import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.sse.Sse;
 import jakarta.ws.rs.sse.SseEventSink;
 import com.jslib.api.json.Json;
-import com.jslib.util.Strings;
 import com.jslib.util.Types;
 
 public class RestConnector implements IConnector, IClassPostLoadedProcessor {
@@ -94,8 +92,8 @@ public class RestConnector implements IConnector, IClassPostLoadedProcessor {
 				contextInjectors.add(implementationClass, injector);
 			}
 			if (managedMethod.isPublic() && !Types.isKindOf(managedMethod.getReturnType(), Resource.class)) {
-				List<String> paths = pathMethods.add(managedMethod);
-				log.debug("Register REST method {managed_method} to path {rest_path}.", managedMethod, Strings.join(paths, ','));
+				String path = pathMethods.add(managedMethod);
+				log.debug("Register REST method {managed_method} to path {rest_path}.", managedMethod, path);
 			}
 		}
 
@@ -1,48 +1,46 @@
 package com.jslib.container.rest;
 
 import java.io.IOException;
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
-import java.util.List;
 import java.util.Map;
-
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+
+import com.jslib.api.json.Json;
 import com.jslib.api.log.Log;
 import com.jslib.api.log.LogFactory;
 import com.jslib.container.http.ContentType;
 import com.jslib.container.http.HttpHeader;
+import com.jslib.container.http.cache.CacheEntry;
+import com.jslib.container.http.cache.CachedResponse;
+import com.jslib.container.http.cache.ResponseCache;
+import com.jslib.container.http.cache.ResponseCapture;
 import com.jslib.container.http.encoder.ArgumentsReader;
 import com.jslib.container.http.encoder.ArgumentsReaderFactory;
 import com.jslib.container.http.encoder.ServerEncoders;
 import com.jslib.container.http.encoder.ValueWriter;
-import com.jslib.container.http.encoder.ValueWriterFactory;
 import com.jslib.container.rest.sse.SseEventSinkImpl;
 import com.jslib.container.servlet.AppServlet;
 import com.jslib.container.servlet.RequestContext;
 import com.jslib.container.spi.IManagedMethod;
 import com.jslib.container.spi.IManagedMethod.Flags;
 import com.jslib.container.spi.IManagedParameter;
-import com.jslib.converter.Converter;
-import com.jslib.converter.ConverterRegistry;
 import com.jslib.util.Types;
 
 import jakarta.inject.Inject;
 import jakarta.servlet.AsyncContext;
 import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletException;
-import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.ws.rs.Consumes;
-import jakarta.ws.rs.CookieParam;
-import jakarta.ws.rs.HeaderParam;
-import jakarta.ws.rs.MatrixParam;
-import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.HttpMethod;
 import jakarta.ws.rs.Produces;
-import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
-import jakarta.ws.rs.core.MultivaluedHashMap;
-import jakarta.ws.rs.core.MultivaluedMap;
 import jakarta.ws.rs.sse.SseEventSink;
 
 /**
@@ -70,6 +68,31 @@ import jakarta.ws.rs.sse.SseEventSink;
  * 	&lt;/servlet-mapping&gt;
  * </pre>
  * 
+ * <h3>Asynchronous Resource Methods</h3>
+ * 
+ * Resource methods with <code>&#64;Suspended AsyncResponse</code> parameter or returning {@link CompletionStage} are executed
+ * in servlet asynchronous mode: request thread is released after method invocation and response is written by the thread that
+ * resumes asynchronous response or completes the stage. If response is not resumed in time, <code>503 Service
+ * Unavailable</code> is sent; timeout is configured per resource method with {@link AsyncTimeout} or globally with
+ * {@link #PARAM_ASYNC_TIMEOUT} context parameter. Asynchronous methods require <code>&lt;async-supported&gt;</code> on REST
+ * servlet declaration.
+ * 
+ * <h3>Publisher Resource Methods</h3>
+ * 
+ * Resource methods returning a {@link Flow.Publisher} are streamed as server sent events or newline delimited JSON, accordingly
+ * negotiated content type. Response output stream is non-blocking and publisher demand follows client consumption rate: at most
+ * {@link #PARAM_PUBLISHER_PREFETCH} items are requested ahead of what was actually written. Publisher methods require
+ * <code>&lt;async-supported&gt;</code> too.
+ * 
+ * <h3>Cross-Origin Resource Sharing</h3>
+ * 
+ * CORS policy is declared per resource with {@link Cors} annotation or globally with {@link #PARAM_CORS_ORIGINS} and related
+ * context parameters. <code>OPTIONS</code> requests for paths without explicit <code>OPTIONS</code> resource method are
+ * answered from request router, without invoking any resource method: preflight requests are checked against the policy of
+ * the resource method for requested HTTP method and answered with <code>Access-Control-Max-Age</code>, so that client can
+ * cache preflight response; plain <code>OPTIONS</code> requests get <code>Allow</code> header. If there is no CORS policy at
+ * all, responses to requests with <code>Sec-Fetch-Mode: cors</code> allow any origin, for backward compatibility.
+ * 
  * @author Iulian Rotaru
  */
 public class RestServlet extends AppServlet {
@@ -77,9 +100,30 @@ public class RestServlet extends AppServlet {
 
 	private static final Log log = LogFactory.getLog(RestServlet.class);
 
-	private static final Object[] EMPTY_ARGUMENTS = new Object[0];
+	/** Context parameter for asynchronous resource methods default timeout, in milliseconds. */
+	public static final String PARAM_ASYNC_TIMEOUT = "com.jslib.container.rest.async.timeout";
 
-	private final Converter converter = ConverterRegistry.getConverter();
+	/** Default value for asynchronous resource methods timeout, in milliseconds. */
+	private static final long DEFAULT_ASYNC_TIMEOUT = 30000;
+
+	/** Context parameter for the number of items requested from publisher ahead of items written to client. */
+	public static final String PARAM_PUBLISHER_PREFETCH = "com.jslib.container.rest.publisher.prefetch";
+
+	/** Default value for publisher prefetch items count. */
+	private static final int DEFAULT_PUBLISHER_PREFETCH = 16;
+
+	/** Context parameter for global CORS allowed origins, comma separated, <code>*</code> for any. Enables global policy. */
+	public static final String PARAM_CORS_ORIGINS = "com.jslib.container.rest.cors.origins";
+	/** Context parameter for global CORS allowed methods, comma separated; default to methods supported by path. */
+	public static final String PARAM_CORS_METHODS = "com.jslib.container.rest.cors.methods";
+	/** Context parameter for global CORS allowed request headers, comma separated; default to any header. */
+	public static final String PARAM_CORS_HEADERS = "com.jslib.container.rest.cors.headers";
+	/** Context parameter for global CORS exposed response headers, comma separated. */
+	public static final String PARAM_CORS_EXPOSED_HEADERS = "com.jslib.container.rest.cors.exposed.headers";
+	/** Context parameter for global CORS credentials flag. */
+	public static final String PARAM_CORS_CREDENTIALS = "com.jslib.container.rest.cors.credentials";
+	/** Context parameter for CORS preflight cache duration, in seconds; used also by {@link Cors} without explicit max age. */
+	public static final String PARAM_CORS_MAX_AGE = "com.jslib.container.rest.cors.max.age";
 
 	/**
 	 * Factory for invocation arguments readers. Create instances to read invocation arguments from HTTP request, accordingly
@@ -87,18 +131,61 @@ public class RestServlet extends AppServlet {
 	 */
 	private final ArgumentsReaderFactory argumentsReaderFactory;
 
-	/** Factory for return value writers. Create instances to serialize method return value to HTTP response. */
-	private final ValueWriterFactory valueWriterFactory;
-
 	private PathMethodsCache cache;
 
+	/** Response content type negotiation with decisions cached per resource method and Accept header. */
+	private final ContentNegotiator contentNegotiator;
+
+	/** Invocation arguments binders for resource methods, compiled on servlet initialization. */
+	private final Map<IManagedMethod, MethodBinder> binders = new ConcurrentHashMap<>();
+
+	/** Caching policies for resource methods, lazily resolved from {@link CacheControl} annotation. */
+	private final Map<IManagedMethod, Optional<CachePolicy>> cachePolicies = new ConcurrentHashMap<>();
+
+	/** Server side cache for serialized responses of resource methods annotated with {@link CachedResponse}. */
+	private final ResponseCache responseCache = ResponseCache.getInstance();
+
+	/** Server side caching annotations for resource methods, lazily resolved. */
+	private final Map<IManagedMethod, Optional<CachedResponse>> cachedResponses = new ConcurrentHashMap<>();
+
+	/** Asynchronous resource methods timeouts, in milliseconds, lazily resolved from {@link AsyncTimeout} annotation. */
+	private final Map<IManagedMethod, Long> asyncTimeouts = new ConcurrentHashMap<>();
+
+	/** Field projection annotations for resource methods, lazily resolved. */
+	private final Map<IManagedMethod, Optional<Projection>> projections = new ConcurrentHashMap<>();
+
+	/** Response values projection with cached field sets and projection plans. */
+	private final FieldProjector fieldProjector = new FieldProjector();
+
+	/** CORS policies for resource methods, lazily resolved from {@link Cors} annotation or global policy. */
+	private final Map<IManagedMethod, Optional<CorsPolicy>> corsPolicies = new ConcurrentHashMap<>();
+
+	/** Global CORS policy, null if not configured, see {@link #PARAM_CORS_ORIGINS}. */
+	private CorsPolicy corsPolicy;
+
+	/** CORS preflight cache duration, in seconds, see {@link #PARAM_CORS_MAX_AGE}. */
+	private long corsMaxAge = CorsPolicy.DEFAULT_MAX_AGE;
+
+	/** Default timeout for asynchronous resource methods, see {@link #PARAM_ASYNC_TIMEOUT}. */
+	private long asyncTimeout = DEFAULT_ASYNC_TIMEOUT;
+
+	/** Scheduler for asynchronous responses timeout; thread is created on first asynchronous resource method invocation. */
+	private final ScheduledExecutorService asyncScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+		Thread thread = new Thread(task, "REST Async Timeout");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/** Publisher items requested ahead of items written to client, see {@link #PARAM_PUBLISHER_PREFETCH}. */
+	private int publisherPrefetch = DEFAULT_PUBLISHER_PREFETCH;
+
 	@Inject
 	public RestServlet() {
 		log.trace("RestServlet()");
 		// both factories are implemented by the same server encoders instance
 		try {
 			this.argumentsReaderFactory = ServerEncoders.getInstance();
-			this.valueWriterFactory = ServerEncoders.getInstance();
+			this.contentNegotiator = new ContentNegotiator(ServerEncoders.getInstance());
 		} catch (Throwable t) {
 			log.dump("Fail to create REST servlet.", t);
 			throw t;
@@ -109,13 +196,49 @@ public class RestServlet extends AppServlet {
 	public RestServlet(ServerEncoders encoders) {
 		log.trace("RestServlet(ServerEncoders)");
 		this.argumentsReaderFactory = encoders;
-		this.valueWriterFactory = encoders;
+		this.contentNegotiator = new ContentNegotiator(encoders);
 	}
 
 	@Override
 	public void init(ServletConfig config) throws ServletException {
 		super.init(config);
 		cache = getContainer().getInstance(PathMethodsCache.class);
+		for (IManagedMethod managedMethod : cache.getMethods()) {
+			binders.put(managedMethod, createBinder(managedMethod));
+		}
+		Long asyncTimeout = getContainer().getInitParameter(PARAM_ASYNC_TIMEOUT, Long.class);
+		if (asyncTimeout != null) {
+			this.asyncTimeout = asyncTimeout;
+		}
+		Integer publisherPrefetch = getContainer().getInitParameter(PARAM_PUBLISHER_PREFETCH, Integer.class);
+		if (publisherPrefetch != null) {
+			this.publisherPrefetch = publisherPrefetch;
+		}
+
+		Long corsMaxAge = getContainer().getInitParameter(PARAM_CORS_MAX_AGE, Long.class);
+		if (corsMaxAge != null) {
+			this.corsMaxAge = corsMaxAge;
+		}
+		String corsOrigins = getContainer().getInitParameter(PARAM_CORS_ORIGINS, String.class);
+		if (corsOrigins != null) {
+			Boolean corsCredentials = getContainer().getInitParameter(PARAM_CORS_CREDENTIALS, Boolean.class);
+			corsPolicy = new CorsPolicy(list(corsOrigins), list(getContainer().getInitParameter(PARAM_CORS_METHODS, String.class)), list(getContainer().getInitParameter(PARAM_CORS_HEADERS, String.class)),
+					list(getContainer().getInitParameter(PARAM_CORS_EXPOSED_HEADERS, String.class)), corsCredentials != null && corsCredentials, this.corsMaxAge);
+		}
+		// resolve CORS policies eagerly so that misconfigured annotations are reported on servlet initialization
+		for (IManagedMethod managedMethod : cache.getMethods()) {
+			getCorsPolicy(managedMethod);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		asyncScheduler.shutdownNow();
+		super.destroy();
+	}
+
+	private MethodBinder createBinder(IManagedMethod managedMethod) {
+		return MethodBinder.create(managedMethod, getContainer(), argumentsReaderFactory);
 	}
 
 	/**
@@ -134,19 +257,64 @@ public class RestServlet extends AppServlet {
 		ArgumentsReader argumentsReader = null;
 		Object value = null;
 		IManagedMethod managedMethod = null;
+		Invocation invocation = new Invocation();
 
 		try {
 			String pathInfo = httpRequest.getPathInfo();
 			if (pathInfo == null) {
 				pathInfo = httpRequest.getRequestURI().substring(httpRequest.getContextPath().length());
 			}
-			PathTree.Item<IManagedMethod> requestPath = cache.get(httpRequest.getMethod(), pathInfo);
+			// HEAD request is served by GET resource method but response body is not serialized
+			PathRouter.Match<IManagedMethod> requestPath = cache.get(httpRequest.getMethod(), pathInfo);
+			if (requestPath == null) {
+				throw new NoSuchMethodException(pathInfo);
+			}
 			managedMethod = requestPath.getValue();
 			if (managedMethod == null) {
-				throw new NoSuchMethodException(pathInfo);
+				if (HttpMethod.OPTIONS.equals(httpRequest.getMethod())) {
+					handleOptions(httpRequest, httpResponse, pathInfo, requestPath.getAllow());
+					return;
+				}
+				sendMethodNotAllowed(httpRequest, httpResponse, requestPath.getAllow());
+				return;
+			}
+			invocation.managedMethod = managedMethod;
+			applyCors(httpRequest, httpResponse, managedMethod);
+
+			// resource methods not registered at servlet initialization are compiled on first request
+			MethodBinder binder = binders.computeIfAbsent(managedMethod, this::createBinder);
+			// publisher items are streamed without value writer, see content negotiator
+			boolean publisher = PublisherResponse.isPublisher(managedMethod.getReturnType());
+			// asynchronous resource method value type is known only on completion so response content type is always negotiated
+			boolean async = !publisher && (binder.isSuspended() || isCompletionStage(managedMethod));
+
+			if (async || !Types.isVoid(managedMethod.getReturnType())) {
+				// negotiate before resource method execution so that not acceptable request has no side effects
+				invocation.contentDecision = contentNegotiator.negotiate(managedMethod, httpRequest.getHeader(HttpHeader.ACCEPT));
+				if (invocation.contentDecision == null) {
+					sendNotAcceptable(httpRequest, httpResponse);
+					return;
+				}
 			}
 
-			Object[] arguments = getArguments(httpRequest, requestPath);
+			// streamed responses are never cached on server
+			invocation.cachedResponse = publisher ? null : getCachedResponse(managedMethod, httpRequest);
+			if (invocation.cachedResponse != null) {
+				invocation.cacheKey = responseCache.key(httpRequest, invocation.cachedResponse, getContainer().getUserPrincipal(), null);
+				if (invocation.contentDecision != null && invocation.contentDecision.isVariant()) {
+					invocation.cacheKey += "\ntype:" + invocation.contentDecision.getContentType().getMIME();
+				}
+				// cached response is served without resource method invocation, that is where authorization is performed
+				authorize(managedMethod);
+				CacheEntry cacheEntry = responseCache.get(invocation.cacheKey);
+				if (cacheEntry != null) {
+					serveCacheEntry(httpRequest, httpResponse, cacheEntry);
+					return;
+				}
+			}
+
+			AsyncResponseImpl asyncResponse = async ? new AsyncResponseImpl() : null;
+			Object[] arguments = binder.bind(new BindingContext(httpRequest, requestPath, asyncResponse));
 			if (arguments == null) {
 				// back door for non standard behavior, compatible with HTTP-RMI
 				Type[] formalParameters = managedMethod.getParameterTypes();
@@ -154,14 +322,45 @@ public class RestServlet extends AppServlet {
 				arguments = argumentsReader.read(httpRequest, formalParameters);
 			}
 
+			CachePolicy cachePolicy = getCachePolicy(managedMethod, httpRequest);
+			invocation.cachePolicy = cachePolicy;
+			if (cachePolicy != null && cachePolicy.getVersionProvider() != null) {
+				// resource version is known without executing resource method; if client representation is still valid
+				// there is no need to execute resource method at all, but authorization still applies
+				authorize(managedMethod);
+				String version = cachePolicy.getVersionProvider().getVersion(arguments);
+				invocation.etag = version != null ? Preconditions.entityTag(version) : null;
+				invocation.lastModified = cachePolicy.getVersionProvider().getLastModified(arguments);
+				if (Preconditions.isNotModified(httpRequest, invocation.etag, invocation.lastModified)) {
+					setCacheHeaders(httpResponse, cachePolicy, invocation.etag, invocation.lastModified);
+					httpResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+					return;
+				}
+			}
+
+			if (publisher) {
+				invokePublisher(httpRequest, httpResponse, invocation, arguments);
+				return;
+			}
+			if (asyncResponse != null) {
+				invokeAsync(httpRequest, httpResponse, invocation, arguments, asyncResponse);
+				return;
+			}
+
+			boolean sse = isSseRequest(managedMethod);
+			if (sse) {
+				// resource method may register event sink to a broadcaster; reconnecting client last event ID should be known
+				((SseEventSinkImpl) getContainer().getInstance(SseEventSink.class)).setLastEventId(httpRequest.getHeader(HttpHeader.LAST_EVENT_ID));
+			}
+
 			Object instance = managedMethod.getDeclaringClass().getInstance();
 			value = managedMethod.invoke(instance, arguments);
 
-			if (isSseRequest(managedMethod)) {
+			if (sse) {
 				if (!Types.isVoid(managedMethod.getReturnType())) {
 					throw new IllegalStateException("Non void SSE resource method: " + managedMethod);
 				}
-				handleSseRequest(httpRequest, httpResponse);
+				handleSseRequest(httpRequest, httpResponse, managedMethod);
 				return;
 			}
 
@@ -185,6 +384,27 @@ public class RestServlet extends AppServlet {
 			}
 		}
 
+		sendResponse(httpRequest, httpResponse, invocation, value, Types.isVoid(managedMethod.getReturnType()));
+	}
+
+	/**
+	 * Send resource method value to HTTP response, taking care of content type, caching headers and server side response
+	 * cache. For asynchronous resource methods this method is executed by the thread completing asynchronous response.
+	 * 
+	 * @param httpRequest HTTP request,
+	 * @param httpResponse HTTP response,
+	 * @param invocation resource method invocation state,
+	 * @param value value returned by resource method, possible null,
+	 * @param noContent flag true if there is no value to send, in which case response is <code>204 No Content</code>.
+	 * @throws IOException if writing to HTTP response fails.
+	 */
+	private void sendResponse(HttpServletRequest httpRequest, HttpServletResponse httpResponse, Invocation invocation, Object value, boolean noContent) throws IOException {
+		// content type of resource methods without @Produces depends on returned value
+		invocation.contentDecision = contentNegotiator.resolve(invocation.contentDecision, value);
+		ContentNegotiator.Decision contentDecision = invocation.contentDecision;
+		CachePolicy cachePolicy = invocation.cachePolicy;
+		String etag = invocation.etag;
+
 		// because character encoding is explicitly set, Tomcat force charset attribute on Content-Type header
 		// so that application/json becomes on response header application/json;charset=UTF-8
 		//
@@ -194,13 +414,23 @@ public class RestServlet extends AppServlet {
 		//
 		// seems like Tomcat breaks the specs
 
+		ResponseCapture responseCapture = null;
+		if (invocation.cacheKey != null) {
+			// response is captured while sent to client and stored on server cache
+			responseCapture = responseCache.capture(httpResponse);
+			for (String header : invocation.cachedResponse.vary()) {
+				responseCapture.addHeader(HttpHeader.VARY, header);
+			}
+			httpResponse = responseCapture;
+		}
+
 		httpResponse.setCharacterEncoding("UTF-8");
 
-		if ("cors".equals(httpRequest.getHeader("Sec-Fetch-Mode"))) {
-			httpResponse.setHeader("Access-Control-Allow-Origin", "*");
+		if (cachePolicy != null) {
+			setCacheHeaders(httpResponse, cachePolicy, etag, invocation.lastModified);
 		}
 
-		if (Types.isVoid(managedMethod.getReturnType())) {
+		if (noContent) {
 			// expected servlet container behavior:
 			// since there is nothing written to respond to output stream, container either set content length to zero
 			// or closes connection signaling end of content
@@ -215,127 +445,373 @@ public class RestServlet extends AppServlet {
 		// JSON but with limited capacity; if capacity is not exceeded set response content length; if capacity is exceeded
 		// switch to chunked transfer
 
-		Produces producesMeta = managedMethod.scanAnnotation(Produces.class, IManagedMethod.Flags.INCLUDE_TYPES);
-		String produces = producesMeta != null ? producesMeta.value().length > 0 ? producesMeta.value()[0] : null : null;
+		httpResponse.setStatus(HttpServletResponse.SC_OK);
+		httpResponse.setContentType(contentDecision.getHeaderValue());
+		if (contentDecision.isVariant()) {
+			httpResponse.addHeader(HttpHeader.VARY, HttpHeader.ACCEPT);
+		}
 
-		ContentType contentType = ContentType.valueOf(produces);
-		if (contentType == null) {
-			contentType = valueWriterFactory.getContentTypeForValue(value);
+		if (isHeadRequest(httpRequest)) {
+			// HEAD response has the same headers as GET but no body; skip value serialization
+			// value is not consumed by a value writer so resources held by returned stream or iterator should be released here
+			close(value);
+			return;
+		}
+
+		value = project(httpRequest, invocation, value);
+
+		ValueWriter valueWriter = contentDecision.getValueWriter();
+		if (cachePolicy != null && cachePolicy.isEtag() && etag == null) {
+			// entity tag is computed from serialized body and checked against client cached representation
+			ConditionalResponse conditionalResponse = new ConditionalResponse(httpResponse);
+			valueWriter.write(httpRequest, conditionalResponse, value);
+			conditionalResponse.finish(httpRequest);
+		} else {
+			valueWriter.write(httpRequest, httpResponse, value);
 		}
-		httpResponse.setStatus(HttpServletResponse.SC_OK);
-		httpResponse.setContentType(contentType.getValue());
 
-		ValueWriter valueWriter = valueWriterFactory.getValueWriter(contentType);
-		valueWriter.write(httpResponse, value);
+		if (responseCapture != null) {
+			responseCache.put(invocation.cacheKey, responseCapture, invocation.cachedResponse.ttl());
+		}
 	}
 
-	@SuppressWarnings("unchecked")
-	private Object[] getArguments(HttpServletRequest httpRequest, PathTree.Item<IManagedMethod> requestPath) throws IOException, ParameterNotFoundException, ParameterConversionException {
-		IManagedMethod managedMethod = requestPath.getValue();
-		List<IManagedParameter> managedParameters = managedMethod.getManagedParameters();
-		if (managedParameters.isEmpty()) {
-			return EMPTY_ARGUMENTS;
-		}
-
-		Consumes consumesAnnotation = managedMethod.scanAnnotation(Consumes.class, Flags.INCLUDE_TYPES);
-		if (consumesAnnotation != null) {
-			String[] consumes = consumesAnnotation.value();
-			if (consumes.length == 1 && MediaType.APPLICATION_FORM_URLENCODED.equals(consumes[0])) {
-				if (managedParameters.size() != 1) {
-					log.error("Current implementation for resource with URL encoded form supports only one parameter.");
-					return null;
-				}
-				if (!Types.isKindOf(managedParameters.get(0).getType(), MultivaluedMap.class)) {
-					log.error("Current implementation for resource with URL encoded form supports only multi-valued map.");
-					return null;
-				}
+	/**
+	 * Project resource method value on fields requested by client or on default view, if resource method is annotated with
+	 * {@link Projection}. Projection is applied only for JSON based content types.
+	 * 
+	 * @param httpRequest HTTP request,
+	 * @param invocation resource method invocation state,
+	 * @param value value returned by resource method, possible null.
+	 * @return projected value or given value if projection is not enabled or not requested.
+	 * @throws IllegalArgumentException if requested fields are not valid for value type.
+	 */
+	private Object project(HttpServletRequest httpRequest, Invocation invocation, Object value) {
+		if (value == null) {
+			return null;
+		}
+		Projection projection = projections.computeIfAbsent(invocation.managedMethod, method -> Optional.ofNullable(method.scanAnnotation(Projection.class, Flags.INCLUDE_TYPES))).orElse(null);
+		if (projection == null) {
+			return value;
+		}
+		ContentType contentType = invocation.contentDecision.getContentType();
+		if (!contentType.isJSON() && !ContentType.APPLICATION_NDJSON.equals(contentType)) {
+			return value;
+		}
+		// read fields from query string only; servlet request parameters would parse form body too
+		String fields = new RequestParameters(httpRequest).getQueryParameter(projection.parameter());
+		if (fields == null || fields.isEmpty()) {
+			fields = projection.value();
+		}
+		return fields.isEmpty() ? value : fieldProjector.project(value, fields);
+	}
 
-				Map<String, String> form = (Map<String, String>) getEntityArgument(httpRequest, Map.class);
-				return new Object[] { new MultivaluedHashMap<>(form) };
-			}
+	/**
+	 * Invoke asynchronous resource method. Start servlet asynchronous mode, bind asynchronous response to it and invoke resource
+	 * method; request thread is released after invocation. If resource method returns a completion stage, asynchronous
+	 * response is resumed on stage completion. Exception thrown by resource method invocation resumes response with error.
+	 * 
+	 * @param httpRequest HTTP request,
+	 * @param httpResponse HTTP response,
+	 * @param invocation resource method invocation state,
+	 * @param arguments invocation arguments,
+	 * @param asyncResponse asynchronous response, already bound on invocation arguments if resource method is suspended.
+	 * @throws IllegalStateException if REST servlet is not declared with asynchronous support.
+	 */
+	private void invokeAsync(HttpServletRequest httpRequest, HttpServletResponse httpResponse, Invocation invocation, Object[] arguments, AsyncResponseImpl asyncResponse) {
+		if (!httpRequest.isAsyncSupported()) {
+			throw new IllegalStateException("REST asynchronous resource method requires asynchronous mode. Missing <async-supported>true</async-supported> ?");
 		}
+		AsyncContext asyncContext = httpRequest.startAsync(httpRequest, httpResponse);
+		asyncResponse.start(asyncContext, asyncScheduler, getAsyncTimeout(invocation.managedMethod), (value, error) -> completeAsync(httpRequest, httpResponse, invocation, value, error));
 
-		UrlParameters urlParameters = new UrlParameters(httpRequest);
-		int entityParametersCount = 0;
-		Object[] arguments = new Object[managedParameters.size()];
-		for (int argumentIndex = 0, pathVariableIndex = 0; argumentIndex < arguments.length; ++argumentIndex) {
-			IManagedParameter managedParameter = managedParameters.get(argumentIndex);
-			Class<?> parameterType = (Class<?>) managedParameter.getType();
+		Object value;
+		try {
+			Object instance = invocation.managedMethod.getDeclaringClass().getInstance();
+			value = invocation.managedMethod.invoke(instance, arguments);
+		} catch (Throwable t) {
+			asyncResponse.resume(t);
+			return;
+		}
 
-			Annotation[] annotations = managedParameter.getAnnotations();
-			if (annotations.length == 0) {
-				if (entityParametersCount++ > 0) {
-					log.error("Invalid resource method arguments: multiple entity parameters.");
-					return null;
+		if (value instanceof CompletionStage) {
+			((CompletionStage<?>) value).whenComplete((result, error) -> {
+				if (error != null) {
+					asyncResponse.resume(error);
+				} else {
+					asyncResponse.resume(result);
 				}
-				arguments[argumentIndex] = getEntityArgument(httpRequest, parameterType);
-				continue;
-			}
+			});
+		} else if (!asyncResponse.isDone() && isCompletionStage(invocation.managedMethod)) {
+			// null completion stage is handled as completed stage with null value
+			asyncResponse.resume((Object) null);
+		}
+	}
 
-			Annotation annotation = annotations[0];
+	/**
+	 * Complete asynchronous response with resumed value or error. Errors are mapped to HTTP status codes the same as for
+	 * synchronous resource methods.
+	 * 
+	 * @param httpRequest HTTP request,
+	 * @param httpResponse HTTP response,
+	 * @param invocation resource method invocation state,
+	 * @param value resumed value, possible null,
+	 * @param error resumed error, null if response was resumed with value.
+	 * @throws IOException if writing to HTTP response fails.
+	 */
+	private void completeAsync(HttpServletRequest httpRequest, HttpServletResponse httpResponse, Invocation invocation, Object value, Throwable error) throws IOException {
+		if (error == null) {
+			sendResponse(httpRequest, httpResponse, invocation, value, value == null);
+			return;
+		}
+		// request context has THREAD scope; completion thread needs its own instance attached to asynchronous request
+		RequestContext context = new RequestContext(getContainer());
+		context.attach(httpRequest, httpResponse);
+		sendAsyncError(context, error);
+	}
 
-			if (annotation instanceof Context) {
-				arguments[argumentIndex] = getContainer().getInstance(parameterType);
-			}
+	/**
+	 * Invoke resource method returning a publisher and stream published items to HTTP response. Resource method is invoked on
+	 * request thread so that invocation exceptions are handled as for synchronous methods; streaming is performed in servlet
+	 * asynchronous mode, see {@link PublisherResponse}. Null publisher is sent as <code>204 No Content</code>.
+	 * 
+	 * @param httpRequest HTTP request,
+	 * @param httpResponse HTTP response,
+	 * @param invocation resource method invocation state,
+	 * @param arguments invocation arguments.
+	 * @throws IllegalStateException if REST servlet is not declared with asynchronous support.
+	 * @throws Throwable any exception from resource method invocation.
+	 */
+	private void invokePublisher(HttpServletRequest httpRequest, HttpServletResponse httpResponse, Invocation invocation, Object[] arguments) throws Throwable {
+		if (!httpRequest.isAsyncSupported()) {
+			throw new IllegalStateException("REST publisher resource method requires asynchronous mode. Missing <async-supported>true</async-supported> ?");
+		}
+		Object instance = invocation.managedMethod.getDeclaringClass().getInstance();
+		Flow.Publisher<?> publisher = (Flow.Publisher<?>) invocation.managedMethod.invoke(instance, arguments);
+		if (publisher == null) {
+			httpResponse.setStatus(HttpServletResponse.SC_NO_CONTENT);
+			return;
+		}
 
-			if (annotation instanceof PathParam) {
-				String name = ((PathParam) annotation).value();
-				// this logic assumes request path variables order is the same as related formal parameters
-				// therefore there is no the need to search variable by name
-				arguments[argumentIndex] = convert(AnnotationType.URL, name, requestPath.getVariableValue(pathVariableIndex++), parameterType);
-			}
+		ContentNegotiator.Decision contentDecision = invocation.contentDecision;
+		boolean sse = ContentType.TEXT_EVENT_STREAM.equals(contentDecision.getContentType());
+		httpResponse.setStatus(HttpServletResponse.SC_OK);
+		httpResponse.setContentType(contentDecision.getHeaderValue());
+		httpResponse.setCharacterEncoding("UTF-8");
+		if (contentDecision.isVariant()) {
+			httpResponse.addHeader(HttpHeader.VARY, HttpHeader.ACCEPT);
+		}
+		if (sse) {
+			httpResponse.setHeader(HttpHeader.CACHE_CONTROL, HttpHeader.NO_CACHE);
+			httpResponse.addHeader(HttpHeader.CACHE_CONTROL, HttpHeader.NO_STORE);
+		}
+		if (isHeadRequest(httpRequest)) {
+			return;
+		}
 
-			if (annotation instanceof QueryParam) {
-				String name = ((QueryParam) annotation).value();
-				arguments[argumentIndex] = convert(AnnotationType.URL, name, urlParameters.getParameter(name), parameterType);
+		AsyncContext asyncContext = httpRequest.startAsync(httpRequest, httpResponse);
+		Json json = getContainer().getInstance(Json.class);
+		PublisherResponse publisherResponse = new PublisherResponse(asyncContext, json, sse, publisherPrefetch, error -> {
+			// request context has THREAD scope; publisher thread needs its own instance attached to asynchronous request
+			RequestContext context = new RequestContext(getContainer());
+			context.attach(httpRequest, httpResponse);
+			try {
+				sendAsyncError(context, error);
+			} catch (IOException e) {
+				log.error("Fail to send publisher error response: {exception}", e);
 			}
+		});
+		publisherResponse.start(publisher);
+	}
 
-			if (annotation instanceof MatrixParam) {
-				String name = ((MatrixParam) annotation).value();
-				arguments[argumentIndex] = convert(AnnotationType.URL, name, urlParameters.getParameter(name), parameterType);
-			}
+	private long getAsyncTimeout(IManagedMethod managedMethod) {
+		return asyncTimeouts.computeIfAbsent(managedMethod, method -> {
+			AsyncTimeout asyncTimeout = method.scanAnnotation(AsyncTimeout.class, Flags.INCLUDE_TYPES);
+			return asyncTimeout != null ? asyncTimeout.value() : this.asyncTimeout;
+		});
+	}
 
-			if (annotation instanceof HeaderParam) {
-				String name = ((HeaderParam) annotation).value();
-				arguments[argumentIndex] = convert(AnnotationType.REQUEST, name, httpRequest.getHeader(name), parameterType);
-			}
+	private static boolean isCompletionStage(IManagedMethod managedMethod) {
+		Type returnType = managedMethod.getReturnType();
+		return returnType != null && Types.isKindOf(returnType, CompletionStage.class);
+	}
 
-			if (annotation instanceof CookieParam) {
-				String name = ((CookieParam) annotation).value();
-				String value = null;
-				for (Cookie cookie : httpRequest.getCookies()) {
-					if (cookie.getName().equalsIgnoreCase(name)) {
-						value = cookie.getValue();
-						break;
-					}
-				}
-				arguments[argumentIndex] = convert(AnnotationType.REQUEST, name, value, parameterType);
-			}
+	/**
+	 * Get server side caching annotation for resource method. Server side caching is considered only for <code>GET</code>
+	 * and <code>HEAD</code> requests and only if response cache is enabled.
+	 * 
+	 * @param managedMethod resource method,
+	 * @param httpRequest HTTP request.
+	 * @return server side caching annotation, possible null.
+	 */
+	private CachedResponse getCachedResponse(IManagedMethod managedMethod, HttpServletRequest httpRequest) {
+		if (!responseCache.isEnabled()) {
+			return null;
+		}
+		if (!HttpMethod.GET.equals(httpRequest.getMethod()) && !isHeadRequest(httpRequest)) {
+			return null;
+		}
+		return cachedResponses.computeIfAbsent(managedMethod, method -> Optional.ofNullable(method.scanAnnotation(CachedResponse.class, Flags.INCLUDE_TYPES))).orElse(null);
+	}
+
+	/**
+	 * Send cached response. If cached response has an entity tag that matches client cached representation, send
+	 * <code>304 Not Modified</code>; body is not sent for HEAD requests either.
+	 * 
+	 * @param httpRequest HTTP request,
+	 * @param httpResponse HTTP response,
+	 * @param cacheEntry cached response.
+	 * @throws IOException if writing to HTTP response fails.
+	 */
+	private static void serveCacheEntry(HttpServletRequest httpRequest, HttpServletResponse httpResponse, CacheEntry cacheEntry) throws IOException {
+		String etag = cacheEntry.getHeader(HttpHeader.ETAG);
+		if (etag != null && Preconditions.isNotModified(httpRequest, etag, -1)) {
+			cacheEntry.serve(httpResponse, false);
+			httpResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
 		}
+		cacheEntry.serve(httpResponse, !isHeadRequest(httpRequest));
+	}
 
-		return arguments;
+	/**
+	 * Get caching policy for resource method. Caching policy is considered only for <code>GET</code> and <code>HEAD</code>
+	 * requests; returns null for other HTTP methods or if resource method has no caching policy.
+	 * 
+	 * @param managedMethod resource method,
+	 * @param httpRequest HTTP request.
+	 * @return caching policy, possible null.
+	 */
+	private CachePolicy getCachePolicy(IManagedMethod managedMethod, HttpServletRequest httpRequest) {
+		if (!HttpMethod.GET.equals(httpRequest.getMethod()) && !isHeadRequest(httpRequest)) {
+			return null;
+		}
+		return cachePolicies.computeIfAbsent(managedMethod, method -> Optional.ofNullable(CachePolicy.create(method))).orElse(null);
 	}
 
-	private Object convert(AnnotationType parameterType, String name, String value, Class<?> type) throws ParameterConversionException, ParameterNotFoundException {
-		if (value == null) {
-			throw new ParameterNotFoundException("Missing parameter %s", name);
+	private static void setCacheHeaders(HttpServletResponse httpResponse, CachePolicy cachePolicy, String etag, long lastModified) {
+		if (cachePolicy.getHeaderValue() != null) {
+			httpResponse.setHeader(HttpHeader.CACHE_CONTROL, cachePolicy.getHeaderValue());
 		}
-		try {
-			return converter.asObject(value, type);
-		} catch (Throwable e) {
-			log.warn("Fail to convert value {} to parameter {} of type {}.", value, name, type);
-			throw new ParameterConversionException(parameterType, "Fail to convert parameter %s", name);
+		if (etag != null) {
+			httpResponse.setHeader(HttpHeader.ETAG, etag);
+		}
+		if (lastModified >= 0) {
+			httpResponse.setDateHeader(HttpHeader.LAST_MODIFIED, lastModified);
 		}
 	}
 
-	private Object getEntityArgument(HttpServletRequest httpRequest, Type parameterType) throws IOException {
-		Type[] formalParameters = new Type[] { parameterType };
-		ArgumentsReader argumentsReader = argumentsReaderFactory.getArgumentsReader(httpRequest, formalParameters);
-		Object[] entityArgument = argumentsReader.read(httpRequest, formalParameters);
-		return entityArgument.length == 1 ? entityArgument[0] : null;
+	/**
+	 * Answer <code>OPTIONS</code> request for a path without explicit <code>OPTIONS</code> resource method. Plain request gets
+	 * supported HTTP methods on <code>Allow</code> header. CORS preflight is checked against the policy of the resource method
+	 * for requested HTTP method; if there is no such method, no CORS policy or policy rejects the preflight, response is
+	 * <code>403 Forbidden</code>. No resource method is invoked.
+	 * 
+	 * @param httpRequest HTTP request,
+	 * @param httpResponse HTTP response,
+	 * @param pathInfo request path, relative to servlet,
+	 * @param allow HTTP methods supported by request path.
+	 * @throws IOException if writing to HTTP response fails.
+	 */
+	private void handleOptions(HttpServletRequest httpRequest, HttpServletResponse httpResponse, String pathInfo, String allow) throws IOException {
+		String origin = httpRequest.getHeader(HttpHeader.ORIGIN);
+		String requestMethod = httpRequest.getHeader(HttpHeader.ACCESS_CONTROL_REQUEST_METHOD);
+		if (origin == null || requestMethod == null) {
+			httpResponse.setHeader(HttpHeader.ALLOW, allow + ", " + HttpMethod.OPTIONS);
+			httpResponse.setStatus(HttpServletResponse.SC_NO_CONTENT);
+			return;
+		}
+
+		PathRouter.Match<IManagedMethod> requestPath = cache.get(requestMethod, pathInfo);
+		CorsPolicy corsPolicy = requestPath != null && requestPath.getValue() != null ? getCorsPolicy(requestPath.getValue()) : null;
+		if (corsPolicy == null || !corsPolicy.preflight(origin, requestMethod, httpRequest.getHeader(HttpHeader.ACCESS_CONTROL_REQUEST_HEADERS), allow, httpResponse)) {
+			log.warn("Reject CORS preflight from origin {http_origin} for {http_method} {http_url}.", origin, requestMethod, httpRequest.getRequestURI());
+			httpResponse.sendError(HttpServletResponse.SC_FORBIDDEN, httpRequest.getRequestURI());
+			return;
+		}
+		httpResponse.setStatus(HttpServletResponse.SC_NO_CONTENT);
 	}
 
-	protected void handleSseRequest(HttpServletRequest httpRequest, HttpServletResponse httpResponse) throws Exception {
+	/**
+	 * Add CORS headers to response of a cross-origin request, accordingly resource method CORS policy. If there is no policy,
+	 * fetch requests in <code>cors</code> mode are allowed from any origin, for backward compatibility.
+	 * 
+	 * @param httpRequest HTTP request,
+	 * @param httpResponse HTTP response,
+	 * @param managedMethod resource method.
+	 */
+	private void applyCors(HttpServletRequest httpRequest, HttpServletResponse httpResponse, IManagedMethod managedMethod) {
+		String origin = httpRequest.getHeader(HttpHeader.ORIGIN);
+		if (origin == null) {
+			return;
+		}
+		CorsPolicy corsPolicy = getCorsPolicy(managedMethod);
+		if (corsPolicy != null) {
+			corsPolicy.apply(origin, httpResponse);
+		} else if ("cors".equals(httpRequest.getHeader("Sec-Fetch-Mode"))) {
+			httpResponse.setHeader(HttpHeader.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+		}
+	}
+
+	private CorsPolicy getCorsPolicy(IManagedMethod managedMethod) {
+		return corsPolicies.computeIfAbsent(managedMethod, method -> {
+			Cors cors = method.scanAnnotation(Cors.class, Flags.INCLUDE_TYPES);
+			return Optional.ofNullable(cors != null ? CorsPolicy.create(cors, corsMaxAge) : corsPolicy);
+		}).orElse(null);
+	}
+
+	private static String[] list(String value) {
+		if (value == null || value.trim().isEmpty()) {
+			return new String[0];
+		}
+		return value.trim().split("\\s*,\\s*");
+	}
+
+	/**
+	 * Send <code>405 Method Not Allowed</code> for request path that matches a resource but not for requested HTTP method.
+	 * 
+	 * @param httpRequest HTTP request,
+	 * @param httpResponse HTTP response,
+	 * @param allow HTTP methods supported by requested resource.
+	 * @throws IOException if writing to HTTP response fails.
+	 */
+	private static void sendMethodNotAllowed(HttpServletRequest httpRequest, HttpServletResponse httpResponse, String allow) throws IOException {
+		log.error("Method {http_method} not allowed for resource {http_url}.", httpRequest.getMethod(), httpRequest.getRequestURI());
+		httpResponse.setHeader(HttpHeader.ALLOW, allow);
+		httpResponse.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED, httpRequest.getRequestURI());
+	}
+
+	/**
+	 * Send <code>406 Not Acceptable</code> if none of resource method content types is accepted by client.
+	 * 
+	 * @param httpRequest HTTP request,
+	 * @param httpResponse HTTP response.
+	 * @throws IOException if writing to HTTP response fails.
+	 */
+	private static void sendNotAcceptable(HttpServletRequest httpRequest, HttpServletResponse httpResponse) throws IOException {
+		log.error("Not acceptable content type {http_accept} for resource {http_url}.", httpRequest.getHeader(HttpHeader.ACCEPT), httpRequest.getRequestURI());
+		httpResponse.sendError(HttpServletResponse.SC_NOT_ACCEPTABLE, httpRequest.getRequestURI());
+	}
+
+	private static boolean isHeadRequest(HttpServletRequest httpRequest) {
+		return HttpMethod.HEAD.equals(httpRequest.getMethod());
+	}
+
+	/**
+	 * Close resource method value if it is auto closeable, e.g. a stream or a closeable iterator. Used when value is not
+	 * serialized, in which case value writer does not get the chance to close it.
+	 * 
+	 * @param value resource method value, possible null.
+	 */
+	private static void close(Object value) {
+		if (value instanceof AutoCloseable) {
+			try {
+				((AutoCloseable) value).close();
+			} catch (Exception e) {
+				log.error("Fail to close resource method value |{java_type}|: {exception}", value.getClass(), e);
+			}
+		}
+	}
+
+	protected void handleSseRequest(HttpServletRequest httpRequest, HttpServletResponse httpResponse, IManagedMethod managedMethod) throws Exception {
 		if (!httpRequest.isAsyncSupported()) {
 			throw new IllegalStateException("REST SSE requires asynchronous mode. Missing <async-supported>true</async-supported> ?");
 		}
@@ -356,9 +832,12 @@ public class RestServlet extends AppServlet {
 		httpResponse.setHeader(HttpHeader.PRAGMA, HttpHeader.NO_CACHE);
 		httpResponse.setDateHeader(HttpHeader.EXPIRES, 0);
 		httpResponse.setHeader(HttpHeader.CONNECTION, HttpHeader.KEEP_ALIVE);
-		httpResponse.setHeader("Access-Control-Allow-Origin", "*");
+		// if there is a CORS policy allow origin header is already set, see applyCors, or is missing because origin is rejected
+		if (getCorsPolicy(managedMethod) == null && !httpResponse.containsHeader(HttpHeader.ACCESS_CONTROL_ALLOW_ORIGIN)) {
+			httpResponse.setHeader(HttpHeader.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+		}
 
-		eventSink.setWriter(httpResponse.getWriter());
+		eventSink.setOutputStream(httpResponse.getOutputStream());
 	}
 
 	/**
@@ -387,4 +866,22 @@ public class RestServlet extends AppServlet {
 		}
 		return false;
 	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Resource method invocation state needed to send response. For asynchronous resource methods it is carried from request
+	 * thread to the thread completing asynchronous response.
+	 * 
+	 * @author Iulian Rotaru
+	 */
+	private static class Invocation {
+		IManagedMethod managedMethod;
+		ContentNegotiator.Decision contentDecision;
+		CachePolicy cachePolicy;
+		CachedResponse cachedResponse;
+		String cacheKey;
+		String etag;
+		long lastModified = -1;
+	}
 }
@@ -0,0 +1,33 @@
+package com.jslib.container.rest;
+
+/**
+ * Resource version provider used for conditional requests evaluation before resource method execution, see
+ * {@link CacheControl#version()}. Implementation should be cheaper than resource method itself, e.g. reading a version column
+ * or a modification timestamp instead of loading the whole entity.
+ * <p>
+ * Implementations are created once per resource method and are used concurrently; they should be thread safe.
+ *
+ * @author Iulian Rotaru
+ */
+public interface VersionProvider {
+	/**
+	 * Get opaque version for resource identified by given invocation arguments. Returned value is used as strong entity tag
+	 * and should change whenever resource representation changes. Returns null if version is unknown, in which case resource
+	 * method is executed as usual.
+	 *
+	 * @param arguments resource method invocation arguments.
+	 * @return resource version, possible null.
+	 */
+	String getVersion(Object[] arguments);
+
+	/**
+	 * Get resource last modification time, in milliseconds since epoch. Default implementation returns -1 meaning modification
+	 * time is not known.
+	 *
+	 * @param arguments resource method invocation arguments.
+	 * @return last modification time or -1.
+	 */
+	default long getLastModified(Object[] arguments) {
+		return -1L;
+	}
+}
@@ -0,0 +1,23 @@
+package com.jslib.container.rest.sse;
+
+/**
+ * Optional interface for SSE event data that carries a conflation key. While an event is pending on broadcaster events
+ * queue, a newer event with the same key replaces it in place; under load clients receive only the latest state per key,
+ * e.g. the last price tick for an instrument, instead of all intermediate states.
+ * <p>
+ * Events with data not implementing this interface, or with null key, are never conflated.
+ * <p>
+ * Events published on event bus carry conflation key with its type, so that on receiving nodes they conflate with local events
+ * exactly as on publishing node. For this reason, key of a broadcaster bound to event bus should be a {@link String},
+ * {@link Integer} or {@link Long}; an event with other key type is not published on event bus.
+ *
+ * @author Iulian Rotaru
+ */
+public interface Conflatable {
+	/**
+	 * Get conflation key. Keys are compared with {@link Object#equals(Object)}.
+	 *
+	 * @return conflation key, possible null.
+	 */
+	Object getConflationKey();
+}
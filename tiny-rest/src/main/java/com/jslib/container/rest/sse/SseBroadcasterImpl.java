@@ -1,5 +1,6 @@
 package com.jslib.container.rest.sse;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
@@ -10,61 +11,121 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
+import com.jslib.api.json.Json;
 import com.jslib.api.log.Log;
 import com.jslib.api.log.LogFactory;
+import com.jslib.container.spi.IEventBus;
 
 import jakarta.ws.rs.sse.OutboundSseEvent;
 import jakarta.ws.rs.sse.SseBroadcaster;
 import jakarta.ws.rs.sse.SseEventSink;
-import com.jslib.lang.KeepAliveEvent;
 
-class SseBroadcasterImpl implements SseBroadcaster, Runnable {
+/**
+ * Broadcaster for outbound SSE events. Every event is encoded once into an immutable {@link SseFrame} that is enqueued on all
+ * registered sinks bounded outbound queues; writing to clients is performed by the shared writer threads pool, with sinks
+ * sharded on writer threads, see {@link SseWriterPool}. Broadcaster dispatch never writes to sockets, so that a stalled
+ * client cannot delay event delivery to other clients.
+ * <p>
+ * Broadcaster has no thread of its own. Broadcasting an event enqueues it and schedules broadcaster on the shared dispatcher
+ * threads pool, see {@link SseDispatcher}; keep alive comments for registered sinks are sent by the shared keep alive timer
+ * wheel, see {@link SseKeepAlive}. Applications can create thousands of broadcasters, e.g. one per topic, with constant
+ * threads count.
+ * <p>
+ * If a sink outbound queue is full, that is, client does not keep up with events rate, configured overflow policy is applied:
+ * drop oldest or newest frame, or disconnect the sink.
+ * <p>
+ * Broadcaster assigns strictly increasing IDs to events, replacing application IDs, and keeps recent frames in a bounded
+ * replay buffer. A reconnecting client presenting <code>Last-Event-ID</code> gets missed events replayed from buffer on
+ * registration. If missed events are no longer buffered client receives a {@link #RESET_EVENT} event and is expected to
+ * reload its state. Event IDs embed broadcaster instance epoch so that IDs issued before a server restart are detected.
+ * <p>
+ * A named broadcaster, see {@link SseImpl#newBroadcaster(String)}, publishes broadcast events on event bus too, if there is
+ * one, and enqueues events received from broadcasters with the same name from other nodes. Event IDs and replay buffer stay
+ * node-local; a client reconnecting to another node gets a {@link #RESET_EVENT} event.
+ *
+ * @author Iulian Rotaru
+ */
+class SseBroadcasterImpl implements SseBroadcaster {
 	private static final Log log = LogFactory.getLog(SseBroadcasterImpl.class);
 
-	/**
-	 * Send keep alive if there are no events sent for this amount of time, in milliseconds. Keep alive events have double role:
-	 * <ol>
-	 * <li>Allows for both client and this server side event stream to know that peer is up,
-	 * <li>Avoid routers with idle timeout to drop connections when no events are sent.
-	 * </ol>
-	 * <p>
-	 * For second case this timeout value is critical. If is larger than router idle connection timeout, connection will be lost
-	 * and client will reconnect periodically; in this case events stream behaves like a polling mechanism with resources waste
-	 * and bad responsiveness.
-	 * <p>
-	 * Routers idle connection timeout is manufacturer specific and / or network administrator customizable and can vary
-	 * greatly, including complete disabling. In fact it is a not standard behavior. TCP/IP does not require such timeout; it is
-	 * merely a technological limitation used to save routers internal resources. Anyway, from practice is observed that the
-	 * lower idle connection timeout value found is one minute. This event stream class uses 40 seconds in order to cope with
-	 * delays generated by server heavy loading and network latency. It is a heuristic / brute force approach. A better solution
-	 * may be an adaptive timeout that client may learn and communicate to server when opens events stream.
-	 * <p>
-	 * Now, some considerations about keep alive packages bandwidth consumption. Keep alive event data length is about 40 bytes.
-	 * With current 40 seconds period results in exactly one byte per second, a perfectly acceptable overload. And even if
-	 * include TCP/IP headers and acknowledge packet bandwidth consumption will not exceed 3 B/s.
-	 */
-	private static final int KEEP_ALIVE_TIMEOUT = 40000;
+	/** Maximum events processed by a dispatch, after which broadcaster is rescheduled to give other broadcasters a chance. */
+	private static final int DISPATCH_BATCH = 64;
+
+	/** Name of the event sent to reconnecting client when missed events cannot be replayed. Event data is an empty object. */
+	public static final String RESET_EVENT = "reset";
+
+	/** Event bus channel prefix for named broadcasters. */
+	public static final String CHANNEL_PREFIX = "com.jslib.container.rest.sse/";
+
+	/** JSON serializer used to encode event data, once per broadcast event. */
+	private final Json json;
+
+	/** Writer threads draining sinks outbound queues. */
+	private final SseWriterPool writers;
+
+	/** Shared threads pool running broadcasters dispatch. */
+	private final SseDispatcher dispatcher;
+
+	/** Shared keep alive timer for registered sinks. */
+	private final SseKeepAlive keepAlive;
+
+	private final int queueCapacity;
+
+	private final SseOverflowPolicy overflowPolicy;
 
 	private final Queue<SseEventSinkImpl> sinksQueue;
 
+	/** Recent frames for Last-Event-ID replay. Guards fan-out too, so that replay and live frames do not interleave. */
+	private final SseReplayBuffer replayBuffer;
+
+	/** True if replay buffer retains frames, in which case events are dispatched even if there are no sinks registered. */
+	private final boolean replay;
+
+	/** Broadcaster instance epoch, prefix for event IDs. */
+	private final String epoch;
+
+	/** Last event sequence, updated only by dispatch. */
+	private long sequence;
+
 	private final SseEventsQueue eventsQueue;
 
-	private final Thread thread;
+	/** Flag true while this broadcaster is scheduled on dispatcher. */
+	private final AtomicBoolean scheduled;
 
 	private final AtomicBoolean closed;
 
+	/** Event bus for named broadcaster, null if broadcaster is node-local. */
+	private final IEventBus eventBus;
+
+	/** Event bus channel, null if broadcaster is node-local. */
+	private final String channel;
+
+	private final IEventBus.Listener eventBusListener;
+
 	private Consumer<SseEventSink> onEventSinkClose;
 	private BiConsumer<SseEventSink, Throwable> onEventSinkError;
 
-	public SseBroadcasterImpl() {
+	public SseBroadcasterImpl(SseImpl sse, String name) {
+		this.json = sse.getJson();
+		this.writers = sse.getWriters();
+		this.dispatcher = sse.getDispatcher();
+		this.keepAlive = sse.getKeepAlive();
+		this.queueCapacity = sse.getQueueCapacity();
+		this.overflowPolicy = sse.getOverflowPolicy();
 		this.sinksQueue = new ConcurrentLinkedQueue<>();
-		this.eventsQueue = new SseEventsQueue();
-
-		this.thread = new Thread(this, "SSE Broadcaster");
-		this.thread.setDaemon(true);
-		this.thread.start();
-
+		this.replayBuffer = new SseReplayBuffer(sse.getReplayFrames(), sse.getReplayBytes());
+		this.replay = sse.getReplayFrames() > 0 && sse.getReplayBytes() > 0;
+		this.epoch = Long.toString(System.currentTimeMillis(), 36);
+		this.eventsQueue = new SseEventsQueue(sse.getEventsCapacity());
+		this.scheduled = new AtomicBoolean(false);
 		this.closed = new AtomicBoolean(false);
+
+		this.eventBus = name != null ? sse.getEventBus() : null;
+		this.channel = eventBus != null ? CHANNEL_PREFIX + name : null;
+		this.eventBusListener = this::onEventBusMessage;
+		if (eventBus != null) {
+			eventBus.subscribe(channel, eventBusListener);
+		}
 	}
 
 	@Override
@@ -85,9 +146,67 @@ class SseBroadcasterImpl implements SseBroadcaster, Runnable {
 		}
 
 		SseEventSinkImpl eventSinkImpl = (SseEventSinkImpl) eventSink;
-		sinksQueue.add(eventSinkImpl);
-		eventSinkImpl.setOnEventSinkClose(onEventSinkClose);
+		eventSinkImpl.setOutboundQueue(queueCapacity, overflowPolicy);
+		eventSinkImpl.setOnEventSinkClose(sink -> {
+			// event sink is closed by writer thread on client disconnect or by this broadcaster on close or slow consumer
+			sinksQueue.remove(sink);
+			if (onEventSinkClose != null) {
+				onEventSinkClose.accept(sink);
+			}
+		});
 		eventSinkImpl.setOnEventSinkError(onEventSinkError);
+
+		boolean replayed;
+		synchronized (replayBuffer) {
+			replayed = eventSinkImpl.getLastEventId() != null && replay(eventSinkImpl, eventSinkImpl.getLastEventId());
+			sinksQueue.add(eventSinkImpl);
+		}
+		if (replayed) {
+			writers.schedule(eventSinkImpl);
+		}
+		keepAlive.register(eventSinkImpl);
+	}
+
+	/**
+	 * Enqueue on event sink the frames broadcast after given last event ID or, if they are no longer buffered or do not fit
+	 * sink outbound queue, a {@link #RESET_EVENT} event. Caller should hold replay buffer lock.
+	 *
+	 * @param sink reconnecting event sink,
+	 * @param lastEventId value of <code>Last-Event-ID</code> request header.
+	 * @return true if sink has frames to write.
+	 */
+	private boolean replay(SseEventSinkImpl sink, String lastEventId) {
+		long lastSequence = sequence(lastEventId);
+		List<SseFrame> frames = lastSequence >= 0 ? replayBuffer.since(lastSequence) : null;
+		if (frames == null || frames.size() > queueCapacity) {
+			log.debug("Cannot replay events after |{event_id}| on event sink |{event_sink}|. Send reset.", lastEventId, sink);
+			return sink.offer(SseFrame.control(RESET_EVENT, eventId(replayBuffer.getLatest()), "{}"));
+		}
+		log.debug("Replay {count} events after |{event_id}| on event sink |{event_sink}|.", frames.size(), lastEventId, sink);
+		frames.forEach(sink::offer);
+		return !frames.isEmpty();
+	}
+
+	private String eventId(long sequence) {
+		return epoch + "-" + sequence;
+	}
+
+	/**
+	 * Get sequence from event ID issued by this broadcaster.
+	 *
+	 * @param eventId event ID.
+	 * @return event sequence or -1 if event ID is malformed or issued by other broadcaster instance.
+	 */
+	private long sequence(String eventId) {
+		int separator = eventId.lastIndexOf('-');
+		if (separator == -1 || !epoch.equals(eventId.substring(0, separator))) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(eventId.substring(separator + 1));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
 	}
 
 	@Override
@@ -95,81 +214,111 @@ class SseBroadcasterImpl implements SseBroadcaster, Runnable {
 		if (closed.get()) {
 			throw new IllegalStateException("Attempt to send outbound event after SSE broadcaster close.");
 		}
-		// do not bother to push event on events queue if there are no sink subscribed
-		// sinks queue is thread-safe
-		if (!sinksQueue.isEmpty()) {
-			eventsQueue.offer(event);
+		enqueue(event);
+		if (eventBus != null) {
+			try {
+				eventBus.publish(channel, SseBusMessage.encode(json, event));
+			} catch (IOException | RuntimeException e) {
+				log.error("Fail to publish SSE event |{event}| on channel |{channel}|: {exception}", event, channel, e);
+			}
 		}
 		return CompletableFuture.completedFuture(null);
 	}
 
+	private void enqueue(OutboundSseEvent event) {
+		// if replay is enabled events are sequenced and buffered even without sinks, so that a lone client reconnecting with
+		// last event ID gets missed events; otherwise do not bother to push event on events queue if there are no sinks
+		// sinks queue is thread-safe
+		if ((replay || !sinksQueue.isEmpty()) && eventsQueue.offer(event)) {
+			dispatcher.schedule(this);
+		}
+	}
+
+	/**
+	 * Enqueue event broadcast by a broadcaster with the same name from other node. Executed by event bus thread.
+	 *
+	 * @param message event bus message.
+	 */
+	private void onEventBusMessage(byte[] message) {
+		if (closed.get()) {
+			return;
+		}
+		try {
+			enqueue(SseBusMessage.decode(message));
+		} catch (IOException | RuntimeException e) {
+			log.error("Fail to decode SSE event from channel |{channel}|: {exception}", channel, e);
+		}
+	}
+
 	/**
-	 * Close all registered event sinks and complete (finish) related servlet asynchronous contexts, then shutdown processing
-	 * loop. Since broadcaster life cycle is controlled by application, this method should be explicitly invoked by application
+	 * Close all registered event sinks and complete (finish) related servlet asynchronous contexts. Events still pending are
+	 * discarded. Since broadcaster life cycle is controlled by application, this method should be explicitly invoked by application
 	 * logic.
 	 */
 	@Override
 	public void close() {
 		if (!closed.getAndSet(true)) {
+			if (eventBus != null) {
+				eventBus.unsubscribe(channel, eventBusListener);
+			}
 			sinksQueue.forEach(sink -> sink.close(true));
-			eventsQueue.offer(SseEventFactory.get(new ShutdownEvent()));
 		}
 	}
 
 	/**
-	 * Broadcaster processing loop sends events from {@link #eventsQueue} to all registered event sinks, see
-	 * {@link #sinksQueue}. Processing loop keeps running till got {@link ShutdownEvent} sent by {@link #close()} method.
-	 * 
-	 * Processing loop waits for an outbound SSE event for {@link #KEEP_ALIVE_TIMEOUT} time period; if no event available on
-	 * events queue sends placeholder event, {@link KeepAliveEvent}.
-	 * 
-	 * Events sending logic actually delegates every event sink from registered sinks queue. If there is exception while sending
-	 * the event, most probably due to SSE client socket close, event sink is closed - see {@link SseEventSinkImpl#close()}, and
-	 * removed from sinks queue.
+	 * Mark this broadcaster as scheduled on dispatcher.
+	 *
+	 * @return true if broadcaster was not already scheduled.
 	 */
-	@Override
-	public void run() {
-		log.debug("Start broadcaster processing loop.");
-		long startTimeMillis = System.currentTimeMillis();
+	boolean schedule() {
+		return scheduled.compareAndSet(false, true);
+	}
 
-		for (;;) {
-			OutboundSseEvent event = eventsQueue.poll(KEEP_ALIVE_TIMEOUT);
+	/**
+	 * Encode events from {@link #eventsQueue} and enqueue resulting frames on all registered event sinks, see
+	 * {@link #sinksQueue}, then schedule sinks on writer threads. Executed by dispatcher, by a single thread at a time; after
+	 * {@link #DISPATCH_BATCH} events broadcaster is rescheduled so that a busy broadcaster does not hold a dispatcher thread.
+	 * <p>
+	 * Event sinks that fail to write, most probably due to SSE client socket close, are closed by writer thread and removed
+	 * from sinks queue via close listener. Event sinks with full outbound queue and {@link SseOverflowPolicy#DISCONNECT} policy
+	 * are closed by this method.
+	 */
+	void dispatch() {
+		for (int i = 0; i < DISPATCH_BATCH && !closed.get(); ++i) {
+			OutboundSseEvent event = eventsQueue.poll();
 			if (event == null) {
-				event = OutboundSseEventImpl.builder().comment("keepalive").build();
+				break;
 			}
 
-			if (event.getData() instanceof ShutdownEvent) {
-				log.debug("Got shutdown event. Break event stream loop.");
-				break;
+			SseFrame frame;
+			try {
+				frame = SseFrame.encode(json, event, eventId(sequence + 1));
+			} catch (IOException | RuntimeException e) {
+				log.error("Fail to encode SSE event |{event}|: {exception}", event, e);
+				continue;
 			}
 
-			List<SseEventSinkImpl> closedSinks = new ArrayList<>();
-			for (SseEventSinkImpl sink : sinksQueue) {
-				sink.send(event).thenAccept(value -> {
-					if (!((Boolean) value)) {
-						log.debug("Send fail on event sink |{event_sink}|; most probably SSE client close. Remove event sink from broadcaster queue.", sink);
-						closedSinks.add(sink);
+			List<SseEventSinkImpl> slowSinks = new ArrayList<>();
+			synchronized (replayBuffer) {
+				replayBuffer.add(++sequence, frame);
+				for (SseEventSinkImpl sink : sinksQueue) {
+					if (sink.offer(frame)) {
+						writers.schedule(sink);
+						continue;
 					}
-				});
+					slowSinks.add(sink);
+				}
+			}
+			for (SseEventSinkImpl sink : slowSinks) {
+				log.warn("Slow SSE client on event sink |{event_sink}|. Disconnect it.", sink);
+				sink.close(true);
 			}
-
-			closedSinks.forEach(sink -> {
-				sinksQueue.remove(sink);
-				// do not ask event sink close method to complete (finish) related asynchronous context; above event sink send
-				// exception is detected by asynchronous context that completes itself
-				sink.close(false);
-			});
 		}
 
-		log.debug("End broadcaster processing loop. Active for {active_time} sec.", (System.currentTimeMillis() - startTimeMillis) / 1000.0);
-	}
-
-	/**
-	 * Internal event used to shutdown events stream. It is pushed on events queue by {@link EventStream#close()}; as a result
-	 * events stream {@link EventStream#loop() loop} is stopped and {@link EventStreamServlet} is released.
-	 * 
-	 * @author Iulian Rotaru
-	 */
-	private static final class ShutdownEvent {
+		// clear schedule flag before checking queue so that an event offered meanwhile is not left behind
+		scheduled.set(false);
+		if (!closed.get() && !eventsQueue.isEmpty()) {
+			dispatcher.schedule(this);
+		}
 	}
 }
@@ -0,0 +1,187 @@
+package com.jslib.container.rest.sse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import com.jslib.api.json.Json;
+import com.jslib.container.spi.IEventBus;
+
+import jakarta.ws.rs.sse.OutboundSseEvent;
+
+/**
+ * Codec for outbound SSE events carried by {@link IEventBus} between nodes. Event data is serialized to JSON by publishing
+ * node and is not parsed back on receiving nodes: it is wrapped in {@link RawData} and written verbatim to event frames, see
+ * {@link SseFrame#encode(Json, OutboundSseEvent, String)}. Event ID is not carried since broadcasters number events
+ * themselves. Data conflation key, if any, is carried with its type so that an event received from bus conflates with local
+ * events with the same key; supported key types are {@link String}, {@link Integer} and {@link Long}.
+ * <p>
+ * Message layout: flags byte, then event name, comment, reconnect delay, conflation key - type byte and value, and data, each
+ * present only if its flag is set.
+ *
+ * @author Iulian Rotaru
+ */
+final class SseBusMessage {
+	private static final int NAME = 0x01;
+	private static final int COMMENT = 0x02;
+	private static final int RECONNECT_DELAY = 0x04;
+	private static final int DATA = 0x08;
+	private static final int CONFLATION_KEY = 0x10;
+
+	private static final int STRING_KEY = 0;
+	private static final int INTEGER_KEY = 1;
+	private static final int LONG_KEY = 2;
+
+	/**
+	 * Encode outbound event to event bus message.
+	 *
+	 * @param json JSON serializer,
+	 * @param event outbound event.
+	 * @return event bus message.
+	 * @throws IOException if event data serialization fails.
+	 * @throws IllegalArgumentException if event data conflation key type is not supported.
+	 */
+	public static byte[] encode(Json json, OutboundSseEvent event) throws IOException {
+		Object data = event.getData();
+		Object key = data instanceof Conflatable ? ((Conflatable) data).getConflationKey() : null;
+
+		int flags = 0;
+		if (event.getName() != null) {
+			flags |= NAME;
+		}
+		if (event.getComment() != null) {
+			flags |= COMMENT;
+		}
+		if (event.isReconnectDelaySet()) {
+			flags |= RECONNECT_DELAY;
+		}
+		if (data != null) {
+			flags |= DATA;
+		}
+		if (key != null) {
+			flags |= CONFLATION_KEY;
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream stream = new DataOutputStream(bytes);
+		stream.writeByte(flags);
+		if (event.getName() != null) {
+			stream.writeUTF(event.getName());
+		}
+		if (event.getComment() != null) {
+			stream.writeUTF(event.getComment());
+		}
+		if (event.isReconnectDelaySet()) {
+			stream.writeLong(event.getReconnectDelay());
+		}
+		if (key != null) {
+			writeKey(stream, key);
+		}
+		if (data != null) {
+			StringWriter writer = new StringWriter();
+			json.stringify(writer, data);
+			byte[] text = writer.toString().getBytes(StandardCharsets.UTF_8);
+			stream.writeInt(text.length);
+			stream.write(text);
+		}
+		stream.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Decode outbound event from event bus message. Returned event data, if any, is {@link RawData}.
+	 *
+	 * @param message event bus message.
+	 * @return outbound event.
+	 * @throws IOException if message is malformed.
+	 */
+	public static OutboundSseEvent decode(byte[] message) throws IOException {
+		DataInputStream stream = new DataInputStream(new ByteArrayInputStream(message));
+		OutboundSseEvent.Builder builder = OutboundSseEventImpl.builder();
+
+		int flags = stream.readUnsignedByte();
+		if ((flags & NAME) != 0) {
+			builder.name(stream.readUTF());
+		}
+		if ((flags & COMMENT) != 0) {
+			builder.comment(stream.readUTF());
+		}
+		if ((flags & RECONNECT_DELAY) != 0) {
+			builder.reconnectDelay(stream.readLong());
+		}
+		Object key = (flags & CONFLATION_KEY) != 0 ? readKey(stream) : null;
+		if ((flags & DATA) != 0) {
+			byte[] text = new byte[stream.readInt()];
+			stream.readFully(text);
+			builder.data(new RawData(new String(text, StandardCharsets.UTF_8), key));
+		}
+		return builder.build();
+	}
+
+	private static void writeKey(DataOutputStream stream, Object key) throws IOException {
+		if (key instanceof String) {
+			stream.writeByte(STRING_KEY);
+			stream.writeUTF((String) key);
+		} else if (key instanceof Integer) {
+			stream.writeByte(INTEGER_KEY);
+			stream.writeInt((Integer) key);
+		} else if (key instanceof Long) {
+			stream.writeByte(LONG_KEY);
+			stream.writeLong((Long) key);
+		} else {
+			throw new IllegalArgumentException("Not supported conflation key type " + key.getClass() + " for event bus.");
+		}
+	}
+
+	private static Object readKey(DataInputStream stream) throws IOException {
+		int type = stream.readUnsignedByte();
+		switch (type) {
+		case STRING_KEY:
+			return stream.readUTF();
+		case INTEGER_KEY:
+			return stream.readInt();
+		case LONG_KEY:
+			return stream.readLong();
+		default:
+			throw new IOException("Invalid conflation key type " + type + ".");
+		}
+	}
+
+	private SseBusMessage() {
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Event data already serialized to JSON by the node that published the event.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	static final class RawData implements Conflatable {
+		private final String json;
+		private final Object conflationKey;
+
+		public RawData(String json, Object conflationKey) {
+			this.json = json;
+			this.conflationKey = conflationKey;
+		}
+
+		public String getJson() {
+			return json;
+		}
+
+		@Override
+		public Object getConflationKey() {
+			return conflationKey;
+		}
+
+		@Override
+		public String toString() {
+			return json;
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package com.jslib.container.rest.sse;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+
+/**
+ * Fixed size threads pool that drives SSE broadcasters. Broadcasters are passive objects: broadcasting an event enqueues it
+ * and schedules broadcaster on this dispatcher, that runs {@link SseBroadcasterImpl#dispatch()} on a pool thread. A
+ * broadcaster is scheduled at most once at a time, so that its events are processed in order, by a single thread. Thread
+ * count does not depend on the number of broadcasters.
+ *
+ * @author Iulian Rotaru
+ */
+final class SseDispatcher {
+	private static final Log log = LogFactory.getLog(SseDispatcher.class);
+
+	private final ExecutorService executor;
+
+	private final int size;
+
+	public SseDispatcher(int threads) {
+		this.size = Math.max(threads, 1);
+		AtomicInteger index = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(size, task -> {
+			Thread thread = new Thread(task, "SSE Dispatcher #" + index.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Schedule broadcaster dispatch. Does nothing if broadcaster is already scheduled and not yet dispatched.
+	 *
+	 * @param broadcaster broadcaster with pending events.
+	 */
+	public void schedule(SseBroadcasterImpl broadcaster) {
+		if (broadcaster.schedule()) {
+			try {
+				executor.execute(() -> {
+					try {
+						broadcaster.dispatch();
+					} catch (Throwable t) {
+						log.dump(String.format("Fail to dispatch SSE broadcaster |%s|:", broadcaster), t);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				log.debug("SSE dispatcher shutdown. Broadcaster |{broadcaster}| not dispatched.", broadcaster);
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/** Stop dispatcher threads. Pending events are not broadcast. */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
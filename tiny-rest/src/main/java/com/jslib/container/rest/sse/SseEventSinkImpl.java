@@ -1,10 +1,14 @@
 package com.jslib.container.rest.sse;
 
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -15,20 +19,26 @@ import jakarta.inject.Inject;
 import jakarta.servlet.AsyncContext;
 import jakarta.servlet.AsyncEvent;
 import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
 import jakarta.ws.rs.sse.OutboundSseEvent;
 import jakarta.ws.rs.sse.SseBroadcaster;
 import jakarta.ws.rs.sse.SseEventSink;
 import com.jslib.api.json.Json;
-import com.jslib.lang.BugError;
 
 public class SseEventSinkImpl implements SseEventSink, AsyncListener {
 	private static final Log log = LogFactory.getLog(SseEventSinkImpl.class);
 
+	/** Default capacity, in frames, for outbound queue used by broadcasters. */
+	static final int DEFAULT_QUEUE_CAPACITY = 256;
+
 	/**
-	 * Every event sink has its own unique (incremental) ID used merely for debugging. Event sink ID is unique only on current
-	 * application run; it is not preserved after application restart.
+	 * Every event sink has its own unique (incremental) ID used for debugging and for sharding on broadcaster writer threads.
+	 * Event sink ID is unique only on current application run; it is not preserved after application restart.
 	 */
-	private static int SINK_ID;
+	private static final AtomicInteger SINK_ID = new AtomicInteger();
+
+	private final int id;
 
 	private final long startTimeMillis;
 
@@ -37,8 +47,34 @@ public class SseEventSinkImpl implements SseEventSink, AsyncListener {
 	/** Event sink string representation. */
 	private final String string;
 
-	/** Events JSON serializer specialized for print writer that does not throws IO exceptions. */
-	private final JsonSerializer json;
+	/** JSON serializer for events sent directly to this sink, see {@link #send(OutboundSseEvent)}. */
+	private final Json json;
+
+	/**
+	 * Bounded queue for frames sent or broadcast to this sink and not yet written. Queue is filled by sender and broadcaster
+	 * threads and drained by {@link #drain()}, all synchronized on queue instance.
+	 */
+	private final Queue<Pending> frames = new ArrayDeque<>();
+
+	/** Flag true while this sink is scheduled on a broadcaster writer thread, see {@link SseWriterPool}. */
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
+	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+	private SseOverflowPolicy overflowPolicy = SseOverflowPolicy.DROP_OLDEST;
+	/** Number of frames dropped by overflow policy, for logging. */
+	private long droppedFrames;
+
+	/** Flag true after sink registration for keep alive, see {@link SseKeepAlive}. */
+	private final AtomicBoolean keepAlive = new AtomicBoolean();
+
+	/** Timestamp of the last frame written, used to detect idle sinks. */
+	private volatile long lastWriteMillis;
+
+	/** Flag true if frames were written after last flush. Guarded by this sink instance. */
+	private boolean flushPending;
+
+	/** Value of <code>Last-Event-ID</code> request header sent by reconnecting client, null on first connection. */
+	private String lastEventId;
 
 	/** Servlet asynchronous context. */
 	private AsyncContext asyncContext;
@@ -56,16 +92,21 @@ public class SseEventSinkImpl implements SseEventSink, AsyncListener {
 	 */
 	private BiConsumer<SseEventSink, Throwable> onEventSinkError;
 
-	/** Print writer for asynchronous context response. Used to convey JSON serialized events to SSE client. */
-	private PrintWriter writer;
+	/**
+	 * Output stream for asynchronous context response, in non-blocking mode. Used to convey encoded events to SSE client;
+	 * written only when {@link ServletOutputStream#isReady()} allows it.
+	 */
+	private ServletOutputStream outputStream;
 
 	@Inject
 	public SseEventSinkImpl(Json json) {
 		log.trace("SseEventSinkImpl(Json)");
+		this.id = SINK_ID.getAndIncrement() & Integer.MAX_VALUE;
 		this.startTimeMillis = System.currentTimeMillis();
+		this.lastWriteMillis = startTimeMillis;
 		this.closed = new AtomicBoolean(false);
-		this.string = "#" + SINK_ID++;
-		this.json = new JsonSerializer(json);
+		this.string = "#" + id;
+		this.json = json;
 	}
 
 	public void setAsyncContext(AsyncContext asyncContext) {
@@ -81,10 +122,74 @@ public class SseEventSinkImpl implements SseEventSink, AsyncListener {
 		this.onEventSinkError = onEventSinkError;
 	}
 
-	public void setWriter(PrintWriter writer) {
-		this.writer = writer;
+	/**
+	 * Set response output stream and switch it to non-blocking mode. From now on frames are written only when output stream
+	 * is ready; if it is not, writing is resumed by container via {@link WriteListener#onWritePossible()}. Asynchronous
+	 * context should be already started.
+	 *
+	 * @param outputStream response output stream.
+	 */
+	public void setOutputStream(ServletOutputStream outputStream) {
+		this.outputStream = outputStream;
+		outputStream.setWriteListener(new WriteListener() {
+			@Override
+			public void onWritePossible() {
+				drain();
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+				log.debug("Write error on event sink |{event_sink}|; most probably SSE client close: {exception}", SseEventSinkImpl.this, throwable);
+				failPending(throwable);
+				close(false);
+			}
+		});
 	}
 
+	public void setLastEventId(String lastEventId) {
+		this.lastEventId = lastEventId;
+	}
+
+	String getLastEventId() {
+		return lastEventId;
+	}
+
+	/**
+	 * Configure outbound queue used when this sink is registered to a broadcaster.
+	 *
+	 * @param queueCapacity queue capacity, in frames,
+	 * @param overflowPolicy policy applied when queue is full.
+	 */
+	void setOutboundQueue(int queueCapacity, SseOverflowPolicy overflowPolicy) {
+		this.queueCapacity = Math.max(queueCapacity, 1);
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	int getId() {
+		return id;
+	}
+
+	long getLastWriteMillis() {
+		return lastWriteMillis;
+	}
+
+	/**
+	 * Mark this sink as registered for keep alive.
+	 *
+	 * @return true if sink was not already registered.
+	 */
+	boolean keepAlive() {
+		return keepAlive.compareAndSet(false, true);
+	}
+
+	/**
+	 * Encode event and queue it for writing. This method does not block on socket write; returned stage is completed with
+	 * true when frame bytes are handed to servlet container, with false if frame is discarded by overflow policy or
+	 * exceptionally if writing fails.
+	 *
+	 * @param event outbound event.
+	 * @return event writing completion stage.
+	 */
 	@Override
 	public CompletionStage<Boolean> send(OutboundSseEvent event) {
 		if (closed.get()) {
@@ -93,53 +198,147 @@ public class SseEventSinkImpl implements SseEventSink, AsyncListener {
 		log.trace("Send event |{event}| to event sink |{event_sink}|.", event, this);
 
 		CompletableFuture<Boolean> future = new CompletableFuture<>();
-		int fieldsCount = 0;
-
-		if (event.getName() != null) {
-			writer.write("event:");
-			writer.write(event.getName());
-			writer.write("\r\n");
-			++fieldsCount;
+		SseFrame frame;
+		try {
+			frame = SseFrame.encode(json, event);
+		} catch (IOException e) {
+			future.completeExceptionally(e);
+			return future;
+		}
+		if (frame.isEmpty()) {
+			future.complete(true);
+			return future;
 		}
 
-		if (event.getId() != null) {
-			writer.write("id:");
-			writer.write(event.getId());
-			writer.write("\r\n");
-			++fieldsCount;
+		if (!offer(new Pending(frame, future))) {
+			log.warn("Slow SSE client on event sink |{event_sink}|. Disconnect it.", this);
+			future.complete(false);
+			close(true);
+			return future;
 		}
+		drain();
+		return future;
+	}
+
+	/**
+	 * Enqueue frame broadcast to this sink, applying overflow policy if outbound queue is full. Frame is written later by
+	 * broadcaster writer thread, see {@link #drain()}.
+	 *
+	 * @param frame encoded event.
+	 * @return false if outbound queue is full and overflow policy is {@link SseOverflowPolicy#DISCONNECT}.
+	 */
+	boolean offer(SseFrame frame) {
+		return offer(new Pending(frame, null));
+	}
 
-		if (event.getData() != null) {
-			writer.write("data:");
-			json.serialize(writer, event.getData());
-			writer.write("\r\n");
-			++fieldsCount;
+	private boolean offer(Pending pending) {
+		Pending discarded = null;
+		synchronized (frames) {
+			if (frames.size() >= queueCapacity) {
+				switch (overflowPolicy) {
+				case DROP_OLDEST:
+					discarded = frames.poll();
+					frames.offer(pending);
+					break;
+				case DROP_NEWEST:
+					discarded = pending;
+					break;
+				case DISCONNECT:
+					return false;
+				}
+				dropped();
+			} else {
+				frames.offer(pending);
+			}
+		}
+		if (discarded != null) {
+			discarded.complete(false);
 		}
+		return true;
+	}
+
+	/**
+	 * Mark this sink as scheduled on a writer thread.
+	 *
+	 * @return true if sink was not already scheduled.
+	 */
+	boolean schedule() {
+		return scheduled.compareAndSet(false, true);
+	}
 
-		if (event.isReconnectDelaySet()) {
-			writer.write("retry:");
-			writer.write(Long.toString(event.getReconnectDelay()));
-			writer.write("\r\n");
-			++fieldsCount;
+	/**
+	 * Write queued frames to client while output stream is ready, then flush. This method never blocks on socket write: if
+	 * output stream is not ready it returns and container resumes draining via {@link WriteListener#onWritePossible()}.
+	 * <p>
+	 * Executed by sender thread, by broadcaster writer thread and by container write listener, serialized on this sink
+	 * instance. Schedule flag is cleared before draining so that frames enqueued while draining schedule this sink again. If
+	 * writing fails, most probably because client closed the connection, sink is closed.
+	 */
+	void drain() {
+		scheduled.set(false);
+		List<Pending> written = new ArrayList<>();
+		IOException exception = null;
+
+		synchronized (this) {
+			if (closed.get() || outputStream == null) {
+				return;
+			}
+			try {
+				for (;;) {
+					if (!outputStream.isReady()) {
+						break;
+					}
+					Pending pending;
+					synchronized (frames) {
+						pending = frames.poll();
+					}
+					if (pending == null) {
+						// flush only after last queued frame so that bursts are coalesced in fewer network packets
+						if (flushPending) {
+							flushPending = false;
+							outputStream.flush();
+						}
+						break;
+					}
+					outputStream.write(pending.frame.getBytes());
+					lastWriteMillis = System.currentTimeMillis();
+					flushPending = true;
+					written.add(pending);
+				}
+			} catch (IOException e) {
+				exception = e;
+			}
 		}
 
-		if (event.getComment() != null) {
-			writer.write(":");
-			writer.write(event.getComment());
-			writer.write("\r\n");
-			++fieldsCount;
+		// complete send stages outside sink lock since completion callbacks may send other events
+		written.forEach(pending -> pending.complete(true));
+		if (exception != null) {
+			log.debug("Send fail on event sink |{event_sink}|; most probably SSE client close.", this);
+			failPending(exception);
+			// do not ask event sink close method to complete (finish) related asynchronous context; write exception is
+			// detected by asynchronous context that completes itself
+			close(false);
 		}
+	}
 
-		if (fieldsCount > 0) {
-			// single end of line is the mark for event end
-			writer.write("\r\n");
-			// check error returns true if there is an error while trying to flush the writer to underlying socket
-			future.complete(!writer.checkError());
-		} else {
-			future.complete(true);
+	private void dropped() {
+		if (droppedFrames++ % queueCapacity == 0) {
+			log.warn("Slow SSE client on event sink |{event_sink}|. Dropped {count} frames.", this, droppedFrames);
 		}
+	}
 
-		return future;
+	/**
+	 * Discard all frames not yet written and complete exceptionally their send stages.
+	 *
+	 * @param throwable failure cause.
+	 */
+	private void failPending(Throwable throwable) {
+		List<Pending> pendings;
+		synchronized (frames) {
+			pendings = new ArrayList<>(frames);
+			frames.clear();
+		}
+		pendings.forEach(pending -> pending.fail(throwable));
 	}
 
 	/**
@@ -152,29 +351,41 @@ public class SseEventSinkImpl implements SseEventSink, AsyncListener {
 	}
 
 	/**
-	 * Close response print writer and, if required, mark asynchronous context complete then invoke event sink close listener,
+	 * Close response output stream and, if required, mark asynchronous context complete then invoke event sink close listener,
 	 * if set. This method is guarded by {@link #closed} atomic flag; it can be invoked multiple time and is thread safe.
 	 * 
-	 * This method is invoked by events broadcaster processing loop, see {@link SseBroadcasterImpl#run()}, when detects client
-	 * socket close. In this case <code>closeAsyncContext</code> argument is false because asynchronous context detects IO
-	 * exception, generated by client socket close, and complete itself.
+	 * This method is invoked by {@link #drain()}, executed on writer threads, when write fails because of client socket close.
+	 * In this case <code>closeAsyncContext</code> argument is false because asynchronous context detects IO exception,
+	 * generated by client socket close, and complete itself.
 	 * 
-	 * Also, {@link SseBroadcasterImpl#close()} invoke this method when broadcaster is closed. In this case
-	 * <code>closeAsyncContext</code> argument is true and asynchronous context is explicitly completed (finished).
+	 * Also, {@link SseBroadcasterImpl#close()} invoke this method when broadcaster is closed and
+	 * {@link SseBroadcasterImpl#dispatch()} when disconnects a slow client. In these cases <code>closeAsyncContext</code>
+	 * argument is true and asynchronous context is explicitly completed (finished).
 	 * 
 	 * In theory, it can also be invoked by application logic via {@link #close()} interface, with
 	 * <code>closeAsyncContext</code> argument set to true.
 	 * 
-	 * Attempting to {@link #send(OutboundSseEvent)} any event after close will throw illegal state.
+	 * Frames not yet written are discarded and their send stages completed exceptionally. Attempting to
+	 * {@link #send(OutboundSseEvent)} any event after close will throw illegal state. Sink can be closed before being bound
+	 * to response output stream and asynchronous context, in which case there is nothing to close or complete.
 	 * 
 	 * @param closeAsyncContext flag true if need to mark asynchronous context complete.
 	 */
 	public void close(boolean closeAsyncContext) {
 		if (!closed.getAndSet(true)) {
-			log.debug("Close response print writer on event sink |{event_sink}|.", this);
-			writer.close();
+			log.debug("Close response output stream on event sink |{event_sink}|.", this);
+			synchronized (this) {
+				try {
+					if (outputStream != null) {
+						outputStream.close();
+					}
+				} catch (IOException e) {
+					log.debug("Fail to close output stream on event sink |{event_sink}|: {exception}", this, e);
+				}
+			}
+			failPending(new IOException("Event sink closed: " + this));
 
-			if (closeAsyncContext) {
+			if (closeAsyncContext && asyncContext != null) {
 				log.debug("Mark asynchronous context complete for event sink |{event_sink}|.", this);
 				asyncContext.complete();
 			}
@@ -230,37 +441,28 @@ public class SseEventSinkImpl implements SseEventSink, AsyncListener {
 	// --------------------------------------------------------------------------------------------
 
 	/**
-	 * JSON serializer for event objects. Thin wrapper for {@link Json} service used with print writer that does not generate IO
-	 * exceptions.
-	 * 
+	 * Frame queued for writing with optional send completion; broadcast frames have no completion.
+	 *
 	 * @author Iulian Rotaru
 	 */
-	private static final class JsonSerializer {
-		/** JSON service implementation. */
-		private final Json json;
-
-		/**
-		 * Create JSON serializer instance.
-		 * 
-		 * @param json JSON service implementation.
-		 */
-		public JsonSerializer(Json json) {
-			this.json = json;
+	private static final class Pending {
+		final SseFrame frame;
+		final CompletableFuture<Boolean> future;
+
+		Pending(SseFrame frame, CompletableFuture<Boolean> future) {
+			this.frame = frame;
+			this.future = future;
 		}
 
-		/**
-		 * Serialize event as JSON stream to given writer. Since writer is a {@link PrintWriter} it does not throw
-		 * {@link IOException}. As a consequence this method does not throw exception too.
-		 * 
-		 * @param writer print writer,
-		 * @param event event object.
-		 */
-		public void serialize(PrintWriter writer, Object event) {
-			try {
-				json.stringify(writer, event);
-			} catch (IOException e) {
-				// we never step here since print writer never throws IO exceptions
-				throw new BugError(e);
+		void complete(boolean value) {
+			if (future != null) {
+				future.complete(value);
+			}
+		}
+
+		void fail(Throwable throwable) {
+			if (future != null) {
+				future.completeExceptionally(throwable);
 			}
 		}
 	}
@@ -1,46 +1,188 @@
 package com.jslib.container.rest.sse;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.jslib.api.log.Log;
 import com.jslib.api.log.LogFactory;
 
 import jakarta.ws.rs.sse.OutboundSseEvent;
 
+/**
+ * Bounded multi-producer, single-consumer events queue for SSE broadcaster. Events are offered by application threads and
+ * polled by broadcaster dispatch, see {@link SseDispatcher}, that is executed by a single thread at a time. Queue is a ring
+ * buffer with per slot sequence numbers; producers claim slots with a compare and set on tail counter and never block, while
+ * consumer is the only one that moves head. If ring buffer is full offered event is dropped.
+ * <p>
+ * Events with {@link Conflatable} data are conflated: while an event is still pending, an event with the same conflation
+ * key replaces it in place, keeping its position on queue. A pending keyed event is held by a slot that consumer marks dead
+ * when takes the event; producer that finds a dead slot enqueues a new one.
+ *
+ * @author Iulian Rotaru
+ */
 class SseEventsQueue {
 	private static final Log log = LogFactory.getLog(SseEventsQueue.class);
 
-	private static final int EVENTS_QUEUE_PUSH_TIMEOUT = 4000;
+	/** Default ring buffer capacity, in events. */
+	static final int DEFAULT_CAPACITY = 4096;
 
-	private final BlockingQueue<OutboundSseEvent> eventsQueue;
+	private final int mask;
+	/** Queued elements, either outbound events or conflation slots. */
+	private final AtomicReferenceArray<Object> elements;
+	/** Slot sequences: equals position when slot is free for producer and position plus one when element is published. */
+	private final AtomicLongArray sequences;
+	/** Next position claimed by producers. */
+	private final AtomicLong tail = new AtomicLong();
+	/** Next position read by consumer; accessed only by the thread currently dispatching broadcaster. */
+	private long head;
+
+	/** Pending conflation slots mapped by conflation key. */
+	private final Map<Object, Slot> slots = new ConcurrentHashMap<>();
 
 	public SseEventsQueue() {
-		log.trace("SseEventsQueue()");
-		this.eventsQueue = new LinkedBlockingQueue<>();
+		this(DEFAULT_CAPACITY);
 	}
 
-	public void offer(OutboundSseEvent event) {
-		log.trace("offer(OutboundSseEvent)");
-		try {
-			if (!eventsQueue.offer(event, EVENTS_QUEUE_PUSH_TIMEOUT, TimeUnit.MILLISECONDS)) {
-				log.warn("Timeout trying to push event on events queue. Event |{event}| not processed.", event);
-			}
-		} catch (InterruptedException unused) {
-			log.warn("Thread interruption on event queue |{event_queue}| while trying to push event. Event |{event}| not processed.", this, event);
-			Thread.currentThread().interrupt();
+	/**
+	 * Create events queue with given capacity, rounded up to a power of two.
+	 *
+	 * @param capacity queue capacity, in events.
+	 */
+	public SseEventsQueue(int capacity) {
+		log.trace("SseEventsQueue(int)");
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		this.mask = size - 1;
+		this.elements = new AtomicReferenceArray<>(size);
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; ++i) {
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Offer event without blocking. If event is conflatable and an event with the same key is pending, replace it.
+	 *
+	 * @param event outbound event.
+	 * @return false if queue is full and event is dropped.
+	 */
+	public boolean offer(OutboundSseEvent event) {
+		Object key = event.getData() instanceof Conflatable ? ((Conflatable) event.getData()).getConflationKey() : null;
+		boolean offered = key != null ? conflate(key, event) : enqueue(event);
+		if (!offered) {
+			log.warn("Events queue full. Event |{event}| not processed.", event);
 		}
+		return offered;
 	}
 
-	public OutboundSseEvent poll(long timeout) {
-		log.trace("poll()");
+	private boolean conflate(Object key, OutboundSseEvent event) {
 		for (;;) {
-			try {
-				return eventsQueue.poll(timeout, TimeUnit.MILLISECONDS);
-			} catch (InterruptedException unused) {
+			Slot slot = slots.get(key);
+			if (slot != null) {
+				OutboundSseEvent pending = slot.event.get();
+				if (pending != null) {
+					if (slot.event.compareAndSet(pending, event)) {
+						return true;
+					}
+					// slot concurrently replaced or taken; retry
+					continue;
+				}
+				// dead slot already taken by consumer
+				Slot fresh = new Slot(key, event);
+				if (slots.replace(key, slot, fresh)) {
+					return enqueue(fresh, key);
+				}
 				continue;
 			}
+			Slot fresh = new Slot(key, event);
+			if (slots.putIfAbsent(key, fresh) == null) {
+				return enqueue(fresh, key);
+			}
+		}
+	}
+
+	private boolean enqueue(Slot slot, Object key) {
+		if (enqueue(slot)) {
+			return true;
+		}
+		slots.remove(key, slot);
+		return false;
+	}
+
+	private boolean enqueue(Object element) {
+		for (;;) {
+			long position = tail.get();
+			int index = (int) (position & mask);
+			long difference = sequences.get(index) - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					elements.set(index, element);
+					sequences.set(index, position + 1);
+					return true;
+				}
+			} else if (difference < 0) {
+				// slot not yet released by consumer, that is, queue is full
+				return false;
+			}
+			// else other producer claimed this position; retry with updated tail
+		}
+	}
+
+	/**
+	 * Get next event without waiting. Should be invoked only by broadcaster dispatch.
+	 *
+	 * @return next event or null if queue is empty.
+	 */
+	public OutboundSseEvent poll() {
+		for (;;) {
+			int index = (int) (head & mask);
+			if (sequences.get(index) != head + 1) {
+				return null;
+			}
+			Object element = elements.get(index);
+			elements.set(index, null);
+			sequences.set(index, head + mask + 1);
+			++head;
+
+			if (!(element instanceof Slot)) {
+				return (OutboundSseEvent) element;
+			}
+			Slot slot = (Slot) element;
+			// mark slot dead before removing so that a concurrent producer either replaces taken event or enqueues new slot
+			OutboundSseEvent event = slot.event.getAndSet(null);
+			slots.remove(slot.key, slot);
+			if (event != null) {
+				return event;
+			}
+		}
+	}
+
+	/**
+	 * Test if there are events published and not yet polled. Should be invoked only by broadcaster dispatch.
+	 *
+	 * @return true if queue is empty.
+	 */
+	public boolean isEmpty() {
+		return sequences.get((int) (head & mask)) != head + 1;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Queue slot for conflatable event. Holds the latest event for its key till consumer takes it.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	private static final class Slot {
+		final Object key;
+		final AtomicReference<OutboundSseEvent> event;
+
+		Slot(Object key, OutboundSseEvent event) {
+			this.key = key;
+			this.event = new AtomicReference<>(event);
 		}
 	}
 }
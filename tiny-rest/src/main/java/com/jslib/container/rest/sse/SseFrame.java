@@ -0,0 +1,162 @@
+package com.jslib.container.rest.sse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.jslib.api.json.Json;
+
+import jakarta.ws.rs.sse.OutboundSseEvent;
+
+/**
+ * Outbound SSE event encoded to its wire format, UTF-8 bytes ready to be written to event sinks. Frame is immutable and is
+ * shared by all sinks an event is broadcast to, so that event data is serialized to JSON only once, whatever the number of
+ * subscribers.
+ *
+ * @author Iulian Rotaru
+ */
+final class SseFrame {
+	/**
+	 * Encode outbound event. Event data, if present, is serialized to JSON.
+	 *
+	 * @param json JSON serializer,
+	 * @param event outbound event.
+	 * @return encoded frame, possible empty if event has no fields.
+	 * @throws IOException if event data serialization fails.
+	 */
+	public static SseFrame encode(Json json, OutboundSseEvent event) throws IOException {
+		return encode(json, event, event.getId());
+	}
+
+	/**
+	 * Encode outbound event with given ID, replacing the one from event, if any. Used by broadcasters that number events. Data
+	 * received from event bus, see {@link SseBusMessage.RawData}, is written verbatim.
+	 *
+	 * @param json JSON serializer,
+	 * @param event outbound event,
+	 * @param id event ID, possible null.
+	 * @return encoded frame, possible empty if event has no fields.
+	 * @throws IOException if event data serialization fails.
+	 */
+	public static SseFrame encode(Json json, OutboundSseEvent event, String id) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+		int fieldsCount = 0;
+
+		if (event.getName() != null) {
+			field(writer, "event:", event.getName());
+			++fieldsCount;
+		}
+		if (id != null) {
+			field(writer, "id:", id);
+			++fieldsCount;
+		}
+		if (event.getData() != null) {
+			writer.write("data:");
+			if (event.getData() instanceof SseBusMessage.RawData) {
+				// data received from event bus is already serialized by publishing node
+				writer.write(((SseBusMessage.RawData) event.getData()).getJson());
+			} else {
+				// JSON serializer may close the writer; data writer prevents closing the frame buffer
+				json.stringify(new DataWriter(writer), event.getData());
+			}
+			writer.write("\r\n");
+			++fieldsCount;
+		}
+		if (event.isReconnectDelaySet()) {
+			field(writer, "retry:", Long.toString(event.getReconnectDelay()));
+			++fieldsCount;
+		}
+		if (event.getComment() != null) {
+			field(writer, ":", event.getComment());
+			++fieldsCount;
+		}
+
+		if (fieldsCount > 0) {
+			// single end of line is the mark for event end
+			writer.write("\r\n");
+		}
+		writer.flush();
+		return new SseFrame(bytes.toByteArray(), event.toString());
+	}
+
+	/**
+	 * Create comment frame, e.g. keep alive. Comments are ignored by SSE clients but keep connection active.
+	 *
+	 * @param comment comment text.
+	 * @return comment frame.
+	 */
+	public static SseFrame comment(String comment) {
+		return new SseFrame((":" + comment + "\r\n\r\n").getBytes(StandardCharsets.UTF_8), comment);
+	}
+
+	/**
+	 * Create control event frame with raw data, not serialized to JSON.
+	 *
+	 * @param name event name,
+	 * @param id event ID,
+	 * @param data raw event data.
+	 * @return control event frame.
+	 */
+	public static SseFrame control(String name, String id, String data) {
+		String frame = "event:" + name + "\r\nid:" + id + "\r\ndata:" + data + "\r\n\r\n";
+		return new SseFrame(frame.getBytes(StandardCharsets.UTF_8), name + ":" + id);
+	}
+
+	private static void field(Writer writer, String name, String value) throws IOException {
+		writer.write(name);
+		writer.write(value);
+		writer.write("\r\n");
+	}
+
+	private final byte[] bytes;
+	/** Frame string representation, for logging. */
+	private final String string;
+
+	private SseFrame(byte[] bytes, String string) {
+		this.bytes = bytes;
+		this.string = string;
+	}
+
+	/**
+	 * Get frame bytes. Returned array is shared and should not be modified.
+	 *
+	 * @return frame bytes.
+	 */
+	public byte[] getBytes() {
+		return bytes;
+	}
+
+	public int size() {
+		return bytes.length;
+	}
+
+	public boolean isEmpty() {
+		return bytes.length == 0;
+	}
+
+	@Override
+	public String toString() {
+		return string;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Writer for event data that ignores close requests from JSON serializer.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	private static class DataWriter extends FilterWriter {
+		public DataWriter(Writer writer) {
+			super(writer);
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -1,17 +1,120 @@
 package com.jslib.container.rest.sse;
 
+import com.jslib.api.json.Json;
 import com.jslib.api.log.Log;
 import com.jslib.api.log.LogFactory;
+import com.jslib.container.spi.IContainer;
+import com.jslib.container.spi.IEventBus;
 
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.sse.OutboundSseEvent;
 import jakarta.ws.rs.sse.Sse;
 import jakarta.ws.rs.sse.SseBroadcaster;
 
+/**
+ * SSE entry point, with application scope. Owns the threads shared by all broadcasters created by this instance: dispatcher
+ * pool that drives broadcasters, see {@link SseDispatcher}, writer threads pool, see {@link SseWriterPool}, and keep alive
+ * timer, see {@link SseKeepAlive}. Broadcasters configuration is loaded from container initialization parameters.
+ * <p>
+ * If container has an {@link IEventBus} binding, broadcasters created with {@link #newBroadcaster(String)} are connected
+ * across nodes: an event broadcast on a node reaches sinks registered to the same named broadcaster on all nodes.
+ *
+ * @author Iulian Rotaru
+ */
 public class SseImpl implements Sse {
 	private static final Log log = LogFactory.getLog(SseImpl.class);
 
-	public SseImpl() {
-		log.trace("SseImpl()");
+	/** Context parameter for the number of broadcaster writer threads; default to available processors. */
+	public static final String PARAM_WRITER_THREADS = "com.jslib.container.rest.sse.writer.threads";
+
+	/** Context parameter for the number of broadcaster dispatcher threads; default to available processors. */
+	public static final String PARAM_DISPATCHER_THREADS = "com.jslib.container.rest.sse.dispatcher.threads";
+
+	/** Context parameter for keep alive interval, in milliseconds; idle event sinks are pinged after this interval. */
+	public static final String PARAM_KEEP_ALIVE = "com.jslib.container.rest.sse.keep.alive";
+
+	/** Context parameter for broadcaster events queue capacity, in events; events offered on full queue are dropped. */
+	public static final String PARAM_EVENTS_CAPACITY = "com.jslib.container.rest.sse.events.capacity";
+
+	/** Context parameter for event sink outbound queue capacity, in frames. */
+	public static final String PARAM_QUEUE_CAPACITY = "com.jslib.container.rest.sse.queue.capacity";
+
+	/** Context parameter for slow consumer policy: <code>DROP_OLDEST</code>, <code>DROP_NEWEST</code> or <code>DISCONNECT</code>. */
+	public static final String PARAM_OVERFLOW_POLICY = "com.jslib.container.rest.sse.overflow.policy";
+
+	/** Context parameter for broadcaster replay buffer capacity, in frames; zero disables replay. */
+	public static final String PARAM_REPLAY_FRAMES = "com.jslib.container.rest.sse.replay.frames";
+
+	/** Context parameter for broadcaster replay buffer memory cap, in bytes. */
+	public static final String PARAM_REPLAY_BYTES = "com.jslib.container.rest.sse.replay.bytes";
+
+	private static final int DEFAULT_REPLAY_FRAMES = 1024;
+	private static final long DEFAULT_REPLAY_BYTES = 1024 * 1024;
+
+	private final Json json;
+
+	private final SseWriterPool writers;
+
+	private final SseDispatcher dispatcher;
+
+	private final SseKeepAlive keepAlive;
+
+	private final int eventsCapacity;
+
+	private final int queueCapacity;
+
+	private final SseOverflowPolicy overflowPolicy;
+
+	private final int replayFrames;
+
+	private final long replayBytes;
+
+	/** Optional event bus connecting named broadcasters across nodes, null if application runs on a single node. */
+	private final IEventBus eventBus;
+
+	@Inject
+	public SseImpl(IContainer container, Json json) {
+		log.trace("SseImpl(IContainer, Json)");
+		this.json = json;
+
+		Integer writerThreads = container.getInitParameter(PARAM_WRITER_THREADS, Integer.class);
+		this.writers = new SseWriterPool(writerThreads != null ? writerThreads : Runtime.getRuntime().availableProcessors());
+
+		Integer dispatcherThreads = container.getInitParameter(PARAM_DISPATCHER_THREADS, Integer.class);
+		this.dispatcher = new SseDispatcher(dispatcherThreads != null ? dispatcherThreads : Runtime.getRuntime().availableProcessors());
+
+		Long keepAlive = container.getInitParameter(PARAM_KEEP_ALIVE, Long.class);
+		this.keepAlive = new SseKeepAlive(writers, keepAlive != null ? keepAlive : SseKeepAlive.DEFAULT_INTERVAL);
+
+		Integer eventsCapacity = container.getInitParameter(PARAM_EVENTS_CAPACITY, Integer.class);
+		this.eventsCapacity = eventsCapacity != null ? eventsCapacity : SseEventsQueue.DEFAULT_CAPACITY;
+
+		Integer queueCapacity = container.getInitParameter(PARAM_QUEUE_CAPACITY, Integer.class);
+		this.queueCapacity = queueCapacity != null ? queueCapacity : SseEventSinkImpl.DEFAULT_QUEUE_CAPACITY;
+
+		String overflowPolicy = container.getInitParameter(PARAM_OVERFLOW_POLICY, String.class);
+		this.overflowPolicy = overflowPolicy != null ? SseOverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase()) : SseOverflowPolicy.DROP_OLDEST;
+
+		Integer replayFrames = container.getInitParameter(PARAM_REPLAY_FRAMES, Integer.class);
+		this.replayFrames = replayFrames != null ? replayFrames : DEFAULT_REPLAY_FRAMES;
+		Long replayBytes = container.getInitParameter(PARAM_REPLAY_BYTES, Long.class);
+		this.replayBytes = replayBytes != null ? replayBytes : DEFAULT_REPLAY_BYTES;
+
+		this.eventBus = container.getOptionalInstance(IEventBus.class);
+		if (eventBus != null) {
+			log.debug("SSE named broadcasters connected to event bus |{event_bus}|.", eventBus.getClass());
+		}
+
+		log.debug("SSE dispatcher threads |{threads}|.", dispatcher.size());
+		log.debug("SSE writer threads |{threads}|, queue capacity |{capacity}|, overflow policy |{policy}|.", writers.size(), this.queueCapacity, this.overflowPolicy);
+	}
+
+	@PreDestroy
+	public void preDestroy() {
+		keepAlive.shutdown();
+		dispatcher.shutdown();
+		writers.shutdown();
 	}
 
 	@Override
@@ -21,6 +124,57 @@ public class SseImpl implements Sse {
 
 	@Override
 	public SseBroadcaster newBroadcaster() {
-		return new SseBroadcasterImpl();
+		return new SseBroadcasterImpl(this, null);
+	}
+
+	/**
+	 * Create broadcaster connected to broadcasters with the same name from other nodes, via event bus. If there is no event
+	 * bus, returned broadcaster is node-local, the same as one created by {@link #newBroadcaster()}.
+	 *
+	 * @param name broadcaster name, unique per application.
+	 * @return named broadcaster.
+	 */
+	public SseBroadcaster newBroadcaster(String name) {
+		return new SseBroadcasterImpl(this, name);
+	}
+
+	Json getJson() {
+		return json;
+	}
+
+	SseWriterPool getWriters() {
+		return writers;
+	}
+
+	SseDispatcher getDispatcher() {
+		return dispatcher;
+	}
+
+	SseKeepAlive getKeepAlive() {
+		return keepAlive;
+	}
+
+	int getEventsCapacity() {
+		return eventsCapacity;
+	}
+
+	int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	SseOverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	int getReplayFrames() {
+		return replayFrames;
+	}
+
+	long getReplayBytes() {
+		return replayBytes;
+	}
+
+	IEventBus getEventBus() {
+		return eventBus;
 	}
 }
@@ -0,0 +1,139 @@
+package com.jslib.container.rest.sse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+
+/**
+ * Hashed timer wheel that sends keep alive comments to idle event sinks. There is a single keep alive thread for all
+ * broadcasters; it advances the wheel every {@link #TICK} milliseconds and visits only sinks from current wheel bucket. A
+ * sink is pinged only if nothing was written on it for keep alive interval; otherwise it is rescheduled for the moment it
+ * becomes idle. So, wakeups count is constant, whatever the number of broadcasters and sinks.
+ * <p>
+ * Keep alive comments have double role:
+ * <ol>
+ * <li>Allows for both client and this server side event stream to know that peer is up,
+ * <li>Avoid routers with idle timeout to drop connections when no events are sent.
+ * </ol>
+ * <p>
+ * For second case interval value is critical. If is larger than router idle connection timeout, connection will be lost and
+ * client will reconnect periodically; in this case events stream behaves like a polling mechanism with resources waste and
+ * bad responsiveness. Routers idle connection timeout is manufacturer specific and / or network administrator customizable;
+ * from practice is observed that the lower idle connection timeout value found is one minute. Default interval is 40 seconds
+ * in order to cope with delays generated by server heavy loading and network latency.
+ *
+ * @author Iulian Rotaru
+ */
+final class SseKeepAlive implements Runnable {
+	private static final Log log = LogFactory.getLog(SseKeepAlive.class);
+
+	/** Default keep alive interval, in milliseconds. */
+	static final long DEFAULT_INTERVAL = 40000;
+
+	/** Wheel tick duration, in milliseconds. */
+	private static final long TICK = 1000;
+
+	/** Keep alive comment frame, encoded once. */
+	private static final SseFrame KEEP_ALIVE = SseFrame.comment("keepalive");
+
+	private final SseWriterPool writers;
+
+	private final long interval;
+
+	/** Wheel buckets, accessed only by keep alive thread. Wheel has one bucket more than ticks per interval. */
+	private final List<List<SseEventSinkImpl>> wheel;
+
+	/** Sinks registered since last tick, moved on wheel by keep alive thread. */
+	private final Queue<SseEventSinkImpl> registered = new ConcurrentLinkedQueue<>();
+
+	private final Thread thread;
+
+	/** Current wheel tick, accessed only by keep alive thread. */
+	private long tick;
+
+	public SseKeepAlive(SseWriterPool writers, long interval) {
+		this.writers = writers;
+		this.interval = Math.max(interval, TICK);
+
+		int buckets = (int) ((this.interval + TICK - 1) / TICK) + 1;
+		this.wheel = new ArrayList<>(buckets);
+		for (int i = 0; i < buckets; ++i) {
+			wheel.add(new ArrayList<>());
+		}
+
+		this.thread = new Thread(this, "SSE Keep Alive");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Register event sink for keep alive. Sink is registered only once, even if subscribed to many broadcasters, and is
+	 * removed from wheel after close.
+	 *
+	 * @param sink event sink.
+	 */
+	public void register(SseEventSinkImpl sink) {
+		if (sink.keepAlive()) {
+			registered.offer(sink);
+		}
+	}
+
+	/** Stop keep alive thread. */
+	public void shutdown() {
+		thread.interrupt();
+	}
+
+	@Override
+	public void run() {
+		log.debug("Start SSE keep alive.");
+		for (;;) {
+			try {
+				Thread.sleep(TICK);
+			} catch (InterruptedException e) {
+				break;
+			}
+			++tick;
+
+			for (SseEventSinkImpl sink = registered.poll(); sink != null; sink = registered.poll()) {
+				schedule(sink, interval);
+			}
+
+			List<SseEventSinkImpl> bucket = wheel.get((int) (tick % wheel.size()));
+			if (bucket.isEmpty()) {
+				continue;
+			}
+			List<SseEventSinkImpl> sinks = new ArrayList<>(bucket);
+			bucket.clear();
+
+			long now = System.currentTimeMillis();
+			for (SseEventSinkImpl sink : sinks) {
+				if (sink.isClosed()) {
+					continue;
+				}
+				long idle = now - sink.getLastWriteMillis();
+				if (idle < interval) {
+					schedule(sink, interval - idle);
+					continue;
+				}
+				if (sink.offer(KEEP_ALIVE)) {
+					writers.schedule(sink);
+				} else {
+					log.warn("Slow SSE client on event sink |{event_sink}|. Disconnect it.", sink);
+					sink.close(true);
+					continue;
+				}
+				schedule(sink, interval);
+			}
+		}
+		log.debug("Stop SSE keep alive.");
+	}
+
+	private void schedule(SseEventSinkImpl sink, long delay) {
+		long ticks = Math.min(Math.max((delay + TICK - 1) / TICK, 1), wheel.size() - 1);
+		wheel.get((int) ((tick + ticks) % wheel.size())).add(sink);
+	}
+}
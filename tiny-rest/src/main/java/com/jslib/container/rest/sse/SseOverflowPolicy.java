@@ -0,0 +1,16 @@
+package com.jslib.container.rest.sse;
+
+/**
+ * Slow consumer policy applied when an event sink outbound queue is full, that is, client does not read events as fast as
+ * they are broadcast.
+ *
+ * @author Iulian Rotaru
+ */
+enum SseOverflowPolicy {
+	/** Discard the oldest queued frame to make room for the new one. Client gets the most recent events. */
+	DROP_OLDEST,
+	/** Discard the new frame. Client gets events in order but misses the ones broadcast while queue was full. */
+	DROP_NEWEST,
+	/** Close event sink; client is expected to reconnect. */
+	DISCONNECT
+}
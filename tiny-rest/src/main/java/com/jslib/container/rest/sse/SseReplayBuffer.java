@@ -0,0 +1,93 @@
+package com.jslib.container.rest.sse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Ring buffer of recently broadcast frames, used to replay missed events to reconnecting clients that present
+ * <code>Last-Event-ID</code>. Buffer is bounded both by frames count and by total frames size, whichever limit is reached
+ * first; oldest frames are evicted. Frames are identified by broadcaster sequence number, strictly increasing.
+ * <p>
+ * This class is not thread safe; broadcaster synchronizes its access.
+ *
+ * @author Iulian Rotaru
+ */
+final class SseReplayBuffer {
+	private final int maxFrames;
+	private final long maxBytes;
+
+	private final Deque<Entry> entries = new ArrayDeque<>();
+	/** Total size, in bytes, of buffered frames. */
+	private long bytes;
+	/** Sequence of the most recent evicted frame; frames after it are all in buffer. */
+	private long evicted;
+	/** Sequence of the most recent added frame. */
+	private long latest;
+
+	/**
+	 * Create replay buffer. If any limit is zero buffer does not retain frames and replay works only for clients that did
+	 * not miss any event.
+	 *
+	 * @param maxFrames maximum frames count,
+	 * @param maxBytes maximum total frames size, in bytes.
+	 */
+	public SseReplayBuffer(int maxFrames, long maxBytes) {
+		this.maxFrames = maxFrames;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Add frame, evicting the oldest ones if any limit is exceeded.
+	 *
+	 * @param sequence frame sequence, greater than all sequences already added,
+	 * @param frame encoded event.
+	 */
+	public void add(long sequence, SseFrame frame) {
+		latest = sequence;
+		entries.offer(new Entry(sequence, frame));
+		bytes += frame.size();
+		while (!entries.isEmpty() && (entries.size() > maxFrames || bytes > maxBytes)) {
+			Entry entry = entries.poll();
+			bytes -= entry.frame.size();
+			evicted = entry.sequence;
+		}
+	}
+
+	/**
+	 * Get frames added after given sequence, in order. Returns null if some of them were already evicted or if sequence is
+	 * not one issued by this buffer owner.
+	 *
+	 * @param sequence sequence of the last frame received by client.
+	 * @return frames missed by client, possible empty, or null if gap cannot be filled.
+	 */
+	public List<SseFrame> since(long sequence) {
+		if (sequence < evicted || sequence > latest) {
+			return null;
+		}
+		List<SseFrame> frames = new ArrayList<>();
+		for (Entry entry : entries) {
+			if (entry.sequence > sequence) {
+				frames.add(entry.frame);
+			}
+		}
+		return frames;
+	}
+
+	public long getLatest() {
+		return latest;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private static final class Entry {
+		final long sequence;
+		final SseFrame frame;
+
+		Entry(long sequence, SseFrame frame) {
+			this.sequence = sequence;
+			this.frame = frame;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.jslib.container.rest.sse;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+
+/**
+ * Pool of writer threads that drain event sinks outbound queues. Event sinks are sharded on writer threads by sink ID, so that
+ * frames of a given sink are always written by the same thread, in order. A sink is scheduled on its writer only when it has
+ * pending frames and only once, no matter how many frames are queued.
+ * <p>
+ * Broadcasting an event does not write anything; it just enqueues the frame on sinks queues and schedules sinks. Draining is
+ * non-blocking: a sink writes only while its output stream is ready and is resumed by servlet container when client catches
+ * up, so that a stalled client does not hold its writer thread.
+ *
+ * @author Iulian Rotaru
+ */
+final class SseWriterPool {
+	private static final Log log = LogFactory.getLog(SseWriterPool.class);
+
+	private final Shard[] shards;
+
+	public SseWriterPool(int threads) {
+		this.shards = new Shard[Math.max(threads, 1)];
+		for (int i = 0; i < shards.length; ++i) {
+			shards[i] = new Shard(i);
+		}
+	}
+
+	/**
+	 * Schedule event sink on its writer thread. Does nothing if sink is already scheduled and not yet drained.
+	 *
+	 * @param sink event sink with pending frames.
+	 */
+	public void schedule(SseEventSinkImpl sink) {
+		if (sink.schedule()) {
+			shards[sink.getId() % shards.length].sinks.offer(sink);
+		}
+	}
+
+	public int size() {
+		return shards.length;
+	}
+
+	/** Stop writer threads. Pending frames are not written. */
+	public void shutdown() {
+		for (Shard shard : shards) {
+			shard.thread.interrupt();
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Writer thread with its queue of scheduled event sinks.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	private static class Shard implements Runnable {
+		private final BlockingQueue<SseEventSinkImpl> sinks = new LinkedBlockingQueue<>();
+		private final Thread thread;
+
+		public Shard(int index) {
+			this.thread = new Thread(this, "SSE Writer #" + index);
+			this.thread.setDaemon(true);
+			this.thread.start();
+		}
+
+		@Override
+		public void run() {
+			log.debug("Start SSE writer {thread}.", thread.getName());
+			for (;;) {
+				SseEventSinkImpl sink;
+				try {
+					sink = sinks.take();
+				} catch (InterruptedException e) {
+					break;
+				}
+				try {
+					sink.drain();
+				} catch (Throwable t) {
+					log.dump(String.format("Fail to drain event sink |%s|:", sink), t);
+				}
+			}
+			log.debug("Stop SSE writer {thread}.", thread.getName());
+		}
+	}
+}
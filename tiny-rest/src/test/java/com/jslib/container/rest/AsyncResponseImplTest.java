@@ -0,0 +1,202 @@
+package com.jslib.container.rest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.ws.rs.container.CompletionCallback;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AsyncResponseImplTest {
+	@Mock
+	private AsyncContext asyncContext;
+	@Mock
+	private HttpServletResponse httpResponse;
+	@Mock
+	private AsyncEvent asyncEvent;
+	@Mock
+	private ScheduledExecutorService scheduler;
+	@Mock
+	private ScheduledFuture<?> timeoutTask;
+	@Mock
+	private ScheduledFuture<?> extendedTimeoutTask;
+
+	private List<Object> values;
+	private List<Throwable> errors;
+	private AsyncResponseImpl asyncResponse;
+
+	@Before
+	public void beforeTest() {
+		values = new ArrayList<>();
+		errors = new ArrayList<>();
+		doReturn(timeoutTask, extendedTimeoutTask).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+		asyncResponse = new AsyncResponseImpl();
+		asyncResponse.start(asyncContext, scheduler, 1000, (value, error) -> {
+			values.add(value);
+			errors.add(error);
+		});
+	}
+
+	@Test
+	public void GivenSuspended_WhenResume_ThenCompletionAndContextComplete() {
+		// given
+
+		// when
+		boolean resumed = asyncResponse.resume("value");
+
+		// then
+		assertThat(resumed, equalTo(true));
+		assertThat(values, contains((Object) "value"));
+		assertThat(errors.get(0), nullValue());
+		assertThat(asyncResponse.isDone(), equalTo(true));
+		assertThat(asyncResponse.isSuspended(), equalTo(false));
+		verify(asyncContext, times(1)).setTimeout(0);
+		verify(scheduler, times(1)).schedule(any(Runnable.class), eq(1000L), eq(TimeUnit.MILLISECONDS));
+		verify(asyncContext, times(1)).addListener(asyncResponse);
+		verify(asyncContext, times(1)).complete();
+	}
+
+	@Test
+	public void GivenResumed_WhenResumeAgain_ThenFalse() {
+		// given
+		asyncResponse.resume("value");
+
+		// when
+		boolean resumed = asyncResponse.resume(new Exception());
+
+		// then
+		assertThat(resumed, equalTo(false));
+		assertThat(values.size(), equalTo(1));
+		verify(asyncContext, times(1)).complete();
+	}
+
+	@Test
+	public void GivenSuspended_WhenResumeError_ThenErrorPassedToCallbacks() {
+		// given
+		Exception exception = new Exception();
+		List<Throwable> callbackErrors = new ArrayList<>();
+		Collection<Class<?>> registered = asyncResponse.register((CompletionCallback) callbackErrors::add);
+
+		// when
+		asyncResponse.resume(exception);
+		asyncResponse.onComplete(asyncEvent);
+
+		// then
+		assertThat(registered.contains(CompletionCallback.class), equalTo(true));
+		assertThat(errors.get(0), sameInstance(exception));
+		assertThat(callbackErrors.get(0), sameInstance(exception));
+	}
+
+	@Test
+	public void GivenSuspended_WhenCancelWithRetryAfter_ThenServiceUnavailable() throws Exception {
+		// given
+		when(asyncContext.getResponse()).thenReturn(httpResponse);
+
+		// when
+		boolean cancelled = asyncResponse.cancel(120);
+
+		// then
+		assertThat(cancelled, equalTo(true));
+		assertThat(asyncResponse.isCancelled(), equalTo(true));
+		assertThat(values.size(), equalTo(0));
+		verify(httpResponse, times(1)).setIntHeader("Retry-After", 120);
+		verify(httpResponse, times(1)).sendError(503);
+		verify(asyncContext, times(1)).complete();
+	}
+
+	@Test
+	public void GivenNoTimeoutHandler_WhenTimeout_ThenServiceUnavailable() throws Exception {
+		// given
+		when(asyncContext.getResponse()).thenReturn(httpResponse);
+
+		// when
+		asyncResponse.onTimeout(asyncEvent);
+
+		// then
+		assertThat(asyncResponse.isCancelled(), equalTo(true));
+		verify(httpResponse, times(1)).sendError(503);
+	}
+
+	@Test
+	public void GivenResumingTimeoutHandler_WhenTimeout_ThenResumed() throws Exception {
+		// given
+		asyncResponse.setTimeoutHandler(response -> response.resume("timeout"));
+
+		// when
+		asyncResponse.onTimeout(asyncEvent);
+
+		// then
+		assertThat(values, contains((Object) "timeout"));
+		verify(httpResponse, never()).sendError(any(Integer.class));
+	}
+
+	@Test
+	public void GivenSuspended_WhenSetTimeout_ThenTimeoutRearmed() {
+		// given
+
+		// when
+		boolean updated = asyncResponse.setTimeout(2, TimeUnit.SECONDS);
+
+		// then
+		assertThat(updated, equalTo(true));
+		verify(timeoutTask, times(1)).cancel(false);
+		verify(scheduler, times(1)).schedule(any(Runnable.class), eq(2000L), eq(TimeUnit.MILLISECONDS));
+		verify(asyncContext, never()).setTimeout(2000);
+	}
+
+	@Test
+	public void GivenExtendingTimeoutHandler_WhenTimeout_ThenStillSuspended() throws Exception {
+		// given
+		ArgumentCaptor<Runnable> timeout = ArgumentCaptor.forClass(Runnable.class);
+		verify(scheduler).schedule(timeout.capture(), eq(1000L), eq(TimeUnit.MILLISECONDS));
+		asyncResponse.setTimeoutHandler(response -> response.setTimeout(5, TimeUnit.SECONDS));
+
+		// when
+		timeout.getValue().run();
+
+		// then
+		assertThat(asyncResponse.isSuspended(), equalTo(true));
+		verify(scheduler, times(1)).schedule(any(Runnable.class), eq(5000L), eq(TimeUnit.MILLISECONDS));
+		verify(httpResponse, never()).sendError(any(Integer.class));
+		verify(asyncContext, never()).complete();
+	}
+
+	@Test
+	public void GivenCompleted_WhenOnComplete_ThenTimeoutCancelled() {
+		// given
+		asyncResponse.resume("value");
+
+		// when
+		asyncResponse.onComplete(asyncEvent);
+
+		// then
+		verify(timeoutTask, times(1)).cancel(false);
+	}
+}
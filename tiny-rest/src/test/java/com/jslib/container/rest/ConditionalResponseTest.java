@@ -0,0 +1,142 @@
+package com.jslib.container.rest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConditionalResponseTest {
+	@Mock
+	private HttpServletRequest httpRequest;
+	@Mock
+	private HttpServletResponse httpResponse;
+
+	@Test
+	public void GivenNoIfNoneMatch_WhenFinish_ThenSendBodyWithETag() throws IOException {
+		// given
+		OutputStreamStub outputStream = new OutputStreamStub();
+		when(httpResponse.getOutputStream()).thenReturn(outputStream);
+		ConditionalResponse response = new ConditionalResponse(httpResponse);
+
+		// when
+		response.getOutputStream().write("{\"id\":1}".getBytes("UTF-8"));
+		response.setContentLength(8);
+		response.finish(httpRequest);
+
+		// then
+		verify(httpResponse).setHeader(eq("ETag"), any());
+		verify(httpResponse).setContentLength(8);
+		assertThat(outputStream.toString(), equalTo("{\"id\":1}"));
+	}
+
+	@Test
+	public void GivenMatchingIfNoneMatch_WhenFinish_ThenNotModified() throws IOException {
+		// given
+		OutputStreamStub outputStream = new OutputStreamStub();
+		when(httpResponse.getOutputStream()).thenReturn(outputStream);
+		ConditionalResponse response = new ConditionalResponse(httpResponse);
+		response.getOutputStream().write("{\"id\":1}".getBytes("UTF-8"));
+		response.finish(httpRequest);
+
+		ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+		verify(httpResponse).setHeader(eq("ETag"), etag.capture());
+		when(httpRequest.getHeader("If-None-Match")).thenReturn(etag.getValue());
+
+		HttpServletResponse conditionalHttpResponse = mock(HttpServletResponse.class);
+		response = new ConditionalResponse(conditionalHttpResponse);
+
+		// when
+		response.getOutputStream().write("{\"id\":1}".getBytes("UTF-8"));
+		response.setHeader("Content-Encoding", "gzip");
+		response.finish(httpRequest);
+
+		// then
+		verify(conditionalHttpResponse).setHeader("ETag", etag.getValue());
+		verify(conditionalHttpResponse).setStatus(304);
+		verify(conditionalHttpResponse, never()).setHeader(eq("Content-Encoding"), any());
+		verify(conditionalHttpResponse, never()).setContentLength(anyInt());
+		verify(conditionalHttpResponse, never()).getOutputStream();
+	}
+
+	@Test
+	public void GivenWeakTagsList_WhenMatches_ThenTrue() {
+		assertThat(Preconditions.matches("\"abc\", W/\"xyz\"", "\"xyz\""), equalTo(true));
+	}
+
+	@Test
+	public void GivenWildcard_WhenMatches_ThenTrue() {
+		assertThat(Preconditions.matches("*", "\"xyz\""), equalTo(true));
+	}
+
+	@Test
+	public void GivenDifferentTag_WhenMatches_ThenFalse() {
+		assertThat(Preconditions.matches("\"abc\"", "\"xyz\""), equalTo(false));
+	}
+
+	@Test
+	public void GivenModifiedBefore_WhenIsNotModified_ThenTrue() {
+		// given
+		when(httpRequest.getDateHeader("If-Modified-Since")).thenReturn(1_600_000_000_000L);
+
+		// when
+		boolean notModified = Preconditions.isNotModified(httpRequest, null, 1_599_999_999_500L);
+
+		// then
+		assertThat(notModified, equalTo(true));
+	}
+
+	@Test
+	public void GivenModifiedAfter_WhenIsNotModified_ThenFalse() {
+		// given
+		when(httpRequest.getDateHeader("If-Modified-Since")).thenReturn(1_600_000_000_000L);
+
+		// when
+		boolean notModified = Preconditions.isNotModified(httpRequest, null, 1_600_000_001_000L);
+
+		// then
+		assertThat(notModified, equalTo(false));
+	}
+
+	private static class OutputStreamStub extends ServletOutputStream {
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		@Override
+		public void write(int b) throws IOException {
+			bytes.write(b);
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+		}
+
+		@Override
+		public String toString() {
+			return new String(bytes.toByteArray());
+		}
+	}
+}
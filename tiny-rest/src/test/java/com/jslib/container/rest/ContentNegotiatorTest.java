@@ -0,0 +1,199 @@
+package com.jslib.container.rest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.jslib.container.http.ContentType;
+import com.jslib.container.http.encoder.ValueWriter;
+import com.jslib.container.http.encoder.ValueWriterFactory;
+import com.jslib.container.spi.IManagedMethod;
+
+import jakarta.ws.rs.Produces;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ContentNegotiatorTest {
+	@Mock
+	private ValueWriterFactory valueWriterFactory;
+	@Mock
+	private ValueWriter valueWriter;
+	@Mock
+	private IManagedMethod managedMethod;
+	@Mock
+	private Produces produces;
+
+	private ContentNegotiator negotiator;
+
+	private ContentNegotiator.Decision json;
+	private ContentNegotiator.Decision xml;
+	private ContentNegotiator.Decision text;
+
+	@Before
+	public void beforeTest() {
+		negotiator = new ContentNegotiator(valueWriterFactory);
+
+		json = new ContentNegotiator.Decision(ContentType.APPLICATION_JSON, valueWriter, true);
+		xml = new ContentNegotiator.Decision(ContentType.TEXT_XML, valueWriter, true);
+		text = new ContentNegotiator.Decision(ContentType.TEXT_PLAIN, valueWriter, true);
+	}
+
+	@Test
+	public void GivenMissingProduces_WhenNegotiate_ThenJson() {
+		// given
+		when(valueWriterFactory.getValueWriter(ContentType.APPLICATION_JSON)).thenReturn(valueWriter);
+
+		// when
+		ContentNegotiator.Decision decision = negotiator.negotiate(managedMethod, "text/xml");
+
+		// then
+		assertThat(decision.getHeaderValue(), equalTo("application/json"));
+		assertThat(decision.getValueWriter(), sameInstance(valueWriter));
+		assertThat(decision.isVariant(), equalTo(false));
+	}
+
+	@Test
+	public void GivenMissingProduces_WhenResolve_ThenContentTypeForValue() {
+		// given
+		Object value = new Object();
+		when(valueWriterFactory.getValueWriter(any())).thenReturn(valueWriter);
+		when(valueWriterFactory.getContentTypeForValue(value)).thenReturn(ContentType.TEXT_XML);
+		ContentNegotiator.Decision decision = negotiator.negotiate(managedMethod, null);
+
+		// when
+		ContentNegotiator.Decision resolved = negotiator.resolve(decision, value);
+
+		// then
+		assertThat(resolved.getContentType(), equalTo(ContentType.TEXT_XML));
+		assertThat(resolved.isVariant(), equalTo(false));
+	}
+
+	@Test
+	public void GivenProduces_WhenResolve_ThenSameDecision() {
+		// given
+		when(managedMethod.scanAnnotation(Produces.class, IManagedMethod.Flags.INCLUDE_TYPES)).thenReturn(produces);
+		when(produces.value()).thenReturn(new String[] { "application/json" });
+		when(valueWriterFactory.getValueWriter(any())).thenReturn(valueWriter);
+		ContentNegotiator.Decision decision = negotiator.negotiate(managedMethod, null);
+
+		// when
+		ContentNegotiator.Decision resolved = negotiator.resolve(decision, new Object());
+
+		// then
+		assertThat(resolved, sameInstance(decision));
+	}
+
+	@Test
+	public void GivenProduces_WhenNegotiateTwice_ThenDecisionCached() {
+		// given
+		when(managedMethod.scanAnnotation(Produces.class, IManagedMethod.Flags.INCLUDE_TYPES)).thenReturn(produces);
+		when(produces.value()).thenReturn(new String[] { "application/json, text/xml;charset=UTF-8" });
+		when(valueWriterFactory.getValueWriter(any())).thenReturn(valueWriter);
+
+		// when
+		ContentNegotiator.Decision decision = negotiator.negotiate(managedMethod, "text/xml");
+		ContentNegotiator.Decision cachedDecision = negotiator.negotiate(managedMethod, "text/xml");
+
+		// then
+		assertThat(decision.getHeaderValue(), equalTo("text/xml;charset=UTF-8"));
+		assertThat(decision.isVariant(), equalTo(true));
+		assertThat(cachedDecision, sameInstance(decision));
+		verify(valueWriterFactory, times(2)).getValueWriter(any());
+	}
+
+	@Test
+	public void GivenProducesAndNotAcceptable_WhenNegotiate_ThenNull() {
+		// given
+		when(managedMethod.scanAnnotation(Produces.class, IManagedMethod.Flags.INCLUDE_TYPES)).thenReturn(produces);
+		when(produces.value()).thenReturn(new String[] { "application/json" });
+		when(valueWriterFactory.getValueWriter(any())).thenReturn(valueWriter);
+
+		// when
+		ContentNegotiator.Decision decision = negotiator.negotiate(managedMethod, "image/png");
+
+		// then
+		assertThat(decision, nullValue());
+	}
+
+	@Test
+	public void GivenEmptyAccept_WhenSelect_ThenServerPreference() {
+		// given
+		ContentNegotiator.Decision[] candidates = { xml, json };
+
+		// when
+		ContentNegotiator.Decision decision = ContentNegotiator.select(candidates, "");
+
+		// then
+		assertThat(decision, sameInstance(xml));
+	}
+
+	@Test
+	public void GivenQualityFactors_WhenSelect_ThenHighestQuality() {
+		// given
+		ContentNegotiator.Decision[] candidates = { json, xml, text };
+
+		// when
+		ContentNegotiator.Decision decision = ContentNegotiator.select(candidates, "application/json;q=0.5, text/xml;q=0.9, */*;q=0.1");
+
+		// then
+		assertThat(decision, sameInstance(xml));
+	}
+
+	@Test
+	public void GivenWildcardAndSpecificRange_WhenSelect_ThenSpecificRangeWins() {
+		// given
+		ContentNegotiator.Decision[] candidates = { json, xml };
+
+		// when
+		ContentNegotiator.Decision decision = ContentNegotiator.select(candidates, "*/*, text/xml");
+
+		// then
+		assertThat(decision, sameInstance(xml));
+	}
+
+	@Test
+	public void GivenSubtypeWildcard_WhenSelect_ThenServerPreferenceOnType() {
+		// given
+		ContentNegotiator.Decision[] candidates = { json, xml, text };
+
+		// when
+		ContentNegotiator.Decision decision = ContentNegotiator.select(candidates, "text/*");
+
+		// then
+		assertThat(decision, sameInstance(xml));
+	}
+
+	@Test
+	public void GivenZeroQuality_WhenSelect_ThenCandidateExcluded() {
+		// given
+		ContentNegotiator.Decision[] candidates = { json, xml };
+
+		// when
+		ContentNegotiator.Decision decision = ContentNegotiator.select(candidates, "*/*, application/json;q=0");
+
+		// then
+		assertThat(decision, sameInstance(xml));
+	}
+
+	@Test
+	public void GivenNoMatchingRange_WhenSelect_ThenNull() {
+		// given
+		ContentNegotiator.Decision[] candidates = { json, xml };
+
+		// when
+		ContentNegotiator.Decision decision = ContentNegotiator.select(candidates, "image/png, text/plain;q=0");
+
+		// then
+		assertThat(decision, nullValue());
+	}
+}
@@ -0,0 +1,116 @@
+package com.jslib.container.rest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.jslib.container.spi.ServiceConfigurationException;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CorsPolicyTest {
+	private static final String[] NONE = new String[0];
+
+	@Mock
+	private HttpServletResponse httpResponse;
+
+	@Test
+	public void GivenAnyOrigin_WhenApply_ThenWildcardOrigin() {
+		// given
+		CorsPolicy policy = new CorsPolicy(new String[] { "*" }, NONE, NONE, new String[] { "ETag" }, false, 600);
+
+		// when
+		policy.apply("https://app.com", httpResponse);
+
+		// then
+		verify(httpResponse, times(1)).setHeader("Access-Control-Allow-Origin", "*");
+		verify(httpResponse, times(1)).setHeader("Access-Control-Expose-Headers", "ETag");
+		verify(httpResponse, never()).addHeader("Vary", "Origin");
+	}
+
+	@Test
+	public void GivenAllowedOriginWithCredentials_WhenApply_ThenEchoOrigin() {
+		// given
+		CorsPolicy policy = new CorsPolicy(new String[] { "https://app.com" }, NONE, NONE, NONE, true, 600);
+
+		// when
+		policy.apply("https://app.com", httpResponse);
+
+		// then
+		verify(httpResponse, times(1)).setHeader("Access-Control-Allow-Origin", "https://app.com");
+		verify(httpResponse, times(1)).addHeader("Vary", "Origin");
+		verify(httpResponse, times(1)).setHeader("Access-Control-Allow-Credentials", "true");
+	}
+
+	@Test(expected = ServiceConfigurationException.class)
+	public void GivenAnyOriginWithCredentials_WhenCreate_ThenException() {
+		// given
+
+		// when
+		new CorsPolicy(new String[] { "*" }, NONE, NONE, NONE, true, 600);
+
+		// then
+	}
+
+	@Test
+	public void GivenNotAllowedOrigin_WhenApply_ThenNoHeaders() {
+		// given
+		CorsPolicy policy = new CorsPolicy(new String[] { "https://app.com" }, NONE, NONE, NONE, false, 600);
+
+		// when
+		policy.apply("https://evil.com", httpResponse);
+
+		// then
+		verify(httpResponse, never()).setHeader(anyString(), anyString());
+	}
+
+	@Test
+	public void GivenDefaultMethodsAndHeaders_WhenPreflight_ThenPathMethodsAndEchoHeaders() {
+		// given
+		CorsPolicy policy = new CorsPolicy(new String[] { "*" }, NONE, NONE, NONE, false, 3600);
+
+		// when
+		boolean allowed = policy.preflight("https://app.com", "POST", "Content-Type, X-Trace-Id", "GET, HEAD, POST", httpResponse);
+
+		// then
+		assertThat(allowed, equalTo(true));
+		verify(httpResponse, times(1)).setHeader("Access-Control-Allow-Origin", "*");
+		verify(httpResponse, times(1)).setHeader("Access-Control-Allow-Methods", "GET, HEAD, POST");
+		verify(httpResponse, times(1)).setHeader("Access-Control-Allow-Headers", "Content-Type, X-Trace-Id");
+		verify(httpResponse, times(1)).setHeader("Access-Control-Max-Age", "3600");
+	}
+
+	@Test
+	public void GivenMethodNotSupportedByPath_WhenPreflight_ThenRejected() {
+		// given
+		CorsPolicy policy = new CorsPolicy(new String[] { "*" }, NONE, NONE, NONE, false, 600);
+
+		// when
+		boolean allowed = policy.preflight("https://app.com", "DELETE", null, "GET, HEAD", httpResponse);
+
+		// then
+		assertThat(allowed, equalTo(false));
+		verify(httpResponse, never()).setHeader(anyString(), anyString());
+	}
+
+	@Test
+	public void GivenHeaderNotAllowed_WhenPreflight_ThenRejected() {
+		// given
+		CorsPolicy policy = new CorsPolicy(new String[] { "*" }, new String[] { "get", "post" }, new String[] { "Content-Type" }, NONE, false, 600);
+
+		// when
+		boolean allowed = policy.preflight("https://app.com", "POST", "content-type, Authorization", "GET, HEAD, POST", httpResponse);
+
+		// then
+		assertThat(allowed, equalTo(false));
+	}
+}
@@ -0,0 +1,196 @@
+package com.jslib.container.rest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jslib.lang.IllegalArgumentException;
+
+public class FieldProjectorTest {
+	private FieldProjector projector;
+
+	@Before
+	public void beforeTest() {
+		projector = new FieldProjector();
+	}
+
+	@Test
+	public void GivenFields_WhenProject_ThenSelectedFieldsInRequestOrder() {
+		// given
+		User user = new User(1, "John Doe", new Address("Iasi", "700000"));
+
+		// when
+		Object projection = projector.project(user, "name, id");
+
+		// then
+		assertThat(projection, instanceOf(Map.class));
+		Map<String, Object> map = map(projection);
+		assertThat(map.keySet(), contains("name", "id"));
+		assertThat(map.get("id"), equalTo(1));
+		assertThat(map.get("name"), equalTo("John Doe"));
+	}
+
+	@Test
+	public void GivenNestedField_WhenProject_ThenNestedProjection() {
+		// given
+		User user = new User(1, "John Doe", new Address("Iasi", "700000"));
+
+		// when
+		Object projection = projector.project(user, "id,address.city");
+
+		// then
+		Map<String, Object> address = map(map(projection).get("address"));
+		assertThat(address.keySet(), contains("city"));
+		assertThat(address.get("city"), equalTo("Iasi"));
+	}
+
+	@Test
+	public void GivenWholeAndNestedField_WhenProject_ThenWholeValue() {
+		// given
+		Address address = new Address("Iasi", "700000");
+		User user = new User(1, "John Doe", address);
+
+		// when
+		Object projection = projector.project(user, "address.city,address");
+
+		// then
+		assertThat(map(projection).get("address"), sameInstance(address));
+	}
+
+	@Test
+	public void GivenList_WhenProject_ThenItemsProjected() {
+		// given
+		List<User> users = Arrays.asList(new User(1, "John Doe", null), new User(2, "Jane Doe", null));
+
+		// when
+		Object projection = projector.project(users, "id");
+
+		// then
+		List<?> list = (List<?>) projection;
+		assertThat(list.size(), equalTo(2));
+		assertThat(map(list.get(1)).get("id"), equalTo(2));
+		assertThat(map(list.get(1)).size(), equalTo(1));
+	}
+
+	@Test
+	public void GivenCloseableIterator_WhenProjectAndClose_ThenItemsProjectedAndSourceClosed() throws Exception {
+		// given
+		CloseableIterator users = new CloseableIterator(Arrays.asList(new User(1, "John Doe", null)).iterator());
+
+		// when
+		Object projection = projector.project(users, "id");
+		Iterator<?> iterator = (Iterator<?>) projection;
+		Object item = iterator.next();
+		((AutoCloseable) projection).close();
+
+		// then
+		assertThat(map(item).keySet(), contains("id"));
+		assertThat(iterator.hasNext(), equalTo(false));
+		assertThat(users.closed.get(), equalTo(true));
+	}
+
+	@Test
+	public void GivenIterable_WhenProject_ThenItemsProjected() {
+		// given
+		Iterable<User> users = () -> Arrays.asList(new User(1, "John Doe", null), new User(2, "Jane Doe", null)).iterator();
+
+		// when
+		Object projection = projector.project(users, "name");
+
+		// then
+		Iterator<?> iterator = (Iterator<?>) projection;
+		assertThat(map(iterator.next()).get("name"), equalTo("John Doe"));
+		assertThat(map(iterator.next()).keySet(), contains("name"));
+		assertThat(iterator.hasNext(), equalTo(false));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void GivenUnknownField_WhenProject_ThenException() {
+		// given
+		User user = new User(1, "John Doe", null);
+
+		// when
+		projector.project(user, "id,password");
+
+		// then
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void GivenEmptyNestedField_WhenProject_ThenException() {
+		// given
+		User user = new User(1, "John Doe", null);
+
+		// when
+		projector.project(user, "address..city");
+
+		// then
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> map(Object value) {
+		return (Map<String, Object>) value;
+	}
+
+	private static class CloseableIterator implements Iterator<User>, AutoCloseable {
+		private final Iterator<User> iterator;
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		public CloseableIterator(Iterator<User> iterator) {
+			this.iterator = iterator;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !closed.get() && iterator.hasNext();
+		}
+
+		@Override
+		public User next() {
+			return iterator.next();
+		}
+
+		@Override
+		public void close() {
+			closed.set(true);
+		}
+	}
+
+	@SuppressWarnings("unused")
+	private static class User {
+		private static final int VERSION = 1;
+
+		private final int id;
+		private final String name;
+		private final Address address;
+
+		public User(int id, String name, Address address) {
+			this.id = id;
+			this.name = name;
+			this.address = address;
+		}
+	}
+
+	@SuppressWarnings("unused")
+	private static class Address {
+		private final String city;
+		private final String zip;
+
+		public Address(String city, String zip) {
+			this.city = city;
+			this.zip = zip;
+		}
+	}
+}
@@ -0,0 +1,209 @@
+package com.jslib.container.rest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.when;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.jslib.container.http.encoder.ArgumentsReaderFactory;
+import com.jslib.container.spi.IContainer;
+import com.jslib.container.spi.IManagedClass;
+import com.jslib.container.spi.IManagedMethod;
+import com.jslib.container.spi.IManagedParameter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.CookieParam;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.QueryParam;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MethodBinderTest {
+	@Mock
+	private IContainer container;
+	@Mock
+	private ArgumentsReaderFactory argumentsReaderFactory;
+	@Mock
+	private IManagedClass<?> managedClass;
+	@Mock
+	private IManagedMethod managedMethod;
+	@Mock
+	private Path methodPath;
+	@Mock
+	private IManagedParameter firstParameter;
+	@Mock
+	private IManagedParameter secondParameter;
+	@Mock
+	private HttpServletRequest httpRequest;
+
+	private PathRouter<Object> router;
+
+	@Before
+	public void beforeTest() {
+		doReturn(managedClass).when(managedMethod).getDeclaringClass();
+		when(managedMethod.scanAnnotation(Path.class)).thenReturn(methodPath);
+		when(managedMethod.getManagedParameters()).thenReturn(Arrays.asList(firstParameter, secondParameter));
+
+		router = new PathRouter<>();
+	}
+
+	@Test
+	public void GivenPathParamsOrderDifferentFromTemplate_WhenBind_ThenBindByName() throws Exception {
+		// given
+		when(methodPath.value()).thenReturn("store/{store}/book/{isbn}");
+		router.put("GET", "store/{store}/book/{isbn}", managedMethod);
+		parameter(firstParameter, Long.class, pathParam("isbn"));
+		parameter(secondParameter, String.class, pathParam("store"));
+
+		// when
+		MethodBinder binder = MethodBinder.create(managedMethod, container, argumentsReaderFactory);
+		Object[] arguments = binder.bind(httpRequest, router.get("GET", "/store/libris/book/9789734631858"));
+
+		// then
+		assertThat(arguments[0], equalTo(9789734631858L));
+		assertThat(arguments[1], equalTo("libris"));
+	}
+
+	@Test
+	public void GivenMissingQueryParamWithDefaultValue_WhenBind_ThenDefaultValueOnlyForMissing() throws Exception {
+		// given
+		when(methodPath.value()).thenReturn("books");
+		router.put("GET", "books", managedMethod);
+		when(httpRequest.getQueryString()).thenReturn("offset=");
+		parameter(firstParameter, String.class, queryParam("offset"), defaultValue("0"));
+		parameter(secondParameter, int.class, queryParam("limit"), defaultValue("20"));
+
+		// when
+		MethodBinder binder = MethodBinder.create(managedMethod, container, argumentsReaderFactory);
+		Object[] arguments = binder.bind(httpRequest, router.get("GET", "/books"));
+
+		// then
+		assertThat(arguments[0], equalTo(""));
+		assertThat(arguments[1], equalTo(20));
+	}
+
+	@Test
+	public void GivenCookies_WhenBind_ThenCaseInsensitiveName() throws Exception {
+		// given
+		when(methodPath.value()).thenReturn("books");
+		router.put("GET", "books", managedMethod);
+		when(httpRequest.getHeaders("Cookie")).thenReturn(Collections.enumeration(Arrays.asList("Session=1234; theme=\"dark\"")));
+		parameter(firstParameter, String.class, cookieParam("session"));
+		parameter(secondParameter, String.class, cookieParam("THEME"));
+
+		// when
+		MethodBinder binder = MethodBinder.create(managedMethod, container, argumentsReaderFactory);
+		Object[] arguments = binder.bind(httpRequest, router.get("GET", "/books"));
+
+		// then
+		assertThat(arguments[0], equalTo("1234"));
+		assertThat(arguments[1], equalTo("dark"));
+	}
+
+	@Test(expected = ParameterNotFoundException.class)
+	public void GivenMissingCookieWithoutDefaultValue_WhenBind_ThenException() throws Exception {
+		// given
+		when(methodPath.value()).thenReturn("books");
+		router.put("GET", "books", managedMethod);
+		when(httpRequest.getHeaders("Cookie")).thenReturn(Collections.emptyEnumeration());
+		parameter(firstParameter, String.class, cookieParam("session"));
+		parameter(secondParameter, String.class, cookieParam("theme"));
+
+		// when
+		MethodBinder binder = MethodBinder.create(managedMethod, container, argumentsReaderFactory);
+		binder.bind(httpRequest, router.get("GET", "/books"));
+
+		// then
+	}
+
+	@Test
+	public void GivenMultipleEntityParameters_WhenCreate_ThenNullArguments() throws Exception {
+		// given
+		when(firstParameter.getAnnotations()).thenReturn(new Annotation[0]);
+		when(secondParameter.getAnnotations()).thenReturn(new Annotation[0]);
+
+		// when
+		MethodBinder binder = MethodBinder.create(managedMethod, container, argumentsReaderFactory);
+
+		// then
+		assertThat(binder.bind(httpRequest, null), nullValue());
+	}
+
+	private static void parameter(IManagedParameter parameter, Class<?> type, Annotation... annotations) {
+		doReturn(type).when(parameter).getType();
+		when(parameter.getAnnotations()).thenReturn(annotations);
+		for (Annotation annotation : annotations) {
+			if (annotation instanceof DefaultValue) {
+				when(parameter.scanAnnotation(DefaultValue.class)).thenReturn((DefaultValue) annotation);
+			}
+		}
+	}
+
+	private static PathParam pathParam(String value) {
+		return new PathParam() {
+			@Override
+			public Class<? extends Annotation> annotationType() {
+				return PathParam.class;
+			}
+
+			@Override
+			public String value() {
+				return value;
+			}
+		};
+	}
+
+	private static QueryParam queryParam(String value) {
+		return new QueryParam() {
+			@Override
+			public Class<? extends Annotation> annotationType() {
+				return QueryParam.class;
+			}
+
+			@Override
+			public String value() {
+				return value;
+			}
+		};
+	}
+
+	private static CookieParam cookieParam(String value) {
+		return new CookieParam() {
+			@Override
+			public Class<? extends Annotation> annotationType() {
+				return CookieParam.class;
+			}
+
+			@Override
+			public String value() {
+				return value;
+			}
+		};
+	}
+
+	private static DefaultValue defaultValue(String value) {
+		return new DefaultValue() {
+			@Override
+			public Class<? extends Annotation> annotationType() {
+				return DefaultValue.class;
+			}
+
+			@Override
+			public String value() {
+				return value;
+			}
+		};
+	}
+}
@@ -1,12 +1,11 @@
 package com.jslib.container.rest;
 
 import static org.hamcrest.MatcherAssert.assertThat;
-import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.when;
 
-import java.util.List;
-
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -50,10 +49,10 @@ public class MethodsCacheTest {
 		when(methodPath.value()).thenReturn("sub-resource");
 
 		// when
-		List<String> key = PathMethodsCache.key(managedMethod);
+		String path = PathMethodsCache.path(managedMethod);
 
 		// then
-		assertThat(key, contains("GET", "resource", "sub-resource"));
+		assertThat(path, equalTo("/resource/sub-resource"));
 	}
 
 	@Test
@@ -63,10 +62,10 @@ public class MethodsCacheTest {
 		when(methodPath.value()).thenReturn("sub-resource");
 
 		// when
-		List<String> key = PathMethodsCache.key(managedMethod);
+		String path = PathMethodsCache.path(managedMethod);
 
 		// then
-		assertThat(key, contains("GET", "sub-resource"));
+		assertThat(path, equalTo("/sub-resource"));
 	}
 
 	@Test
@@ -76,10 +75,10 @@ public class MethodsCacheTest {
 		when(methodPath.value()).thenReturn("sub-resource");
 
 		// when
-		List<String> key = PathMethodsCache.key(managedMethod);
+		String path = PathMethodsCache.path(managedMethod);
 
 		// then
-		assertThat(key, contains("GET", "sub-resource"));
+		assertThat(path, equalTo("/sub-resource"));
 	}
 
 	@Test
@@ -88,10 +87,10 @@ public class MethodsCacheTest {
 		when(methodPath.value()).thenReturn(null);
 
 		// when
-		List<String> key = PathMethodsCache.key(managedMethod);
+		String path = PathMethodsCache.path(managedMethod);
 
 		// then
-		assertThat(key, contains("GET", "resource"));
+		assertThat(path, equalTo("/resource"));
 	}
 
 	@Test
@@ -100,10 +99,10 @@ public class MethodsCacheTest {
 		when(methodPath.value()).thenReturn("");
 
 		// when
-		List<String> key = PathMethodsCache.key(managedMethod);
+		String path = PathMethodsCache.path(managedMethod);
 
 		// then
-		assertThat(key, contains("GET", "resource"));
+		assertThat(path, equalTo("/resource"));
 	}
 
 	@Test
@@ -112,22 +111,52 @@ public class MethodsCacheTest {
 		when(methodPath.value()).thenReturn("	 ");
 
 		// when
-		List<String> key = PathMethodsCache.key(managedMethod);
+		String path = PathMethodsCache.path(managedMethod);
+
+		// then
+		assertThat(path, equalTo("/resource"));
+	}
+
+	@Test
+	public void GivenValidRequestPath_WhenGet_ThenFoundMethod() throws Exception {
+		// given
+		when(methodPath.value()).thenReturn("sub-resource");
+		PathMethodsCache cache = new PathMethodsCache();
+		cache.add(managedMethod);
+
+		// when
 
 		// then
-		assertThat(key, contains("GET", "resource"));
+		assertThat(cache.get("GET", "/resource/sub-resource?query").getValue(), equalTo(managedMethod));
+		assertThat(cache.get("GET", "/resource/sub-resource?").getValue(), equalTo(managedMethod));
+		assertThat(cache.get("GET", "/resource/sub-resource").getValue(), equalTo(managedMethod));
+		assertThat(cache.get("GET", "/resource/sub-resource.ext?query").getValue(), equalTo(managedMethod));
+		assertThat(cache.get("GET", "/resource/sub-resource/").getValue(), equalTo(managedMethod));
 	}
 
 	@Test
-	public void GivenValidRequestPath_WhenCreateRetrieveKey_ThenValidKey() throws Exception {
-		assertThat(PathMethodsCache.key("GET", "/resource/sub-resource?query"), contains("GET", "resource", "sub-resource"));
-		assertThat(PathMethodsCache.key("GET", "/resource/sub-resource?"), contains("GET", "resource", "sub-resource"));
-		assertThat(PathMethodsCache.key("GET", "/resource/sub-resource"), contains("GET", "resource", "sub-resource"));
+	public void GivenDotInPathTemplate_WhenGet_ThenMatchExtension() throws Exception {
+		// given
+		when(methodPath.value()).thenReturn("{name}.{ext}");
+		PathMethodsCache cache = new PathMethodsCache();
+		cache.add(managedMethod);
+
+		// when
+		PathRouter.Match<IManagedMethod> match = cache.get("GET", "/resource/report.pdf");
 
-		assertThat(PathMethodsCache.key("GET", "/resource/sub-resource.ext?query"), contains("GET", "resource", "sub-resource"));
+		// then
+		assertThat(match, notNullValue());
+		assertThat(match.getValue(), equalTo(managedMethod));
+		assertThat(match.getVariableValue("name"), equalTo("report"));
+		assertThat(match.getVariableValue("ext"), equalTo("pdf"));
+	}
 
-		assertThat(PathMethodsCache.key("GET", "/sub-resource?query"), contains("GET", "sub-resource"));
-		assertThat(PathMethodsCache.key("GET", "/sub-resource?"), contains("GET", "sub-resource"));
-		assertThat(PathMethodsCache.key("GET", "/sub-resource"), contains("GET", "sub-resource"));
+	@Test
+	public void GivenValidRequestPath_WhenQueryAndExtensionIndex_ThenTrimQueryAndExtension() throws Exception {
+		assertThat(PathMethodsCache.queryIndex("/resource/sub-resource?query"), equalTo(22));
+		assertThat(PathMethodsCache.queryIndex("/resource/sub-resource"), equalTo(22));
+		assertThat(PathMethodsCache.extensionIndex("/resource/sub-resource.ext?query", 26), equalTo(22));
+		assertThat(PathMethodsCache.extensionIndex("/resource/sub-resource?query", 22), equalTo(22));
+		assertThat(PathMethodsCache.extensionIndex("/resource.v1/sub-resource", 25), equalTo(25));
 	}
 }
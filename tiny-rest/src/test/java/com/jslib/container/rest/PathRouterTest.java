@@ -0,0 +1,250 @@
+package com.jslib.container.rest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jslib.container.rest.PathRouter.Match;
+
+public class PathRouterTest {
+	private PathRouter<Object> router;
+
+	@Before
+	public void beforeTest() {
+		router = new PathRouter<>();
+	}
+
+	@Test
+	public void GivenSingleComponentPath_WhenGet_ThenFoundValueAndNoVariables() {
+		// given
+		Object value = new Object();
+		router.put("GET", "book", value);
+
+		// when
+		Match<Object> match = router.get("GET", "/book");
+
+		// then
+		assertThat(match, notNullValue());
+		assertThat(match.getValue(), equalTo(value));
+		assertThat(match.getVariablesCount(), equalTo(0));
+	}
+
+	@Test
+	public void GivenSingleComponentPath_WhenGetMisspelled_ThenNullMatch() {
+		// given
+		router.put("GET", "book", new Object());
+
+		// when
+		Match<Object> match = router.get("GET", "/bookx");
+
+		// then
+		assertThat(match, nullValue());
+	}
+
+	@Test
+	public void GivenTwoComponentsPath_WhenGet_ThenFoundValue() {
+		// given
+		Object value = new Object();
+		router.put("GET", "author/book", value);
+
+		// when
+		Match<Object> match = router.get("GET", "/author/book");
+
+		// then
+		assertThat(match, notNullValue());
+		assertThat(match.getValue(), equalTo(value));
+	}
+
+	@Test
+	public void GivenMixedPathComponentsAndVariables_WhenGet_ThenFoundValueAndLoadVariables() {
+		// given
+		Object value = new Object();
+		router.put("GET", "store/{store}/book/{isbn}", value);
+
+		// when
+		Match<Object> match = router.get("GET", "/store/libris/book/978-973-46-3185-8");
+
+		// then
+		assertThat(match, notNullValue());
+		assertThat(match.getValue(), equalTo(value));
+		assertThat(variables(match), contains("libris", "978-973-46-3185-8"));
+		assertThat(match.getVariableValue("isbn"), equalTo("978-973-46-3185-8"));
+	}
+
+	@Test
+	public void GivenMoreRequestPathComponents_WhenGet_ThenNullMatch() {
+		// given
+		router.put("GET", "book/{isbn}", new Object());
+
+		// when
+		Match<Object> match = router.get("GET", "/book/978-973-46-3185-8/libris");
+
+		// then
+		assertThat(match, nullValue());
+	}
+
+	@Test
+	public void GivenMultiplePathsWithSameRoot_WhenGet_ThenValuesAndVariables() {
+		// given
+		router.put("GET", "book/author", "item1");
+		router.put("GET", "book/{store}/{isbn}", "item2");
+		router.put("GET", "book/info", "item3");
+
+		// when
+		Match<Object> match1 = router.get("GET", "/book/author");
+		Match<Object> match2 = router.get("GET", "/book/libris/978-973-46-3185-8");
+		Match<Object> match3 = router.get("GET", "/book/info");
+
+		// then
+		assertThat(match1.getValue(), equalTo("item1"));
+		assertThat(match2.getValue(), equalTo("item2"));
+		assertThat(variables(match2), contains("libris", "978-973-46-3185-8"));
+		assertThat(match3.getValue(), equalTo("item3"));
+	}
+
+	@Test
+	public void GivenLiteralAndVariableBranches_WhenLiteralBranchFails_ThenBacktrackOnVariable() {
+		// given
+		router.put("GET", "users/me/x", "me");
+		router.put("GET", "users/{id}/y", "id");
+
+		// when
+		Match<Object> match1 = router.get("GET", "/users/me/x");
+		Match<Object> match2 = router.get("GET", "/users/me/y");
+
+		// then
+		assertThat(match1.getValue(), equalTo("me"));
+		assertThat(match2.getValue(), equalTo("id"));
+		assertThat(match2.getVariableValue("id"), equalTo("me"));
+	}
+
+	@Test
+	public void GivenRegexVariable_WhenGet_ThenRegexTakesPrecedence() {
+		// given
+		router.put("GET", "users/{name}", "name");
+		router.put("GET", "users/{id: \\d+}", "id");
+
+		// when
+		Match<Object> match1 = router.get("GET", "/users/123");
+		Match<Object> match2 = router.get("GET", "/users/john");
+
+		// then
+		assertThat(match1.getValue(), equalTo("id"));
+		assertThat(match2.getValue(), equalTo("name"));
+	}
+
+	@Test
+	public void GivenMultipleVariablesPerSegment_WhenGet_ThenLoadVariables() {
+		// given
+		router.put("GET", "files/{name}.{ext}", "file");
+
+		// when
+		Match<Object> match = router.get("GET", "/files/report.tar.gz");
+
+		// then
+		assertThat(match.getValue(), equalTo("file"));
+		assertThat(match.getVariableValue("name"), equalTo("report"));
+		assertThat(match.getVariableValue("ext"), equalTo("tar.gz"));
+	}
+
+	@Test
+	public void GivenMultiSegmentsVariable_WhenGet_ThenLongerTemplateTakesPrecedence() {
+		// given
+		router.put("GET", "static/{path: .+}", "static");
+		router.put("GET", "static/{path: .+}/edit", "edit");
+
+		// when
+		Match<Object> match1 = router.get("GET", "/static/css/site.css");
+		Match<Object> match2 = router.get("GET", "/static/css/site.css/edit");
+
+		// then
+		assertThat(match1.getValue(), equalTo("static"));
+		assertThat(match1.getVariableValue("path"), equalTo("css/site.css"));
+		assertThat(match2.getValue(), equalTo("edit"));
+		assertThat(match2.getVariableValue("path"), equalTo("css/site.css"));
+	}
+
+	@Test
+	public void GivenOtherHttpMethod_WhenGet_ThenNullValueAndAllow() {
+		// given
+		router.put("GET", "users/{id}", "get");
+		router.put("DELETE", "users/{id}", "delete");
+
+		// when
+		Match<Object> match = router.get("PUT", "/users/123");
+
+		// then
+		assertThat(match, notNullValue());
+		assertThat(match.getValue(), nullValue());
+		assertThat(match.getAllow(), equalTo("GET, DELETE, HEAD"));
+	}
+
+	@Test
+	public void GivenGetMethod_WhenHead_ThenFoundValue() {
+		// given
+		router.put("GET", "users/{id}", "get");
+
+		// when
+		Match<Object> match = router.get("HEAD", "/users/123");
+
+		// then
+		assertThat(match.getValue(), equalTo("get"));
+	}
+
+	@Test
+	public void GivenPathOffsets_WhenGet_ThenMatchOnlyRegion() {
+		// given
+		router.put("GET", "book/{isbn}", "book");
+
+		// when
+		Match<Object> match = router.get("GET", "/book/978-973.json", 0, 13);
+
+		// then
+		assertThat(match.getValue(), equalTo("book"));
+		assertThat(match.getVariableValue(0), equalTo("978-973"));
+	}
+
+	@Test
+	public void GivenEmptyTemplate_WhenGetRoot_ThenFoundValue() {
+		// given
+		Object value = new Object();
+		router.put("GET", "/", value);
+
+		// when
+		Match<Object> root = router.get("GET", "/");
+		Match<Object> empty = router.get("GET", "");
+		Match<Object> book = router.get("GET", "/book");
+
+		// then
+		assertThat(root, notNullValue());
+		assertThat(root.getValue(), equalTo(value));
+		assertThat(empty.getValue(), equalTo(value));
+		assertThat(book, nullValue());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void GivenUnbalancedBraces_WhenPut_ThenException() {
+		// given
+
+		// when
+		router.put("GET", "book/{isbn", new Object());
+
+		// then
+	}
+
+	private static List<String> variables(Match<?> match) {
+		List<String> variables = new ArrayList<>();
+		for (int i = 0; i < match.getVariablesCount(); ++i) {
+			variables.add(match.getVariableValue(i));
+		}
+		return variables;
+	}
+}
@@ -0,0 +1,186 @@
+package com.jslib.container.rest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.jslib.api.json.Json;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PublisherResponseTest {
+	@Mock
+	private AsyncContext asyncContext;
+	@Mock
+	private HttpServletResponse httpResponse;
+	@Mock
+	private ServletOutputStream outputStream;
+	@Mock
+	private Json json;
+	@Mock
+	private Flow.Publisher<Object> publisher;
+	@Mock
+	private Flow.Subscription subscription;
+	@Mock
+	private AsyncEvent asyncEvent;
+
+	private List<Throwable> errors;
+
+	@Before
+	public void beforeTest() throws IOException {
+		when(asyncContext.getResponse()).thenReturn(httpResponse);
+		when(httpResponse.getOutputStream()).thenReturn(outputStream);
+		errors = new ArrayList<>();
+	}
+
+	@Test
+	public void GivenReadyOutput_WhenItemsAndComplete_ThenNdjsonWrittenAndCompleted() throws IOException {
+		// given
+		when(outputStream.isReady()).thenReturn(true);
+		serializer();
+		PublisherResponse response = start(false);
+
+		// when
+		response.onSubscribe(subscription);
+		response.onNext(1);
+		response.onNext(2);
+		response.onComplete();
+
+		// then
+		assertThat(written(2), equalTo("1\n2\n"));
+		verify(subscription, times(1)).request(4);
+		verify(subscription, times(1)).request(2);
+		verify(outputStream, times(2)).flush();
+		verify(asyncContext, times(1)).complete();
+	}
+
+	@Test
+	public void GivenNotReadyOutput_WhenItems_ThenDemandNotReplenished() throws IOException {
+		// given
+		when(outputStream.isReady()).thenReturn(false);
+		serializer();
+		ArgumentCaptor<WriteListener> writeListener = ArgumentCaptor.forClass(WriteListener.class);
+		PublisherResponse response = start(false);
+		verify(outputStream).setWriteListener(writeListener.capture());
+
+		// when
+		response.onSubscribe(subscription);
+		response.onNext(1);
+		response.onNext(2);
+
+		// then
+		verify(outputStream, never()).write(any(byte[].class));
+		verify(subscription, times(1)).request(anyLong());
+
+		// when
+		when(outputStream.isReady()).thenReturn(true);
+		writeListener.getValue().onWritePossible();
+
+		// then
+		assertThat(written(2), equalTo("1\n2\n"));
+		verify(subscription, times(1)).request(2);
+		verify(asyncContext, never()).complete();
+	}
+
+	@Test
+	public void GivenServerSentEvents_WhenItem_ThenDataEvent() throws IOException {
+		// given
+		when(outputStream.isReady()).thenReturn(true);
+		serializer();
+		PublisherResponse response = start(true);
+
+		// when
+		response.onSubscribe(subscription);
+		response.onNext(1);
+
+		// then
+		assertThat(written(1), equalTo("data:1\r\n\r\n"));
+	}
+
+	@Test
+	public void GivenUncommittedResponse_WhenPublisherError_ThenErrorHandler() throws IOException {
+		// given
+		when(outputStream.isReady()).thenReturn(true);
+		PublisherResponse response = start(false);
+		Exception exception = new Exception();
+
+		// when
+		response.onSubscribe(subscription);
+		response.onError(exception);
+
+		// then
+		assertThat(errors.size(), equalTo(1));
+		assertThat(errors.get(0), sameInstance(exception));
+		verify(asyncContext, times(1)).complete();
+	}
+
+	@Test
+	public void GivenSubscribed_WhenAsyncContextComplete_ThenSubscriptionCancelled() throws IOException {
+		// given
+		PublisherResponse response = start(false);
+		response.onSubscribe(subscription);
+
+		// when
+		response.onComplete(asyncEvent);
+		response.onNext(1);
+
+		// then
+		verify(subscription, times(1)).cancel();
+		verify(outputStream, never()).write(any(byte[].class));
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private PublisherResponse start(boolean sse) throws IOException {
+		PublisherResponse response = new PublisherResponse(asyncContext, json, sse, 4, errors::add);
+		response.start(publisher);
+		verify(asyncContext).setTimeout(0);
+		verify(publisher).subscribe(response);
+		return response;
+	}
+
+	/** JSON serializer stub writes item string representation. */
+	private void serializer() throws IOException {
+		doAnswer(invocation -> {
+			Writer writer = invocation.getArgument(0);
+			writer.write(invocation.getArgument(1).toString());
+			return null;
+		}).when(json).stringify(any(Writer.class), any());
+	}
+
+	private String written(int chunks) throws IOException {
+		ArgumentCaptor<byte[]> captor = ArgumentCaptor.forClass(byte[].class);
+		verify(outputStream, times(chunks)).write(captor.capture());
+		StringBuilder builder = new StringBuilder();
+		for (byte[] chunk : captor.getAllValues()) {
+			builder.append(new String(chunk, StandardCharsets.UTF_8));
+		}
+		return builder.toString();
+	}
+}
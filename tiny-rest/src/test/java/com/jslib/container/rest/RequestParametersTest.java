@@ -0,0 +1,104 @@
+package com.jslib.container.rest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RequestParametersTest {
+	@Mock
+	private HttpServletRequest httpRequest;
+
+	private RequestParameters parameters;
+
+	@Before
+	public void beforeTest() {
+		parameters = new RequestParameters(httpRequest);
+	}
+
+	@Test
+	public void GivenQueryString_WhenGetQueryParameter_ThenDecodedValue() {
+		// given
+		when(httpRequest.getQueryString()).thenReturn("name=Iulian+Rotaru&city=Ia%C8%99i&name=John&flag");
+
+		// when
+
+		// then
+		assertThat(parameters.getQueryParameter("name"), equalTo("Iulian Rotaru"));
+		assertThat(parameters.getQueryParameter("city"), equalTo("Ia\u0219i"));
+		assertThat(parameters.getQueryParameter("flag"), equalTo(""));
+		assertThat(parameters.getQueryParameter("missing"), nullValue());
+		verify(httpRequest, never()).getRequestURI();
+	}
+
+	@Test
+	public void GivenEncodedQueryParameterName_WhenGetQueryParameter_ThenFound() {
+		// given
+		when(httpRequest.getQueryString()).thenReturn("ids%5B0%5D=1");
+
+		// when
+		String value = parameters.getQueryParameter("ids[0]");
+
+		// then
+		assertThat(value, equalTo("1"));
+	}
+
+	@Test
+	public void GivenMatrixParameters_WhenGetMatrixParameter_ThenDecodedValue() {
+		// given
+		when(httpRequest.getRequestURI()).thenReturn("/tiny-rest/rest/hello;lang=en/matrix;name=Iulian%20Rotaru;age=58");
+
+		// when
+
+		// then
+		assertThat(parameters.getMatrixParameter("lang"), equalTo("en"));
+		assertThat(parameters.getMatrixParameter("name"), equalTo("Iulian Rotaru"));
+		assertThat(parameters.getMatrixParameter("age"), equalTo("58"));
+		verify(httpRequest, never()).getQueryString();
+	}
+
+	@Test
+	public void GivenCookieHeaders_WhenGetCookie_ThenCaseInsensitiveName() {
+		// given
+		when(httpRequest.getHeaders("Cookie")).thenReturn(Collections.enumeration(Arrays.asList("JSESSIONID=ABC123; theme=\"dark\"", "lang=en")));
+
+		// when
+
+		// then
+		assertThat(parameters.getCookie("jsessionid"), equalTo("ABC123"));
+		assertThat(parameters.getCookie("Theme"), equalTo("dark"));
+		assertThat(parameters.getCookie("lang"), equalTo("en"));
+		assertThat(parameters.getCookie("missing"), nullValue());
+	}
+
+	@Test
+	public void GivenManyParameters_WhenGetQueryParameter_ThenFound() {
+		// given
+		StringBuilder query = new StringBuilder();
+		for (int i = 0; i < 100; ++i) {
+			query.append("p").append(i).append('=').append(i).append('&');
+		}
+		when(httpRequest.getQueryString()).thenReturn(query.toString());
+
+		// when
+
+		// then
+		for (int i = 0; i < 100; ++i) {
+			assertThat(parameters.getQueryParameter("p" + i), equalTo(Integer.toString(i)));
+		}
+	}
+}
@@ -65,6 +65,8 @@ public class RestServletUnitTest {
 	@Mock
 	private PathMethodsCache cache;
 	@Mock
+	private PathRouter.Match<IManagedMethod> requestPath;
+	@Mock
 	private ServerEncoders encoders;
 	@Mock
 	private ArgumentsReader argumentsReader;
@@ -94,9 +96,9 @@ public class RestServletUnitTest {
 		when(httpRequest.getContextPath()).thenReturn("/test-app");
 		when(httpRequest.getPathInfo()).thenReturn("/resource/rest/sub-resource");
 		when(httpRequest.getLocale()).thenReturn(Locale.ENGLISH);
-		when(httpRequest.getParameterNames()).thenReturn(Collections.emptyEnumeration());
 
-		when(cache.get("POST", "/resource/rest/sub-resource")).thenReturn(new PathTree.Item<>(managedMethod));
+		when(requestPath.getValue()).thenReturn(managedMethod);
+		when(cache.get("POST", "/resource/rest/sub-resource")).thenReturn(requestPath);
 		when(encoders.getArgumentsReader(any(), any())).thenReturn(argumentsReader);
 		when(encoders.getValueWriter(any())).thenReturn(valueWriter);
 		when(argumentsReader.read(any(), any())).thenReturn(new Object[] {});
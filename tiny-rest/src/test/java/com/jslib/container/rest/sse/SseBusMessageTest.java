@@ -0,0 +1,103 @@
+package com.jslib.container.rest.sse;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.jslib.api.json.Json;
+
+import jakarta.ws.rs.sse.OutboundSseEvent;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SseBusMessageTest {
+	@Mock
+	private Json json;
+
+	@Test
+	public void GivenEvent_WhenDecodeEncoded_ThenSameFields() throws IOException {
+		// given
+		doAnswer(invocation -> {
+			Writer writer = invocation.getArgument(0);
+			writer.write("{\"price\":1}");
+			writer.close();
+			return null;
+		}).when(json).stringify(any(Writer.class), any());
+		OutboundSseEvent event = OutboundSseEventImpl.builder().name("tick").comment("comment").reconnectDelay(3000).data(new Tick("EURUSD")).build();
+
+		// when
+		OutboundSseEvent decoded = SseBusMessage.decode(SseBusMessage.encode(json, event));
+
+		// then
+		assertThat(decoded.getName(), equalTo("tick"));
+		assertThat(decoded.getComment(), equalTo("comment"));
+		assertThat(decoded.getReconnectDelay(), equalTo(3000L));
+		assertThat(decoded.getData(), instanceOf(SseBusMessage.RawData.class));
+		assertThat(((Conflatable) decoded.getData()).getConflationKey(), equalTo("EURUSD"));
+	}
+
+	@Test
+	public void GivenDecodedEvent_WhenEncodeFrame_ThenDataVerbatim() throws IOException {
+		// given
+		doAnswer(invocation -> {
+			Writer writer = invocation.getArgument(0);
+			writer.write("{\"price\":1}");
+			return null;
+		}).when(json).stringify(any(Writer.class), any());
+		OutboundSseEvent event = SseBusMessage.decode(SseBusMessage.encode(json, OutboundSseEventImpl.builder().name("tick").data(new Object()).build()));
+
+		// when
+		SseFrame frame = SseFrame.encode(json, event, "7");
+
+		// then
+		assertThat(new String(frame.getBytes(), StandardCharsets.UTF_8), equalTo("event:tick\r\nid:7\r\ndata:{\"price\":1}\r\n\r\n"));
+		assertThat(((Conflatable) event.getData()).getConflationKey(), nullValue());
+	}
+
+	@Test
+	public void GivenLongConflationKey_WhenDecodeEncoded_ThenSameKey() throws IOException {
+		// given
+		OutboundSseEvent event = OutboundSseEventImpl.builder().name("tick").data(new Tick(42L)).build();
+
+		// when
+		OutboundSseEvent decoded = SseBusMessage.decode(SseBusMessage.encode(json, event));
+
+		// then
+		assertThat(((Conflatable) decoded.getData()).getConflationKey(), equalTo(42L));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void GivenNotSupportedConflationKey_WhenEncode_ThenException() throws IOException {
+		// given
+		OutboundSseEvent event = OutboundSseEventImpl.builder().name("tick").data(new Tick(new Object())).build();
+
+		// when
+		SseBusMessage.encode(json, event);
+
+		// then
+	}
+
+	private static class Tick implements Conflatable {
+		private final Object instrument;
+
+		public Tick(Object instrument) {
+			this.instrument = instrument;
+		}
+
+		@Override
+		public Object getConflationKey() {
+			return instrument;
+		}
+	}
+}
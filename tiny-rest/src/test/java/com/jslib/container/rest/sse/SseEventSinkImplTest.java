@@ -0,0 +1,259 @@
+package com.jslib.container.rest.sse;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.jslib.api.json.Json;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.SseEventSink;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SseEventSinkImplTest {
+	@Mock
+	private Json json;
+
+	private NonBlockingStream outputStream;
+	private SseEventSinkImpl sink;
+
+	@Before
+	public void beforeTest() {
+		outputStream = new NonBlockingStream();
+		sink = new SseEventSinkImpl(json);
+		sink.setOutputStream(outputStream);
+	}
+
+	@Test
+	public void GivenEvent_WhenEncode_ThenWireFormat() throws IOException {
+		// given
+		doAnswer(invocation -> {
+			Writer writer = invocation.getArgument(0);
+			writer.write("{\"price\":1}");
+			writer.close();
+			return null;
+		}).when(json).stringify(any(Writer.class), any());
+
+		// when
+		SseFrame frame = SseFrame.encode(json, OutboundSseEventImpl.builder().name("tick").id("7").data(new Object()).build());
+
+		// then
+		assertThat(new String(frame.getBytes(), StandardCharsets.UTF_8), equalTo("event:tick\r\nid:7\r\ndata:{\"price\":1}\r\n\r\n"));
+	}
+
+	@Test
+	public void GivenNotBoundSink_WhenClose_ThenClosed() {
+		// given
+		SseEventSinkImpl sink = new SseEventSinkImpl(json);
+
+		// when
+		sink.close();
+
+		// then
+		assertThat(sink.isClosed(), equalTo(true));
+	}
+
+	@Test
+	public void GivenQueuedFrames_WhenDrain_ThenWrittenInOrder() {
+		// given
+		sink.offer(SseFrame.comment("1"));
+		sink.offer(SseFrame.comment("2"));
+
+		// when
+		sink.drain();
+
+		// then
+		assertThat(written(), equalTo(":1\r\n\r\n:2\r\n\r\n"));
+	}
+
+	@Test
+	public void GivenDropOldestAndFullQueue_WhenOffer_ThenOldestDropped() {
+		// given
+		sink.setOutboundQueue(2, SseOverflowPolicy.DROP_OLDEST);
+		sink.offer(SseFrame.comment("1"));
+		sink.offer(SseFrame.comment("2"));
+
+		// when
+		boolean accepted = sink.offer(SseFrame.comment("3"));
+		sink.drain();
+
+		// then
+		assertThat(accepted, equalTo(true));
+		assertThat(written(), equalTo(":2\r\n\r\n:3\r\n\r\n"));
+	}
+
+	@Test
+	public void GivenDropNewestAndFullQueue_WhenOffer_ThenNewestDropped() {
+		// given
+		sink.setOutboundQueue(2, SseOverflowPolicy.DROP_NEWEST);
+		sink.offer(SseFrame.comment("1"));
+		sink.offer(SseFrame.comment("2"));
+
+		// when
+		boolean accepted = sink.offer(SseFrame.comment("3"));
+		sink.drain();
+
+		// then
+		assertThat(accepted, equalTo(true));
+		assertThat(written(), equalTo(":1\r\n\r\n:2\r\n\r\n"));
+	}
+
+	@Test
+	public void GivenDisconnectAndFullQueue_WhenOffer_ThenRejected() {
+		// given
+		sink.setOutboundQueue(1, SseOverflowPolicy.DISCONNECT);
+		sink.offer(SseFrame.comment("1"));
+
+		// when
+		boolean accepted = sink.offer(SseFrame.comment("2"));
+
+		// then
+		assertThat(accepted, equalTo(false));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void GivenWriteFailure_WhenDrain_ThenSinkClosed() {
+		// given
+		outputStream.failing = true;
+		Consumer<SseEventSink> onClose = mock(Consumer.class);
+		sink.setOnEventSinkClose(onClose);
+		sink.offer(SseFrame.comment("1"));
+
+		// when
+		sink.drain();
+
+		// then
+		assertThat(sink.isClosed(), equalTo(true));
+		assertThat(outputStream.closed, equalTo(true));
+		verify(onClose, times(1)).accept(sink);
+	}
+
+	@Test
+	public void GivenOutputStreamReady_WhenSend_ThenStageCompleted() {
+		// given
+		OutboundSseEvent event = OutboundSseEventImpl.builder().comment("1").build();
+
+		// when
+		CompletionStage<Boolean> stage = sink.send(event);
+
+		// then
+		assertThat(stage.toCompletableFuture().getNow(null), equalTo(true));
+		assertThat(written(), equalTo(":1\r\n\r\n"));
+		assertThat(outputStream.flushes, equalTo(1));
+	}
+
+	@Test
+	public void GivenOutputStreamNotReady_WhenSend_ThenStagePendingTillWritePossible() throws IOException {
+		// given
+		outputStream.ready = false;
+		OutboundSseEvent event = OutboundSseEventImpl.builder().comment("1").build();
+
+		// when
+		CompletionStage<Boolean> stage = sink.send(event);
+
+		// then
+		assertThat(stage.toCompletableFuture().isDone(), equalTo(false));
+		assertThat(written(), equalTo(""));
+
+		// when
+		outputStream.ready = true;
+		outputStream.listener.onWritePossible();
+
+		// then
+		assertThat(stage.toCompletableFuture().getNow(null), equalTo(true));
+		assertThat(written(), equalTo(":1\r\n\r\n"));
+	}
+
+	@Test
+	public void GivenPendingSend_WhenClose_ThenStageFailed() {
+		// given
+		outputStream.ready = false;
+		CompletionStage<Boolean> stage = sink.send(OutboundSseEventImpl.builder().comment("1").build());
+
+		// when
+		sink.close(false);
+
+		// then
+		assertThat(stage.toCompletableFuture().isCompletedExceptionally(), equalTo(true));
+	}
+
+	@Test
+	public void GivenScheduled_WhenScheduleAgain_ThenFalseUntilDrained() {
+		// given
+		sink.schedule();
+
+		// when
+		boolean scheduled = sink.schedule();
+		sink.drain();
+
+		// then
+		assertThat(scheduled, equalTo(false));
+		assertThat(sink.schedule(), equalTo(true));
+	}
+
+	private String written() {
+		return new String(outputStream.bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Servlet output stream in non-blocking mode with controllable readiness.
+	 * 
+	 * @author Iulian Rotaru
+	 */
+	private static class NonBlockingStream extends ServletOutputStream {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		WriteListener listener;
+		boolean ready = true;
+		boolean failing;
+		boolean closed;
+		int flushes;
+
+		@Override
+		public boolean isReady() {
+			return ready;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (failing) {
+				throw new IOException("Broken pipe");
+			}
+			bytes.write(b);
+		}
+
+		@Override
+		public void flush() {
+			++flushes;
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.jslib.container.rest.sse;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jakarta.ws.rs.sse.OutboundSseEvent;
+
+public class SseEventsQueueTest {
+	private SseEventsQueue queue;
+
+	@Before
+	public void beforeTest() {
+		queue = new SseEventsQueue(4);
+	}
+
+	@Test
+	public void GivenOfferedEvents_WhenPoll_ThenFifoOrder() {
+		// given
+		OutboundSseEvent event1 = event("1");
+		OutboundSseEvent event2 = event("2");
+		queue.offer(event1);
+		queue.offer(event2);
+
+		// when
+		OutboundSseEvent polled1 = queue.poll();
+		OutboundSseEvent polled2 = queue.poll();
+
+		// then
+		assertThat(polled1, equalTo(event1));
+		assertThat(polled2, equalTo(event2));
+		assertThat(queue.poll(), nullValue());
+	}
+
+	@Test
+	public void GivenFullQueue_WhenOffer_ThenDropped() {
+		// given
+		for (int i = 0; i < 4; ++i) {
+			queue.offer(event(Integer.toString(i)));
+		}
+
+		// when
+		boolean offered = queue.offer(event("4"));
+
+		// then
+		assertThat(offered, equalTo(false));
+	}
+
+	@Test
+	public void GivenPendingKeyedEvent_WhenOfferSameKey_ThenReplacedInPlace() {
+		// given
+		OutboundSseEvent tick1 = event(new Tick("EUR", 1));
+		OutboundSseEvent other = event("other");
+		OutboundSseEvent tick2 = event(new Tick("EUR", 2));
+		queue.offer(tick1);
+		queue.offer(other);
+
+		// when
+		queue.offer(tick2);
+
+		// then
+		assertThat(queue.poll(), equalTo(tick2));
+		assertThat(queue.poll(), equalTo(other));
+		assertThat(queue.poll(), nullValue());
+	}
+
+	@Test
+	public void GivenTakenKeyedEvent_WhenOfferSameKey_ThenQueuedAgain() {
+		// given
+		queue.offer(event(new Tick("EUR", 1)));
+		queue.poll();
+		OutboundSseEvent tick2 = event(new Tick("EUR", 2));
+
+		// when
+		queue.offer(tick2);
+
+		// then
+		assertThat(queue.poll(), equalTo(tick2));
+	}
+
+	@Test
+	public void GivenPolledAllEvents_WhenIsEmpty_ThenTrue() {
+		// given
+		queue.offer(event("1"));
+		boolean emptyBefore = queue.isEmpty();
+		queue.poll();
+
+		// when
+		boolean empty = queue.isEmpty();
+
+		// then
+		assertThat(emptyBefore, equalTo(false));
+		assertThat(empty, equalTo(true));
+	}
+
+	private static OutboundSseEvent event(Object data) {
+		return OutboundSseEventImpl.builder().data(data).build();
+	}
+
+	private static class Tick implements Conflatable {
+		final String instrument;
+		final double price;
+
+		Tick(String instrument, double price) {
+			this.instrument = instrument;
+			this.price = price;
+		}
+
+		@Override
+		public Object getConflationKey() {
+			return instrument;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.jslib.container.rest.sse;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class SseReplayBufferTest {
+	@Test
+	public void GivenBufferedFrames_WhenSince_ThenMissedFramesInOrder() {
+		// given
+		SseReplayBuffer buffer = new SseReplayBuffer(8, 1024);
+		SseFrame frame1 = SseFrame.comment("1");
+		SseFrame frame2 = SseFrame.comment("2");
+		SseFrame frame3 = SseFrame.comment("3");
+		buffer.add(1, frame1);
+		buffer.add(2, frame2);
+		buffer.add(3, frame3);
+
+		// when
+		List<SseFrame> frames = buffer.since(1);
+
+		// then
+		assertThat(frames, contains(frame2, frame3));
+	}
+
+	@Test
+	public void GivenClientUpToDate_WhenSince_ThenEmpty() {
+		// given
+		SseReplayBuffer buffer = new SseReplayBuffer(8, 1024);
+		buffer.add(1, SseFrame.comment("1"));
+
+		// when
+		List<SseFrame> frames = buffer.since(1);
+
+		// then
+		assertThat(frames, empty());
+	}
+
+	@Test
+	public void GivenFramesCountExceeded_WhenSinceEvicted_ThenNull() {
+		// given
+		SseReplayBuffer buffer = new SseReplayBuffer(2, 1024);
+		buffer.add(1, SseFrame.comment("1"));
+		buffer.add(2, SseFrame.comment("2"));
+		buffer.add(3, SseFrame.comment("3"));
+
+		// when
+		List<SseFrame> frames = buffer.since(0);
+
+		// then
+		assertThat(frames, nullValue());
+	}
+
+	@Test
+	public void GivenBytesCapExceeded_WhenSinceEvicted_ThenNull() {
+		// given
+		// comment frame ':1\r\n\r\n' has 6 bytes
+		SseReplayBuffer buffer = new SseReplayBuffer(8, 12);
+		buffer.add(1, SseFrame.comment("1"));
+		buffer.add(2, SseFrame.comment("2"));
+		SseFrame frame3 = SseFrame.comment("3");
+		buffer.add(3, frame3);
+
+		// when
+		List<SseFrame> evicted = buffer.since(0);
+		List<SseFrame> buffered = buffer.since(2);
+
+		// then
+		assertThat(evicted, nullValue());
+		assertThat(buffered, contains(frame3));
+	}
+
+	@Test
+	public void GivenUnknownSequence_WhenSince_ThenNull() {
+		// given
+		SseReplayBuffer buffer = new SseReplayBuffer(8, 1024);
+		buffer.add(1, SseFrame.comment("1"));
+
+		// when
+		List<SseFrame> frames = buffer.since(7);
+
+		// then
+		assertThat(frames, nullValue());
+	}
+}
@@ -1,9 +1,8 @@
 package com.jslib.container.security;
 
-import java.lang.annotation.Annotation;
-
 import com.jslib.api.log.Log;
 import com.jslib.api.log.LogFactory;
+import com.jslib.container.servlet.MethodSecurity;
 import com.jslib.container.spi.IContainer;
 import com.jslib.container.spi.IInvocation;
 import com.jslib.container.spi.IInvocationProcessorsChain;
@@ -11,13 +10,8 @@ import com.jslib.container.spi.IManagedMethod;
 import com.jslib.container.spi.IMethodInvocationProcessor;
 import com.jslib.container.spi.ISecurityContext;
 
-import jakarta.annotation.security.DenyAll;
-import jakarta.annotation.security.PermitAll;
-import jakarta.annotation.security.RolesAllowed;
 import jakarta.servlet.http.HttpServletRequest;
 
-import com.jslib.util.Classes;
-
 public class SecurityService implements IMethodInvocationProcessor {
 	private static final Log log = LogFactory.getLog(SecurityService.class);
 
@@ -43,25 +37,8 @@ public class SecurityService implements IMethodInvocationProcessor {
 
 	@Override
 	public boolean bind(IManagedMethod managedMethod) {
-		// if method is 'PermitAll' there is no need to bind security processor
-		if (managedMethod.scanAnnotation(PermitAll.class) != null) {
-			return false;
-		}
-
-		if (managedMethod.scanAnnotation(DenyAll.class) != null) {
-			return true;
-		}
-		if (managedMethod.scanAnnotation(RolesAllowed.class) != null) {
-			return true;
-		}
-
-		// if declaring class is 'PermitAll' there is no need to bind security processor
-		if (managedMethod.getDeclaringClass().scanAnnotation(PermitAll.class) != null) {
-			return false;
-		}
-
-		// if public access is not granted return true to bind security processor
-		return true;
+		// if public access is granted there is no need to bind security processor
+		return !MethodSecurity.isPublic(managedMethod);
 	}
 
 	@Override
@@ -76,33 +53,10 @@ public class SecurityService implements IMethodInvocationProcessor {
 			return chain.invokeNextProcessor(invocation);
 		}
 
-		if (managedMethod.scanAnnotation(DenyAll.class, IManagedMethod.Flags.INCLUDE_TYPES) != null) {
-			log.warn("Access denied to |{managed_method}|.", managedMethod);
-			throw new AuthorizationException();
-		}
-
-		if (!security.isAuthorized(getRoles(managedMethod))) {
-			log.info("Reject not authorized access to |{managed_method}|.", managedMethod);
+		if (!MethodSecurity.isAuthorized(security, managedMethod)) {
 			throw new AuthorizationException();
 		}
 
 		return chain.invokeNextProcessor(invocation);
 	}
-
-	// --------------------------------------------------------------------------------------------
-
-	private static final String[] EMPTY_ROLES = new String[0];
-
-	private static String[] getRoles(IManagedMethod managedMethod) {
-		Annotation rolesAllowed = managedMethod.scanAnnotation(RolesAllowed.class, IManagedMethod.Flags.INCLUDE_TYPES);
-		if (rolesAllowed == null) {
-			return EMPTY_ROLES;
-		}
-		try {
-			return Classes.invoke(rolesAllowed, "value");
-		} catch (Exception e) {
-			log.error(e);
-			return EMPTY_ROLES;
-		}
-	}
 }
@@ -59,6 +59,8 @@ public class ContentType {
 	public static final ContentType TEXT_XML = new ContentType("text/xml;charset=UTF-8");
 	/** Cascading Style Sheet (CSS) */
 	public static final ContentType TEXT_CSS = new ContentType("text/css;charset=UTF-8");
+	/** Server sent events stream. */
+	public static final ContentType TEXT_EVENT_STREAM = new ContentType("text/event-stream;charset=UTF-8");
 	/** JavaScript */ 
 	public static final ContentType APPLICATION_JAVASCRIPT = new ContentType("application/javascript;charset=UTF-8");
 	/** Multipart MIME data streams for HTML forms that contain binary files. */
@@ -75,6 +77,8 @@ public class ContentType {
 	 * defined for this registration. Adding one really has no effect on compliant recipients.
 	 */
 	public static final ContentType APPLICATION_JSON = new ContentType("application/json");
+	/** Newline delimited JSON, one JSON value per line, suitable for streamed sequences. */
+	public static final ContentType APPLICATION_NDJSON = new ContentType("application/x-ndjson");
 	/** Archive document (multiple files embedded). */
 	public static final ContentType APPLICATION_STREAM = new ContentType("application/octet-stream");
 	/** Portable Network Graphics */
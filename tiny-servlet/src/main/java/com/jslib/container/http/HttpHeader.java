@@ -17,6 +17,24 @@ public class HttpHeader {
 	public static final String ACCEPT_ENCODING = "Accept-Encoding";
 	/** List of acceptable human languages for response. */
 	public static final String ACCEPT_LANGUAGE = "Accept-Language";
+	/** CORS: origin allowed to read the response, <code>*</code> or the request origin. */
+	public static final String ACCESS_CONTROL_ALLOW_ORIGIN = "Access-Control-Allow-Origin";
+	/** CORS: whether response can be exposed when request credentials mode is include. */
+	public static final String ACCESS_CONTROL_ALLOW_CREDENTIALS = "Access-Control-Allow-Credentials";
+	/** CORS preflight: HTTP methods allowed for the actual request. */
+	public static final String ACCESS_CONTROL_ALLOW_METHODS = "Access-Control-Allow-Methods";
+	/** CORS preflight: request headers allowed for the actual request. */
+	public static final String ACCESS_CONTROL_ALLOW_HEADERS = "Access-Control-Allow-Headers";
+	/** CORS: response headers, other than safe listed ones, readable by client script. */
+	public static final String ACCESS_CONTROL_EXPOSE_HEADERS = "Access-Control-Expose-Headers";
+	/** CORS preflight: how long, in seconds, preflight response can be cached by client. */
+	public static final String ACCESS_CONTROL_MAX_AGE = "Access-Control-Max-Age";
+	/** CORS preflight: HTTP method of the actual request. */
+	public static final String ACCESS_CONTROL_REQUEST_METHOD = "Access-Control-Request-Method";
+	/** CORS preflight: headers of the actual request. */
+	public static final String ACCESS_CONTROL_REQUEST_HEADERS = "Access-Control-Request-Headers";
+	/** HTTP methods supported by target resource, sent with 405 Method Not Allowed. */
+	public static final String ALLOW = "Allow";
 	/** Authentication credentials for HTTP authentication. */
 	public static final String AUTHORIZATION = "Authorization";
 	/** Used to specify directives that must be obeyed by all caching mechanisms along the request-response chain. */
@@ -54,12 +72,20 @@ public class HttpHeader {
 	public static final String IF_NONE_MATCH = "If-None-Match";
 	/** Only send the response if the entity has not been modified since a specific time. */
 	public static final String IF_UNMODIFIED_SINCE = "If-Unmodified-Since";
+	/** ID of the last server-sent event received by a reconnecting event source. */
+	public static final String LAST_EVENT_ID = "Last-Event-ID";
+	/** The last modified date for the requested object, RFC 7231 Date/Time Formats. */
+	public static final String LAST_MODIFIED = "Last-Modified";
 	/** Used in redirection, or when a new resource has been created. */
 	public static final String LOCATION = "Location";
+	/** Origin of cross-origin request or preflight. */
+	public static final String ORIGIN = "Origin";
 	/** Implementation-specific fields that may have various effects anywhere along the request-response chain. */
 	public static final String PRAGMA = "Pragma";
 	/** This is the address of the previous web page from which a link to the currently requested page was followed. */
 	public static final String REFERER = "Referer";
+	/** How long client should wait before retrying a request rejected because service is unavailable. */
+	public static final String RETRY_AFTER = "Retry-After";
 	/** SOAP action encoded into HTTP header. */
 	public static final String SOAP_ACTION = "SOAPAction";
 	/** The user agent string of the user agent. */
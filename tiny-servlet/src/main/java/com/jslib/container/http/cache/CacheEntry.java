@@ -0,0 +1,115 @@
+package com.jslib.container.http.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import com.jslib.container.http.HttpHeader;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Cached response: serialized body, content type and response headers. Body is stored on a direct byte buffer, outside Java
+ * heap, so that large caches do not add garbage collector pressure; only this small descriptor lives on heap. Direct memory is
+ * reclaimed when entry is evicted and no longer referenced.
+ * <p>
+ * Cache entry is immutable and can be served concurrently by many threads; body buffer is never read directly but through a
+ * duplicate with its own position.
+ *
+ * @author Iulian Rotaru
+ */
+public final class CacheEntry {
+	/** Per thread transfer buffers used to copy body bytes from direct memory to HTTP response. */
+	private static final ThreadLocal<byte[]> CHUNKS = ThreadLocal.withInitial(() -> new byte[8192]);
+
+	/** Request path, relative to context path, used for invalidation. */
+	private final String path;
+
+	private final String contentType;
+
+	/** Response headers as name / value pairs, in the order they were set; a header name occurs only once. */
+	private final List<String[]> headers;
+
+	private final ByteBuffer body;
+
+	/** Expiration timestamp, in milliseconds. */
+	private final long expiresAt;
+
+	CacheEntry(String path, String contentType, List<String[]> headers, byte[] body, long expiresAt) {
+		this.path = path;
+		this.contentType = contentType;
+		this.headers = headers;
+		this.body = ByteBuffer.allocateDirect(body.length);
+		this.body.put(body);
+		this.body.flip();
+		this.expiresAt = expiresAt;
+	}
+
+	String getPath() {
+		return path;
+	}
+
+	boolean isExpired(long timestamp) {
+		return timestamp >= expiresAt;
+	}
+
+	/**
+	 * Get entry weight used for cache capacity accounting. It is dominated by body size.
+	 *
+	 * @return entry weight, in bytes.
+	 */
+	int getWeight() {
+		return body.capacity() + 64 * (headers.size() + 1);
+	}
+
+	/**
+	 * Get the first value of cached response header.
+	 *
+	 * @param name header name, case insensitive.
+	 * @return header value or null.
+	 */
+	public String getHeader(String name) {
+		for (String[] header : headers) {
+			if (header[0].equalsIgnoreCase(name)) {
+				return header[1];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Send cached response to HTTP response: status, content type, headers and optional body. Cached headers replace those
+	 * already set on response, except <code>Vary</code> whose values are added to those set for current request, e.g. by CORS
+	 * policy.
+	 *
+	 * @param httpResponse HTTP response,
+	 * @param includeBody flag false to send only headers, e.g. on <code>HEAD</code> request.
+	 * @throws IOException if writing to HTTP response fails.
+	 */
+	public void serve(HttpServletResponse httpResponse, boolean includeBody) throws IOException {
+		httpResponse.setStatus(HttpServletResponse.SC_OK);
+		httpResponse.setContentType(contentType);
+		for (String[] header : headers) {
+			if (HttpHeader.VARY.equalsIgnoreCase(header[0])) {
+				httpResponse.addHeader(header[0], header[1]);
+			} else {
+				httpResponse.setHeader(header[0], header[1]);
+			}
+		}
+		httpResponse.setContentLength(body.capacity());
+		if (!includeBody) {
+			return;
+		}
+
+		ByteBuffer source = body.duplicate();
+		byte[] chunk = CHUNKS.get();
+		OutputStream outputStream = httpResponse.getOutputStream();
+		while (source.hasRemaining()) {
+			int length = Math.min(chunk.length, source.remaining());
+			source.get(chunk, 0, length);
+			outputStream.write(chunk, 0, length);
+		}
+		outputStream.flush();
+	}
+}
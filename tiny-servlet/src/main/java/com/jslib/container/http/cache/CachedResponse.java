@@ -0,0 +1,48 @@
+package com.jslib.container.http.cache;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Opt-in server side caching for responses of idempotent REST and HTTP-RMI methods. Serialized response body, content type and
+ * headers are stored on {@link ResponseCache} and subsequent requests with the same cache key are served without executing the
+ * method and serializing its value.
+ * <p>
+ * Cache key is built from request path, normalized query parameters, negotiated content encoding and values of request headers
+ * listed by {@link #vary()}. HTTP-RMI arguments carried by request body are part of the key too. Unless {@link #shared()} is
+ * explicitly enabled, authenticated user principal is also part of the key so that a response is never served to a different
+ * user.
+ * <p>
+ * Note that a cache hit bypasses method invocation, including interceptors and auditing; use it only for methods whose
+ * execution side effects can be safely skipped.
+ *
+ * @author Iulian Rotaru
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CachedResponse {
+	/**
+	 * Cached response time to live, in seconds.
+	 *
+	 * @return time to live, default to 60 seconds.
+	 */
+	int ttl() default 60;
+
+	/**
+	 * Names of request headers that select response representation and should be part of the cache key. These headers are
+	 * also added to <code>Vary</code> response header.
+	 *
+	 * @return request headers names, default to empty.
+	 */
+	String[] vary() default {};
+
+	/**
+	 * Cached response is the same for all users, authenticated or not. If false, that is the default, user principal is part
+	 * of the cache key.
+	 *
+	 * @return shared flag, default to false.
+	 */
+	boolean shared() default false;
+}
@@ -0,0 +1,105 @@
+package com.jslib.container.http.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min sketch with 4 bits counters used to estimate access frequency for cache admission policy. Every long from table
+ * holds 16 counters; a key is mapped to four counters, each from a different table slot, and its frequency is the minimum of
+ * those counters. In order to keep frequencies fresh, all counters are halved after a sample size number of increments.
+ * <p>
+ * This class is thread safe and lock free: counters are updated with compare and set. Counters aging may race with concurrent
+ * increments and lose a few of them, that is acceptable for a frequency estimate.
+ *
+ * @author Iulian Rotaru
+ */
+final class FrequencySketch {
+	private static final long[] SEEDS = new long[] { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final int MAX_COUNTER = 15;
+
+	private final AtomicLongArray table;
+	private final int mask;
+	private final int sampleSize;
+	private final AtomicInteger size = new AtomicInteger();
+
+	/**
+	 * Create frequency sketch for estimated number of cached entries.
+	 *
+	 * @param capacity estimated maximum number of entries.
+	 */
+	public FrequencySketch(int capacity) {
+		int length = Integer.highestOneBit(Math.max(capacity, 64) - 1) << 1;
+		this.table = new AtomicLongArray(length);
+		this.mask = length - 1;
+		this.sampleSize = 10 * length;
+	}
+
+	/**
+	 * Get estimated access frequency for key with given hash code.
+	 *
+	 * @param hashCode key hash code.
+	 * @return frequency, in range 0 to 15.
+	 */
+	public int frequency(int hashCode) {
+		int hash = spread(hashCode);
+		int frequency = MAX_COUNTER;
+		for (int i = 0; i < 4; ++i) {
+			frequency = Math.min(frequency, (int) ((table.get(indexOf(hash, i)) >>> offsetOf(hash, i)) & 0xfL));
+		}
+		return frequency;
+	}
+
+	/**
+	 * Record an access for key with given hash code. Counters already saturated are not incremented.
+	 *
+	 * @param hashCode key hash code.
+	 */
+	public void increment(int hashCode) {
+		int hash = spread(hashCode);
+		boolean added = false;
+		for (int i = 0; i < 4; ++i) {
+			int index = indexOf(hash, i);
+			int offset = offsetOf(hash, i);
+			for (;;) {
+				long value = table.get(index);
+				if (((value >>> offset) & 0xfL) == MAX_COUNTER) {
+					break;
+				}
+				if (table.compareAndSet(index, value, value + (1L << offset))) {
+					added = true;
+					break;
+				}
+			}
+		}
+		// only the thread reaching sample size ages counters
+		if (added && size.incrementAndGet() == sampleSize) {
+			reset();
+		}
+	}
+
+	/** Age all counters by halving their values. */
+	private void reset() {
+		for (int i = 0; i < table.length(); ++i) {
+			table.getAndUpdate(i, value -> (value >>> 1) & RESET_MASK);
+		}
+		size.addAndGet(-(sampleSize >>> 1));
+	}
+
+	private int indexOf(int hash, int depth) {
+		long h = (hash + SEEDS[depth]) * SEEDS[depth];
+		h += h >>> 32;
+		return (int) h & mask;
+	}
+
+	/** Counter bit offset inside table slot; uses a different nibble of the hash for every depth. */
+	private static int offsetOf(int hash, int depth) {
+		return ((hash >>> (depth << 3)) & 0xf) << 2;
+	}
+
+	private static int spread(int hash) {
+		hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+		hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+		return (hash >>> 16) ^ hash;
+	}
+}
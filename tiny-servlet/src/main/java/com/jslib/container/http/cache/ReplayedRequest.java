@@ -0,0 +1,111 @@
+package com.jslib.container.http.cache;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * HTTP request wrapper with body read in memory, so that body can be used as part of cache key and still be read by arguments
+ * reader. Used for HTTP-RMI requests that carry invocation arguments into request body.
+ *
+ * @author Iulian Rotaru
+ */
+public final class ReplayedRequest extends HttpServletRequestWrapper {
+	/**
+	 * Read request body in memory and create replayed request. Returns null if request content length is unknown or exceeds
+	 * given limit; in this case request body is not touched. A <code>GET</code> request with unknown content length is
+	 * considered to have no body.
+	 *
+	 * @param httpRequest HTTP request,
+	 * @param maxLength maximum body length, in bytes.
+	 * @return replayed request or null.
+	 * @throws IOException if reading request body fails.
+	 */
+	public static ReplayedRequest create(HttpServletRequest httpRequest, int maxLength) throws IOException {
+		int contentLength = httpRequest.getContentLength();
+		if (contentLength == -1 && "GET".equals(httpRequest.getMethod())) {
+			contentLength = 0;
+		}
+		if (contentLength < 0 || contentLength > maxLength) {
+			return null;
+		}
+		byte[] body = new byte[contentLength];
+		InputStream inputStream = httpRequest.getInputStream();
+		int offset = 0;
+		while (offset < contentLength) {
+			int count = inputStream.read(body, offset, contentLength - offset);
+			if (count == -1) {
+				throw new IOException("Unexpected end of request body.");
+			}
+			offset += count;
+		}
+		return new ReplayedRequest(httpRequest, body);
+	}
+
+	private final byte[] body;
+
+	private ServletInputStream inputStream;
+
+	private ReplayedRequest(HttpServletRequest httpRequest, byte[] body) {
+		super(httpRequest);
+		this.body = body;
+	}
+
+	public byte[] getBody() {
+		return body;
+	}
+
+	@Override
+	public ServletInputStream getInputStream() throws IOException {
+		if (inputStream == null) {
+			inputStream = new BodyStream(body);
+		}
+		return inputStream;
+	}
+
+	@Override
+	public BufferedReader getReader() throws IOException {
+		String characterEncoding = getCharacterEncoding();
+		return new BufferedReader(new InputStreamReader(getInputStream(), characterEncoding != null ? characterEncoding : "ISO-8859-1"));
+	}
+
+	private static class BodyStream extends ServletInputStream {
+		private final ByteArrayInputStream stream;
+
+		public BodyStream(byte[] body) {
+			this.stream = new ByteArrayInputStream(body);
+		}
+
+		@Override
+		public int read() throws IOException {
+			return stream.read();
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			return stream.read(bytes, offset, length);
+		}
+
+		@Override
+		public boolean isFinished() {
+			return stream.available() == 0;
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setReadListener(ReadListener readListener) {
+			throw new IllegalStateException("Non-blocking read not supported on replayed request body.");
+		}
+	}
+}
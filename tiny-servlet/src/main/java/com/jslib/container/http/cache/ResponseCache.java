@@ -0,0 +1,518 @@
+package com.jslib.container.http.cache;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+import com.jslib.container.http.HttpHeader;
+import com.jslib.container.http.encoder.ResponseCompression;
+import com.jslib.container.spi.IContainer;
+import com.jslib.lang.BugError;
+import com.jslib.util.Strings;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Server side cache for serialized responses of methods annotated with {@link CachedResponse}. This cache is a singleton shared
+ * by REST and HTTP-RMI servlets.
+ * <p>
+ * Cache is bounded by total entries weight, see {@link #PARAM_MAX_SIZE}, and entries have a time to live. When cache is full,
+ * least recently used entries are candidates for eviction but a new entry is admitted only if its estimated access frequency is
+ * greater than that of the entries it would evict, TinyLFU style; frequencies are estimated by a {@link FrequencySketch}. This
+ * way a burst of one time requests does not flush popular entries out of cache.
+ * <p>
+ * Lookup does not lock: entries are on a concurrent map, frequency sketch is lock free and hits are recorded on a bounded,
+ * lossy access buffer that is applied on entries access order under cache lock, before eviction. Cache lock is taken only by
+ * writers, that is, store, eviction and invalidation, and by the lookup that finds the access buffer full.
+ * <p>
+ * Entries body is stored off heap, see {@link CacheEntry}. Entries can be explicitly invalidated by request path prefix, see
+ * {@link #invalidate(String)}. Hit, miss and eviction counters are exposed via getters.
+ * <p>
+ * Cache is configurable from context parameters. All parameters are optional.
+ *
+ * <pre>
+ * &lt;context-param&gt;
+ * 	&lt;param-name&gt;com.jslib.container.cache.max.size&lt;/param-name&gt;
+ * 	&lt;param-value&gt;268435456&lt;/param-value&gt;
+ * &lt;/context-param&gt;
+ * </pre>
+ *
+ * @author Iulian Rotaru
+ */
+public final class ResponseCache {
+	private static final Log log = LogFactory.getLog(ResponseCache.class);
+
+	/** Context parameter for response cache enabled flag, default to true. */
+	public static final String PARAM_ENABLED = "com.jslib.container.cache.enabled";
+	/** Context parameter for maximum cache size, in bytes. */
+	public static final String PARAM_MAX_SIZE = "com.jslib.container.cache.max.size";
+	/** Context parameter for maximum size of a single cached response body, in bytes. */
+	public static final String PARAM_MAX_ENTRY_SIZE = "com.jslib.container.cache.max.entry.size";
+
+	private static final long DEFAULT_MAX_SIZE = 64 * 1024 * 1024;
+	private static final int DEFAULT_MAX_ENTRY_SIZE = 1024 * 1024;
+
+	/** Maximum request body size accepted as part of cache key. */
+	private static final int MAX_KEY_BODY_SIZE = 64 * 1024;
+
+	/** Average entry weight used to estimate entries count for frequency sketch sizing. */
+	private static final int AVERAGE_ENTRY_WEIGHT = 4096;
+
+	/** Maximum number of hits recorded and not yet applied on entries access order. */
+	private static final int ACCESS_BUFFER_SIZE = 1024;
+
+	private static final ResponseCache instance = new ResponseCache();
+
+	/**
+	 * Get response cache instance.
+	 *
+	 * @return response cache instance.
+	 */
+	public static ResponseCache getInstance() {
+		return instance;
+	}
+
+	/** Cached entries, for lock free lookup. Updated only under {@link #lock}, together with {@link #order}. */
+	private final Map<String, CacheEntry> entries = new ConcurrentHashMap<>(256);
+
+	/** Cached entries in access order, eldest first, used to select eviction victims. Guarded by {@link #lock}. */
+	private final LinkedHashMap<String, CacheEntry> order = new LinkedHashMap<>(256, 0.75F, true);
+
+	/** Keys of cache hits not yet applied on {@link #order}. Hits recorded while buffer is full are dropped. */
+	private final Queue<String> accesses = new ConcurrentLinkedQueue<>();
+
+	/** Approximate size of {@link #accesses} buffer. */
+	private final AtomicInteger accessesCount = new AtomicInteger();
+
+	/** Lock guarding entries access order, cache weight and entries updates. Lookup does not take it. */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/** Access frequency estimator for admission policy, thread safe. */
+	private volatile FrequencySketch sketch;
+
+	/** Current cache weight, in bytes. Guarded by {@link #lock}. */
+	private long weight;
+
+	private volatile boolean enabled = true;
+	private volatile long maxSize;
+	private volatile int maxEntrySize = DEFAULT_MAX_ENTRY_SIZE;
+
+	/** Lookup counters are updated by all request threads and are striped. */
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong rejections = new AtomicLong();
+
+	ResponseCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	ResponseCache(long maxSize) {
+		setMaxSize(maxSize);
+	}
+
+	/**
+	 * Load cache configuration from container initialization parameters. Parameters not defined keep their values.
+	 *
+	 * @param container parent container.
+	 */
+	public void configure(IContainer container) {
+		Boolean enabled = container.getInitParameter(PARAM_ENABLED, Boolean.class);
+		if (enabled != null) {
+			this.enabled = enabled;
+		}
+		Long maxSize = container.getInitParameter(PARAM_MAX_SIZE, Long.class);
+		if (maxSize != null && maxSize != this.maxSize) {
+			setMaxSize(maxSize);
+		}
+		Integer maxEntrySize = container.getInitParameter(PARAM_MAX_ENTRY_SIZE, Integer.class);
+		if (maxEntrySize != null) {
+			this.maxEntrySize = maxEntrySize;
+		}
+		log.debug("Response cache enabled |{enabled}|, max size |{max_size}|, max entry size |{max_entry_size}|.", this.enabled, this.maxSize, this.maxEntrySize);
+	}
+
+	private void setMaxSize(long maxSize) {
+		lock.lock();
+		try {
+			this.maxSize = maxSize;
+			this.sketch = new FrequencySketch((int) Math.min(maxSize / AVERAGE_ENTRY_WEIGHT, 1 << 20));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Build cache key for HTTP request. Key contains request path, query parameters sorted, negotiated content encoding and
+	 * values of request headers declared by {@link CachedResponse#vary()}. If cached response is not shared, user principal is
+	 * appended. Request body, if provided, is included as a digest.
+	 *
+	 * @param httpRequest HTTP request,
+	 * @param cachedResponse cached response annotation,
+	 * @param principal authenticated user, null if not authenticated,
+	 * @param body request body, null if request has no body.
+	 * @return cache key.
+	 */
+	public String key(HttpServletRequest httpRequest, CachedResponse cachedResponse, Principal principal, byte[] body) {
+		StringBuilder key = new StringBuilder(128);
+		key.append(path(httpRequest));
+
+		String query = httpRequest.getQueryString();
+		if (query != null && !query.isEmpty()) {
+			List<String> parameters = new ArrayList<>(Strings.split(query, '&'));
+			Collections.sort(parameters);
+			key.append('?');
+			key.append(Strings.join(parameters, '&'));
+		}
+
+		for (String header : cachedResponse.vary()) {
+			String value = httpRequest.getHeader(header);
+			key.append('\n');
+			key.append(header.toLowerCase());
+			key.append(':');
+			key.append(value != null ? value : "");
+		}
+
+		key.append("\nencoding:");
+		key.append(ResponseCompression.negotiate(httpRequest.getHeader(HttpHeader.ACCEPT_ENCODING)));
+
+		if (!cachedResponse.shared() && principal != null) {
+			key.append("\nuser:");
+			key.append(principal.getName());
+		}
+
+		if (body != null && body.length > 0) {
+			key.append("\nbody:");
+			key.append(Base64.getEncoder().encodeToString(digest(body)));
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Read HTTP-RMI request body so that it can be included into cache key. Returns null if request body is too large to be
+	 * part of a cache key or its length is not known; such requests are not cached.
+	 *
+	 * @param httpRequest HTTP request.
+	 * @return replayed request or null.
+	 * @throws IOException if reading request body fails.
+	 */
+	public ReplayedRequest replay(HttpServletRequest httpRequest) throws IOException {
+		return ReplayedRequest.create(httpRequest, MAX_KEY_BODY_SIZE);
+	}
+
+	/**
+	 * Get cached entry for key. Returns null if there is no entry for requested key or entry is expired. Every call records an
+	 * access for frequency estimation, no matter if hit or miss. This method does not lock, unless entry is expired or access
+	 * buffer is full.
+	 *
+	 * @param key cache key.
+	 * @return cached entry or null.
+	 */
+	public CacheEntry get(String key) {
+		sketch.increment(key.hashCode());
+		CacheEntry entry = entries.get(key);
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+		if (entry.isExpired(System.currentTimeMillis())) {
+			removeExpired(key, entry);
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		recordAccess(key);
+		return entry;
+	}
+
+	/**
+	 * Record cache hit on access buffer. If buffer is full and cache lock is free, apply buffered hits on entries access order;
+	 * otherwise hit is dropped, access order being only a hint for eviction.
+	 *
+	 * @param key cache key.
+	 */
+	private void recordAccess(String key) {
+		if (accessesCount.get() < ACCESS_BUFFER_SIZE) {
+			accessesCount.incrementAndGet();
+			accesses.offer(key);
+			return;
+		}
+		if (lock.tryLock()) {
+			try {
+				drainAccesses();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/** Apply buffered hits on entries access order. Caller should hold cache lock. */
+	private void drainAccesses() {
+		String key;
+		while ((key = accesses.poll()) != null) {
+			accessesCount.decrementAndGet();
+			// access ordered map moves existing key to the end; missing key is ignored
+			order.get(key);
+		}
+	}
+
+	private void removeExpired(String key, CacheEntry entry) {
+		lock.lock();
+		try {
+			// entry could be replaced meanwhile by a fresh one
+			if (entries.get(key) == entry) {
+				remove(key);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Create response wrapper that captures body for caching, see {@link #put(String, ResponseCapture, int)}.
+	 *
+	 * @param httpResponse HTTP response.
+	 * @return response capture.
+	 */
+	public ResponseCapture capture(HttpServletResponse httpResponse) {
+		return new ResponseCapture(httpResponse, maxEntrySize);
+	}
+
+	/**
+	 * Store captured response. Response is cached only if status is <code>200 OK</code>, it has no cookies and body did not
+	 * exceed maximum entry size. Entry is subject to admission policy.
+	 * <p>
+	 * Headers depending on request origin, that is, CORS headers and <code>Origin</code> from <code>Vary</code>, are not
+	 * stored; they are set for every request, cache hits included. Multiple values of the same header are stored joined.
+	 *
+	 * @param key cache key,
+	 * @param capture captured response,
+	 * @param ttl time to live, in seconds.
+	 */
+	public void put(String key, ResponseCapture capture, int ttl) {
+		if (capture.getStatus() != HttpServletResponse.SC_OK || capture.containsHeader(HttpHeader.SET_COOKIE)) {
+			return;
+		}
+		byte[] body = capture.getBody();
+		if (body == null) {
+			return;
+		}
+
+		List<String[]> headers = new ArrayList<>();
+		for (String name : capture.getHeaderNames()) {
+			if (!isCacheable(name)) {
+				continue;
+			}
+			List<String> values = new ArrayList<>();
+			for (String value : capture.getHeaders(name)) {
+				if (!HttpHeader.VARY.equalsIgnoreCase(name) || !HttpHeader.ORIGIN.equalsIgnoreCase(value)) {
+					values.add(value);
+				}
+			}
+			if (!values.isEmpty()) {
+				headers.add(new String[] { name, String.join(", ", values) });
+			}
+		}
+
+		String path = key.substring(0, key.indexOf('\n'));
+		int queryIndex = path.indexOf('?');
+		if (queryIndex != -1) {
+			path = path.substring(0, queryIndex);
+		}
+		put(key, new CacheEntry(path, capture.getContentType(), headers, body, System.currentTimeMillis() + ttl * 1000L));
+	}
+
+	/**
+	 * Store entry if admitted by policy. If cache has no room for new entry, least recently used entries are evicted, but only
+	 * if all of them are less frequently accessed than the new entry; otherwise new entry is rejected.
+	 *
+	 * @param key cache key,
+	 * @param entry cache entry.
+	 * @return true if entry was stored.
+	 */
+	boolean put(String key, CacheEntry entry) {
+		lock.lock();
+		try {
+			return store(key, entry);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Store entry subject to admission policy. Caller should hold cache lock. */
+	private boolean store(String key, CacheEntry entry) {
+		drainAccesses();
+		remove(key);
+		int entryWeight = entry.getWeight();
+		if (entryWeight > maxSize) {
+			rejections.incrementAndGet();
+			return false;
+		}
+
+		long requiredWeight = weight + entryWeight - maxSize;
+		if (requiredWeight > 0) {
+			int frequency = sketch.frequency(key.hashCode());
+			List<String> victims = new ArrayList<>();
+			Iterator<Map.Entry<String, CacheEntry>> iterator = order.entrySet().iterator();
+			while (requiredWeight > 0 && iterator.hasNext()) {
+				Map.Entry<String, CacheEntry> victim = iterator.next();
+				if (sketch.frequency(victim.getKey().hashCode()) >= frequency) {
+					rejections.incrementAndGet();
+					return false;
+				}
+				victims.add(victim.getKey());
+				requiredWeight -= victim.getValue().getWeight();
+			}
+			for (String victim : victims) {
+				remove(victim);
+				evictions.incrementAndGet();
+			}
+		}
+
+		order.put(key, entry);
+		entries.put(key, entry);
+		weight += entryWeight;
+		return true;
+	}
+
+	/**
+	 * Remove all entries for request paths starting with given prefix. Path is relative to application context, e.g.
+	 * <code>/rest/products</code> invalidates all cached responses for products resource. Prefix is matched on path segments
+	 * boundary so that above example does not invalidate <code>/rest/productsX</code>.
+	 *
+	 * @param pathPrefix request path prefix, with or without trailing separator.
+	 */
+	public void invalidate(String pathPrefix) {
+		String path = pathPrefix.endsWith("/") ? pathPrefix.substring(0, pathPrefix.length() - 1) : pathPrefix;
+		String pathSegments = path + "/";
+		lock.lock();
+		try {
+			Iterator<Map.Entry<String, CacheEntry>> iterator = order.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<String, CacheEntry> entry = iterator.next();
+				String entryPath = entry.getValue().getPath();
+				if (entryPath.equals(path) || entryPath.startsWith(pathSegments)) {
+					weight -= entry.getValue().getWeight();
+					entries.remove(entry.getKey());
+					iterator.remove();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Remove all cached entries. */
+	public void invalidateAll() {
+		lock.lock();
+		try {
+			entries.clear();
+			order.clear();
+			weight = 0;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Remove entry for key, if any. Caller should hold cache lock. */
+	private void remove(String key) {
+		CacheEntry entry = entries.remove(key);
+		order.remove(key);
+		if (entry != null) {
+			weight -= entry.getWeight();
+		}
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * Get the number of entries rejected by admission policy.
+	 *
+	 * @return rejected entries count.
+	 */
+	public long getRejections() {
+		return rejections.get();
+	}
+
+	public int getEntriesCount() {
+		return entries.size();
+	}
+
+	/**
+	 * Get current cache weight, in bytes.
+	 *
+	 * @return cache weight.
+	 */
+	public long getWeight() {
+		lock.lock();
+		try {
+			return weight;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Test if response header can be stored on cache entry. Content headers are set by cache entry itself and
+	 * <code>Access-Control-*</code> headers depend on request origin.
+	 *
+	 * @param name header name.
+	 * @return true if header can be cached.
+	 */
+	private static boolean isCacheable(String name) {
+		if (HttpHeader.CONTENT_TYPE.equalsIgnoreCase(name) || HttpHeader.CONTENT_LENGTH.equalsIgnoreCase(name) || HttpHeader.DATE.equalsIgnoreCase(name)) {
+			return false;
+		}
+		return !name.regionMatches(true, 0, "Access-Control-", 0, 15);
+	}
+
+	/**
+	 * Get request path relative to application context.
+	 *
+	 * @param httpRequest HTTP request.
+	 * @return request path.
+	 */
+	private static String path(HttpServletRequest httpRequest) {
+		return httpRequest.getRequestURI().substring(httpRequest.getContextPath().length());
+	}
+
+	private static byte[] digest(byte[] bytes) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(bytes);
+		} catch (NoSuchAlgorithmException e) {
+			throw new BugError("Missing SHA-256 message digest.");
+		}
+	}
+}
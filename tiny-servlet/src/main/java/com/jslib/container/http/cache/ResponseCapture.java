@@ -0,0 +1,116 @@
+package com.jslib.container.http.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * HTTP response wrapper that keeps a copy of response body while it is written to HTTP response. Status and headers are not
+ * recorded here since they are available from wrapped response. If body exceeds maximum cache entry size copy is abandoned and
+ * response is not cached.
+ *
+ * @author Iulian Rotaru
+ */
+public final class ResponseCapture extends HttpServletResponseWrapper {
+	private final int maxSize;
+
+	private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+	private TeeStream stream;
+
+	private PrintWriter writer;
+
+	/** Flag true if body size exceeded maximum entry size. */
+	private boolean overflow;
+
+	ResponseCapture(HttpServletResponse httpResponse, int maxSize) {
+		super(httpResponse);
+		this.maxSize = maxSize;
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		if (stream == null) {
+			stream = new TeeStream(getResponse().getOutputStream());
+		}
+		return stream;
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if (writer == null) {
+			writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+		}
+		return writer;
+	}
+
+	/**
+	 * Get captured body bytes or null if body was too large.
+	 *
+	 * @return captured body or null.
+	 */
+	byte[] getBody() {
+		if (writer != null) {
+			writer.flush();
+		}
+		return overflow ? null : body.toByteArray();
+	}
+
+	private void capture(byte[] bytes, int offset, int length) {
+		if (overflow) {
+			return;
+		}
+		if (body.size() + length > maxSize) {
+			overflow = true;
+			body.reset();
+			return;
+		}
+		body.write(bytes, offset, length);
+	}
+
+	/**
+	 * Output stream that writes to HTTP response and keeps a copy of written bytes.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	private class TeeStream extends ServletOutputStream {
+		private final ServletOutputStream out;
+
+		public TeeStream(ServletOutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			capture(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			out.write(bytes, offset, length);
+			capture(bytes, offset, length);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		@Override
+		public boolean isReady() {
+			return out.isReady();
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			out.setWriteListener(writeListener);
+		}
+	}
+}
@@ -0,0 +1,250 @@
+package com.jslib.container.http.encoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.jslib.container.http.HttpHeader;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Output stream that collects response body into a memory buffer and sends it to HTTP response in a single write. Buffer is
+ * growable and pooled per thread so that a servlet container worker thread reuses the same bytes array for all requests it
+ * serves. While body size stays under configured threshold this stream sets <code>Content-Length</code> response header and
+ * writes the whole body at {@link #close()}; this avoids chunked transfer and many tiny writes to the connector.
+ * <p>
+ * If body size exceeds threshold this stream switches to streaming mode: flushes buffered bytes to HTTP response output stream
+ * and delegates all subsequent writes to it. In streaming mode servlet container decides about content length or chunked
+ * transfer.
+ * <p>
+ * If a content coding was negotiated, see {@link ResponseCompression#negotiate(jakarta.servlet.http.HttpServletRequest,
+ * HttpServletResponse)}, buffered body is compressed in one shot, provided it is large enough, and sent with compressed
+ * <code>Content-Length</code>. On streaming mode compression is applied on the fly.
+ * <p>
+ * This stream is single use and is not thread safe. Closing it does not close HTTP response output stream, as requested by
+ * {@link ValueWriter} contract.
+ *
+ * @author Iulian Rotaru
+ */
+final class BufferedResponseStream extends OutputStream {
+	/** Initial capacity for buffers from threads pool. */
+	private static final int INITIAL_CAPACITY = 4096;
+
+	/** Maximum capacity of a buffer returned to threads pool; larger buffers are discarded on release. */
+	private static final int MAX_POOLED_CAPACITY = 65536;
+
+	/**
+	 * Buffers pool. Every thread has its own buffer that is reused on all responses served by that thread. While in use, buffer
+	 * capacity never exceeds stream threshold but threshold is per stream instance; so buffer is stored back on pool only if
+	 * its capacity does not exceed {@link #MAX_POOLED_CAPACITY}. While borrowed, pool slot is empty so that a buffer is never
+	 * shared by two streams.
+	 */
+	private static final ThreadLocal<byte[]> BUFFERS_POOL = new ThreadLocal<>();
+
+	/** HTTP response this stream writes to. */
+	private final HttpServletResponse httpResponse;
+
+	/** Maximum number of bytes kept in memory before switching to streaming mode. */
+	private final int threshold;
+
+	/** Response compression service, used only if {@link #encoding} is not null. */
+	private final ResponseCompression compression;
+
+	/** Negotiated content coding or null if response is not compressed. */
+	private final String encoding;
+
+	/** Buffer borrowed from current thread pool, null after streaming mode is entered or stream closed. */
+	private byte[] buffer;
+
+	/** Number of valid bytes from {@link #buffer}. */
+	private int count;
+
+	/** HTTP response output stream, possible compressed, initialized only when streaming mode is entered. */
+	private OutputStream stream;
+
+	/** Flag true after this stream is closed. */
+	private boolean closed;
+
+	/**
+	 * Create buffered response stream for given HTTP response.
+	 *
+	 * @param httpResponse HTTP response,
+	 * @param threshold buffer size threshold, in bytes.
+	 */
+	public BufferedResponseStream(HttpServletResponse httpResponse, int threshold) {
+		this(httpResponse, threshold, null, null);
+	}
+
+	/**
+	 * Create buffered response stream with optional compression.
+	 *
+	 * @param httpResponse HTTP response,
+	 * @param threshold buffer size threshold, in bytes,
+	 * @param compression response compression service,
+	 * @param encoding negotiated content coding, null if response should not be compressed.
+	 */
+	public BufferedResponseStream(HttpServletResponse httpResponse, int threshold, ResponseCompression compression, String encoding) {
+		this.httpResponse = httpResponse;
+		this.threshold = threshold;
+		this.compression = compression;
+		this.encoding = encoding;
+		this.buffer = borrow();
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (stream != null) {
+			stream.write(b);
+			return;
+		}
+		if (count + 1 > threshold) {
+			startStreaming();
+			stream.write(b);
+			return;
+		}
+		ensureCapacity(count + 1);
+		buffer[count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) throws IOException {
+		if (stream != null) {
+			stream.write(bytes, offset, length);
+			return;
+		}
+		if (count + length > threshold) {
+			startStreaming();
+			stream.write(bytes, offset, length);
+			return;
+		}
+		ensureCapacity(count + length);
+		System.arraycopy(bytes, offset, buffer, count, length);
+		count += length;
+	}
+
+	/**
+	 * Flush is ignored while in buffering mode, since the whole point of this stream is to send body in a single write. On
+	 * streaming mode delegates HTTP response output stream.
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (stream != null) {
+			stream.flush();
+		}
+	}
+
+	/**
+	 * Send buffered body to HTTP response, if still in buffering mode, or flush HTTP response output stream otherwise. On
+	 * buffering mode takes care to set <code>Content-Length</code> header. This method is idempotent; it does not close HTTP
+	 * response output stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		if (stream == null) {
+			if (encoding != null && compression.isCompressible(count)) {
+				ByteArrayOutputStream compressedBody = new ByteArrayOutputStream(Math.max(count >> 2, 64));
+				try (OutputStream compressedStream = compression.getOutputStream(compressedBody, encoding)) {
+					compressedStream.write(buffer, 0, count);
+				}
+				release();
+
+				httpResponse.setHeader(HttpHeader.CONTENT_ENCODING, encoding);
+				httpResponse.setContentLength(compressedBody.size());
+				OutputStream outputStream = httpResponse.getOutputStream();
+				compressedBody.writeTo(outputStream);
+				outputStream.flush();
+				return;
+			}
+
+			httpResponse.setContentLength(count);
+			OutputStream outputStream = httpResponse.getOutputStream();
+			outputStream.write(buffer, 0, count);
+			outputStream.flush();
+			release();
+			return;
+		}
+
+		// compressed stream close does not close HTTP response output stream, just finish compression and flush
+		if (encoding != null) {
+			stream.close();
+		} else {
+			stream.flush();
+		}
+	}
+
+	/**
+	 * Test if this stream was closed.
+	 *
+	 * @return true if this stream was closed.
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Switch to streaming mode. Write buffered bytes to HTTP response output stream and return buffer to pool. If content coding
+	 * was negotiated, HTTP response output stream is wrapped in a compressing stream.
+	 *
+	 * @throws IOException if writing to HTTP response output stream fails.
+	 */
+	private void startStreaming() throws IOException {
+		stream = httpResponse.getOutputStream();
+		if (encoding != null) {
+			httpResponse.setHeader(HttpHeader.CONTENT_ENCODING, encoding);
+			stream = compression.getOutputStream(stream, encoding);
+		}
+		if (count > 0) {
+			stream.write(buffer, 0, count);
+		}
+		release();
+	}
+
+	/**
+	 * Take buffer from current thread pool or create a new one if pool slot is empty.
+	 *
+	 * @return buffer instance.
+	 */
+	private static byte[] borrow() {
+		byte[] buffer = BUFFERS_POOL.get();
+		if (buffer == null) {
+			return new byte[INITIAL_CAPACITY];
+		}
+		BUFFERS_POOL.set(null);
+		return buffer;
+	}
+
+	/**
+	 * Return buffer to current thread pool. Buffer may have grown since borrowed so it is stored back on pool, unless its
+	 * capacity exceeds {@link #MAX_POOLED_CAPACITY}. If stream is closed from a thread different from the one that created it
+	 * and that thread pool slot is already filled, buffer is simply discarded.
+	 */
+	private void release() {
+		if (buffer.length <= MAX_POOLED_CAPACITY && BUFFERS_POOL.get() == null) {
+			BUFFERS_POOL.set(buffer);
+		}
+		buffer = null;
+		count = 0;
+	}
+
+	/**
+	 * Grow buffer, if necessary, so that it can accommodate requested capacity. New capacity is doubled but never exceeds
+	 * threshold.
+	 *
+	 * @param capacity requested capacity, not greater than threshold.
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity <= buffer.length) {
+			return;
+		}
+		int newCapacity = Math.min(Math.max(buffer.length << 1, capacity), threshold);
+		byte[] newBuffer = new byte[newCapacity];
+		System.arraycopy(buffer, 0, newBuffer, 0, count);
+		buffer = newBuffer;
+	}
+}
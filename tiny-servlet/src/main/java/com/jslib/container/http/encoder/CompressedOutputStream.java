@@ -0,0 +1,133 @@
+package com.jslib.container.http.encoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Compressing output stream for <code>gzip</code> and <code>deflate</code> content encodings. Unlike JDK GZIP stream, this
+ * class uses an externally supplied {@link Deflater}, borrowed from {@link ResponseCompression} threads pool, and returns it
+ * to pool on {@link #finish()}.
+ * <p>
+ * For <code>gzip</code> encoding deflater should be created with <code>nowrap</code> flag set; this stream takes care to write
+ * GZIP header and trailer. For <code>deflate</code> encoding deflater writes ZLIB wrapper itself.
+ * <p>
+ * Closing this stream finishes compression and flushes the underlying stream but does not close it, as requested by
+ * {@link ValueWriter} contract. Flush uses deflater sync flush mode so that all data written so far is available to client.
+ *
+ * @author Iulian Rotaru
+ */
+final class CompressedOutputStream extends DeflaterOutputStream {
+	/** GZIP header for deflate compression method, no flags, no modification time, no extra flags and unknown OS. */
+	private static final byte[] GZIP_HEADER = new byte[] { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+	/** Parent compression service, for deflaters pool and metrics. */
+	private final ResponseCompression compression;
+
+	/** Flag true for GZIP encoding. */
+	private final boolean gzip;
+
+	/** Checksum for uncompressed data, used only by GZIP encoding. */
+	private final CRC32 crc;
+
+	/** Time spent on compression, in nanoseconds. */
+	private long processingTime;
+
+	/** Flag true after compression was finished. */
+	private boolean finished;
+
+	/**
+	 * Create compressing stream.
+	 *
+	 * @param out underlying output stream,
+	 * @param deflater deflater borrowed from compression pool,
+	 * @param gzip flag true for GZIP encoding,
+	 * @param compression parent compression service.
+	 * @throws IOException if writing GZIP header fails.
+	 */
+	public CompressedOutputStream(OutputStream out, Deflater deflater, boolean gzip, ResponseCompression compression) throws IOException {
+		super(out, deflater, 8192, true);
+		this.compression = compression;
+		this.gzip = gzip;
+		this.crc = gzip ? new CRC32() : null;
+		if (gzip) {
+			out.write(GZIP_HEADER);
+		}
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) throws IOException {
+		long start = System.nanoTime();
+		super.write(bytes, offset, length);
+		if (gzip) {
+			crc.update(bytes, offset, length);
+		}
+		processingTime += System.nanoTime() - start;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (!finished) {
+			super.flush();
+		}
+	}
+
+	/**
+	 * Finish compression, write GZIP trailer if applicable and return deflater to pool. This method is idempotent.
+	 */
+	@Override
+	public void finish() throws IOException {
+		if (finished) {
+			return;
+		}
+		finished = true;
+
+		long start = System.nanoTime();
+		try {
+			super.finish();
+			if (gzip) {
+				writeInt((int) crc.getValue());
+				writeInt((int) def.getBytesRead());
+			}
+		} finally {
+			processingTime += System.nanoTime() - start;
+			compression.release(def, gzip, processingTime);
+		}
+	}
+
+	/**
+	 * Abandon compression on failure, without writing compressed data end and GZIP trailer, so that a truncated body is not
+	 * sent as complete. Deflater is released but not returned to pool. This method is idempotent.
+	 */
+	public void abort() {
+		if (finished) {
+			return;
+		}
+		finished = true;
+		def.end();
+	}
+
+	/**
+	 * Finish compression and flush underlying stream. Underlying stream is not closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		finish();
+		out.flush();
+	}
+
+	/**
+	 * Write integer value to underlying stream using little endian byte order, as required by GZIP trailer.
+	 *
+	 * @param value integer value.
+	 * @throws IOException if write fails.
+	 */
+	private void writeInt(int value) throws IOException {
+		out.write(value & 0xff);
+		out.write((value >> 8) & 0xff);
+		out.write((value >> 16) & 0xff);
+		out.write((value >> 24) & 0xff);
+	}
+}
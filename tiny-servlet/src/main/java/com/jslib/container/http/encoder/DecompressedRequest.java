@@ -0,0 +1,108 @@
+package com.jslib.container.http.encoder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import com.jslib.container.http.HttpHeader;
+
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * HTTP request wrapper with body decompressed on the fly. Since decompressed length is not known in advance, content length is
+ * reported as unknown; <code>Content-Encoding</code> and <code>Content-Length</code> headers are hidden, from all header
+ * accessors, so that arguments readers do not attempt to decode or size body again.
+ *
+ * @author Iulian Rotaru
+ */
+final class DecompressedRequest extends HttpServletRequestWrapper {
+	private final RequestDecompression decompression;
+	private final boolean gzip;
+
+	/** Decompressing stream, lazily created on first access. */
+	private InflatedInputStream inputStream;
+	private BufferedReader reader;
+
+	public DecompressedRequest(HttpServletRequest httpRequest, RequestDecompression decompression, boolean gzip) {
+		super(httpRequest);
+		this.decompression = decompression;
+		this.gzip = gzip;
+	}
+
+	@Override
+	public ServletInputStream getInputStream() throws IOException {
+		if (inputStream == null) {
+			inputStream = new InflatedInputStream(super.getInputStream(), decompression, gzip);
+		}
+		return inputStream;
+	}
+
+	@Override
+	public BufferedReader getReader() throws IOException {
+		if (reader == null) {
+			String characterEncoding = getCharacterEncoding();
+			reader = new BufferedReader(new InputStreamReader(getInputStream(), characterEncoding != null ? characterEncoding : "ISO-8859-1"));
+		}
+		return reader;
+	}
+
+	@Override
+	public int getContentLength() {
+		return -1;
+	}
+
+	@Override
+	public long getContentLengthLong() {
+		return -1L;
+	}
+
+	@Override
+	public String getHeader(String name) {
+		if (isHidden(name)) {
+			return null;
+		}
+		return super.getHeader(name);
+	}
+
+	@Override
+	public Enumeration<String> getHeaders(String name) {
+		if (isHidden(name)) {
+			return Collections.emptyEnumeration();
+		}
+		return super.getHeaders(name);
+	}
+
+	@Override
+	public int getIntHeader(String name) {
+		if (isHidden(name)) {
+			return -1;
+		}
+		return super.getIntHeader(name);
+	}
+
+	@Override
+	public Enumeration<String> getHeaderNames() {
+		Enumeration<String> headerNames = super.getHeaderNames();
+		if (headerNames == null) {
+			return null;
+		}
+		List<String> names = new ArrayList<>();
+		while (headerNames.hasMoreElements()) {
+			String name = headerNames.nextElement();
+			if (!isHidden(name)) {
+				names.add(name);
+			}
+		}
+		return Collections.enumeration(names);
+	}
+
+	private static boolean isHidden(String name) {
+		return HttpHeader.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeader.CONTENT_LENGTH.equalsIgnoreCase(name);
+	}
+}
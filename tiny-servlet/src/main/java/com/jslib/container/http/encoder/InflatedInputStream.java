@@ -0,0 +1,280 @@
+package com.jslib.container.http.encoder;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+
+/**
+ * Decompressing input stream for <code>gzip</code> and <code>deflate</code> request bodies. Uses an inflater borrowed from
+ * {@link RequestDecompression} threads pool and returns it when compressed stream end is reached or this stream is closed.
+ * <p>
+ * GZIP header and trailer are processed by this class; trailer checksum and size are validated. For <code>deflate</code> coding
+ * ZLIB wrapper is detected from the first two bytes; if missing, stream is processed as raw deflate.
+ * <p>
+ * Decompressed bytes count is limited to {@link RequestDecompression#getMaxSize()}. If limit is exceeded read operation throws
+ * {@link PayloadTooLargeException}.
+ * <p>
+ * This stream supports only blocking reads.
+ *
+ * @author Iulian Rotaru
+ */
+final class InflatedInputStream extends ServletInputStream {
+	private static final int FHCRC = 2;
+	private static final int FEXTRA = 4;
+	private static final int FNAME = 8;
+	private static final int FCOMMENT = 16;
+
+	/** Compressed request stream. */
+	private final ServletInputStream in;
+	private final RequestDecompression decompression;
+	private final boolean gzip;
+	private final long maxSize;
+
+	/** Compressed bytes buffer. Bytes from {@link #position} to {@link #limit} are not yet consumed. */
+	private final byte[] buffer = new byte[8192];
+	private int position;
+	private int limit;
+
+	/** Buffer for single byte read. */
+	private final byte[] singleByte = new byte[1];
+
+	/** Checksum for decompressed data, used only by GZIP coding. */
+	private CRC32 crc;
+
+	/** Inflater borrowed on first read, null before that or after released. */
+	private Inflater inflater;
+	private boolean nowrap;
+
+	/** Decompressed bytes count. */
+	private long size;
+
+	/** Flag true after end of decompressed stream was reached. */
+	private boolean finished;
+
+	public InflatedInputStream(ServletInputStream in, RequestDecompression decompression, boolean gzip) {
+		this.in = in;
+		this.decompression = decompression;
+		this.gzip = gzip;
+		this.maxSize = decompression.getMaxSize();
+	}
+
+	@Override
+	public int read() throws IOException {
+		return read(singleByte, 0, 1) == -1 ? -1 : singleByte[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int length) throws IOException {
+		if (finished) {
+			return -1;
+		}
+		if (length == 0) {
+			return 0;
+		}
+		if (inflater == null) {
+			start();
+		}
+
+		try {
+			for (;;) {
+				int count = inflater.inflate(bytes, offset, length);
+				if (count > 0) {
+					size += count;
+					if (size > maxSize) {
+						release(true);
+						throw new PayloadTooLargeException(maxSize);
+					}
+					if (gzip) {
+						crc.update(bytes, offset, count);
+					}
+					return count;
+				}
+				if (inflater.finished()) {
+					position = limit - inflater.getRemaining();
+					release(false);
+					if (gzip) {
+						readTrailer();
+					}
+					return -1;
+				}
+				if (inflater.needsDictionary()) {
+					throw new ZipException("Deflate preset dictionary not supported.");
+				}
+				if (inflater.needsInput()) {
+					if (!fill()) {
+						throw new EOFException("Unexpected end of compressed request body.");
+					}
+					inflater.setInput(buffer, position, limit - position);
+					position = limit;
+				}
+			}
+		} catch (DataFormatException e) {
+			release(false);
+			throw new ZipException(e.getMessage());
+		}
+	}
+
+	@Override
+	public boolean isFinished() {
+		return finished;
+	}
+
+	@Override
+	public boolean isReady() {
+		return finished || in.isReady();
+	}
+
+	@Override
+	public void setReadListener(ReadListener readListener) {
+		throw new IllegalStateException("Non-blocking read not supported on compressed request body.");
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (inflater != null) {
+			release(false);
+		}
+		in.close();
+	}
+
+	/**
+	 * Process stream header and borrow inflater from pool. For GZIP coding consumes GZIP header; for deflate coding detects
+	 * ZLIB wrapper.
+	 *
+	 * @throws IOException if stream header is not valid or reading from request stream fails.
+	 */
+	private void start() throws IOException {
+		if (gzip) {
+			readHeader();
+			crc = new CRC32();
+			nowrap = true;
+		} else {
+			while (limit - position < 2) {
+				if (!fill()) {
+					break;
+				}
+			}
+			nowrap = !isZlibHeader();
+		}
+
+		inflater = decompression.borrow(nowrap);
+		if (position < limit) {
+			inflater.setInput(buffer, position, limit - position);
+			position = limit;
+		}
+	}
+
+	/**
+	 * Test if buffered bytes start with a valid ZLIB header: deflate compression method and header checksum multiple of 31.
+	 *
+	 * @return true if ZLIB header is present.
+	 */
+	private boolean isZlibHeader() {
+		if (limit - position < 2) {
+			return false;
+		}
+		int cmf = buffer[position] & 0xff;
+		int flg = buffer[position + 1] & 0xff;
+		return (cmf & 0x0f) == 8 && ((cmf << 8) | flg) % 31 == 0;
+	}
+
+	private void readHeader() throws IOException {
+		if (readByte() != 0x1f || readByte() != 0x8b) {
+			throw new ZipException("Not in GZIP format.");
+		}
+		if (readByte() != 8) {
+			throw new ZipException("Unsupported GZIP compression method.");
+		}
+		int flags = readByte();
+		// modification time, extra flags and operating system
+		skip(6);
+		if ((flags & FEXTRA) != 0) {
+			skip(readByte() | (readByte() << 8));
+		}
+		if ((flags & FNAME) != 0) {
+			while (readByte() != 0) {
+			}
+		}
+		if ((flags & FCOMMENT) != 0) {
+			while (readByte() != 0) {
+			}
+		}
+		if ((flags & FHCRC) != 0) {
+			skip(2);
+		}
+	}
+
+	private void readTrailer() throws IOException {
+		long checksum = readInt();
+		long isize = readInt();
+		if (checksum != crc.getValue() || isize != (size & 0xffffffffL)) {
+			throw new ZipException("Corrupt GZIP trailer.");
+		}
+	}
+
+	/**
+	 * Read unsigned integer value in little endian byte order, as used by GZIP trailer.
+	 *
+	 * @return integer value.
+	 * @throws IOException if reading from request stream fails.
+	 */
+	private long readInt() throws IOException {
+		long value = readByte();
+		value |= readByte() << 8;
+		value |= readByte() << 16;
+		value |= (long) readByte() << 24;
+		return value;
+	}
+
+	private void skip(int count) throws IOException {
+		for (int i = 0; i < count; ++i) {
+			readByte();
+		}
+	}
+
+	private int readByte() throws IOException {
+		if (position == limit && !fill()) {
+			throw new EOFException("Unexpected end of compressed request body.");
+		}
+		return buffer[position++] & 0xff;
+	}
+
+	/**
+	 * Read compressed bytes from request stream into buffer. Not consumed bytes, if any, are moved to buffer start.
+	 *
+	 * @return false if request stream end was reached.
+	 * @throws IOException if reading from request stream fails.
+	 */
+	private boolean fill() throws IOException {
+		if (position > 0) {
+			System.arraycopy(buffer, position, buffer, 0, limit - position);
+			limit -= position;
+			position = 0;
+		}
+		int count = in.read(buffer, limit, buffer.length - limit);
+		if (count == -1) {
+			return false;
+		}
+		limit += count;
+		return true;
+	}
+
+	/**
+	 * Mark this stream as finished and return inflater to pool.
+	 *
+	 * @param rejected flag true if size limit was exceeded.
+	 */
+	private void release(boolean rejected) {
+		finished = true;
+		if (inflater != null) {
+			decompression.release(inflater, nowrap, rejected);
+			inflater = null;
+		}
+	}
+}
@@ -0,0 +1,266 @@
+package com.jslib.container.http.encoder;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.jslib.api.json.Json;
+import com.jslib.api.json.JsonException;
+import com.jslib.lang.IllegalArgumentException;
+import com.jslib.util.Classes;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Arguments reader for a single {@link Iterator} or {@link Stream} entity parameter with items read lazily from request body.
+ * Request body is either a top level JSON array or newline delimited JSON, <code>application/x-ndjson</code>. Items are
+ * extracted one by one from request stream and parsed to parameter type argument only when resource method asks for the next
+ * item, so that the method can process items while request body is still arriving and the whole array is never materialized.
+ * <p>
+ * Every item serialized size is limited to {@link ServerEncoders#getStreamingItemMaxSize()} characters. If an item exceeds
+ * the limit or is not valid JSON, iteration throws {@link IllegalArgumentException}; request stream failure is reported as
+ * {@link UncheckedIOException}.
+ * <p>
+ * Returned iterator and stream are bound to request input stream and should be consumed before resource method returns.
+ *
+ * @author Iulian Rotaru
+ */
+final class JsonStreamArgumentsReader implements ArgumentsReader {
+	/** JSON deserializer delegated for items parsing. */
+	private final Json json;
+
+	/** Server encoders registry, used for item size limit configuration. */
+	private final ServerEncoders encoders;
+
+	/** Flag true for newline delimited JSON, false for JSON array. */
+	private final boolean lines;
+
+	public JsonStreamArgumentsReader(ServerEncoders encoders, boolean lines) {
+		this(Classes.loadService(Json.class), encoders, lines);
+	}
+
+	public JsonStreamArgumentsReader(Json json, ServerEncoders encoders, boolean lines) {
+		this.json = json;
+		this.encoders = encoders;
+		this.lines = lines;
+	}
+
+	@Override
+	public Object[] read(HttpServletRequest httpRequest, Type[] formalParameters) throws IOException, IllegalArgumentException {
+		if (formalParameters.length != 1) {
+			throw new IllegalArgumentException("Streaming request body requires a single entity parameter.");
+		}
+		Type parameterType = formalParameters[0];
+		Class<?> parameterClass = (Class<?>) (parameterType instanceof ParameterizedType ? ((ParameterizedType) parameterType).getRawType() : parameterType);
+		Type itemType = parameterType instanceof ParameterizedType ? ((ParameterizedType) parameterType).getActualTypeArguments()[0] : Object.class;
+
+		Reader reader = new InputStreamReader(httpRequest.getInputStream(), StandardCharsets.UTF_8);
+		Iterator<Object> iterator = new ItemsIterator(reader, itemType);
+		if (Stream.class.isAssignableFrom(parameterClass)) {
+			return new Object[] { StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false) };
+		}
+		return new Object[] { iterator };
+	}
+
+	/** This method does nothing but is requested by interface. */
+	@Override
+	public void clean() {
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Iterator that extracts JSON items text from request characters stream and parses them on demand. Next item is looked
+	 * ahead by {@link #hasNext()}, so at most one item is kept in memory.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	private class ItemsIterator implements Iterator<Object> {
+		private final Reader reader;
+		private final Type itemType;
+		private final int maxItemSize;
+
+		private final char[] buffer = new char[8192];
+		private int position;
+		private int limit;
+
+		/** Item text, reused for all items. */
+		private final StringBuilder item = new StringBuilder();
+
+		/** Flag true after JSON array start was read. */
+		private boolean started;
+		/** Flag true after end of items was reached. */
+		private boolean finished;
+		/** Flag true if {@link #item} contains next item not yet returned. */
+		private boolean pending;
+
+		public ItemsIterator(Reader reader, Type itemType) {
+			this.reader = reader;
+			this.itemType = itemType;
+			this.maxItemSize = encoders.getStreamingItemMaxSize();
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (pending) {
+				return true;
+			}
+			if (finished) {
+				return false;
+			}
+			try {
+				pending = lines ? readLine() : readElement();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			if (!pending) {
+				finished = true;
+			}
+			return pending;
+		}
+
+		@Override
+		public Object next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			pending = false;
+			try {
+				return json.parse(new StringReader(item.toString()), itemType);
+			} catch (JsonException | ClassCastException | IOException e) {
+				throw new IllegalArgumentException("Invalid streaming request item: %s", e.getMessage());
+			}
+		}
+
+		/**
+		 * Read next non empty line into item text.
+		 *
+		 * @return true if an item was read, false on end of stream.
+		 * @throws IOException if reading from request stream fails.
+		 */
+		private boolean readLine() throws IOException {
+			for (;;) {
+				item.setLength(0);
+				int c;
+				while ((c = read()) != -1 && c != '\n') {
+					append(c);
+				}
+				int length = item.length();
+				while (length > 0 && Character.isWhitespace(item.charAt(length - 1))) {
+					--length;
+				}
+				item.setLength(length);
+				if (length > 0) {
+					return true;
+				}
+				if (c == -1) {
+					return false;
+				}
+			}
+		}
+
+		/**
+		 * Read next JSON array element into item text. Element end is detected by tracking nesting depth and string literals;
+		 * element separator and array end are consumed.
+		 *
+		 * @return true if an element was read, false on array end.
+		 * @throws IOException if reading from request stream fails.
+		 * @throws IllegalArgumentException if request body is not a JSON array.
+		 */
+		private boolean readElement() throws IOException {
+			int c = skipWhitespace();
+			if (!started) {
+				if (c != '[') {
+					throw new IllegalArgumentException("Invalid streaming request body. Expected JSON array.");
+				}
+				started = true;
+				c = skipWhitespace();
+				if (c == ']') {
+					return false;
+				}
+			} else {
+				if (c == ']') {
+					return false;
+				}
+				if (c != ',') {
+					throw new IllegalArgumentException("Invalid streaming request body. Missing array elements separator.");
+				}
+				c = skipWhitespace();
+			}
+			if (c == -1) {
+				throw new IllegalArgumentException("Invalid streaming request body. Unexpected end of JSON array.");
+			}
+
+			item.setLength(0);
+			int depth = 0;
+			boolean string = false;
+			boolean escape = false;
+			for (;; c = read()) {
+				if (c == -1) {
+					throw new IllegalArgumentException("Invalid streaming request body. Unexpected end of JSON array.");
+				}
+				if (string) {
+					if (escape) {
+						escape = false;
+					} else if (c == '\\') {
+						escape = true;
+					} else if (c == '"') {
+						string = false;
+					}
+				} else if (c == '"') {
+					string = true;
+				} else if (c == '{' || c == '[') {
+					++depth;
+				} else if (c == '}' || c == ']') {
+					if (depth == 0) {
+						// array end; leave it for next element read
+						--position;
+						return true;
+					}
+					--depth;
+				} else if (c == ',' && depth == 0) {
+					--position;
+					return true;
+				}
+				append(c);
+			}
+		}
+
+		private int skipWhitespace() throws IOException {
+			int c;
+			while ((c = read()) != -1 && Character.isWhitespace(c)) {
+			}
+			return c;
+		}
+
+		private void append(int c) {
+			if (item.length() == maxItemSize) {
+				throw new IllegalArgumentException("Streaming request item exceeds limit of %d characters.", maxItemSize);
+			}
+			item.append((char) c);
+		}
+
+		private int read() throws IOException {
+			if (position == limit) {
+				limit = reader.read(buffer, 0, buffer.length);
+				position = 0;
+				if (limit <= 0) {
+					limit = 0;
+					return -1;
+				}
+			}
+			return buffer[position++];
+		}
+	}
+}
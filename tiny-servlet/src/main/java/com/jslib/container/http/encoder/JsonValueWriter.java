@@ -2,7 +2,10 @@ package com.jslib.container.http.encoder;
 
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import com.jslib.api.json.Json;
 import com.jslib.util.Classes;
@@ -10,6 +13,16 @@ import com.jslib.util.Classes;
 /**
  * Return value serializer with JSON encoding. This return value writer delegates {@link Json#stringify(java.io.Writer, Object)}
  * for actual value serialization.
+ * <p>
+ * Serialized JSON is collected into a {@link BufferedResponseStream} so that small responses are sent in a single write and
+ * with <code>Content-Length</code> header. If serialized value exceeds {@link ServerEncoders#getResponseBufferSize()} this
+ * writer switches to streaming. If HTTP request is available, response compression is negotiated, see
+ * {@link ResponseCompression}.
+ * <p>
+ * Return values that are streams, iterators or iterables other than collections are serialized incrementally as JSON array,
+ * item by item, so that the sequence is never materialized in memory, see {@link ValueSequence}. If
+ * {@link ServerEncoders#getStreamingFlushItems()} is configured, sequence is streamed from the first item and response is flushed
+ * after every configured number of items.
  * 
  * @author Iulian Rotaru
  * @version final
@@ -18,9 +31,17 @@ final class JsonValueWriter implements ValueWriter {
 	/** JSON serializer delegated for return value encoding. */
 	private final Json json;
 
-	/** Create JSON value writer. */
-	public JsonValueWriter() {
-		json = Classes.loadService(Json.class);
+	/** Server encoders registry, used for response buffer configuration. */
+	private final ServerEncoders encoders;
+
+	/**
+	 * Create JSON value writer.
+	 * 
+	 * @param encoders parent server encoders registry.
+	 */
+	public JsonValueWriter(ServerEncoders encoders) {
+		this.json = Classes.loadService(Json.class);
+		this.encoders = encoders;
 	}
 
 	/**
@@ -33,6 +54,62 @@ final class JsonValueWriter implements ValueWriter {
 	 */
 	@Override
 	public void write(HttpServletResponse httpResponse, Object value) throws IOException {
-		json.stringify(new OutputStreamWriter(httpResponse.getOutputStream(), "UTF-8"), value);
+		write(null, httpResponse, value);
+	}
+
+	/**
+	 * Serialize return value to HTTP response using JSON encoding, compressed if client accepts it.
+	 * 
+	 * @param httpRequest HTTP request, possible null,
+	 * @param httpResponse HTTP response,
+	 * @param value return value.
+	 * @throws IOException if writing to HTTP response output stream fails.
+	 */
+	@Override
+	public void write(HttpServletRequest httpRequest, HttpServletResponse httpResponse, Object value) throws IOException {
+		ResponseCompression compression = encoders.getResponseCompression();
+		String encoding = compression.negotiate(httpRequest, httpResponse);
+
+		if (ValueSequence.isSequence(value)) {
+			writeSequence(json, encoders, httpResponse, ValueSequence.of(value), false, compression, encoding);
+			return;
+		}
+
+		BufferedResponseStream stream = new BufferedResponseStream(httpResponse, encoders.getResponseBufferSize(), compression, encoding);
+		Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+		json.stringify(writer, value);
+		// JSON serializer may close the writer, that on its turn closes buffered stream
+		// if not closed, writer flush is mandatory to push pending characters to buffered stream
+		if (!stream.isClosed()) {
+			writer.flush();
+			stream.close();
+		}
+	}
+
+	/**
+	 * Serialize value sequence, either as JSON array or as newline delimited JSON. If explicit flush is configured, response is
+	 * streamed from the first item, otherwise sequence is buffered while it fits response buffer. Sequence is closed after
+	 * serialization, even if it fails.
+	 * 
+	 * @param json JSON serializer,
+	 * @param encoders server encoders registry,
+	 * @param httpResponse HTTP response,
+	 * @param sequence value sequence,
+	 * @param lines flag true for newline delimited JSON,
+	 * @param compression response compression service,
+	 * @param encoding negotiated content coding, null if response is not compressed.
+	 * @throws IOException if writing to HTTP response output stream fails.
+	 */
+	static void writeSequence(Json json, ServerEncoders encoders, HttpServletResponse httpResponse, ValueSequence sequence, boolean lines, ResponseCompression compression, String encoding) throws IOException {
+		int flushItems = encoders.getStreamingFlushItems();
+		int threshold = flushItems > 0 ? 0 : encoders.getResponseBufferSize();
+		// buffered stream is not closed on failure since it would send truncated body as complete response
+		try (sequence) {
+			BufferedResponseStream stream = new BufferedResponseStream(httpResponse, threshold, compression, encoding);
+			Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+			sequence.write(json, writer, lines, flushItems);
+			writer.flush();
+			stream.close();
+		}
 	}
 }
@@ -0,0 +1,44 @@
+package com.jslib.container.http.encoder;
+
+import java.io.IOException;
+
+import com.jslib.api.json.Json;
+import com.jslib.util.Classes;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Return value serializer for newline delimited JSON, <code>application/x-ndjson</code>. Every item from a stream, iterator
+ * or iterable return value - collections included, is serialized as a JSON value on its own line; any other value is written
+ * as a single line.
+ * <p>
+ * Items are serialized incrementally, see {@link ValueSequence}, with the same buffering, compression and flushing rules as
+ * {@link JsonValueWriter} uses for sequences.
+ *
+ * @author Iulian Rotaru
+ */
+final class NdjsonValueWriter implements ValueWriter {
+	/** JSON serializer delegated for items encoding. */
+	private final Json json;
+
+	/** Server encoders registry, used for response buffer and streaming configuration. */
+	private final ServerEncoders encoders;
+
+	public NdjsonValueWriter(ServerEncoders encoders) {
+		this.json = Classes.loadService(Json.class);
+		this.encoders = encoders;
+	}
+
+	@Override
+	public void write(HttpServletResponse httpResponse, Object value) throws IOException {
+		write(null, httpResponse, value);
+	}
+
+	@Override
+	public void write(HttpServletRequest httpRequest, HttpServletResponse httpResponse, Object value) throws IOException {
+		ResponseCompression compression = encoders.getResponseCompression();
+		String encoding = compression.negotiate(httpRequest, httpResponse);
+		JsonValueWriter.writeSequence(json, encoders, httpResponse, ValueSequence.of(value), true, compression, encoding);
+	}
+}
@@ -0,0 +1,24 @@
+package com.jslib.container.http.encoder;
+
+import java.io.IOException;
+
+/**
+ * Thrown when request body exceeds configured size limit. For compressed request bodies limit is applied on decompressed
+ * bytes count, see {@link RequestDecompression#PARAM_MAX_SIZE}, so that a small but highly compressed body cannot exhaust server
+ * memory.
+ *
+ * @author Iulian Rotaru
+ */
+public class PayloadTooLargeException extends IOException {
+	/** Java serialization version. */
+	private static final long serialVersionUID = -2318904613862263081L;
+
+	/**
+	 * Create exception for given size limit.
+	 *
+	 * @param maxSize size limit, in bytes.
+	 */
+	public PayloadTooLargeException(long maxSize) {
+		super(String.format("Request body exceeds limit of %d bytes.", maxSize));
+	}
+}
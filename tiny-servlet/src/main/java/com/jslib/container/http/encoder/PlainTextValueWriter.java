@@ -1,21 +1,37 @@
 package com.jslib.container.http.encoder;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import com.jslib.converter.Converter;
 import com.jslib.converter.ConverterRegistry;
-import com.jslib.util.Strings;
 
 /**
  * Value writer for plain text. This value writer simply serialize given string value to HTTP response stream. Uses
  * {@link Converter} to convert value to string, if is not already string.
+ * <p>
+ * Text is already in memory so, if not compressed, it is sent in a single write with <code>Content-Length</code> header. If
+ * client accepts compression, text is written via {@link BufferedResponseStream} that takes care of compression.
  * 
  * @author Iulian Rotaru
  */
 public class PlainTextValueWriter implements ValueWriter {
 	private final Converter converter = ConverterRegistry.getConverter();
 
+	/** Server encoders registry, used for response buffer and compression configuration. */
+	private final ServerEncoders encoders;
+
+	public PlainTextValueWriter() {
+		this(ServerEncoders.getInstance());
+	}
+
+	public PlainTextValueWriter(ServerEncoders encoders) {
+		this.encoders = encoders;
+	}
+
 	/**
 	 * Serialize value to HTTP response stream. Convert value to string if necessary.
 	 * 
@@ -25,6 +41,31 @@ public class PlainTextValueWriter implements ValueWriter {
 	 */
 	@Override
 	public void write(HttpServletResponse httpResponse, Object value) throws IOException {
-		Strings.save(converter.asString(value), httpResponse.getOutputStream());
+		write(null, httpResponse, value);
+	}
+
+	/**
+	 * Serialize value to HTTP response stream, compressed if client accepts it. Convert value to string if necessary.
+	 * 
+	 * @param httpRequest HTTP request, possible null,
+	 * @param httpResponse HTTP response,
+	 * @param value value to send on HTTP response.
+	 * @throws IOException if writing to HTTP response output stream fails.
+	 */
+	@Override
+	public void write(HttpServletRequest httpRequest, HttpServletResponse httpResponse, Object value) throws IOException {
+		ResponseCompression compression = encoders.getResponseCompression();
+		String encoding = compression.negotiate(httpRequest, httpResponse);
+		byte[] bytes = converter.asString(value).getBytes(StandardCharsets.UTF_8);
+		if (encoding == null) {
+			httpResponse.setContentLength(bytes.length);
+			OutputStream outputStream = httpResponse.getOutputStream();
+			outputStream.write(bytes);
+			outputStream.flush();
+			return;
+		}
+		try (BufferedResponseStream stream = new BufferedResponseStream(httpResponse, encoders.getResponseBufferSize(), compression, encoding)) {
+			stream.write(bytes);
+		}
 	}
 }
@@ -0,0 +1,174 @@
+package com.jslib.container.http.encoder;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Inflater;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+import com.jslib.container.http.HttpHeader;
+import com.jslib.container.spi.IContainer;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Transparent decompression for request bodies with <code>Content-Encoding</code> header. Supported content codings are
+ * <code>gzip</code>, with its <code>x-gzip</code> alias, and <code>deflate</code>; for the latter both ZLIB wrapped and raw
+ * deflate streams are accepted, since there are clients sending raw deflate. Requests with no content coding or with a coding
+ * not supported are not touched.
+ * <p>
+ * Decompression is enacted by wrapping HTTP request before any {@link ArgumentsReader} runs, see {@link #wrap(HttpServletRequest)};
+ * readers see decompressed bytes and unknown content length. In order to protect against decompression bombs, decompressed bytes
+ * count is limited to {@link #PARAM_MAX_SIZE}; if limit is exceeded reading from request stream throws
+ * {@link PayloadTooLargeException}.
+ * <p>
+ * Inflaters hold native memory and are kept in per thread pools; an inflater is borrowed for request body reading and returned
+ * when decompressed stream end is reached or stream closed.
+ *
+ * <pre>
+ * &lt;context-param&gt;
+ * 	&lt;param-name&gt;com.jslib.container.encoder.decompression.max.size&lt;/param-name&gt;
+ * 	&lt;param-value&gt;1048576&lt;/param-value&gt;
+ * &lt;/context-param&gt;
+ * </pre>
+ *
+ * @author Iulian Rotaru
+ */
+public final class RequestDecompression {
+	private static final Log log = LogFactory.getLog(RequestDecompression.class);
+
+	/** Context parameter for decompression enabled flag, default to true. */
+	public static final String PARAM_ENABLED = "com.jslib.container.encoder.decompression.enabled";
+	/** Context parameter for maximum decompressed request body size, in bytes. */
+	public static final String PARAM_MAX_SIZE = "com.jslib.container.encoder.decompression.max.size";
+
+	/** Default value for maximum decompressed size, 10 MB. */
+	private static final long DEFAULT_MAX_SIZE = 10 * 1024 * 1024;
+
+	/** Inflaters pool for GZIP and raw deflate, with <code>nowrap</code> flag set. */
+	private final ThreadLocal<Inflater> nowrapInflaters = new ThreadLocal<>();
+	/** Inflaters pool for ZLIB wrapped deflate. */
+	private final ThreadLocal<Inflater> zlibInflaters = new ThreadLocal<>();
+
+	private volatile boolean enabled = true;
+	private volatile long maxSize = DEFAULT_MAX_SIZE;
+
+	private final AtomicLong decompressedRequests = new AtomicLong();
+	private final AtomicLong compressedBytes = new AtomicLong();
+	private final AtomicLong decompressedBytes = new AtomicLong();
+	private final AtomicLong rejectedRequests = new AtomicLong();
+
+	RequestDecompression() {
+	}
+
+	/**
+	 * Load decompression configuration from container initialization parameters. Parameters not defined keep their values.
+	 *
+	 * @param container parent container.
+	 */
+	void configure(IContainer container) {
+		Boolean enabled = container.getInitParameter(PARAM_ENABLED, Boolean.class);
+		if (enabled != null) {
+			this.enabled = enabled;
+		}
+		Long maxSize = container.getInitParameter(PARAM_MAX_SIZE, Long.class);
+		if (maxSize != null) {
+			this.maxSize = maxSize;
+		}
+		log.debug("Request decompression enabled |{enabled}|, max size |{max_size}|.", this.enabled, this.maxSize);
+	}
+
+	/**
+	 * Wrap HTTP request so that its body is decompressed on the fly, if request has a supported content coding. Otherwise returns
+	 * given HTTP request unchanged.
+	 *
+	 * @param httpRequest HTTP request.
+	 * @return HTTP request with decompressed body or given HTTP request.
+	 */
+	public HttpServletRequest wrap(HttpServletRequest httpRequest) {
+		if (!enabled) {
+			return httpRequest;
+		}
+		String encoding = httpRequest.getHeader(HttpHeader.CONTENT_ENCODING);
+		if (encoding == null) {
+			return httpRequest;
+		}
+		encoding = encoding.trim();
+		if (ResponseCompression.GZIP.equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding)) {
+			return new DecompressedRequest(httpRequest, this, true);
+		}
+		if (ResponseCompression.DEFLATE.equalsIgnoreCase(encoding)) {
+			return new DecompressedRequest(httpRequest, this, false);
+		}
+		return httpRequest;
+	}
+
+	/**
+	 * Get maximum decompressed request body size, in bytes.
+	 *
+	 * @return maximum decompressed size.
+	 */
+	long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Take inflater from current thread pool or create a new one if pool slot is empty.
+	 *
+	 * @param nowrap flag true for GZIP and raw deflate streams.
+	 * @return inflater instance.
+	 */
+	Inflater borrow(boolean nowrap) {
+		ThreadLocal<Inflater> pool = nowrap ? nowrapInflaters : zlibInflaters;
+		Inflater inflater = pool.get();
+		if (inflater == null) {
+			return new Inflater(nowrap);
+		}
+		pool.set(null);
+		inflater.reset();
+		return inflater;
+	}
+
+	/**
+	 * Update metrics and return inflater to current thread pool. If pool slot is already filled inflater is released.
+	 *
+	 * @param inflater inflater to return,
+	 * @param nowrap flag true for GZIP and raw deflate streams,
+	 * @param rejected flag true if request body exceeded size limit.
+	 */
+	void release(Inflater inflater, boolean nowrap, boolean rejected) {
+		decompressedRequests.incrementAndGet();
+		compressedBytes.addAndGet(inflater.getBytesRead());
+		decompressedBytes.addAndGet(inflater.getBytesWritten());
+		if (rejected) {
+			rejectedRequests.incrementAndGet();
+		}
+
+		ThreadLocal<Inflater> pool = nowrap ? nowrapInflaters : zlibInflaters;
+		if (pool.get() == null) {
+			pool.set(inflater);
+		} else {
+			inflater.end();
+		}
+	}
+
+	public long getDecompressedRequests() {
+		return decompressedRequests.get();
+	}
+
+	public long getCompressedBytes() {
+		return compressedBytes.get();
+	}
+
+	public long getDecompressedBytes() {
+		return decompressedBytes.get();
+	}
+
+	/**
+	 * Get the number of requests rejected because decompressed body exceeded size limit.
+	 *
+	 * @return rejected requests count.
+	 */
+	public long getRejectedRequests() {
+		return rejectedRequests.get();
+	}
+}
@@ -0,0 +1,320 @@
+package com.jslib.container.http.encoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+import com.jslib.container.http.HttpHeader;
+import com.jslib.container.spi.IContainer;
+import com.jslib.util.Strings;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Response compression negotiated from <code>Accept-Encoding</code> request header. Supported content codings are
+ * <code>gzip</code> and <code>deflate</code>; if client accepts both, <code>gzip</code> is preferred on equal quality factors.
+ * <p>
+ * Compression is applied only if response content type is on allowed types list and body size is at least
+ * {@link #PARAM_MIN_SIZE}. Size condition can be checked only if body is buffered, see {@link BufferedResponseStream}; streamed
+ * bodies are compressed based on content type only.
+ * <p>
+ * Deflaters are expensive to create and hold native memory. This class keeps a deflater per thread and per encoding; a deflater
+ * is borrowed for the response life span and returned to pool when compression is finished.
+ * <p>
+ * Compression is configurable from context parameters. All parameters are optional.
+ *
+ * <pre>
+ * &lt;context-param&gt;
+ * 	&lt;param-name&gt;com.jslib.container.encoder.compression.types&lt;/param-name&gt;
+ * 	&lt;param-value&gt;application/json,text/plain&lt;/param-value&gt;
+ * &lt;/context-param&gt;
+ * </pre>
+ *
+ * This class also keeps counters for compressed responses, uncompressed and compressed bytes count and time spent on
+ * compression. Counters are exposed via getters.
+ *
+ * @author Iulian Rotaru
+ */
+public final class ResponseCompression {
+	private static final Log log = LogFactory.getLog(ResponseCompression.class);
+
+	/** Context parameter for compression enabled flag, default to true. */
+	public static final String PARAM_ENABLED = "com.jslib.container.encoder.compression.enabled";
+	/** Context parameter for minimum body size, in bytes, for which compression is applied. */
+	public static final String PARAM_MIN_SIZE = "com.jslib.container.encoder.compression.min.size";
+	/** Context parameter for comma separated list of content types, MIME only, for which compression is allowed. */
+	public static final String PARAM_TYPES = "com.jslib.container.encoder.compression.types";
+	/** Context parameter for GZIP compression level, 1 to 9. */
+	public static final String PARAM_GZIP_LEVEL = "com.jslib.container.encoder.compression.gzip.level";
+	/** Context parameter for deflate compression level, 1 to 9. */
+	public static final String PARAM_DEFLATE_LEVEL = "com.jslib.container.encoder.compression.deflate.level";
+
+	/** Content coding name for GZIP. */
+	public static final String GZIP = "gzip";
+	/** Content coding name for ZLIB deflate. */
+	public static final String DEFLATE = "deflate";
+
+	private static final int DEFAULT_MIN_SIZE = 1024;
+
+	private static final Set<String> DEFAULT_TYPES = new HashSet<>();
+	static {
+		DEFAULT_TYPES.add("application/json");
+		DEFAULT_TYPES.add("application/javascript");
+		DEFAULT_TYPES.add("application/xml");
+		DEFAULT_TYPES.add("image/svg+xml");
+		DEFAULT_TYPES.add("text/css");
+		DEFAULT_TYPES.add("text/html");
+		DEFAULT_TYPES.add("text/plain");
+		DEFAULT_TYPES.add("text/xml");
+	}
+
+	/** Deflaters pool for GZIP encoding, with <code>nowrap</code> flag set. */
+	private final ThreadLocal<Deflater> gzipDeflaters = new ThreadLocal<>();
+	/** Deflaters pool for deflate encoding. */
+	private final ThreadLocal<Deflater> deflateDeflaters = new ThreadLocal<>();
+
+	private volatile boolean enabled = true;
+	private volatile int minSize = DEFAULT_MIN_SIZE;
+	private volatile Set<String> types = Collections.unmodifiableSet(DEFAULT_TYPES);
+	private volatile int gzipLevel = Deflater.DEFAULT_COMPRESSION;
+	private volatile int deflateLevel = Deflater.DEFAULT_COMPRESSION;
+
+	private final AtomicLong compressedResponses = new AtomicLong();
+	private final AtomicLong uncompressedBytes = new AtomicLong();
+	private final AtomicLong compressedBytes = new AtomicLong();
+	private final AtomicLong processingTime = new AtomicLong();
+
+	ResponseCompression() {
+	}
+
+	/**
+	 * Load compression configuration from container initialization parameters. Parameters not defined keep their values.
+	 *
+	 * @param container parent container.
+	 */
+	void configure(IContainer container) {
+		Boolean enabled = container.getInitParameter(PARAM_ENABLED, Boolean.class);
+		if (enabled != null) {
+			this.enabled = enabled;
+		}
+		Integer minSize = container.getInitParameter(PARAM_MIN_SIZE, Integer.class);
+		if (minSize != null) {
+			this.minSize = minSize;
+		}
+		String types = container.getInitParameter(PARAM_TYPES, String.class);
+		if (types != null) {
+			Set<String> typesSet = new HashSet<>();
+			for (String type : Strings.split(types, ',')) {
+				typesSet.add(type.trim().toLowerCase());
+			}
+			this.types = Collections.unmodifiableSet(typesSet);
+		}
+		Integer gzipLevel = container.getInitParameter(PARAM_GZIP_LEVEL, Integer.class);
+		if (gzipLevel != null) {
+			this.gzipLevel = gzipLevel;
+		}
+		Integer deflateLevel = container.getInitParameter(PARAM_DEFLATE_LEVEL, Integer.class);
+		if (deflateLevel != null) {
+			this.deflateLevel = deflateLevel;
+		}
+		log.debug("Response compression enabled |{enabled}|, min size |{min_size}|, types |{types}|.", this.enabled, this.minSize, this.types);
+	}
+
+	/**
+	 * Negotiate content coding for given HTTP exchange. Returns null if compression is disabled, response content type is not
+	 * allowed or client does not accept any supported coding. If response content type is allowed, this method takes care to add
+	 * <code>Vary: Accept-Encoding</code> response header, no matter negotiation result, so that caches do not mix encodings.
+	 * <p>
+	 * Response content type should be already set when this method is invoked.
+	 *
+	 * @param httpRequest HTTP request, possible null in which case this method returns null,
+	 * @param httpResponse HTTP response.
+	 * @return negotiated content coding, {@link #GZIP} or {@link #DEFLATE}, or null.
+	 */
+	public String negotiate(HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+		if (!enabled || httpRequest == null) {
+			return null;
+		}
+		if (!isAllowedType(httpResponse.getContentType())) {
+			return null;
+		}
+		httpResponse.addHeader(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING);
+		return negotiate(httpRequest.getHeader(HttpHeader.ACCEPT_ENCODING));
+	}
+
+	/**
+	 * Select content coding from <code>Accept-Encoding</code> header value. Takes into account quality factors and wildcard.
+	 *
+	 * @param acceptEncoding <code>Accept-Encoding</code> header value, possible null.
+	 * @return selected content coding or null if none supported.
+	 */
+	public static String negotiate(String acceptEncoding) {
+		if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+			return null;
+		}
+
+		float gzipQuality = -1;
+		float deflateQuality = -1;
+		float anyQuality = -1;
+
+		for (String item : Strings.split(acceptEncoding, ',')) {
+			String coding = item;
+			float quality = 1.0F;
+			int separatorIndex = item.indexOf(';');
+			if (separatorIndex != -1) {
+				coding = item.substring(0, separatorIndex);
+				quality = quality(item.substring(separatorIndex + 1));
+			}
+			coding = coding.trim();
+			if (GZIP.equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) {
+				gzipQuality = quality;
+			} else if (DEFLATE.equalsIgnoreCase(coding)) {
+				deflateQuality = quality;
+			} else if ("*".equals(coding)) {
+				anyQuality = quality;
+			}
+		}
+
+		if (gzipQuality < 0) {
+			gzipQuality = Math.max(anyQuality, 0);
+		}
+		if (deflateQuality < 0) {
+			deflateQuality = Math.max(anyQuality, 0);
+		}
+		if (gzipQuality > 0 && gzipQuality >= deflateQuality) {
+			return GZIP;
+		}
+		if (deflateQuality > 0) {
+			return DEFLATE;
+		}
+		return null;
+	}
+
+	/**
+	 * Parse quality factor from header item parameters. Returns 1 if quality parameter is missing and 0 if invalid.
+	 *
+	 * @param parameters header item parameters, without leading semicolon.
+	 * @return quality factor.
+	 */
+	private static float quality(String parameters) {
+		for (String parameter : Strings.split(parameters, ';')) {
+			parameter = parameter.trim();
+			if (parameter.startsWith("q=")) {
+				try {
+					return Float.parseFloat(parameter.substring(2).trim());
+				} catch (NumberFormatException e) {
+					return 0;
+				}
+			}
+		}
+		return 1.0F;
+	}
+
+	/**
+	 * Test if compression is allowed for given content type. Content type parameters, if any, are ignored.
+	 *
+	 * @param contentType content type, possible null.
+	 * @return true if content type is on allowed types list.
+	 */
+	private boolean isAllowedType(String contentType) {
+		if (contentType == null) {
+			return false;
+		}
+		int parametersIndex = contentType.indexOf(';');
+		String mime = parametersIndex != -1 ? contentType.substring(0, parametersIndex) : contentType;
+		return types.contains(mime.trim().toLowerCase());
+	}
+
+	/**
+	 * Test if body size is large enough to worth compression.
+	 *
+	 * @param size body size, in bytes.
+	 * @return true if body size is at least configured minimum size.
+	 */
+	public boolean isCompressible(int size) {
+		return size >= minSize;
+	}
+
+	/**
+	 * Create compressing stream for requested content coding. Deflater is borrowed from current thread pool.
+	 *
+	 * @param out underlying output stream,
+	 * @param encoding content coding, {@link #GZIP} or {@link #DEFLATE}.
+	 * @return compressing output stream.
+	 * @throws IOException if writing GZIP header fails.
+	 */
+	public CompressedOutputStream getOutputStream(OutputStream out, String encoding) throws IOException {
+		boolean gzip = GZIP.equals(encoding);
+		return new CompressedOutputStream(out, borrow(gzip), gzip, this);
+	}
+
+	/**
+	 * Take deflater from current thread pool or create a new one if pool slot is empty. Deflater is reset and its level updated
+	 * from current configuration.
+	 *
+	 * @param gzip flag true for GZIP encoding.
+	 * @return deflater instance.
+	 */
+	private Deflater borrow(boolean gzip) {
+		ThreadLocal<Deflater> pool = gzip ? gzipDeflaters : deflateDeflaters;
+		int level = gzip ? gzipLevel : deflateLevel;
+		Deflater deflater = pool.get();
+		if (deflater == null) {
+			return new Deflater(level, gzip);
+		}
+		pool.set(null);
+		deflater.reset();
+		deflater.setLevel(level);
+		return deflater;
+	}
+
+	/**
+	 * Update metrics and return deflater to current thread pool. If pool slot is already filled, e.g. compression was finished
+	 * on a thread different from that started it, deflater is released.
+	 *
+	 * @param deflater deflater to return,
+	 * @param gzip flag true for GZIP encoding,
+	 * @param processingTime time spent on compression, in nanoseconds.
+	 */
+	void release(Deflater deflater, boolean gzip, long processingTime) {
+		compressedResponses.incrementAndGet();
+		uncompressedBytes.addAndGet(deflater.getBytesRead());
+		compressedBytes.addAndGet(deflater.getBytesWritten());
+		this.processingTime.addAndGet(processingTime);
+
+		ThreadLocal<Deflater> pool = gzip ? gzipDeflaters : deflateDeflaters;
+		if (pool.get() == null) {
+			pool.set(deflater);
+		} else {
+			deflater.end();
+		}
+	}
+
+	public long getCompressedResponses() {
+		return compressedResponses.get();
+	}
+
+	public long getUncompressedBytes() {
+		return uncompressedBytes.get();
+	}
+
+	public long getCompressedBytes() {
+		return compressedBytes.get();
+	}
+
+	/**
+	 * Get total time spent on compression, in nanoseconds.
+	 *
+	 * @return compression processing time.
+	 */
+	public long getProcessingTime() {
+		return processingTime.get();
+	}
+}
@@ -2,12 +2,15 @@ package com.jslib.container.http.encoder;
 
 import java.lang.reflect.Type;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.stream.Stream;
 
 import com.jslib.api.log.Log;
 import com.jslib.api.log.LogFactory;
 import com.jslib.container.http.ContentType;
+import com.jslib.container.spi.IContainer;
 
 import jakarta.servlet.http.HttpServletRequest;
 import com.jslib.api.dom.Document;
@@ -32,6 +35,30 @@ public class ServerEncoders implements ArgumentsReaderFactory, ValueWriterFactor
 	/** Class logger. */
 	private static final Log log = LogFactory.getLog(ServerEncoders.class);
 
+	/**
+	 * Context parameter for response buffer size, in bytes. Responses smaller than this value are sent in a single write and
+	 * with <code>Content-Length</code> header; larger responses are streamed.
+	 */
+	public static final String PARAM_RESPONSE_BUFFER_SIZE = "com.jslib.container.encoder.response.buffer.size";
+
+	/** Default value for response buffer size, in bytes. */
+	private static final int DEFAULT_RESPONSE_BUFFER_SIZE = 32768;
+
+	/**
+	 * Context parameter for the number of items after which a streamed sequence response is flushed. If not set, or zero,
+	 * sequence responses are buffered like any other response and flushed only when response buffer is full.
+	 */
+	public static final String PARAM_STREAMING_FLUSH_ITEMS = "com.jslib.container.encoder.streaming.flush.items";
+
+	/**
+	 * Context parameter for maximum size, in characters, of a single item from a streamed request body, see
+	 * {@link JsonStreamArgumentsReader}.
+	 */
+	public static final String PARAM_STREAMING_ITEM_MAX_SIZE = "com.jslib.container.encoder.streaming.item.max.size";
+
+	/** Default value for streamed request body item maximum size, in characters. */
+	private static final int DEFAULT_STREAMING_ITEM_MAX_SIZE = 1048576;
+
 	/** Server encoders singleton. */
 	private static final ServerEncoders instance = new ServerEncoders();
 
@@ -50,6 +77,21 @@ public class ServerEncoders implements ArgumentsReaderFactory, ValueWriterFactor
 	/** Registered return value writers. */
 	private final Map<ContentType, ValueWriter> writers = new HashMap<>();
 
+	/** Response buffer size, in bytes, see {@link #PARAM_RESPONSE_BUFFER_SIZE}. */
+	private volatile int responseBufferSize = DEFAULT_RESPONSE_BUFFER_SIZE;
+
+	/** Number of items between sequence response flushes, see {@link #PARAM_STREAMING_FLUSH_ITEMS}. */
+	private volatile int streamingFlushItems;
+
+	/** Streamed request body item maximum size, see {@link #PARAM_STREAMING_ITEM_MAX_SIZE}. */
+	private volatile int streamingItemMaxSize = DEFAULT_STREAMING_ITEM_MAX_SIZE;
+
+	/** Response compression negotiated from request accepted encodings. */
+	private final ResponseCompression responseCompression = new ResponseCompression();
+
+	/** Request body decompression for compressed content codings. */
+	private final RequestDecompression requestDecompression = new RequestDecompression();
+
 	/**
 	 * Construct server encoders instance. Loads invocation arguments readers and return value writers, both built-in and
 	 * provided by service implementation of {@link HttpEncoderProvider} interface.
@@ -62,9 +104,17 @@ public class ServerEncoders implements ArgumentsReaderFactory, ValueWriterFactor
 		readers.put(new EncoderKey(ContentType.MULTIPART_FORM), new MultipartFormArgumentsReader());
 		readers.put(new EncoderKey(ContentType.URLENCODED_FORM), new FormUrlArgumentsReader());
 
-		writers.put(ContentType.TEXT_PLAIN, new PlainTextValueWriter());
-		writers.put(ContentType.APPLICATION_STREAM, new StreamValueWriter());
-		writers.put(ContentType.APPLICATION_JSON, new JsonValueWriter());
+		// Iterator and Stream entity parameters are read lazily, item by item, from JSON array or newline delimited JSON
+		ArgumentsReader jsonStreamReader = new JsonStreamArgumentsReader(this, false);
+		ArgumentsReader ndjsonStreamReader = new JsonStreamArgumentsReader(this, true);
+		readers.put(new EncoderKey(ContentType.APPLICATION_JSON, Iterator.class), jsonStreamReader);
+		readers.put(new EncoderKey(ContentType.APPLICATION_JSON, Stream.class), jsonStreamReader);
+		readers.put(new EncoderKey(ContentType.APPLICATION_NDJSON), ndjsonStreamReader);
+
+		writers.put(ContentType.TEXT_PLAIN, new PlainTextValueWriter(this));
+		writers.put(ContentType.APPLICATION_STREAM, new StreamValueWriter(this));
+		writers.put(ContentType.APPLICATION_JSON, new JsonValueWriter(this));
+		writers.put(ContentType.APPLICATION_NDJSON, new NdjsonValueWriter(this));
 
 		for (HttpEncoderProvider encoderProvider : ServiceLoader.load(HttpEncoderProvider.class)) {
 			for (Map.Entry<EncoderKey, ArgumentsReader> entry : encoderProvider.getArgumentsReaders().entrySet()) {
@@ -78,6 +128,80 @@ public class ServerEncoders implements ArgumentsReaderFactory, ValueWriterFactor
 		}
 	}
 
+	/**
+	 * Load encoders configuration from container initialization parameters. Parameters not defined keep their default values.
+	 * This method is idempotent and is invoked by every application servlet at its initialization.
+	 * 
+	 * @param container parent container.
+	 */
+	public void configure(IContainer container) {
+		Integer responseBufferSize = container.getInitParameter(PARAM_RESPONSE_BUFFER_SIZE, Integer.class);
+		if (responseBufferSize != null) {
+			log.debug("Set response buffer size to |{buffer_size}| bytes.", responseBufferSize);
+			this.responseBufferSize = responseBufferSize;
+		}
+		Integer streamingFlushItems = container.getInitParameter(PARAM_STREAMING_FLUSH_ITEMS, Integer.class);
+		if (streamingFlushItems != null) {
+			log.debug("Set streaming flush to every |{items_count}| items.", streamingFlushItems);
+			this.streamingFlushItems = streamingFlushItems;
+		}
+		Integer streamingItemMaxSize = container.getInitParameter(PARAM_STREAMING_ITEM_MAX_SIZE, Integer.class);
+		if (streamingItemMaxSize != null) {
+			log.debug("Set streaming request item max size to |{max_size}| characters.", streamingItemMaxSize);
+			this.streamingItemMaxSize = streamingItemMaxSize;
+		}
+		responseCompression.configure(container);
+		requestDecompression.configure(container);
+	}
+
+	/**
+	 * Get response buffer size, in bytes.
+	 * 
+	 * @return response buffer size.
+	 * @see #PARAM_RESPONSE_BUFFER_SIZE
+	 */
+	public int getResponseBufferSize() {
+		return responseBufferSize;
+	}
+
+	/**
+	 * Get the number of items after which a streamed sequence response is flushed, zero if explicit flush is disabled.
+	 * 
+	 * @return number of items between flushes.
+	 * @see #PARAM_STREAMING_FLUSH_ITEMS
+	 */
+	public int getStreamingFlushItems() {
+		return streamingFlushItems;
+	}
+
+	/**
+	 * Get maximum size, in characters, of a single item from a streamed request body.
+	 * 
+	 * @return item maximum size.
+	 * @see #PARAM_STREAMING_ITEM_MAX_SIZE
+	 */
+	public int getStreamingItemMaxSize() {
+		return streamingItemMaxSize;
+	}
+
+	/**
+	 * Get response compression service. Returned instance also exposes compression metrics.
+	 * 
+	 * @return response compression.
+	 */
+	public ResponseCompression getResponseCompression() {
+		return responseCompression;
+	}
+
+	/**
+	 * Get request decompression service. Returned instance also exposes decompression metrics.
+	 * 
+	 * @return request decompression.
+	 */
+	public RequestDecompression getRequestDecompression() {
+		return requestDecompression;
+	}
+
 	/**
 	 * Get arguments reader able to process arguments from HTTP request accordingly expected argument types. If HTTP request has
 	 * no content type returns {@link EncoderKey#APPLICATION_JSON} reader, that is, tiny container default content type is JSON.
@@ -127,7 +251,8 @@ public class ServerEncoders implements ArgumentsReaderFactory, ValueWriterFactor
 	 */
 	private ArgumentsReader getArgumentsReader(String contentType, Type parameterType) {
 		if (contentType == null) {
-			return readers.get(EncoderKey.APPLICATION_JSON);
+			ArgumentsReader reader = readers.get(new EncoderKey(ContentType.APPLICATION_JSON, parameterType));
+			return reader != null ? reader : readers.get(EncoderKey.APPLICATION_JSON);
 		}
 
 		EncoderKey key = new EncoderKey(ContentType.valueOf(contentType), parameterType);
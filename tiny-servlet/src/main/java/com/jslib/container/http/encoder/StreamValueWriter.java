@@ -3,6 +3,9 @@ package com.jslib.container.http.encoder;
 import java.io.IOException;
 import java.io.OutputStream;
 
+import com.jslib.container.http.HttpHeader;
+
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import com.jslib.io.StreamHandler;
 
@@ -26,11 +29,21 @@ import com.jslib.io.StreamHandler;
  * 	}
  * }
  * </pre>
+ * <p>
+ * Since stream size is not known in advance, compression is decided on content type only; by default
+ * <code>application/octet-stream</code> is not on compression allowed types list.
  * 
  * @author Iulian Rotaru
  * @version final
  */
 final class StreamValueWriter implements ValueWriter {
+	/** Server encoders registry, used for response compression. */
+	private final ServerEncoders encoders;
+
+	public StreamValueWriter(ServerEncoders encoders) {
+		this.encoders = encoders;
+	}
+
 	/**
 	 * Write bytes to output stream of HTTP response. This method invokes {@link StreamHandler#invokeHandler(OutputStream)} with
 	 * HTTP response output stream. Stream handler instance is created by application and allows application logic access to
@@ -44,4 +57,34 @@ final class StreamValueWriter implements ValueWriter {
 	public void write(HttpServletResponse httpResponse, Object value) throws IOException {
 		((StreamHandler<?>) value).invokeHandler(httpResponse.getOutputStream());
 	}
+
+	/**
+	 * Write bytes to output stream of HTTP response, compressed if response content type allows it and client accepts it.
+	 * 
+	 * @param httpRequest HTTP request, possible null,
+	 * @param httpResponse HTTP response,
+	 * @param value object value is a stream handler instance created by application code.
+	 * @throws IOException if writing to HTTP response output stream fails.
+	 */
+	@Override
+	public void write(HttpServletRequest httpRequest, HttpServletResponse httpResponse, Object value) throws IOException {
+		ResponseCompression compression = encoders.getResponseCompression();
+		String encoding = compression.negotiate(httpRequest, httpResponse);
+		if (encoding == null) {
+			write(httpResponse, value);
+			return;
+		}
+
+		httpResponse.setHeader(HttpHeader.CONTENT_ENCODING, encoding);
+		CompressedOutputStream stream = compression.getOutputStream(httpResponse.getOutputStream(), encoding);
+		try {
+			((StreamHandler<?>) value).invokeHandler(stream);
+		} catch (Throwable t) {
+			// compression is not finished on failure since it would send truncated body as complete response
+			stream.abort();
+			throw t;
+		}
+		// close compressed stream does not close HTTP response output stream, just finish compression
+		stream.close();
+	}
 }
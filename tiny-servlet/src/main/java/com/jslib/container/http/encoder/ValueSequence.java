@@ -0,0 +1,134 @@
+package com.jslib.container.http.encoder;
+
+import java.io.Closeable;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.stream.BaseStream;
+
+import com.jslib.api.json.Json;
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+
+/**
+ * Sequence of items from a return value that is serialized incrementally, item by item, so that the whole sequence is never
+ * materialized in memory. Supported sources are {@link BaseStream}, {@link Iterator} and {@link Iterable}; sequence is closed
+ * when iteration ends, successfully or not. If source is closeable - streams always are, it is closed too.
+ * <p>
+ * This class is single use and is not thread safe.
+ *
+ * @author Iulian Rotaru
+ */
+final class ValueSequence implements Closeable {
+	private static final Log log = LogFactory.getLog(ValueSequence.class);
+
+	/**
+	 * Test if value should be serialized incrementally. Collections are not considered sequences since they are already in
+	 * memory and serializer handles them directly.
+	 *
+	 * @param value return value, possible null.
+	 * @return true if value is a stream, iterator or iterable other than a collection.
+	 */
+	public static boolean isSequence(Object value) {
+		return value instanceof BaseStream || value instanceof Iterator || (value instanceof Iterable && !(value instanceof Collection));
+	}
+
+	/**
+	 * Create sequence for given return value. If value is not a stream, iterator or iterable returns a sequence with value as
+	 * single item.
+	 *
+	 * @param value return value, possible null.
+	 * @return value sequence.
+	 */
+	public static ValueSequence of(Object value) {
+		if (value instanceof BaseStream) {
+			return new ValueSequence(((BaseStream<?, ?>) value).iterator(), (BaseStream<?, ?>) value);
+		}
+		if (value instanceof Iterator) {
+			return new ValueSequence((Iterator<?>) value, value);
+		}
+		if (value instanceof Iterable) {
+			return new ValueSequence(((Iterable<?>) value).iterator(), value);
+		}
+		return new ValueSequence(Collections.singleton(value).iterator(), null);
+	}
+
+	private final Iterator<?> iterator;
+	/** Sequence source, closed on sequence close if it is auto closeable; null if there is nothing to close. */
+	private final Object source;
+
+	private ValueSequence(Iterator<?> iterator, Object source) {
+		this.iterator = iterator;
+		this.source = source;
+	}
+
+	/**
+	 * Serialize sequence items, either as JSON array or as newline delimited JSON. If flush items count is positive writer is
+	 * flushed after every that many items; otherwise is flushed only when underlying buffers are full.
+	 *
+	 * @param json JSON serializer,
+	 * @param writer characters writer,
+	 * @param lines flag true for newline delimited JSON, false for JSON array,
+	 * @param flushItems number of items between flushes, zero to disable explicit flush.
+	 * @throws IOException if writing fails.
+	 */
+	public void write(Json json, Writer writer, boolean lines, int flushItems) throws IOException {
+		// JSON serializer may close the writer; item writer prevents closing after every item
+		Writer itemWriter = new ItemWriter(writer);
+		if (!lines) {
+			writer.write('[');
+		}
+		int count = 0;
+		while (iterator.hasNext()) {
+			if (!lines && count > 0) {
+				writer.write(',');
+			}
+			json.stringify(itemWriter, iterator.next());
+			if (lines) {
+				writer.write('\n');
+			}
+			++count;
+			if (flushItems > 0 && count % flushItems == 0) {
+				writer.flush();
+			}
+		}
+		if (!lines) {
+			writer.write(']');
+		}
+	}
+
+	@Override
+	public void close() {
+		if (source instanceof AutoCloseable) {
+			try {
+				((AutoCloseable) source).close();
+			} catch (Exception e) {
+				log.error("Fail to close value sequence source |{java_type}|: {exception}", source.getClass(), e);
+			}
+		}
+	}
+
+	/**
+	 * Writer for sequence items that ignores flush and close requests from JSON serializer. Parent writer is closed by value writer after
+	 * sequence end.
+	 *
+	 * @author Iulian Rotaru
+	 */
+	private static class ItemWriter extends FilterWriter {
+		public ItemWriter(Writer writer) {
+			super(writer);
+		}
+
+		@Override
+		public void flush() {
+			// JSON serializer may flush after every item; flush is controlled by sequence write
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
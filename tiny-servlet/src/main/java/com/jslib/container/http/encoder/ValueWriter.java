@@ -3,6 +3,7 @@ package com.jslib.container.http.encoder;
 import java.io.IOException;
 import java.io.OutputStream;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 /**
@@ -12,6 +13,9 @@ import jakarta.servlet.http.HttpServletResponse;
  * <p>
  * Implementation should not close HTTP response output stream, but flush is recommended. HTTP response close is performed by
  * outer logic.
+ * <p>
+ * Servlets should use {@link #write(HttpServletRequest, HttpServletResponse, Object)} so that value writer has access to request
+ * headers, e.g. for content coding negotiation. Default implementation ignores the request.
  * 
  * @author Iulian Rotaru
  * @version final
@@ -25,4 +29,17 @@ public interface ValueWriter {
 	 * @throws IOException if writing to HTTP response output stream fails.
 	 */
 	void write(HttpServletResponse httpResponse, Object value) throws IOException;
+
+	/**
+	 * Serialize value to HTTP response output stream, considering HTTP request headers. Default implementation delegates
+	 * {@link #write(HttpServletResponse, Object)}; built-in writers override it to negotiate response compression.
+	 * 
+	 * @param httpRequest HTTP request,
+	 * @param httpResponse HTTP response,
+	 * @param value return value.
+	 * @throws IOException if writing to HTTP response output stream fails.
+	 */
+	default void write(HttpServletRequest httpRequest, HttpServletResponse httpResponse, Object value) throws IOException {
+		write(httpResponse, value);
+	}
 }
@@ -5,6 +5,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.rmi.RemoteException;
 import java.security.GeneralSecurityException;
 import java.security.Principal;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.jslib.api.json.Json;
@@ -12,9 +14,14 @@ import com.jslib.api.log.Log;
 import com.jslib.api.log.LogFactory;
 import com.jslib.container.http.ContentType;
 import com.jslib.container.http.HttpHeader;
+import com.jslib.container.http.cache.ResponseCache;
+import com.jslib.container.http.encoder.PayloadTooLargeException;
+import com.jslib.container.http.encoder.ServerEncoders;
 import com.jslib.container.spi.CT;
 import com.jslib.container.spi.Factory;
 import com.jslib.container.spi.IContainer;
+import com.jslib.container.spi.IManagedMethod;
+import com.jslib.container.spi.ISecurityContext;
 import com.jslib.container.spi.ITinyContainer;
 import com.jslib.lang.InvocationException;
 import com.jslib.rmi.BusinessException;
@@ -128,6 +135,8 @@ public abstract class AppServlet extends HttpServlet {
 			log.fatal("Tiny container instance not properly created, probably misconfigured. Servlet {servlet} permanently unvailable.", config.getServletName());
 			throw new UnavailableException("Tiny container instance not properly created, probably misconfigured.");
 		}
+		ServerEncoders.getInstance().configure(container);
+		ResponseCache.getInstance().configure(container);
 	}
 
 	/**
@@ -179,6 +188,9 @@ public abstract class AppServlet extends HttpServlet {
 		final long start = System.nanoTime();
 		log.trace("Processing request {http_method}:{http_url}.", httpRequest.getMethod(), httpRequest.getRequestURI());
 
+		// compressed request body is decompressed on the fly before any arguments reader runs
+		httpRequest = ServerEncoders.getInstance().getRequestDecompression().wrap(httpRequest);
+
 		// request context has THREAD scope and this request thread may be reused by servlet container
 		RequestContext requestContext = container.getInstance(RequestContext.class);
 		// takes care to properly initialize (attach) request context on every HTTP request
@@ -202,6 +214,8 @@ public abstract class AppServlet extends HttpServlet {
 			// there are opinions that 422 UNPROCESSABLE ENTITY is more appropriate response
 			// see https://httpstatuses.com/422
 			sendBadRequest(requestContext);
+		} catch (PayloadTooLargeException e) {
+			sendPayloadTooLarge(requestContext, e);
 		} catch (IOException | ServletException | Error | RuntimeException t) {
 			// last line of defense; dump request context and throwable then dispatch exception to servlet container
 			// servlet container will generate response page using internal templates or <error-page>, if configured
@@ -223,6 +237,25 @@ public abstract class AppServlet extends HttpServlet {
 		LogFactory.getLogContext().put(CT.LOG_SERVICE_NAME, servletName);
 	}
 
+	/**
+	 * Check that current user is authorized to execute managed method, using {@link MethodSecurity} rules shared with security
+	 * invocation processor. Servlets should invoke this method before sending a response without executing managed method, e.g.
+	 * from server response cache, since authorization is performed only on managed method invocation. Does nothing if
+	 * application has no security provider.
+	 *
+	 * @param managedMethod managed method about to be served.
+	 * @throws GeneralSecurityException if current user is not authorized to execute managed method.
+	 */
+	protected void authorize(IManagedMethod managedMethod) throws GeneralSecurityException {
+		ISecurityContext security = container.getOptionalInstance(ISecurityContext.class);
+		if (security == null || MethodSecurity.isPublic(managedMethod)) {
+			return;
+		}
+		if (!MethodSecurity.isAuthorized(security, managedMethod)) {
+			throw new GeneralSecurityException("Not authorized access to " + managedMethod);
+		}
+	}
+
 	/**
 	 * Detect self-referenced request URI. It seems there are browsers considering empty string as valid URL pointing to current
 	 * loaded page. If we have an <code>img</code> element with empty <code>src</code> attribute browser will try to load that
@@ -315,6 +348,22 @@ public abstract class AppServlet extends HttpServlet {
 		context.getResponse().sendError(HttpServletResponse.SC_BAD_REQUEST, context.getRequestURI());
 	}
 
+	/**
+	 * Send response for request body exceeding configured size limit. Delegates servlet container,
+	 * {@link HttpServletResponse#sendError(int, String)} to send {@link HttpServletResponse#SC_REQUEST_ENTITY_TOO_LARGE}.
+	 * 
+	 * @param context request context,
+	 * @param exception exception describing exceeded limit.
+	 * @throws IOException if writing to HTTP response fails.
+	 */
+	private static void sendPayloadTooLarge(RequestContext context, PayloadTooLargeException exception) throws IOException {
+		log.error("Reject request for resource or service: {http_url}. {exception}", context.getRequestURI(), exception.getMessage());
+		if (context.getResponse().isCommitted()) {
+			return;
+		}
+		context.getResponse().sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, exception.getMessage());
+	}
+
 	/**
 	 * Send response for resource or service not found, containing the exception that describes missing entity. This method
 	 * sends back exception object wrapped in {@link RemoteException}. Response is encoded JSON and status code is
@@ -366,6 +415,38 @@ public abstract class AppServlet extends HttpServlet {
 		}
 	}
 
+	/**
+	 * Send error response for exception that completes an asynchronous request. Exceptions are mapped to HTTP status codes
+	 * the same as for synchronous request processing, see {@link #service(HttpServletRequest, HttpServletResponse)}, except
+	 * that exceptions bubbled up to servlet container on synchronous processing are sent as server errors, since there is no
+	 * servlet container dispatch to bubble up to. If response is already committed there is nothing to send.
+	 * 
+	 * @param context request context for asynchronous request,
+	 * @param throwable exception completing asynchronous request.
+	 * @throws IOException if writing to response stream fails.
+	 */
+	protected static void sendAsyncError(RequestContext context, Throwable throwable) throws IOException {
+		if ((throwable instanceof CompletionException || throwable instanceof ExecutionException) && throwable.getCause() != null) {
+			throwable = throwable.getCause();
+		}
+		if (context.getResponse().isCommitted()) {
+			log.fatal("Abort HTTP transaction. Asynchronous request failed after response commited.");
+			dumpError(context, throwable);
+			return;
+		}
+		if (throwable instanceof GeneralSecurityException) {
+			sendUnauthorized(context);
+		} else if (throwable instanceof ClassNotFoundException || throwable instanceof NoSuchMethodException) {
+			sendNotFound(context, (Exception) throwable);
+		} else if (throwable instanceof IllegalArgumentException) {
+			sendBadRequest(context);
+		} else if (throwable instanceof PayloadTooLargeException) {
+			sendPayloadTooLarge(context, (PayloadTooLargeException) throwable);
+		} else {
+			sendError(context, throwable);
+		}
+	}
+
 	/**
 	 * Dump throwable stack trace and request context to application logger.
 	 * 
@@ -0,0 +1,77 @@
+package com.jslib.container.servlet;
+
+import com.jslib.api.log.Log;
+import com.jslib.api.log.LogFactory;
+import com.jslib.container.spi.IManagedMethod;
+import com.jslib.container.spi.IManagedMethod.Flags;
+import com.jslib.container.spi.ISecurityContext;
+
+import jakarta.annotation.security.DenyAll;
+import jakarta.annotation.security.PermitAll;
+import jakarta.annotation.security.RolesAllowed;
+
+/**
+ * Authorization rules for managed methods, based on Jakarta security annotations. These rules are shared by security invocation
+ * processor, that checks access on managed method invocation, and by {@link AppServlet#authorize(IManagedMethod)}, used by
+ * servlets that send responses without invoking managed method, e.g. from server response cache.
+ * <p>
+ * Rules are:
+ * <ul>
+ * <li>managed method annotated with {@link PermitAll} is public,
+ * <li>managed method not annotated with {@link DenyAll} or {@link RolesAllowed} is public if declaring class is annotated with
+ * {@link PermitAll},
+ * <li>access is denied if managed method or declaring class is annotated with {@link DenyAll},
+ * <li>otherwise security context should be authorized for any of the roles declared by {@link RolesAllowed}, on managed
+ * method or declaring class; if there are no roles declared it is enough for security context to be authenticated.
+ * </ul>
+ *
+ * @author Iulian Rotaru
+ */
+public final class MethodSecurity {
+	private static final Log log = LogFactory.getLog(MethodSecurity.class);
+
+	private static final String[] EMPTY_ROLES = new String[0];
+
+	/**
+	 * Test if managed method is public, that is, it can be executed without authorization.
+	 *
+	 * @param managedMethod managed method.
+	 * @return true if managed method is public.
+	 */
+	public static boolean isPublic(IManagedMethod managedMethod) {
+		if (managedMethod.scanAnnotation(PermitAll.class) != null) {
+			return true;
+		}
+		if (managedMethod.scanAnnotation(DenyAll.class) != null) {
+			return false;
+		}
+		if (managedMethod.scanAnnotation(RolesAllowed.class) != null) {
+			return false;
+		}
+		return managedMethod.getDeclaringClass().scanAnnotation(PermitAll.class) != null;
+	}
+
+	/**
+	 * Test if security context is authorized to execute a not public managed method, see {@link #isPublic(IManagedMethod)}.
+	 *
+	 * @param security security context,
+	 * @param managedMethod managed method.
+	 * @return true if security context is authorized to execute managed method.
+	 */
+	public static boolean isAuthorized(ISecurityContext security, IManagedMethod managedMethod) {
+		if (managedMethod.scanAnnotation(DenyAll.class, Flags.INCLUDE_TYPES) != null) {
+			log.warn("Access denied to |{managed_method}|.", managedMethod);
+			return false;
+		}
+
+		RolesAllowed rolesAllowed = managedMethod.scanAnnotation(RolesAllowed.class, Flags.INCLUDE_TYPES);
+		if (!security.isAuthorized(rolesAllowed != null ? rolesAllowed.value() : EMPTY_ROLES)) {
+			log.info("Reject not authorized access to |{managed_method}|.", managedMethod);
+			return false;
+		}
+		return true;
+	}
+
+	private MethodSecurity() {
+	}
+}
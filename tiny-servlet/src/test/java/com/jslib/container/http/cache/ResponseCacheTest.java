@@ -0,0 +1,137 @@
+package com.jslib.container.http.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+public class ResponseCacheTest {
+	@Test
+	public void GivenStoredEntry_WhenGet_ThenHit() {
+		// given
+		ResponseCache cache = new ResponseCache(1024 * 1024);
+		cache.put("/rest/products", entry("/rest/products", 100, 60000));
+
+		// when
+		CacheEntry entry = cache.get("/rest/products");
+
+		// then
+		assertThat(entry, notNullValue());
+		assertThat(cache.getHits(), equalTo(1L));
+		assertThat(cache.getMisses(), equalTo(0L));
+	}
+
+	@Test
+	public void GivenExpiredEntry_WhenGet_ThenMiss() {
+		// given
+		ResponseCache cache = new ResponseCache(1024 * 1024);
+		cache.put("/rest/products", entry("/rest/products", 100, -1));
+
+		// when
+		CacheEntry entry = cache.get("/rest/products");
+
+		// then
+		assertThat(entry, nullValue());
+		assertThat(cache.getMisses(), equalTo(1L));
+		assertThat(cache.getEntriesCount(), equalTo(0));
+	}
+
+	@Test
+	public void GivenInvalidatedPrefix_WhenGet_ThenMiss() {
+		// given
+		ResponseCache cache = new ResponseCache(1024 * 1024);
+		cache.put("/rest/products/1", entry("/rest/products/1", 100, 60000));
+		cache.put("/rest/users/1", entry("/rest/users/1", 100, 60000));
+
+		// when
+		cache.invalidate("/rest/products");
+
+		// then
+		assertThat(cache.get("/rest/products/1"), nullValue());
+		assertThat(cache.get("/rest/users/1"), notNullValue());
+	}
+
+	@Test
+	public void GivenSiblingPath_WhenInvalidatePrefix_ThenSiblingKept() {
+		// given
+		ResponseCache cache = new ResponseCache(1024 * 1024);
+		cache.put("/rest/products", entry("/rest/products", 100, 60000));
+		cache.put("/rest/productsX/1", entry("/rest/productsX/1", 100, 60000));
+
+		// when
+		cache.invalidate("/rest/products");
+
+		// then
+		assertThat(cache.get("/rest/products"), nullValue());
+		assertThat(cache.get("/rest/productsX/1"), notNullValue());
+	}
+
+	@Test
+	public void GivenFullCacheAndColdCandidate_WhenPut_ThenRejected() {
+		// given
+		ResponseCache cache = new ResponseCache(2000);
+		cache.put("hot", entry("hot", 1000, 60000));
+		for (int i = 0; i < 5; ++i) {
+			cache.get("hot");
+		}
+
+		// when
+		boolean stored = cache.put("cold", entry("cold", 1000, 60000));
+
+		// then
+		assertThat(stored, equalTo(false));
+		assertThat(cache.getRejections(), equalTo(1L));
+		assertThat(cache.get("hot"), notNullValue());
+	}
+
+	@Test
+	public void GivenFullCacheAndFrequentCandidate_WhenPut_ThenVictimEvicted() {
+		// given
+		ResponseCache cache = new ResponseCache(2000);
+		cache.put("old", entry("old", 1000, 60000));
+		for (int i = 0; i < 5; ++i) {
+			cache.get("new");
+		}
+
+		// when
+		boolean stored = cache.put("new", entry("new", 1000, 60000));
+
+		// then
+		assertThat(stored, equalTo(true));
+		assertThat(cache.getEvictions(), equalTo(1L));
+		assertThat(cache.get("old"), nullValue());
+	}
+
+	@Test
+	public void GivenCorsHeaders_WhenPutCapture_ThenNotCached() {
+		// given
+		ResponseCache cache = new ResponseCache(1024 * 1024);
+		HttpServletResponse httpResponse = mock(HttpServletResponse.class);
+		when(httpResponse.getStatus()).thenReturn(200);
+		when(httpResponse.getHeaderNames()).thenReturn(Arrays.asList("ETag", "Access-Control-Allow-Origin", "Vary"));
+		when(httpResponse.getHeaders("ETag")).thenReturn(Arrays.asList("\"1\""));
+		when(httpResponse.getHeaders("Vary")).thenReturn(Arrays.asList("Origin", "Accept"));
+
+		// when
+		cache.put("/rest/products\nencoding:identity", cache.capture(httpResponse), 60);
+
+		// then
+		CacheEntry entry = cache.get("/rest/products\nencoding:identity");
+		assertThat(entry.getHeader("ETag"), equalTo("\"1\""));
+		assertThat(entry.getHeader("Vary"), equalTo("Accept"));
+		assertThat(entry.getHeader("Access-Control-Allow-Origin"), nullValue());
+	}
+
+	private static CacheEntry entry(String path, int size, long ttl) {
+		return new CacheEntry(path, "application/json", Collections.emptyList(), new byte[size], System.currentTimeMillis() + ttl);
+	}
+}
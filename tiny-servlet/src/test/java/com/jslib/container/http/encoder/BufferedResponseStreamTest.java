@@ -0,0 +1,120 @@
+package com.jslib.container.http.encoder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.jslib.util.Classes;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BufferedResponseStreamTest {
+	@Mock
+	private HttpServletResponse httpResponse;
+
+	private ByteArrayOutputStream body;
+
+	@Before
+	public void beforeTest() throws IOException {
+		body = new ByteArrayOutputStream();
+		when(httpResponse.getOutputStream()).thenReturn(new OutputStreamStub(body));
+	}
+
+	@Test
+	public void GivenSmallBody_WhenClose_ThenContentLengthAndSingleWrite() throws IOException {
+		// given
+		BufferedResponseStream stream = new BufferedResponseStream(httpResponse, 16);
+
+		// when
+		stream.write("small".getBytes());
+		stream.flush();
+		stream.close();
+
+		// then
+		verify(httpResponse, times(1)).setContentLength(5);
+		assertThat(body.toString(), equalTo("small"));
+	}
+
+	@Test
+	public void GivenLargeBody_WhenWrite_ThenStreamingAndNoContentLength() throws IOException {
+		// given
+		BufferedResponseStream stream = new BufferedResponseStream(httpResponse, 4);
+
+		// when
+		stream.write("large".getBytes());
+		stream.write(" body".getBytes());
+		stream.close();
+
+		// then
+		verify(httpResponse, never()).setContentLength(anyInt());
+		assertThat(body.toString(), equalTo("large body"));
+	}
+
+	@Test
+	public void GivenLargeBufferedBody_WhenClose_ThenBufferNotPooled() throws IOException {
+		// given
+		BufferedResponseStream stream = new BufferedResponseStream(httpResponse, 1048576);
+		stream.write(new byte[262144]);
+
+		// when
+		stream.close();
+
+		// then
+		byte[] buffer = Classes.getFieldValue(new BufferedResponseStream(httpResponse, 1048576), "buffer");
+		assertThat(buffer.length <= 65536, equalTo(true));
+	}
+
+	@Test
+	public void GivenClosedStream_WhenCloseAgain_ThenNoSecondWrite() throws IOException {
+		// given
+		BufferedResponseStream stream = new BufferedResponseStream(httpResponse, 16);
+		stream.write('x');
+		stream.close();
+
+		// when
+		stream.close();
+
+		// then
+		verify(httpResponse, times(1)).setContentLength(eq(1));
+		assertThat(body.toString(), equalTo("x"));
+	}
+
+	private static class OutputStreamStub extends ServletOutputStream {
+		private final ByteArrayOutputStream stream;
+
+		public OutputStreamStub(ByteArrayOutputStream stream) {
+			this.stream = stream;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			stream.write(b);
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+		}
+	}
+}
@@ -0,0 +1,176 @@
+package com.jslib.container.http.encoder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.jslib.api.json.Json;
+import com.jslib.lang.IllegalArgumentException;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JsonStreamArgumentsReaderTest {
+	@Mock
+	private Json json;
+	@Mock
+	private ServerEncoders encoders;
+	@Mock
+	private HttpServletRequest httpRequest;
+
+	private Type iteratorType;
+	private Type streamType;
+
+	@Before
+	public void beforeTest() throws Exception {
+		when(encoders.getStreamingItemMaxSize()).thenReturn(16);
+		iteratorType = getClass().getDeclaredMethod("iterator", Iterator.class).getGenericParameterTypes()[0];
+		streamType = getClass().getDeclaredMethod("stream", Stream.class).getGenericParameterTypes()[0];
+	}
+
+	@Test
+	public void GivenJsonArray_WhenReadIterator_ThenItems() throws IOException {
+		// given
+		body(" [1, \"a,]b\", {\"x\":[1,2]}, null] ");
+		parser();
+		JsonStreamArgumentsReader reader = new JsonStreamArgumentsReader(json, encoders, false);
+
+		// when
+		Object[] arguments = reader.read(httpRequest, new Type[] { iteratorType });
+
+		// then
+		assertThat(arguments[0], instanceOf(Iterator.class));
+		assertThat(items((Iterator<?>) arguments[0]), contains("1", "\"a,]b\"", "{\"x\":[1,2]}", "null"));
+	}
+
+	@Test
+	public void GivenNewlineDelimitedJson_WhenReadStream_ThenItems() throws IOException {
+		// given
+		body("{\"a\":1}\r\n\n{\"b\":2}\n");
+		parser();
+		JsonStreamArgumentsReader reader = new JsonStreamArgumentsReader(json, encoders, true);
+
+		// when
+		Object[] arguments = reader.read(httpRequest, new Type[] { streamType });
+
+		// then
+		assertThat(arguments[0], instanceOf(Stream.class));
+		assertThat(((Stream<?>) arguments[0]).collect(Collectors.toList()), contains("{\"a\":1}", "{\"b\":2}"));
+	}
+
+	@Test
+	public void GivenEmptyJsonArray_WhenReadIterator_ThenNoItems() throws IOException {
+		// given
+		body("[]");
+		JsonStreamArgumentsReader reader = new JsonStreamArgumentsReader(json, encoders, false);
+
+		// when
+		Object[] arguments = reader.read(httpRequest, new Type[] { iteratorType });
+
+		// then
+		assertThat(items((Iterator<?>) arguments[0]), empty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void GivenItemOverLimit_WhenIterate_ThenException() throws IOException {
+		// given
+		body("[\"0123456789abcdef\"]");
+		JsonStreamArgumentsReader reader = new JsonStreamArgumentsReader(json, encoders, false);
+
+		// when
+		Object[] arguments = reader.read(httpRequest, new Type[] { iteratorType });
+		items((Iterator<?>) arguments[0]);
+
+		// then
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void GivenTruncatedJsonArray_WhenIterate_ThenException() throws IOException {
+		// given
+		body("[1, 2");
+		parser();
+		JsonStreamArgumentsReader reader = new JsonStreamArgumentsReader(json, encoders, false);
+
+		// when
+		Object[] arguments = reader.read(httpRequest, new Type[] { iteratorType });
+		items((Iterator<?>) arguments[0]);
+
+		// then
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@SuppressWarnings("unused")
+	private void iterator(Iterator<String> items) {
+	}
+
+	@SuppressWarnings("unused")
+	private void stream(Stream<String> items) {
+	}
+
+	/** JSON parser stub returns item text. */
+	private void parser() throws IOException {
+		when(json.parse(any(Reader.class), eq(String.class))).thenAnswer(invocation -> {
+			Reader reader = invocation.getArgument(0);
+			StringBuilder builder = new StringBuilder();
+			int c;
+			while ((c = reader.read()) != -1) {
+				builder.append((char) c);
+			}
+			return builder.toString();
+		});
+	}
+
+	private void body(String body) throws IOException {
+		ByteArrayInputStream stream = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+		when(httpRequest.getInputStream()).thenReturn(new ServletInputStream() {
+			@Override
+			public int read() {
+				return stream.read();
+			}
+
+			@Override
+			public boolean isFinished() {
+				return stream.available() == 0;
+			}
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setReadListener(ReadListener readListener) {
+			}
+		});
+	}
+
+	private static List<Object> items(Iterator<?> iterator) {
+		List<Object> items = new ArrayList<>();
+		iterator.forEachRemaining(items::add);
+		return items;
+	}
+}
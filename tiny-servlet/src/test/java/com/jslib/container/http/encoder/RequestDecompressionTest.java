@@ -0,0 +1,179 @@
+package com.jslib.container.http.encoder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RequestDecompressionTest {
+	private static final String TEXT = "compressible text, compressible text, compressible text";
+
+	@Mock
+	private HttpServletRequest httpRequest;
+
+	private RequestDecompression decompression;
+
+	@Before
+	public void beforeTest() {
+		decompression = new RequestDecompression();
+	}
+
+	@Test
+	public void GivenMissingContentEncoding_WhenWrap_ThenSameRequest() {
+		assertThat(decompression.wrap(httpRequest), sameInstance(httpRequest));
+	}
+
+	@Test
+	public void GivenGzipBody_WhenRead_ThenDecompressed() throws IOException {
+		// given
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		try (GZIPOutputStream stream = new GZIPOutputStream(body)) {
+			stream.write(TEXT.getBytes("UTF-8"));
+		}
+		when(httpRequest.getHeader("Content-Encoding")).thenReturn("gzip");
+		when(httpRequest.getInputStream()).thenReturn(new InputStreamStub(body.toByteArray()));
+
+		// when
+		HttpServletRequest request = decompression.wrap(httpRequest);
+
+		// then
+		assertThat(request, instanceOf(DecompressedRequest.class));
+		assertThat(request.getContentLength(), equalTo(-1));
+		assertThat(request.getHeader("Content-Encoding"), nullValue());
+		assertThat(read(request.getInputStream()), equalTo(TEXT));
+		assertThat(decompression.getDecompressedRequests(), equalTo(1L));
+		assertThat(decompression.getDecompressedBytes(), equalTo((long) TEXT.length()));
+	}
+
+	@Test
+	public void GivenZlibBody_WhenRead_ThenDecompressed() throws IOException {
+		// given
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		try (DeflaterOutputStream stream = new DeflaterOutputStream(body)) {
+			stream.write(TEXT.getBytes("UTF-8"));
+		}
+		when(httpRequest.getHeader("Content-Encoding")).thenReturn("deflate");
+		when(httpRequest.getInputStream()).thenReturn(new InputStreamStub(body.toByteArray()));
+
+		// when
+		HttpServletRequest request = decompression.wrap(httpRequest);
+
+		// then
+		assertThat(read(request.getInputStream()), equalTo(TEXT));
+	}
+
+	@Test
+	public void GivenRawDeflateBody_WhenRead_ThenDecompressed() throws IOException {
+		// given
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		try (DeflaterOutputStream stream = new DeflaterOutputStream(body, new Deflater(Deflater.DEFAULT_COMPRESSION, true))) {
+			stream.write(TEXT.getBytes("UTF-8"));
+		}
+		when(httpRequest.getHeader("Content-Encoding")).thenReturn("deflate");
+		when(httpRequest.getInputStream()).thenReturn(new InputStreamStub(body.toByteArray()));
+
+		// when
+		HttpServletRequest request = decompression.wrap(httpRequest);
+
+		// then
+		assertThat(read(request.getInputStream()), equalTo(TEXT));
+	}
+
+	@Test
+	public void GivenGzipBody_WhenGetHeaders_ThenEncodingAndLengthHidden() {
+		// given
+		when(httpRequest.getHeader("Content-Encoding")).thenReturn("gzip");
+		when(httpRequest.getHeaderNames()).thenReturn(Collections.enumeration(Arrays.asList("Content-Type", "Content-Encoding", "Content-Length")));
+
+		// when
+		HttpServletRequest request = decompression.wrap(httpRequest);
+
+		// then
+		assertThat(request.getHeaders("Content-Encoding").hasMoreElements(), equalTo(false));
+		assertThat(request.getIntHeader("Content-Length"), equalTo(-1));
+		assertThat(Collections.list(request.getHeaderNames()), contains("Content-Type"));
+		assertThat(request.getContentLengthLong(), equalTo(-1L));
+	}
+
+	@Test(expected = PayloadTooLargeException.class)
+	public void GivenBodyOverLimit_WhenRead_ThenException() throws IOException {
+		// given
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		try (GZIPOutputStream stream = new GZIPOutputStream(body)) {
+			stream.write(new byte[16 * 1024 * 1024]);
+		}
+		when(httpRequest.getHeader("Content-Encoding")).thenReturn("gzip");
+		when(httpRequest.getInputStream()).thenReturn(new InputStreamStub(body.toByteArray()));
+
+		// when
+		read(decompression.wrap(httpRequest).getInputStream());
+
+		// then
+	}
+
+	private static String read(InputStream stream) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int length;
+		while ((length = stream.read(buffer)) != -1) {
+			bytes.write(buffer, 0, length);
+		}
+		return bytes.toString("UTF-8");
+	}
+
+	private static class InputStreamStub extends ServletInputStream {
+		private final InputStream stream;
+
+		public InputStreamStub(byte[] bytes) {
+			this.stream = new ByteArrayInputStream(bytes);
+		}
+
+		@Override
+		public int read() throws IOException {
+			return stream.read();
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			return stream.read(bytes, offset, length);
+		}
+
+		@Override
+		public boolean isFinished() {
+			return false;
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setReadListener(ReadListener readListener) {
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package com.jslib.container.http.encoder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResponseCompressionTest {
+	private ResponseCompression compression;
+
+	@Before
+	public void beforeTest() {
+		compression = new ResponseCompression();
+	}
+
+	@Test
+	public void GivenGzipAndDeflate_WhenNegotiate_ThenGzip() {
+		assertThat(ResponseCompression.negotiate("gzip, deflate, br"), equalTo("gzip"));
+	}
+
+	@Test
+	public void GivenDeflateHigherQuality_WhenNegotiate_ThenDeflate() {
+		assertThat(ResponseCompression.negotiate("gzip;q=0.5, deflate"), equalTo("deflate"));
+	}
+
+	@Test
+	public void GivenWildcard_WhenNegotiate_ThenGzip() {
+		assertThat(ResponseCompression.negotiate("*"), equalTo("gzip"));
+	}
+
+	@Test
+	public void GivenGzipRejected_WhenNegotiate_ThenNull() {
+		assertThat(ResponseCompression.negotiate("gzip;q=0, identity"), nullValue());
+	}
+
+	@Test
+	public void GivenMissingHeader_WhenNegotiate_ThenNull() {
+		assertThat(ResponseCompression.negotiate(null), nullValue());
+	}
+
+	@Test
+	public void GivenGzipStream_WhenWrite_ThenValidGzip() throws IOException {
+		// given
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		String text = "compressible text, compressible text, compressible text";
+
+		// when
+		try (OutputStream stream = compression.getOutputStream(body, "gzip")) {
+			stream.write(text.getBytes("UTF-8"));
+		}
+
+		// then
+		assertThat(read(new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()))), equalTo(text));
+		assertThat(compression.getCompressedResponses(), equalTo(1L));
+		assertThat(compression.getUncompressedBytes(), equalTo((long) text.length()));
+	}
+
+	@Test
+	public void GivenDeflateStream_WhenWrite_ThenValidZlib() throws IOException {
+		// given
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		String text = "compressible text, compressible text, compressible text";
+
+		// when
+		try (OutputStream stream = compression.getOutputStream(body, "deflate")) {
+			stream.write(text.getBytes("UTF-8"));
+		}
+
+		// then
+		assertThat(read(new InflaterInputStream(new ByteArrayInputStream(body.toByteArray()))), equalTo(text));
+	}
+
+	@Test
+	public void GivenGzipStream_WhenAbort_ThenNoTrailer() throws IOException {
+		// given
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		CompressedOutputStream stream = compression.getOutputStream(body, "gzip");
+		stream.write("truncated".getBytes("UTF-8"));
+
+		// when
+		stream.abort();
+		stream.close();
+
+		// then
+		assertThat(body.size(), equalTo(10));
+		assertThat(compression.getCompressedResponses(), equalTo(0L));
+	}
+
+	private static String read(InputStream stream) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int length;
+		while ((length = stream.read(buffer)) != -1) {
+			bytes.write(buffer, 0, length);
+		}
+		return bytes.toString("UTF-8");
+	}
+}
@@ -0,0 +1,135 @@
+package com.jslib.container.http.encoder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.jslib.api.json.Json;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ValueSequenceTest {
+	@Mock
+	private Json json;
+	@Spy
+	private StringWriter writer;
+
+	@Before
+	public void beforeTest() throws IOException {
+		// JSON serializer stub writes item string value, flushes and closes the writer, as real serializer may do
+		doAnswer(invocation -> {
+			Writer itemWriter = invocation.getArgument(0);
+			itemWriter.write(invocation.getArgument(1).toString());
+			itemWriter.flush();
+			itemWriter.close();
+			return null;
+		}).when(json).stringify(any(Writer.class), any());
+	}
+
+	@Test
+	public void GivenStreamAndCollection_WhenIsSequence_ThenOnlyStream() {
+		// given
+
+		// when
+
+		// then
+		assertThat(ValueSequence.isSequence(Stream.of(1)), equalTo(true));
+		assertThat(ValueSequence.isSequence(Arrays.asList(1).iterator()), equalTo(true));
+		assertThat(ValueSequence.isSequence(Arrays.asList(1)), equalTo(false));
+		assertThat(ValueSequence.isSequence("value"), equalTo(false));
+		assertThat(ValueSequence.isSequence(null), equalTo(false));
+	}
+
+	@Test
+	public void GivenStream_WhenWriteArray_ThenJsonArrayAndStreamClosed() throws IOException {
+		// given
+		AtomicBoolean closed = new AtomicBoolean();
+		ValueSequence sequence = ValueSequence.of(Stream.of(1, 2, 3).onClose(() -> closed.set(true)));
+
+		// when
+		try (sequence) {
+			sequence.write(json, writer, false, 0);
+		}
+
+		// then
+		assertThat(writer.toString(), equalTo("[1,2,3]"));
+		assertThat(closed.get(), equalTo(true));
+	}
+
+	@Test
+	public void GivenEmptyIterator_WhenWriteArray_ThenEmptyJsonArray() throws IOException {
+		// given
+		ValueSequence sequence = ValueSequence.of(Collections.emptyIterator());
+
+		// when
+		sequence.write(json, writer, false, 0);
+
+		// then
+		assertThat(writer.toString(), equalTo("[]"));
+	}
+
+	@Test
+	public void GivenIterable_WhenWriteLines_ThenNewlineDelimited() throws IOException {
+		// given
+		ValueSequence sequence = ValueSequence.of(Arrays.asList("a", "b"));
+
+		// when
+		sequence.write(json, writer, true, 0);
+
+		// then
+		assertThat(writer.toString(), equalTo("a\nb\n"));
+	}
+
+	@Test
+	public void GivenSingleValue_WhenWriteLines_ThenSingleLine() throws IOException {
+		// given
+		ValueSequence sequence = ValueSequence.of("value");
+
+		// when
+		sequence.write(json, writer, true, 0);
+
+		// then
+		assertThat(writer.toString(), equalTo("value\n"));
+	}
+
+	@Test
+	public void GivenFlushItems_WhenWrite_ThenFlushEveryItems() throws IOException {
+		// given
+		ValueSequence sequence = ValueSequence.of(Stream.of(1, 2, 3, 4, 5));
+
+		// when
+		sequence.write(json, writer, true, 2);
+
+		// then
+		verify(writer, times(2)).flush();
+	}
+
+	@Test
+	public void GivenNoFlushItems_WhenWrite_ThenNoFlush() throws IOException {
+		// given
+		ValueSequence sequence = ValueSequence.of(Stream.of(1, 2, 3));
+
+		// when
+		sequence.write(json, writer, true, 0);
+
+		// then
+		verify(writer, times(0)).flush();
+	}
+}
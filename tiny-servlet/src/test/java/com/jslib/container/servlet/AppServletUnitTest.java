@@ -10,12 +10,14 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.security.GeneralSecurityException;
 import java.util.Locale;
 
 import org.junit.Before;
@@ -26,11 +28,15 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import com.jslib.api.json.Json;
+import com.jslib.container.spi.IManagedMethod;
+import com.jslib.container.spi.IManagedMethod.Flags;
+import com.jslib.container.spi.ISecurityContext;
 import com.jslib.container.spi.ITinyContainer;
 import com.jslib.lang.InvocationException;
 import com.jslib.rmi.BusinessException;
 import com.jslib.util.Classes;
 
+import jakarta.annotation.security.RolesAllowed;
 import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
@@ -457,6 +463,48 @@ public class AppServletUnitTest {
 		verify(requestContext, times(0)).dump();
 	}
 
+	@Test(expected = GeneralSecurityException.class)
+	public void GivenRolesNotGranted_WhenAuthorize_ThenException() throws Exception {
+		// given
+		AppServlet servlet = new AppServlet() {
+			@Override
+			protected void handleRequest(RequestContext requestContext) throws IOException, ServletException {
+			}
+		};
+		servlet.init(servletConfig);
+
+		ISecurityContext security = mock(ISecurityContext.class);
+		when(container.getOptionalInstance(ISecurityContext.class)).thenReturn(security);
+		RolesAllowed rolesAllowed = mock(RolesAllowed.class);
+		when(rolesAllowed.value()).thenReturn(new String[] { "admin" });
+		IManagedMethod managedMethod = mock(IManagedMethod.class);
+		when(managedMethod.scanAnnotation(RolesAllowed.class)).thenReturn(rolesAllowed);
+		when(managedMethod.scanAnnotation(RolesAllowed.class, Flags.INCLUDE_TYPES)).thenReturn(rolesAllowed);
+
+		// when
+		servlet.authorize(managedMethod);
+
+		// then
+	}
+
+	@Test
+	public void GivenNoSecurityProvider_WhenAuthorize_ThenGranted() throws Exception {
+		// given
+		AppServlet servlet = new AppServlet() {
+			@Override
+			protected void handleRequest(RequestContext requestContext) throws IOException, ServletException {
+			}
+		};
+		servlet.init(servletConfig);
+		IManagedMethod managedMethod = mock(IManagedMethod.class);
+
+		// when
+		servlet.authorize(managedMethod);
+
+		// then
+		verify(container, times(1)).getOptionalInstance(ISecurityContext.class);
+	}
+
 	// --------------------------------------------------------------------------------------------
 	// UTILITY METHODS
 
@@ -0,0 +1,50 @@
+package com.jslib.container.spi;
+
+/**
+ * Event bus connecting application nodes behind a load balancer, so that an event published on a node reaches clients
+ * connected to other nodes. Used by server push services, e.g. event streams and SSE broadcasters, that have no binding for
+ * this interface when application runs on a single node.
+ * <p>
+ * Messages are opaque bytes published on named channels; serialization is the publisher concern. A message is delivered to
+ * listeners subscribed to the same channel on all other nodes, but not to the publishing node: node-local subscribers are
+ * served directly by publisher, without a network hop. Delivery is best effort; implementations may lose messages, but should
+ * detect and log losses.
+ * <p>
+ * Event bus does not authenticate publishers; a message is not guaranteed to come from an application node. Listeners should
+ * treat messages as untrusted input and validate them before use, e.g. before loading classes named by message.
+ * <p>
+ * Listeners are invoked by bus internal thread and should not block.
+ *
+ * @author Iulian Rotaru
+ */
+public interface IEventBus {
+
+	/**
+	 * Publish message to given channel subscribers from all other nodes. This method does not block on network.
+	 *
+	 * @param channel channel name,
+	 * @param message message bytes.
+	 */
+	void publish(String channel, byte[] message);
+
+	/**
+	 * Subscribe listener for messages published on channel by other nodes.
+	 *
+	 * @param channel channel name,
+	 * @param listener message listener.
+	 */
+	void subscribe(String channel, Listener listener);
+
+	/**
+	 * Remove listener from channel subscribers. Does nothing if listener is not subscribed.
+	 *
+	 * @param channel channel name,
+	 * @param listener message listener.
+	 */
+	void unsubscribe(String channel, Listener listener);
+
+	@FunctionalInterface
+	static interface Listener {
+		void onMessage(byte[] message);
+	}
+}